@@ -15,8 +15,6 @@ import multichain.object.Address;
 import multichain.object.BalanceAssetGeneral;
 import multichain.object.KeyPairs;
 import multichain.object.MultiBalance;
-import multichain.object.formatters.AddressFormatter;
-import multichain.object.formatters.BalanceFormatter;
 
 /**
  * @author Ub - H. MARTEAU
@@ -28,6 +26,14 @@ public class AddressCommand extends QueryBuilderAddress {
 		initialize(ip, port, login, password, runtimeparameters);
 	}
 
+	public AddressCommand(MultiChainTransport transport, RuntimeParameters runtimeparameters) {
+		initialize(transport, runtimeparameters);
+	}
+
+	public AddressCommand(MultiChainCluster cluster, RuntimeParameters runtimeparameters) {
+		initialize(cluster, runtimeparameters);
+	}
+
 	/**
 	 * Creates public/private key pairs. These key pairs are not stored in the
 	 * wallet.
@@ -65,14 +71,7 @@ public class AddressCommand extends QueryBuilderAddress {
 	 * @throws MultichainException
 	 */
 	public List<KeyPairs> createKeyPairs(int numberOfPairs) throws MultichainException {
-		List<KeyPairs> listKeyPairs = new ArrayList<KeyPairs>();
-		Object objectKeyPairs = executeCreateKeyPairs(numberOfPairs);
-
-		if (verifyInstance(objectKeyPairs, ArrayList.class) && verifyInstanceofList((ArrayList<Object>) objectKeyPairs, KeyPairs.class)) {
-			listKeyPairs = AddressFormatter.formatKeyPairsList((ArrayList<Object>) objectKeyPairs);
-		}
-
-		return listKeyPairs;
+		return executeCreateKeyPairs(numberOfPairs);
 	}
 
 	/**
@@ -193,26 +192,16 @@ public class AddressCommand extends QueryBuilderAddress {
 	 * @return Addresses of the Wallet
 	 * @throws MultichainException
 	 */
-	@SuppressWarnings("unchecked")
 	public final List<Address> getAddressesList() throws MultichainException {
-		List<Address> addresses = new ArrayList<Address>();
-
-		Object objectAddresses = executeGetAddresses(true);
-		if (verifyInstance(objectAddresses, ArrayList.class) && verifyInstanceofList((ArrayList<Object>) objectAddresses, Address.class)) {
-			addresses = AddressFormatter.formatAddressesList((ArrayList<Object>) objectAddresses);
-		}
-
-		return addresses;
+		return executeGetAddressesList();
 	}
 	public final List<Address> getAddressesList(boolean verbose) throws MultichainException {
-		List<Address> addresses = new ArrayList<Address>();
-
-		Object objectAddresses = executeGetAddresses(verbose);
-		if (verifyInstance(objectAddresses, ArrayList.class) && verifyInstanceofList((ArrayList<Object>) objectAddresses, Address.class)) {
-			addresses = AddressFormatter.formatAddressesList((ArrayList<Object>) objectAddresses);
+		if (verbose) {
+			return executeGetAddressesList();
 		}
-
-		return addresses;
+		// without verbose the node returns plain strings, not addresses
+		executeGetAddresses(false);
+		return new ArrayList<Address>();
 	}	
 
 	/**
@@ -236,11 +225,8 @@ public class AddressCommand extends QueryBuilderAddress {
 	 * 
 	 * @return Balances
 	 */
-	@SuppressWarnings("unchecked")
 	public MultiBalance getMultiBalances(String[] addresses, String[] assets) throws MultichainException {
-		Object objectMultiBalance = executeGetMultiBalances(addresses, assets);
-
-		return BalanceFormatter.formatMultiBalance(objectMultiBalance);
+		return executeGetMultiBalances(addresses, assets);
 	}
 
 	/**
@@ -292,11 +278,8 @@ public class AddressCommand extends QueryBuilderAddress {
 	 * 
 	 * @return Balances
 	 */
-	@SuppressWarnings("unchecked")
 	public MultiBalance getMultiBalances(String[] addresses) throws MultichainException {
-		Object objectMultiBalance = executeGetMultiBalances(addresses);
-
-		return BalanceFormatter.formatMultiBalance(objectMultiBalance);
+		return executeGetMultiBalances(addresses);
 	}
 
 	/**
@@ -307,9 +290,7 @@ public class AddressCommand extends QueryBuilderAddress {
 	 * @throws MultichainException
 	 */
 	public MultiBalance getMultiBalances(String address) throws MultichainException {
-		Object objectMultiBalance = executeGetMultiBalances(address);
-
-		return BalanceFormatter.formatMultiBalance(objectMultiBalance);
+		return executeGetMultiBalances(address);
 	}
 
 	/**
@@ -319,9 +300,7 @@ public class AddressCommand extends QueryBuilderAddress {
 	 * @throws MultichainException
 	 */
 	public MultiBalance getMultiBalances() throws MultichainException {
-		Object objectMultiBalance = executeGetMultiBalances();
-
-		return BalanceFormatter.formatMultiBalance(objectMultiBalance);
+		return executeGetMultiBalances();
 	}
 
 	/**
@@ -340,14 +319,8 @@ public class AddressCommand extends QueryBuilderAddress {
 	 * @return Balance of the address
 	 * @throws MultichainException
 	 */
-	@SuppressWarnings("unchecked")
 	public List<BalanceAssetGeneral> getAddressBalances(String address) throws MultichainException {
-		List<BalanceAssetGeneral> balance = new ArrayList<BalanceAssetGeneral>();
-
-		Object objectBalances = executeGetAddressBalances(address);
-		balance = BalanceFormatter.formatBalanceAssetsGeneral((ArrayList<Object>) objectBalances);
-
-		return balance;
+		return executeGetAddressBalances(address);
 	}
 
 	/**
@@ -500,12 +473,7 @@ public class AddressCommand extends QueryBuilderAddress {
 	 * @throws MultichainException
 	 */
 	public final Address validateAddress(String stringAddress) throws MultichainException {
-		Address address = new Address();
-
-		Object objectAddressInfo = executeValidateAddress(stringAddress);
-		address = AddressFormatter.formatAddress(objectAddressInfo);
-
-		return address;
+		return executeValidateAddress(stringAddress);
 	}
 
 }
@@ -0,0 +1,1117 @@
+/*
+ * Copyright (C) 2017 Worldline, Inc.
+ *
+ * MultiChainJavaAPI code distributed under the GPLv3 license, see COPYING file.
+ * https://github.com/SimplyUb/MultiChainJavaAPI/blob/master/LICENSE
+ *
+ */
+package multichain.command;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import multichain.command.builders.QueryBuilderAsync;
+import multichain.command.tools.MultichainTestParameter;
+import multichain.object.Address;
+import multichain.object.BalanceAsset;
+import multichain.object.BalanceAssetGeneral;
+import multichain.object.Block;
+import multichain.object.KeyPairs;
+import multichain.object.MultiBalance;
+import multichain.object.Permission;
+import multichain.object.SignedTransactionRAW;
+import multichain.object.Stream;
+import multichain.object.StreamKey;
+import multichain.object.StreamKeyItem;
+import multichain.object.Transaction;
+import multichain.object.TransactionRAW;
+import multichain.object.TransactionWallet;
+import multichain.object.TransactionWalletDetailed;
+import multichain.object.TxOut;
+import multichain.object.WalletInfo;
+
+/**
+ * Non-blocking version of the commands : each method sends its call and returns
+ * at once a {@link CompletableFuture} of the formatted result.
+ *
+ * The calls go through the non-blocking client of the transport, so thousands
+ * of calls can be in flight with a few I/O threads. Errors, including the ones
+ * returned by the node, complete the future exceptionally with a
+ * {@link MultichainException}. Parameters are checked as by the blocking
+ * commands, before sending : a bad one fails the future without a call.
+ *
+ * <pre>
+ * AsyncCommand async = multiChainCommand.async();
+ * List&lt;CompletableFuture&lt;StreamKeyItem&gt;&gt; items = new ArrayList&lt;&gt;();
+ * for (String txid : txids) {
+ * 	items.add(async.getStreamItem("stream1", txid, true));
+ * }
+ * CompletableFuture.allOf(items.toArray(new CompletableFuture[0])).join();
+ * </pre>
+ *
+ * @author Ub - H. MARTEAU
+ * @version 4.15
+ */
+public class AsyncCommand extends QueryBuilderAsync {
+
+	public AsyncCommand(String ip, String port, String login, String password, RuntimeParameters runtimeparameters) {
+		initialize(ip, port, login, password, runtimeparameters);
+	}
+
+	public AsyncCommand(MultiChainTransport transport, RuntimeParameters runtimeparameters) {
+		initialize(transport, runtimeparameters);
+	}
+
+	public AsyncCommand(MultiChainCluster cluster, RuntimeParameters runtimeparameters) {
+		initialize(cluster, runtimeparameters);
+	}
+
+	/*
+	 * Block, see BlockCommand
+	 */
+
+	/**
+	 * getbestblockhash
+	 *
+	 * @return the hash of the tip of the longest chain
+	 */
+	public CompletableFuture<String> getBestBlockHash() {
+		return executeAsync(ResultFormatters.STRING, CommandEnum.GETBESTBLOCKHASH);
+	}
+
+	/**
+	 * getblock "hash/height" ( verbose ), see {@link BlockCommand#getBlock(String, boolean)}
+	 *
+	 * @param blockHash
+	 * @param verbose
+	 * @return the Block
+	 */
+	public CompletableFuture<Block> getBlock(String blockHash, boolean verbose) {
+		try {
+			MultichainTestParameter.isNotNullOrEmpty("blockHash", blockHash);
+		} catch (MultichainException e) {
+			return failed(e);
+		}
+		return executeAsync(ResultFormatters.BLOCK, CommandEnum.GETBLOCK, blockHash, verbose);
+	}
+
+	/**
+	 * getblock "hash/height" ( verbose ), see {@link BlockCommand#getBlock(long, boolean)}
+	 *
+	 * @param blockHeight
+	 * @param verbose
+	 * @return the Block
+	 */
+	public CompletableFuture<Block> getBlock(long blockHeight, boolean verbose) {
+		return executeAsync(ResultFormatters.BLOCK, CommandEnum.GETBLOCK, String.valueOf(blockHeight), verbose);
+	}
+
+	/**
+	 * listblocks "blockidentifiers" ( verbose ), see
+	 * {@link BlockCommand#listBlocksList(String, boolean)}
+	 *
+	 * @param blockidentifiers
+	 *            hashes, heights or ranges, e.g. "100-200"
+	 * @param verbose
+	 * @return the Blocks
+	 */
+	public CompletableFuture<List<Block>> listBlocks(String blockidentifiers, boolean verbose) {
+		try {
+			MultichainTestParameter.isNotNullOrEmpty("blockidentifiers", blockidentifiers);
+		} catch (MultichainException e) {
+			return failed(e);
+		}
+		return executeAsync(ResultFormatters.BLOCKS, CommandEnum.LISTBLOCKS, blockidentifiers, verbose);
+	}
+
+	/**
+	 * getblockcount
+	 *
+	 * @return the number of blocks in the longest chain
+	 */
+	public CompletableFuture<Long> getBlockCount() {
+		return executeAsync(ResultFormatters.LONG, CommandEnum.GETBLOCKCOUNT);
+	}
+
+	/**
+	 * getblockhash index
+	 *
+	 * @param index
+	 * @return the hash of the block at index
+	 */
+	public CompletableFuture<String> getBlockHash(long index) {
+		return executeAsync(ResultFormatters.STRING, CommandEnum.GETBLOCKHASH, index);
+	}
+
+	/*
+	 * Streams, see StreamCommand
+	 */
+
+	/**
+	 * create stream "stream-name" open, see {@link StreamCommand#create(String, boolean)}
+	 *
+	 * @param streamName
+	 * @param open
+	 * @return the txid of the creation
+	 */
+	public CompletableFuture<String> create(String streamName, boolean open) {
+		try {
+			MultichainTestParameter.isNotNullOrEmpty("streamName", streamName);
+		} catch (MultichainException e) {
+			return failed(e);
+		}
+		return executeAsync(ResultFormatters.STRING, CommandEnum.CREATE, "stream", streamName, open);
+	}
+
+	/**
+	 * createfrom "from-address" stream "stream-name" open, see
+	 * {@link StreamCommand#createFrom(String, String, boolean)}
+	 *
+	 * @param addressFrom
+	 * @param streamName
+	 * @param open
+	 * @return the txid of the creation
+	 */
+	public CompletableFuture<String> createFrom(String addressFrom, String streamName, boolean open) {
+		try {
+			MultichainTestParameter.isNotNullOrEmpty("streamName", streamName);
+			MultichainTestParameter.isNotNullOrEmpty("addressFrom", addressFrom);
+		} catch (MultichainException e) {
+			return failed(e);
+		}
+		return executeAsync(ResultFormatters.STRING, CommandEnum.CREATEFROM, addressFrom, "stream", streamName, open);
+	}
+
+	/**
+	 * subscribe "stream-identifier" ( rescan )
+	 *
+	 * @param streamName
+	 * @param rescan
+	 */
+	public CompletableFuture<Void> subscribe(String streamName, boolean rescan) {
+		try {
+			MultichainTestParameter.isNotNullOrEmpty("streamName", streamName);
+		} catch (MultichainException e) {
+			return failed(e);
+		}
+		return executeAsync(ResultFormatters.VOID, CommandEnum.SUBSCRIBE, streamName, rescan);
+	}
+
+	/**
+	 * unsubscribe "stream-identifier"
+	 *
+	 * @param streamName
+	 */
+	public CompletableFuture<Void> unsubscribe(String streamName) {
+		try {
+			MultichainTestParameter.isNotNullOrEmpty("streamName", streamName);
+		} catch (MultichainException e) {
+			return failed(e);
+		}
+		return executeAsync(ResultFormatters.VOID, CommandEnum.UNSUBSCRIBE, streamName);
+	}
+
+	/**
+	 * liststreams ( stream-identifier(s) verbose count start ), see
+	 * {@link StreamCommand#listStreams(String, boolean, int, int)}
+	 *
+	 * @param streamName
+	 *            "*" for all the streams
+	 * @param verbose
+	 * @param count
+	 * @param start
+	 * @return the streams
+	 */
+	public CompletableFuture<List<Stream>> listStreams(String streamName, boolean verbose, int count, int start) {
+		try {
+			MultichainTestParameter.valueIsPositive("count", count);
+		} catch (MultichainException e) {
+			return failed(e);
+		}
+		return executeAsync(ResultFormatters.STREAMS, CommandEnum.LISTSTREAMS, streamName, verbose, count, start);
+	}
+
+	/**
+	 * liststreamkeys "stream-identifier" ( key(s) verbose count start ), see
+	 * {@link StreamCommand#listStreamKeys(String, String, boolean, int, int)}
+	 *
+	 * @param streamName
+	 * @param key
+	 *            "*" for all the keys
+	 * @param verbose
+	 * @param count
+	 * @param start
+	 * @return the keys
+	 */
+	public CompletableFuture<List<StreamKey>> listStreamKeys(String streamName, String key, boolean verbose, int count,
+			int start) {
+		try {
+			MultichainTestParameter.isNotNullOrEmpty("streamName", streamName);
+			MultichainTestParameter.isNotNullOrEmpty("key", key);
+			MultichainTestParameter.valueIsPositive("count", count);
+		} catch (MultichainException e) {
+			return failed(e);
+		}
+		return executeAsync(ResultFormatters.STREAM_KEYS, CommandEnum.LISTSTREAMKEYS, streamName, key, verbose, count,
+				start);
+	}
+
+	/**
+	 * liststreamkeyitems "stream-identifier" "key" ( verbose count start ), see
+	 * {@link StreamCommand#listStreamKeyItems(String, String, boolean, int, int)}
+	 *
+	 * @param streamName
+	 * @param key
+	 * @param verbose
+	 * @param count
+	 * @param start
+	 * @return the items of the key
+	 */
+	public CompletableFuture<List<StreamKeyItem>> listStreamKeyItems(String streamName, String key, boolean verbose,
+			int count, int start) {
+		try {
+			MultichainTestParameter.isNotNullOrEmpty("streamName", streamName);
+			MultichainTestParameter.isNotNullOrEmpty("key", key);
+			MultichainTestParameter.valueIsPositive("count", count);
+		} catch (MultichainException e) {
+			return failed(e);
+		}
+		return executeAsync(ResultFormatters.STREAM_KEY_ITEMS, CommandEnum.LISTSTREAMKEYITEMS, streamName, key, verbose,
+				count, start);
+	}
+
+	/**
+	 * liststreamitems "stream-identifier" ( verbose count start ), see
+	 * {@link StreamCommand#listStreamItems(String, boolean, int, int)}
+	 *
+	 * @param streamName
+	 * @param verbose
+	 * @param count
+	 * @param start
+	 * @return the items of the stream
+	 */
+	public CompletableFuture<List<StreamKeyItem>> listStreamItems(String streamName, boolean verbose, int count,
+			int start) {
+		try {
+			MultichainTestParameter.isNotNullOrEmpty("streamName", streamName);
+			MultichainTestParameter.valueIsPositive("count", count);
+		} catch (MultichainException e) {
+			return failed(e);
+		}
+		return executeAsync(ResultFormatters.STREAM_KEY_ITEMS, CommandEnum.LISTSTREAMITEMS, streamName, verbose, count,
+				start);
+	}
+
+	/**
+	 * getstreamitem "stream-identifier" "txid" ( verbose ), see
+	 * {@link StreamCommand#getStreamItem(String, String, boolean)}
+	 *
+	 * @param streamName
+	 * @param txid
+	 * @param verbose
+	 * @return the stream item
+	 */
+	public CompletableFuture<StreamKeyItem> getStreamItem(String streamName, String txid, boolean verbose) {
+		try {
+			MultichainTestParameter.isNotNullOrEmpty("streamName", streamName);
+			MultichainTestParameter.isNotNullOrEmpty("txid", txid);
+		} catch (MultichainException e) {
+			return failed(e);
+		}
+		return executeAsync(ResultFormatters.STREAM_KEY_ITEM, CommandEnum.GETSTREAMITEM, streamName, txid, verbose);
+	}
+
+	/**
+	 * publish "stream-identifier" "key" data-hex, see
+	 * {@link StreamCommand#publish(String, String, String)}
+	 *
+	 * @param streamName
+	 * @param key
+	 * @param dataHex
+	 * @return the txid of the publication
+	 */
+	public CompletableFuture<String> publish(String streamName, String key, String dataHex) {
+		try {
+			MultichainTestParameter.isNotNullOrEmpty("streamName", streamName);
+			MultichainTestParameter.isNotNullOrEmpty("key", key);
+			MultichainTestParameter.isNotNullOrEmpty("dataHex", dataHex);
+		} catch (MultichainException e) {
+			return failed(e);
+		}
+		return executeAsync(ResultFormatters.STRING, CommandEnum.PUBLISH, streamName, key, dataHex);
+	}
+
+	/**
+	 * publishfrom "from-address" "stream-identifier" "key" data-hex, see
+	 * {@link StreamCommand#publishFrom(String, String, String, String)}
+	 *
+	 * @param addressFrom
+	 * @param streamName
+	 * @param key
+	 * @param dataHex
+	 * @return the txid of the publication
+	 */
+	public CompletableFuture<String> publishFrom(String addressFrom, String streamName, String key, String dataHex) {
+		try {
+			MultichainTestParameter.isNotNullOrEmpty("addressFrom", addressFrom);
+			MultichainTestParameter.isNotNullOrEmpty("streamName", streamName);
+			MultichainTestParameter.isNotNullOrEmpty("key", key);
+			MultichainTestParameter.isNotNullOrEmpty("dataHex", dataHex);
+		} catch (MultichainException e) {
+			return failed(e);
+		}
+		return executeAsync(ResultFormatters.STRING, CommandEnum.PUBLISHFROM, addressFrom, streamName, key, dataHex);
+	}
+
+	/*
+	 * Raw transactions, see RAWTransactionCommand
+	 */
+
+	/**
+	 * appendrawchange "tx-hex" "address"
+	 *
+	 * @param hexString
+	 * @param address
+	 * @return the hex of the transaction with change
+	 */
+	public CompletableFuture<String> appendRawChange(String hexString, String address) {
+		try {
+			MultichainTestParameter.isNotNullOrEmpty("hexString", hexString);
+			MultichainTestParameter.isNotNullOrEmpty("address", address);
+		} catch (MultichainException e) {
+			return failed(e);
+		}
+		return executeAsync(ResultFormatters.STRING, CommandEnum.APPENDRAWCHANGE, hexString, address);
+	}
+
+	/**
+	 * appendrawmetadata "tx-hex" data-hex
+	 *
+	 * @param txHex
+	 * @param dataHex
+	 * @return the hex of the transaction with metadata
+	 */
+	public CompletableFuture<String> appendRawMetaData(String txHex, String dataHex) {
+		try {
+			MultichainTestParameter.isNotNullOrEmpty("txHex", txHex);
+			MultichainTestParameter.isNotNullOrEmpty("dataHex", dataHex);
+		} catch (MultichainException e) {
+			return failed(e);
+		}
+		return executeAsync(ResultFormatters.STRING, CommandEnum.APPENDROWMETADA, txHex, dataHex);
+	}
+
+	/**
+	 * decoderawtransaction "hex"
+	 *
+	 * @param hex
+	 * @return the decoded transaction
+	 */
+	public CompletableFuture<TransactionRAW> decodeRawTransaction(String hex) {
+		try {
+			MultichainTestParameter.isNotNullOrEmpty("hex", hex);
+		} catch (MultichainException e) {
+			return failed(e);
+		}
+		return executeAsync(ResultFormatters.TRANSACTION_RAW, CommandEnum.DECODERAWTRANSACTION, hex);
+	}
+
+	/**
+	 * getrawchangeaddress
+	 *
+	 * @return a new address for change
+	 */
+	public CompletableFuture<String> getRawChangeAddress() {
+		return executeAsync(ResultFormatters.STRING, CommandEnum.GETRAWCHANGEADDRESS);
+	}
+
+	/**
+	 * getrawtransaction "txid" 1, see
+	 * {@link RAWTransactionCommand#getRAWTransactionWithDetail(String)}
+	 *
+	 * @param txid
+	 * @return the decoded transaction
+	 */
+	public CompletableFuture<TransactionRAW> getRAWTransactionWithDetail(String txid) {
+		try {
+			MultichainTestParameter.isNotNullOrEmpty("txid", txid);
+		} catch (MultichainException e) {
+			return failed(e);
+		}
+		return executeAsync(ResultFormatters.TRANSACTION_RAW, CommandEnum.GETRAWTRANSACTION, txid, 1);
+	}
+
+	/**
+	 * getrawtransaction "txid" 0, see
+	 * {@link RAWTransactionCommand#getRAWTransactionWithoutDetail(String)}
+	 *
+	 * @param txid
+	 * @return the hex of the transaction
+	 */
+	public CompletableFuture<String> getRAWTransactionWithoutDetail(String txid) {
+		try {
+			MultichainTestParameter.isNotNullOrEmpty("txid", txid);
+		} catch (MultichainException e) {
+			return failed(e);
+		}
+		return executeAsync(ResultFormatters.STRING, CommandEnum.GETRAWTRANSACTION, txid, 0);
+	}
+
+	/**
+	 * sendrawtransaction "hex"
+	 *
+	 * @param hexString
+	 * @return the txid
+	 */
+	public CompletableFuture<String> sendRawTransaction(String hexString) {
+		try {
+			MultichainTestParameter.isNotNullOrEmpty("hexString", hexString);
+		} catch (MultichainException e) {
+			return failed(e);
+		}
+		return executeAsync(ResultFormatters.STRING, CommandEnum.SENDRAWTRANSACTION, hexString);
+	}
+
+	/**
+	 * signrawtransaction "hex"
+	 *
+	 * @param hexString
+	 * @return the signed transaction
+	 */
+	public CompletableFuture<SignedTransactionRAW> signRawTransaction(String hexString) {
+		try {
+			MultichainTestParameter.isNotNullOrEmpty("hexString", hexString);
+		} catch (MultichainException e) {
+			return failed(e);
+		}
+		return executeAsync(ResultFormatters.SIGNED_TRANSACTION_RAW, CommandEnum.SIGNRAWTRANSACTION, hexString);
+	}
+
+	/*
+	 * Wallet transactions, see WalletTransactionCommand
+	 */
+
+	/**
+	 * getaddresstransaction "address" "txid" ( verbose )
+	 *
+	 * @param address
+	 * @param txid
+	 * @param verbose
+	 * @return the transaction, as seen by the address
+	 */
+	public CompletableFuture<TransactionWallet> getAddressTransaction(String address, String txid, boolean verbose) {
+		try {
+			MultichainTestParameter.isNotNullOrEmpty("address", address);
+			MultichainTestParameter.isNotNullOrEmpty("txid", txid);
+		} catch (MultichainException e) {
+			return failed(e);
+		}
+		return executeAsync(ResultFormatters.TRANSACTION_WALLET, CommandEnum.GETADDRESSTRANSACTION, address, txid,
+				verbose);
+	}
+
+	/**
+	 * gettransaction "txid" ( includeWatchonly )
+	 *
+	 * @param txid
+	 * @param includeWatchonly
+	 * @return the wallet transaction
+	 */
+	public CompletableFuture<Transaction> getTransaction(String txid, boolean includeWatchonly) {
+		try {
+			MultichainTestParameter.isNotNullOrEmpty("txid", txid);
+		} catch (MultichainException e) {
+			return failed(e);
+		}
+		return executeAsync(ResultFormatters.TRANSACTION, CommandEnum.GETTRANSACTION, txid, includeWatchonly);
+	}
+
+	/**
+	 * gettxout "txid" n ( includemempool )
+	 *
+	 * @param txid
+	 * @param vout
+	 * @param includemempool
+	 * @return the unspent output
+	 */
+	public CompletableFuture<TxOut> getTxOut(String txid, int vout, boolean includemempool) {
+		try {
+			MultichainTestParameter.isNotNullOrEmpty("txid", txid);
+			MultichainTestParameter.valueIsNotNegative("vout", vout);
+		} catch (MultichainException e) {
+			return failed(e);
+		}
+		return executeAsync(ResultFormatters.TX_OUT, CommandEnum.GETTXOUT, txid, vout, includemempool);
+	}
+
+	/**
+	 * getwallettransaction "txid" ( includeWatchonly verbose )
+	 *
+	 * @param txid
+	 * @param includeWatchOnly
+	 * @param verbose
+	 * @return the wallet transaction
+	 */
+	public CompletableFuture<TransactionWalletDetailed> getWalletTransaction(String txid, boolean includeWatchOnly,
+			boolean verbose) {
+		try {
+			MultichainTestParameter.isNotNullOrEmpty("txid", txid);
+		} catch (MultichainException e) {
+			return failed(e);
+		}
+		return executeAsync(ResultFormatters.TRANSACTION_WALLET_DETAILED, CommandEnum.GETWALLETTRANSACTION, txid,
+				includeWatchOnly, verbose);
+	}
+
+	/**
+	 * listaddresstransactions "address" ( count skip verbose )
+	 *
+	 * @param address
+	 * @param count
+	 * @param skip
+	 * @param verbose
+	 * @return the transactions of the address
+	 */
+	public CompletableFuture<List<TransactionWalletDetailed>> listAddressTransactions(String address, long count,
+			long skip, boolean verbose) {
+		try {
+			MultichainTestParameter.isNotNullOrEmpty("address", address);
+			MultichainTestParameter.valueIsPositive("count", count);
+			MultichainTestParameter.valueIsNotNegative("skip", skip);
+		} catch (MultichainException e) {
+			return failed(e);
+		}
+		return executeAsync(ResultFormatters.TRANSACTIONS_WALLET_DETAILED, CommandEnum.LISTADDRESSTRANSACTIONS,
+				address, count, skip, verbose);
+	}
+
+	/**
+	 * listwallettransactions ( count skip includeWatchonly verbose )
+	 *
+	 * @param count
+	 * @param skip
+	 * @param includeWatchonly
+	 * @param verbose
+	 * @return the transactions of the wallet
+	 */
+	public CompletableFuture<List<TransactionWalletDetailed>> listWalletTransaction(long count, long skip,
+			boolean includeWatchonly, boolean verbose) {
+		try {
+			MultichainTestParameter.valueIsPositive("count", count);
+			MultichainTestParameter.valueIsNotNegative("skip", skip);
+		} catch (MultichainException e) {
+			return failed(e);
+		}
+		return executeAsync(ResultFormatters.TRANSACTIONS_WALLET_DETAILED, CommandEnum.LISTWALLETTRANSACTIONS, count,
+				skip, includeWatchonly, verbose);
+	}
+
+	/**
+	 * sendfromaddress "from-address" "to-address" amount|asset-quantities
+	 *
+	 * @param fromAddress
+	 * @param toAddress
+	 * @param assets
+	 * @return the txid
+	 */
+	public CompletableFuture<String> sendFromAddress(String fromAddress, String toAddress,
+			List<BalanceAssetGeneral> assets) {
+		try {
+			MultichainTestParameter.isNotNullOrEmpty("fromAddress", fromAddress);
+			MultichainTestParameter.isNotNullOrEmpty("toAddress", toAddress);
+			checkAssets(assets);
+		} catch (MultichainException e) {
+			return failed(e);
+		}
+		return executeAsync(ResultFormatters.STRING, CommandEnum.SENDFROMADDRESS, fromAddress, toAddress,
+				formatAssets(assets));
+	}
+
+	/**
+	 * sendtoaddress "address" amount|asset-quantities
+	 *
+	 * @param address
+	 * @param assets
+	 * @return the txid
+	 */
+	public CompletableFuture<String> sendToAddress(String address, List<BalanceAssetGeneral> assets) {
+		try {
+			MultichainTestParameter.isNotNullOrEmpty("address", address);
+			checkAssets(assets);
+		} catch (MultichainException e) {
+			return failed(e);
+		}
+		return executeAsync(ResultFormatters.STRING, CommandEnum.SENDTOADDRESS, address, formatAssets(assets));
+	}
+
+	/**
+	 * sendtoaddress "address" amount
+	 *
+	 * @param address
+	 * @param amount
+	 *            of native currency
+	 * @return the txid
+	 */
+	public CompletableFuture<String> sendToAddress(String address, double amount) {
+		try {
+			MultichainTestParameter.isNotNullOrEmpty("address", address);
+			MultichainTestParameter.valueIsNotNegative("amount", amount);
+		} catch (MultichainException e) {
+			return failed(e);
+		}
+		return executeAsync(ResultFormatters.STRING, CommandEnum.SENDTOADDRESS, address, amount);
+	}
+
+	/**
+	 * sendwithmetadata "address" amount|asset-quantities data-hex
+	 *
+	 * @param address
+	 * @param assets
+	 * @param hexMetaData
+	 * @return the txid
+	 */
+	public CompletableFuture<String> sendWithMetaData(String address, List<BalanceAssetGeneral> assets,
+			String hexMetaData) {
+		try {
+			MultichainTestParameter.isNotNullOrEmpty("address", address);
+			MultichainTestParameter.isNotNullOrEmpty("hexMetaData", hexMetaData);
+			checkAssets(assets);
+		} catch (MultichainException e) {
+			return failed(e);
+		}
+		return executeAsync(ResultFormatters.STRING, CommandEnum.SENDWITHMETADATA, address, formatAssets(assets),
+				hexMetaData);
+	}
+
+	/**
+	 * sendwithmetadatafrom "from-address" "to-address" amount|asset-quantities
+	 * data-hex
+	 *
+	 * @param fromAddress
+	 * @param toAddress
+	 * @param assets
+	 * @param hexMetaData
+	 * @return the txid
+	 */
+	public CompletableFuture<String> sendWithMetaDataFrom(String fromAddress, String toAddress,
+			List<BalanceAssetGeneral> assets, String hexMetaData) {
+		try {
+			MultichainTestParameter.isNotNullOrEmpty("fromAddress", fromAddress);
+			MultichainTestParameter.isNotNullOrEmpty("toAddress", toAddress);
+			MultichainTestParameter.isNotNullOrEmpty("hexMetaData", hexMetaData);
+			checkAssets(assets);
+		} catch (MultichainException e) {
+			return failed(e);
+		}
+		return executeAsync(ResultFormatters.STRING, CommandEnum.SENDWITHMETADATAFROM, fromAddress, toAddress,
+				formatAssets(assets), hexMetaData);
+	}
+
+	/*
+	 * Addresses and balances, see AddressCommand and BalanceCommand
+	 */
+
+	/**
+	 * createkeypairs ( count )
+	 *
+	 * @param numberOfPairs
+	 * @return the new key pairs
+	 */
+	public CompletableFuture<List<KeyPairs>> createKeyPairs(int numberOfPairs) {
+		try {
+			MultichainTestParameter.valueIsPositive("number of pairs", numberOfPairs);
+		} catch (MultichainException e) {
+			return failed(e);
+		}
+		return executeAsync(ResultFormatters.KEY_PAIRS, CommandEnum.CREATEKEYPAIRS, numberOfPairs);
+	}
+
+	/**
+	 * getaddresses
+	 *
+	 * @return the addresses of the wallet
+	 */
+	public CompletableFuture<List<String>> getAddresses() {
+		return executeAsync(ResultFormatters.STRINGS, CommandEnum.GETADDRESSES, false);
+	}
+
+	/**
+	 * getaddresses true
+	 *
+	 * @return the addresses of the wallet, with details
+	 */
+	public CompletableFuture<List<Address>> getAddressesList() {
+		return executeAsync(ResultFormatters.ADDRESSES, CommandEnum.GETADDRESSES, true);
+	}
+
+	/**
+	 * getaddressbalances "address"
+	 *
+	 * @param address
+	 * @return the balances of the address
+	 */
+	public CompletableFuture<List<BalanceAssetGeneral>> getAddressBalances(String address) {
+		try {
+			MultichainTestParameter.isNotNullOrEmpty("address", address);
+		} catch (MultichainException e) {
+			return failed(e);
+		}
+		return executeAsync(ResultFormatters.BALANCE_ASSETS_GENERAL, CommandEnum.GETADDRESSBALANCES, address);
+	}
+
+	/**
+	 * getmultibalances ( address(es) )
+	 *
+	 * @param addresses
+	 * @return the balances of the addresses
+	 */
+	public CompletableFuture<MultiBalance> getMultiBalances(List<String> addresses) {
+		try {
+			String[] addressesArray = addresses == null ? null : addresses.toArray(new String[addresses.size()]);
+			MultichainTestParameter.isNotNullOrEmpty("addresses", addressesArray);
+			MultichainTestParameter.arrayNotContainNullOrEmptyValues("addresses", addressesArray);
+		} catch (MultichainException e) {
+			return failed(e);
+		}
+		return executeAsync(ResultFormatters.MULTI_BALANCE, CommandEnum.GETMULTIBALANCES, addresses);
+	}
+
+	/**
+	 * getnewaddress
+	 *
+	 * @return a new address of the wallet
+	 */
+	public CompletableFuture<String> getNewAddress() {
+		return executeAsync(ResultFormatters.STRING, CommandEnum.GETNEWADDRESS);
+	}
+
+	/**
+	 * importaddress "address" ( "label" rescan )
+	 *
+	 * @param address
+	 * @param label
+	 * @param rescan
+	 */
+	public CompletableFuture<Void> importAddress(String address, String label, boolean rescan) {
+		try {
+			MultichainTestParameter.isNotNullOrEmpty("address", address);
+		} catch (MultichainException e) {
+			return failed(e);
+		}
+		return executeAsync(ResultFormatters.VOID, CommandEnum.IMPORTADDRESS, address, label, rescan);
+	}
+
+	/**
+	 * validateaddress "address"
+	 *
+	 * @param address
+	 * @return the address with its information
+	 */
+	public CompletableFuture<Address> validateAddress(String address) {
+		try {
+			MultichainTestParameter.isNotNullOrEmpty("address", address);
+		} catch (MultichainException e) {
+			return failed(e);
+		}
+		return executeAsync(ResultFormatters.ADDRESS, CommandEnum.VALIDATEADDRESS, address);
+	}
+
+	/**
+	 * gettotalbalances
+	 *
+	 * @return the balances of the wallet
+	 */
+	public CompletableFuture<List<BalanceAssetGeneral>> getTotalBalances() {
+		return executeAsync(ResultFormatters.BALANCE_ASSETS_GENERAL, CommandEnum.GETTOTALBALANCES);
+	}
+
+	/**
+	 * getwalletinfo
+	 *
+	 * @return the information about the wallet
+	 */
+	public CompletableFuture<WalletInfo> getWalletInfo() {
+		return executeAsync(ResultFormatters.WALLET_INFO, CommandEnum.GETWALLETINFO);
+	}
+
+	/*
+	 * Assets, see IssueCommand
+	 */
+
+	/**
+	 * getassetbalances
+	 *
+	 * @return the asset balances of the wallet
+	 */
+	public CompletableFuture<List<BalanceAsset>> getAssetBalances() {
+		return executeAsync(ResultFormatters.BALANCE_ASSETS, CommandEnum.GETASSETBALANCES);
+	}
+
+	/**
+	 * issue "address" "asset-name" quantity ( smallest-unit )
+	 *
+	 * @param address
+	 * @param assetName
+	 * @param quantity
+	 * @param unit
+	 * @return the txid of the issuance
+	 */
+	public CompletableFuture<String> issue(String address, String assetName, float quantity, float unit) {
+		try {
+			MultichainTestParameter.isNotNullOrEmpty("address", address);
+			MultichainTestParameter.isNotNullOrEmpty("assetName", assetName);
+			MultichainTestParameter.valueIsPositive("quantity", quantity);
+			MultichainTestParameter.valueIsPositive("unit", unit);
+		} catch (MultichainException e) {
+			return failed(e);
+		}
+		return executeAsync(ResultFormatters.STRING, CommandEnum.ISSUE, address, assetName, quantity, unit, 0f);
+	}
+
+	/**
+	 * issuemore "address" "asset-identifier" quantity
+	 *
+	 * @param address
+	 * @param assetName
+	 * @param quantity
+	 * @return the txid of the issuance
+	 */
+	public CompletableFuture<String> issueMore(String address, String assetName, int quantity) {
+		try {
+			MultichainTestParameter.isNotNullOrEmpty("address", address);
+			MultichainTestParameter.isNotNullOrEmpty("assetName", assetName);
+			MultichainTestParameter.valueIsPositive("quantity", quantity);
+		} catch (MultichainException e) {
+			return failed(e);
+		}
+		return executeAsync(ResultFormatters.STRING, CommandEnum.ISSUEMORE, address, assetName, quantity);
+	}
+
+	/**
+	 * listassets ( asset-identifier(s) verbose )
+	 *
+	 * @param asset
+	 *            "*" for all the assets
+	 * @param verbose
+	 * @return the assets
+	 */
+	public CompletableFuture<List<BalanceAsset>> listAssets(String asset, boolean verbose) {
+		return executeAsync(ResultFormatters.BALANCE_ASSETS, CommandEnum.LISTASSETS, asset, verbose);
+	}
+
+	/**
+	 * sendassetfrom "from-address" "to-address" "asset-identifier" quantity
+	 *
+	 * @param fromAddress
+	 * @param toAddress
+	 * @param assetName
+	 * @param quantity
+	 * @return the txid
+	 */
+	public CompletableFuture<String> sendAssetFrom(String fromAddress, String toAddress, String assetName,
+			float quantity) {
+		try {
+			MultichainTestParameter.isNotNullOrEmpty("fromAddress", fromAddress);
+			MultichainTestParameter.isNotNullOrEmpty("toAddress", toAddress);
+			MultichainTestParameter.isNotNullOrEmpty("assetName", assetName);
+			MultichainTestParameter.valueIsPositive("quantity", quantity);
+		} catch (MultichainException e) {
+			return failed(e);
+		}
+		return executeAsync(ResultFormatters.STRING, CommandEnum.SENDASSETFROM, fromAddress, toAddress, assetName,
+				quantity);
+	}
+
+	/**
+	 * sendassettoaddress "address" "asset-identifier" quantity
+	 *
+	 * @param address
+	 * @param assetName
+	 * @param quantity
+	 * @return the txid
+	 */
+	public CompletableFuture<String> sendAssetToAddress(String address, String assetName, float quantity) {
+		try {
+			MultichainTestParameter.isNotNullOrEmpty("address", address);
+			MultichainTestParameter.isNotNullOrEmpty("assetName", assetName);
+			MultichainTestParameter.valueIsPositive("quantity", quantity);
+		} catch (MultichainException e) {
+			return failed(e);
+		}
+		return executeAsync(ResultFormatters.STRING, CommandEnum.SENDASSETTOADDRESS, address, assetName, quantity);
+	}
+
+	/*
+	 * Permissions, see GrantCommand
+	 */
+
+	/**
+	 * grant "address(es)" "permission(s)"
+	 *
+	 * @param address
+	 * @param permissions
+	 *            combination of the flags of {@link GrantCommand}
+	 * @return the txid
+	 */
+	public CompletableFuture<String> grant(String address, int permissions) {
+		try {
+			MultichainTestParameter.isNotNullOrEmpty("address", address);
+			MultichainTestParameter.isNotNullOrEmpty("permissions", formatPermissions(permissions));
+		} catch (MultichainException e) {
+			return failed(e);
+		}
+		return executeAsync(ResultFormatters.STRING, CommandEnum.GRANT, address, formatPermissions(permissions));
+	}
+
+	/**
+	 * grantfrom "from-address" "to-address(es)" "permission(s)"
+	 *
+	 * @param addressFrom
+	 * @param address
+	 * @param permissions
+	 *            combination of the flags of {@link GrantCommand}
+	 * @return the txid
+	 */
+	public CompletableFuture<String> grantFrom(String addressFrom, String address, int permissions) {
+		try {
+			MultichainTestParameter.isNotNullOrEmpty("addressFrom", addressFrom);
+			MultichainTestParameter.isNotNullOrEmpty("address", address);
+			MultichainTestParameter.isNotNullOrEmpty("permissions", formatPermissions(permissions));
+		} catch (MultichainException e) {
+			return failed(e);
+		}
+		return executeAsync(ResultFormatters.STRING, CommandEnum.GRANTFROM, addressFrom, address,
+				formatPermissions(permissions));
+	}
+
+	/**
+	 * grant "address(es)" "stream.write"
+	 *
+	 * @param address
+	 * @param streamName
+	 * @return the txid
+	 */
+	public CompletableFuture<String> grantWrite(String address, String streamName) {
+		try {
+			MultichainTestParameter.isNotNullOrEmpty("address", address);
+			MultichainTestParameter.isNotNullOrEmpty("stream", streamName);
+		} catch (MultichainException e) {
+			return failed(e);
+		}
+		return executeAsync(ResultFormatters.STRING, CommandEnum.GRANT, address, streamName + ".write");
+	}
+
+	/**
+	 * listpermissions "permission(s)" "address(es)" verbose
+	 *
+	 * @param permissions
+	 *            combination of the flags of {@link GrantCommand}
+	 * @param address
+	 * @param verbose
+	 * @return the permissions
+	 */
+	public CompletableFuture<List<Permission>> listPermissions(int permissions, String address, boolean verbose) {
+		return executeAsync(ResultFormatters.PERMISSIONS, CommandEnum.LISTPERMISSIONS, formatPermissions(permissions),
+				address, verbose);
+	}
+
+	/**
+	 * revoke "address(es)" "permission(s)"
+	 *
+	 * @param address
+	 * @param permissions
+	 *            combination of the flags of {@link GrantCommand}
+	 * @return the txid
+	 */
+	public CompletableFuture<String> revoke(String address, int permissions) {
+		try {
+			MultichainTestParameter.isNotNullOrEmpty("address", address);
+			MultichainTestParameter.isNotNullOrEmpty("permissions", formatPermissions(permissions));
+		} catch (MultichainException e) {
+			return failed(e);
+		}
+		return executeAsync(ResultFormatters.STRING, CommandEnum.REVOKE, address, formatPermissions(permissions));
+	}
+
+	/**
+	 * revokefrom "from-address" "to-address(es)" "permission(s)"
+	 *
+	 * @param addressFrom
+	 * @param address
+	 * @param permissions
+	 *            combination of the flags of {@link GrantCommand}
+	 * @return the txid
+	 */
+	public CompletableFuture<String> revokeFrom(String addressFrom, String address, int permissions) {
+		try {
+			MultichainTestParameter.isNotNullOrEmpty("addressFrom", addressFrom);
+			MultichainTestParameter.isNotNullOrEmpty("address", address);
+			MultichainTestParameter.isNotNullOrEmpty("permissions", formatPermissions(permissions));
+		} catch (MultichainException e) {
+			return failed(e);
+		}
+		return executeAsync(ResultFormatters.STRING, CommandEnum.REVOKEFROM, addressFrom, address,
+				formatPermissions(permissions));
+	}
+
+	/*
+	 * Messages, see MessagingCommand
+	 */
+
+	/**
+	 * signmessage "address|privkey" "message"
+	 *
+	 * @param addressORPrivateKey
+	 * @param message
+	 * @return the base64-encoded signature
+	 */
+	public CompletableFuture<String> signMessage(String addressORPrivateKey, String message) {
+		try {
+			MultichainTestParameter.isNotNullOrEmpty("addressORPrivateKey", addressORPrivateKey);
+			MultichainTestParameter.isNotNullOrEmpty("message", message);
+		} catch (MultichainException e) {
+			return failed(e);
+		}
+		return executeAsync(ResultFormatters.STRING, CommandEnum.SIGNMESSAGE, addressORPrivateKey, message);
+	}
+
+	/**
+	 * verifymessage "address" "signature" "message"
+	 *
+	 * @param address
+	 * @param signature
+	 * @param message
+	 * @return true if the signature is valid
+	 */
+	public CompletableFuture<Boolean> verifyMessage(String address, String signature, String message) {
+		try {
+			MultichainTestParameter.isNotNullOrEmpty("address", address);
+			MultichainTestParameter.isNotNullOrEmpty("signature", signature);
+			MultichainTestParameter.isNotNullOrEmpty("message", message);
+		} catch (MultichainException e) {
+			return failed(e);
+		}
+		return executeAsync(ResultFormatters.BOOLEAN, CommandEnum.VERIFYMESSAGE, address, signature, message);
+	}
+
+	private static void checkAssets(List<BalanceAssetGeneral> assets) throws MultichainException {
+		if (assets == null || assets.isEmpty()) {
+			throw new MultichainException("assets", "assets needed to be sent");
+		}
+		for (BalanceAssetGeneral asset : assets) {
+			asset.isFilled();
+		}
+	}
+
+	private static Map<String, Double> formatAssets(List<BalanceAssetGeneral> assets) {
+		Map<String, Double> mapAssets = new HashMap<String, Double>();
+		if (assets != null) {
+			for (BalanceAssetGeneral asset : assets) {
+				mapAssets.put(asset.getName(), asset.getQty());
+			}
+		}
+		return mapAssets;
+	}
+}
@@ -7,12 +7,10 @@
  */
 package multichain.command;
 
-import java.util.ArrayList;
 import java.util.List;
 
 import multichain.command.builders.QueryBuilderBalance;
 import multichain.object.BalanceAssetGeneral;
-import multichain.object.formatters.BalanceFormatter;
 
 /**
  * @author Ub - H. MARTEAU
@@ -23,6 +21,14 @@ public class BalanceCommand extends QueryBuilderBalance {
 		initialize(ip, port, login, password, runtimeparameters);
 	}
 
+	public BalanceCommand(MultiChainTransport transport, RuntimeParameters runtimeparameters) {
+		initialize(transport, runtimeparameters);
+	}
+
+	public BalanceCommand(MultiChainCluster cluster, RuntimeParameters runtimeparameters) {
+		initialize(cluster, runtimeparameters);
+	}
+
 	/**
 	 * 
 	 * gettotalbalances ( minconf includeWatchonly includeLocked)
@@ -43,18 +49,8 @@ public class BalanceCommand extends QueryBuilderBalance {
 	 * @return a list of all the asset balances in this node’s wallet
 	 * @throws MultichainException
 	 */
-	@SuppressWarnings("unchecked")
 	public List<BalanceAssetGeneral> getTotalBalances() throws MultichainException {
-		List<BalanceAssetGeneral> listBalanceAsset = new ArrayList<BalanceAssetGeneral>();
-
-		Object objectBalanceAsset = executeGetTotalBalances();
-
-		if (verifyInstance(objectBalanceAsset, ArrayList.class)
-				&& verifyInstanceofList((ArrayList<Object>) objectBalanceAsset, BalanceAssetGeneral.class)) {
-			listBalanceAsset = BalanceFormatter.formatBalanceAssetsGeneral((ArrayList<Object>) objectBalanceAsset);
-		}
-
-		return listBalanceAsset;
+		return executeGetTotalBalances();
 	}
 
 	/**
@@ -0,0 +1,410 @@
+/*
+ * Copyright (C) 2017 Worldline, Inc.
+ *
+ * MultiChainJavaAPI code distributed under the GPLv3 license, see COPYING file.
+ * https://github.com/SimplyUb/MultiChainJavaAPI/blob/master/LICENSE
+ *
+ */
+package multichain.command;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import multichain.command.builders.BatchResult;
+import multichain.command.builders.QueryBuilderBatch;
+import multichain.command.tools.MultichainTestParameter;
+import multichain.object.Block;
+import multichain.object.MempoolInfo;
+import multichain.object.SignedTransactionRAW;
+import multichain.object.Stream;
+import multichain.object.StreamKeyItem;
+import multichain.object.Transaction;
+import multichain.object.TransactionRAW;
+import multichain.object.TransactionWalletDetailed;
+import multichain.object.TxOut;
+import multichain.object.UnspentOutput;
+import multichain.object.queryobjects.RawStreamParam;
+import multichain.object.queryobjects.TxIdVout;
+
+/**
+ * Groups several calls in one JSON-RPC batch.
+ *
+ * Each method queues a call and returns its {@link BatchResult}. Nothing is
+ * sent before {@link #execute()}, which sends all the queued calls in one
+ * round trip and fills every result. An error on one call is only raised by the
+ * {@link BatchResult#get()} of this call.
+ *
+ * <pre>
+ * BatchCommand batch = multiChainCommand.newBatch();
+ * List&lt;BatchResult&lt;TransactionRAW&gt;&gt; results = new ArrayList&lt;&gt;();
+ * for (String txid : txids) {
+ * 	results.add(batch.getRAWTransactionWithDetail(txid));
+ * }
+ * batch.execute();
+ * </pre>
+ *
+ * A batch is not meant to be shared between threads while calls are being
+ * queued and executed.
+ *
+ * @author Ub - H. MARTEAU
+ * @version 4.15
+ */
+public class BatchCommand extends QueryBuilderBatch {
+
+	public BatchCommand(String ip, String port, String login, String password, RuntimeParameters runtimeparameters) {
+		initialize(ip, port, login, password, runtimeparameters);
+	}
+
+	public BatchCommand(MultiChainTransport transport, RuntimeParameters runtimeparameters) {
+		initialize(transport, runtimeparameters);
+	}
+
+	public BatchCommand(MultiChainCluster cluster, RuntimeParameters runtimeparameters) {
+		initialize(cluster, runtimeparameters);
+	}
+
+	/**
+	 * Sends all the queued calls.
+	 *
+	 * @return the number of calls sent
+	 * @throws MultichainException
+	 *             if the batch could not be sent at all
+	 */
+	public int execute() throws MultichainException {
+		return executeQueued();
+	}
+
+	/**
+	 * getblock "hash/height" ( verbose ), see {@link BlockCommand#getBlock(String, boolean)}
+	 *
+	 * @param blockHash
+	 * @param verbose
+	 * @return the Block, when executed
+	 */
+	public BatchResult<Block> getBlock(String blockHash, boolean verbose) throws MultichainException {
+		MultichainTestParameter.isNotNullOrEmpty("blockHash", blockHash);
+		return queue(ResultFormatters.BLOCK, CommandEnum.GETBLOCK, blockHash, verbose);
+	}
+
+	/**
+	 * getblock "hash/height" ( verbose ), see {@link BlockCommand#getBlock(long, boolean)}
+	 *
+	 * @param blockHeight
+	 * @param verbose
+	 * @return the Block, when executed
+	 */
+	public BatchResult<Block> getBlock(long blockHeight, boolean verbose) throws MultichainException {
+		return queue(ResultFormatters.BLOCK, CommandEnum.GETBLOCK, String.valueOf(blockHeight), verbose);
+	}
+
+	/**
+	 * getblockhash index
+	 *
+	 * @param index
+	 * @return the hash of the block at index, when executed
+	 */
+	public BatchResult<String> getBlockHash(long index) throws MultichainException {
+		return queue(ResultFormatters.STRING, CommandEnum.GETBLOCKHASH, index);
+	}
+
+	/**
+	 * getblockcount
+	 *
+	 * @return the number of blocks in the longest chain, when executed
+	 */
+	public BatchResult<Long> getBlockCount() throws MultichainException {
+		return queue(ResultFormatters.LONG, CommandEnum.GETBLOCKCOUNT);
+	}
+
+	/**
+	 * getmempoolinfo
+	 *
+	 * @return the number and size of the transactions in the memory pool, when
+	 *         executed
+	 */
+	public BatchResult<MempoolInfo> getMempoolInfo() throws MultichainException {
+		return queue(ResultFormatters.MEMPOOL_INFO, CommandEnum.GETMEMPOOLINFO);
+	}
+
+	/**
+	 * getrawmempool
+	 *
+	 * @return the txids of the transactions in the memory pool, when executed
+	 */
+	public BatchResult<List<String>> getRawMempool() throws MultichainException {
+		return queue(ResultFormatters.STRINGS, CommandEnum.GETRAWMEMPOOL);
+	}
+
+	/**
+	 * getrawtransaction "txid" 1, see
+	 * {@link RAWTransactionCommand#getRAWTransactionWithDetail(String)}
+	 *
+	 * @param txid
+	 * @return the decoded transaction, when executed
+	 */
+	public BatchResult<TransactionRAW> getRAWTransactionWithDetail(String txid) throws MultichainException {
+		MultichainTestParameter.isNotNullOrEmpty("txid", txid);
+		return queue(ResultFormatters.TRANSACTION_RAW, CommandEnum.GETRAWTRANSACTION, txid, 1);
+	}
+
+	/**
+	 * getrawtransaction "txid" 0, see
+	 * {@link RAWTransactionCommand#getRAWTransactionWithoutDetail(String)}
+	 *
+	 * @param txid
+	 * @return the hex of the transaction, when executed
+	 */
+	public BatchResult<String> getRAWTransactionWithoutDetail(String txid) throws MultichainException {
+		MultichainTestParameter.isNotNullOrEmpty("txid", txid);
+		return queue(ResultFormatters.STRING, CommandEnum.GETRAWTRANSACTION, txid, 0);
+	}
+
+	/**
+	 * gettransaction "txid" ( includeWatchonly ), see
+	 * {@link WalletTransactionCommand#getTransaction(String, boolean)}
+	 *
+	 * @param txid
+	 * @param includeWatchonly
+	 * @return the wallet transaction, when executed
+	 */
+	public BatchResult<Transaction> getTransaction(String txid, boolean includeWatchonly) throws MultichainException {
+		MultichainTestParameter.isNotNullOrEmpty("txid", txid);
+		return queue(ResultFormatters.TRANSACTION, CommandEnum.GETTRANSACTION, txid, includeWatchonly);
+	}
+
+	/**
+	 * getwallettransaction "txid" ( includeWatchonly verbose ), see
+	 * {@link WalletTransactionCommand#getWalletTransaction(String, boolean, boolean)}
+	 *
+	 * @param txid
+	 * @param includeWatchOnly
+	 * @param verbose
+	 * @return the wallet transaction, when executed
+	 */
+	public BatchResult<TransactionWalletDetailed> getWalletTransaction(String txid, boolean includeWatchOnly,
+			boolean verbose) throws MultichainException {
+		MultichainTestParameter.isNotNullOrEmpty("txid", txid);
+		return queue(ResultFormatters.TRANSACTION_WALLET_DETAILED, CommandEnum.GETWALLETTRANSACTION, txid, includeWatchOnly, verbose);
+	}
+
+	/**
+	 * gettxout "txid" n ( includemempool ), see
+	 * {@link WalletTransactionCommand#getTxOut(String, int, boolean)}
+	 *
+	 * @param txid
+	 * @param vout
+	 * @param includemempool
+	 * @return the unspent output, when executed
+	 */
+	public BatchResult<TxOut> getTxOut(String txid, int vout, boolean includemempool) throws MultichainException {
+		MultichainTestParameter.isNotNullOrEmpty("txid", txid);
+		MultichainTestParameter.valueIsNotNegative("vout", vout);
+		return queue(ResultFormatters.TX_OUT, CommandEnum.GETTXOUT, txid, vout, includemempool);
+	}
+
+	/**
+	 * getstreamitem "stream-identifier" "txid" ( verbose ), see
+	 * {@link StreamCommand#getStreamItem(String, String, boolean)}
+	 *
+	 * @param streamName
+	 * @param txid
+	 * @param verbose
+	 * @return the stream item, when executed
+	 */
+	public BatchResult<StreamKeyItem> getStreamItem(String streamName, String txid, boolean verbose)
+			throws MultichainException {
+		MultichainTestParameter.isNotNullOrEmpty("streamName", streamName);
+		MultichainTestParameter.isNotNullOrEmpty("txid", txid);
+		return queue(ResultFormatters.STREAM_KEY_ITEM, CommandEnum.GETSTREAMITEM, streamName, txid, verbose);
+	}
+
+	/**
+	 * liststreams "stream-identifier" true, see
+	 * {@link StreamCommand#listStreams(String, boolean)}
+	 *
+	 * @param streamName
+	 * @return the stream with its item counts, when executed
+	 */
+	public BatchResult<List<Stream>> listStreams(String streamName) throws MultichainException {
+		MultichainTestParameter.isNotNullOrEmpty("streamName", streamName);
+		return queue(ResultFormatters.STREAMS, CommandEnum.LISTSTREAMS, streamName, true);
+	}
+
+	/**
+	 * liststreamitems "stream-identifier" ( verbose count start ), see
+	 * {@link StreamCommand#listStreamItems(String, boolean, int, int)}
+	 *
+	 * @param streamName
+	 * @param verbose
+	 * @param count
+	 * @param start
+	 * @return the items of the stream, when executed
+	 */
+	public BatchResult<List<StreamKeyItem>> listStreamItems(String streamName, boolean verbose, int count, int start)
+			throws MultichainException {
+		MultichainTestParameter.isNotNullOrEmpty("streamName", streamName);
+		MultichainTestParameter.valueIsPositive("count", count);
+		return queue(ResultFormatters.STREAM_KEY_ITEMS, CommandEnum.LISTSTREAMITEMS, streamName, verbose, count, start);
+	}
+
+	/**
+	 * liststreamkeyitems "stream-identifier" "key" ( verbose count start ), see
+	 * {@link StreamCommand#listStreamKeyItems(String, String, boolean, int, int)}
+	 *
+	 * @param streamName
+	 * @param key
+	 * @param verbose
+	 * @param count
+	 * @param start
+	 * @return the items of the key, when executed
+	 */
+	public BatchResult<List<StreamKeyItem>> listStreamKeyItems(String streamName, String key, boolean verbose,
+			int count, int start) throws MultichainException {
+		MultichainTestParameter.isNotNullOrEmpty("streamName", streamName);
+		MultichainTestParameter.isNotNullOrEmpty("key", key);
+		MultichainTestParameter.valueIsPositive("count", count);
+		return queue(ResultFormatters.STREAM_KEY_ITEMS, CommandEnum.LISTSTREAMKEYITEMS, streamName, key, verbose, count, start);
+	}
+
+	/**
+	 * publish "stream-identifier" "key" data-hex, see
+	 * {@link StreamCommand#publish(String, String, String)}
+	 *
+	 * @param streamName
+	 * @param key
+	 * @param dataHex
+	 * @return the transaction id, when executed
+	 */
+	public BatchResult<String> publish(String streamName, String key, String dataHex) throws MultichainException {
+		MultichainTestParameter.isNotNullOrEmpty("streamName", streamName);
+		MultichainTestParameter.isNotNullOrEmpty("key", key);
+		MultichainTestParameter.isNotNullOrEmpty("dataHex", dataHex);
+		return queue(ResultFormatters.STRING, CommandEnum.PUBLISH, streamName, key, dataHex);
+	}
+
+	/**
+	 * createrawsendfrom from-address {} [data] "send", see
+	 * {@link RAWTransactionCommand#createRawSendFrom(String, List, String[], String)}
+	 *
+	 * @param address
+	 *            from-address, paying the fees
+	 * @param streamItems
+	 *            the stream items published by the transaction
+	 * @return the transaction id, when executed
+	 */
+	public BatchResult<String> createRawSendFrom(String address, List<RawStreamParam> streamItems)
+			throws MultichainException {
+		MultichainTestParameter.isNotNullOrEmpty("address", address);
+		if (streamItems == null || streamItems.isEmpty()) {
+			throw new MultichainException("streamItems", "streamItems is null or empty");
+		}
+		List<Map<String, String>> data = new ArrayList<Map<String, String>>();
+		for (RawStreamParam streamItem : streamItems) {
+			if (!streamItem.isFilled()) {
+				throw new MultichainException("streamItems", "stream, key and data are required");
+			}
+			Map<String, String> entry = new LinkedHashMap<String, String>();
+			entry.put("for", streamItem.getFor_());
+			entry.put("key", streamItem.getKey());
+			entry.put("data", streamItem.getData());
+			data.add(entry);
+		}
+		return queue(ResultFormatters.STRING, CommandEnum.CREATERAWSENDFROM, address,
+				new LinkedHashMap<String, Object>(), data, "send");
+	}
+
+	/**
+	 * createrawsendfrom from-address {amounts} [data] "action", see
+	 * {@link RAWTransactionCommand#createRawSendFrom(String, List, String[], String)}
+	 *
+	 * @param address
+	 *            from-address, paying the amounts and the fees
+	 * @param amounts
+	 *            by address
+	 * @param data
+	 *            metadata or stream items, possibly empty
+	 * @param action
+	 *            "lock" to lock the unspent outputs chosen, "" for none
+	 * @return the transaction in hexadecimal, when executed
+	 */
+	public BatchResult<String> createRawSendFrom(String address, Map<String, Object> amounts, List<Object> data,
+			String action) throws MultichainException {
+		MultichainTestParameter.isNotNullOrEmpty("address", address);
+		return queue(ResultFormatters.STRING, CommandEnum.CREATERAWSENDFROM, address, amounts,
+				data != null ? data : new ArrayList<Object>(), action != null ? action : "");
+	}
+
+	/**
+	 * createrawtransaction [inputs] {amounts} [data], see
+	 * {@link RAWTransactionCommand#createRawTransaction(List, List)}
+	 *
+	 * @param inputs
+	 * @param amounts
+	 *            by address
+	 * @param data
+	 *            metadata or stream items, possibly empty
+	 * @return the transaction in hexadecimal, when executed
+	 */
+	public BatchResult<String> createRawTransaction(List<TxIdVout> inputs, Map<String, Object> amounts,
+			List<Object> data) throws MultichainException {
+		if (inputs == null || inputs.isEmpty()) {
+			throw new MultichainException("inputs", "inputs needed to create a RAW Transaction");
+		}
+		return queue(ResultFormatters.STRING, CommandEnum.CREATERAWTRANSACTION, inputs, amounts,
+				data != null ? data : new ArrayList<Object>());
+	}
+
+	/**
+	 * signrawtransaction "hex", see
+	 * {@link RAWTransactionCommand#signRawTransaction(String)}
+	 *
+	 * @param hex
+	 * @return the signed transaction, when executed
+	 */
+	public BatchResult<SignedTransactionRAW> signRawTransaction(String hex) throws MultichainException {
+		MultichainTestParameter.isNotNullOrEmpty("hex", hex);
+		return queue(ResultFormatters.SIGNED_TRANSACTION_RAW, CommandEnum.SIGNRAWTRANSACTION, hex);
+	}
+
+	/**
+	 * lockunspent unlock [outputs]
+	 *
+	 * @param unlock
+	 *            true to unlock the outputs, false to lock them
+	 * @param outputs
+	 * @return true if done, when executed
+	 */
+	public BatchResult<Boolean> lockUnspent(boolean unlock, List<TxIdVout> outputs) throws MultichainException {
+		return queue(ResultFormatters.BOOLEAN, CommandEnum.LOCKUNSPENT, unlock, outputs);
+	}
+
+	/**
+	 * listunspent minconf 9999999 [addresses]
+	 *
+	 * @param minConfirmations
+	 * @param addresses
+	 *            all the addresses of the wallet if null
+	 * @return the unspent outputs of the addresses, when executed
+	 */
+	public BatchResult<List<UnspentOutput>> listUnspent(int minConfirmations, List<String> addresses)
+			throws MultichainException {
+		if (addresses == null) {
+			return queue(ResultFormatters.UNSPENT_OUTPUTS, CommandEnum.LISTUNSPENT, minConfirmations);
+		}
+		return queue(ResultFormatters.UNSPENT_OUTPUTS, CommandEnum.LISTUNSPENT, minConfirmations, 9999999, addresses);
+	}
+
+	/**
+	 * sendrawtransaction "hex", see
+	 * {@link RAWTransactionCommand#sendRawTransaction(String)}
+	 *
+	 * @param hex
+	 * @return the transaction id, when executed
+	 */
+	public BatchResult<String> sendRawTransaction(String hex) throws MultichainException {
+		MultichainTestParameter.isNotNullOrEmpty("hex", hex);
+		return queue(ResultFormatters.STRING, CommandEnum.SENDRAWTRANSACTION, hex);
+	}
+}
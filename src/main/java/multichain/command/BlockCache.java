@@ -0,0 +1,200 @@
+/*
+ * Copyright (C) 2017 Worldline, Inc.
+ *
+ * MultiChainJavaAPI code distributed under the GPLv3 license, see COPYING file.
+ * https://github.com/SimplyUb/MultiChainJavaAPI/blob/master/LICENSE
+ *
+ */
+package multichain.command;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import multichain.object.Block;
+
+/**
+ * Cache of the verbose blocks read by {@link BlockCommand}, keyed by hash, with
+ * an index of the hashes by height.
+ *
+ * Only the blocks with at least the given number of confirmations are cached :
+ * below this depth a block may still leave the chain. The least recently read
+ * blocks are evicted once the estimated weight of the cached blocks exceeds the
+ * maximum.
+ *
+ * When a block read from the node does not match the cache at its height, or
+ * its previous block does not match the cached one, the chain has been
+ * reorganized : the cached blocks from this height are dropped. A block out of
+ * the active chain, with -1 confirmations, is neither cached nor compared.
+ *
+ * The cached blocks are shared between the callers and keep the
+ * confirmations they were read with : they must not be modified.
+ *
+ * @author Ub - H. MARTEAU
+ * @version 4.15
+ */
+public class BlockCache {
+	private static final long BLOCK_WEIGHT = 512;
+	private static final long TX_WEIGHT = 112;
+
+	private final long maxWeight;
+	private final long minConfirmations;
+	private final LinkedHashMap<String, Block> blocks = new LinkedHashMap<String, Block>(256, 0.75f, true);
+	private final Map<Long, String> hashByHeight = new HashMap<Long, String>();
+	private long weight = 0;
+	private long hits = 0;
+	private long misses = 0;
+	private long evictions = 0;
+
+	/**
+	 * @param maxWeight
+	 *            estimated size in bytes of the cached blocks
+	 * @param minConfirmations
+	 *            confirmations needed for a block to be cached
+	 */
+	public BlockCache(long maxWeight, long minConfirmations) {
+		this.maxWeight = maxWeight;
+		this.minConfirmations = minConfirmations;
+	}
+
+	/**
+	 * @param hash
+	 * @return the cached block, null if not cached
+	 */
+	public synchronized Block get(String hash) {
+		Block block = blocks.get(hash);
+		if (block != null) {
+			hits++;
+		} else {
+			misses++;
+		}
+		return block;
+	}
+
+	/**
+	 * @param height
+	 * @return the cached block at this height in the active chain, null if not
+	 *         cached
+	 */
+	public synchronized Block get(long height) {
+		String hash = hashByHeight.get(height);
+		if (hash == null) {
+			misses++;
+			return null;
+		}
+		return get(hash);
+	}
+
+	/**
+	 * Caches a block read from the node, if deep enough, after dropping the
+	 * cached blocks it contradicts.
+	 *
+	 * @param block
+	 */
+	public synchronized void put(Block block) {
+		if (block == null || block.getHash() == null) {
+			return;
+		}
+		if (block.getConfirmations() < 0) {
+			// out of the active chain : contradicts nothing
+			return;
+		}
+		long height = block.getHeight();
+		String cachedHash = hashByHeight.get(height);
+		if (cachedHash != null && !cachedHash.equals(block.getHash())) {
+			invalidateFrom(height);
+		}
+		String cachedPrevious = height > 0 ? hashByHeight.get(height - 1) : null;
+		if (cachedPrevious != null && block.getPreviousblockhash() != null
+				&& !cachedPrevious.equals(block.getPreviousblockhash())) {
+			invalidateFrom(height - 1);
+		}
+		if (block.getConfirmations() < minConfirmations || blocks.containsKey(block.getHash())) {
+			return;
+		}
+		blocks.put(block.getHash(), block);
+		hashByHeight.put(height, block.getHash());
+		weight += weigh(block);
+		evict();
+	}
+
+	/**
+	 * Drops the cached blocks from this height, e.g. after a reorganization
+	 * seen elsewhere.
+	 *
+	 * @param height
+	 */
+	public synchronized void invalidateFrom(long height) {
+		Iterator<Map.Entry<Long, String>> entries = hashByHeight.entrySet().iterator();
+		while (entries.hasNext()) {
+			Map.Entry<Long, String> entry = entries.next();
+			if (entry.getKey() >= height) {
+				Block block = blocks.remove(entry.getValue());
+				if (block != null) {
+					weight -= weigh(block);
+				}
+				entries.remove();
+			}
+		}
+	}
+
+	/**
+	 * Drops every cached block.
+	 */
+	public synchronized void clear() {
+		blocks.clear();
+		hashByHeight.clear();
+		weight = 0;
+	}
+
+	/**
+	 * @return the number of reads answered by the cache
+	 */
+	public synchronized long getHits() {
+		return hits;
+	}
+
+	/**
+	 * @return the number of reads not answered by the cache
+	 */
+	public synchronized long getMisses() {
+		return misses;
+	}
+
+	/**
+	 * @return the number of blocks evicted to stay under the maximum weight
+	 */
+	public synchronized long getEvictions() {
+		return evictions;
+	}
+
+	/**
+	 * @return the number of cached blocks
+	 */
+	public synchronized int size() {
+		return blocks.size();
+	}
+
+	/**
+	 * @return the estimated size in bytes of the cached blocks
+	 */
+	public synchronized long getWeight() {
+		return weight;
+	}
+
+	private void evict() {
+		Iterator<Block> eldest = blocks.values().iterator();
+		while (weight > maxWeight && eldest.hasNext()) {
+			Block block = eldest.next();
+			eldest.remove();
+			hashByHeight.remove(block.getHeight());
+			weight -= weigh(block);
+			evictions++;
+		}
+	}
+
+	private static long weigh(Block block) {
+		return BLOCK_WEIGHT + (block.getTx() != null ? block.getTx().size() * TX_WEIGHT : 0);
+	}
+}
@@ -7,11 +7,12 @@
  */
 package multichain.command;
 
-import java.util.ArrayList;
 import java.util.List;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import multichain.command.builders.QueryBuilderBlock;
+import multichain.command.builders.RpcResultIterator;
+import multichain.command.tools.MultichainTestParameter;
 import multichain.object.Block;
 import multichain.object.formatters.BlockFormatter;
 
@@ -20,11 +21,20 @@ import multichain.object.formatters.BlockFormatter;
  * @version 4.15
  */
 public class BlockCommand extends QueryBuilderBlock {
+	private volatile BlockCache blockCache = null;
 
 	public BlockCommand(String ip, String port, String login, String password, RuntimeParameters runtimeparameters) {
 		initialize(ip, port, login, password, runtimeparameters);
 	}
 
+	public BlockCommand(MultiChainTransport transport, RuntimeParameters runtimeparameters) {
+		initialize(transport, runtimeparameters);
+	}
+
+	public BlockCommand(MultiChainCluster cluster, RuntimeParameters runtimeparameters) {
+		initialize(cluster, runtimeparameters);
+	}
+
 	/**
 	 * getbestblockhash
 	 * 
@@ -89,6 +99,19 @@ public class BlockCommand extends QueryBuilderBlock {
 	 * @throws MultichainException
 	 */
 	public Block getBlock(String blockHash, boolean verbose) throws MultichainException {
+		if (verbose) {
+			BlockCache cache = blockCache;
+			if (cache == null) {
+				return executeGetBlockDetail(blockHash);
+			}
+			MultichainTestParameter.isNotNullOrEmpty("blockHash", blockHash);
+			Block block = isHeight(blockHash) ? cache.get(Long.parseLong(blockHash)) : cache.get(blockHash);
+			if (block == null) {
+				block = executeGetBlockDetail(blockHash);
+				cache.put(block);
+			}
+			return block;
+		}
 		Object objectBlock = executeGetBlock(blockHash, verbose);
 		Block block = BlockFormatter.formatBlock(objectBlock);
 
@@ -103,18 +126,27 @@ public class BlockCommand extends QueryBuilderBlock {
          */
         public List<Block> listBlocksList(String blockidentifiers,boolean verbose){
             try {
-                List<Block> blocks=new ArrayList<Block>();
-                Object objectBlock=executeListBlocks(blockidentifiers,verbose);
-                int size=((ArrayList)objectBlock).size();
-                for(int a=0;a<size;a++){
-                    blocks.add(BlockFormatter.formatBlock(((ArrayList)objectBlock).get(a)));
-                }
-                return blocks;
+                return executeListBlocks(blockidentifiers,verbose);
             } catch (MultichainException ex) {
                 Logger.getLogger(BlockCommand.class.getName()).log(Level.SEVERE, null, ex);
             }
             return null;
         }
+
+	/**
+	 * listblocks "blockidentifiers" ( verbose ), with the blocks decoded one at a
+	 * time while the answer is read : memory does not grow with the range.
+	 *
+	 * @param blockidentifiers
+	 *            hashes, heights or ranges, e.g. "100-200"
+	 * @param verbose
+	 * @return the blocks, to be read until the end or closed
+	 * @throws MultichainException
+	 */
+	public RpcResultIterator<Block> listBlocksIterator(String blockidentifiers, boolean verbose)
+			throws MultichainException {
+		return executeListBlocksIterator(blockidentifiers, verbose);
+	}
 	/**
 	 * {@link #getBlock(String, boolean)} without verbose
 	 * 
@@ -171,7 +203,7 @@ public class BlockCommand extends QueryBuilderBlock {
 	public Block getBlock(long blockHeight, boolean verbose) throws MultichainException {
 	  int verboseValue = 0;
 	  if (verbose) {
-	    verboseValue = 1;
+	    return getBlock(String.valueOf(blockHeight), true);
 	  }
 		Object objectBlock = executeGetBlock(blockHeight, verboseValue);
 		Block block = BlockFormatter.formatBlock(objectBlock);
@@ -240,4 +272,34 @@ public class BlockCommand extends QueryBuilderBlock {
 		return stringBlockHash;
 	}
 
+	/**
+	 * Caches the verbose blocks read by {@link #getBlock(String, boolean)} and
+	 * {@link #getBlock(long, boolean)}.
+	 * 
+	 * @param blockCache
+	 *            the cache, null to read every block from the node
+	 */
+	public void setBlockCache(BlockCache blockCache) {
+		this.blockCache = blockCache;
+	}
+
+	/**
+	 * @return the block cache, null if none
+	 */
+	public BlockCache getBlockCache() {
+		return blockCache;
+	}
+
+	private static boolean isHeight(String hashOrHeight) {
+		if (hashOrHeight.isEmpty() || hashOrHeight.length() > 18) {
+			return false;
+		}
+		for (int i = 0; i < hashOrHeight.length(); i++) {
+			if (!Character.isDigit(hashOrHeight.charAt(i))) {
+				return false;
+			}
+		}
+		return true;
+	}
+
 }
@@ -0,0 +1,258 @@
+/*
+ * Copyright (C) 2017 Worldline, Inc.
+ *
+ * MultiChainJavaAPI code distributed under the GPLv3 license, see COPYING file.
+ * https://github.com/SimplyUb/MultiChainJavaAPI/blob/master/LICENSE
+ *
+ */
+package multichain.command;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import multichain.command.builders.RpcResultIterator;
+import multichain.object.Block;
+
+/**
+ * Reads a range of blocks with parallel listblocks calls, and hands them over
+ * in height order.
+ *
+ * The range is split in chunks, fetched by several threads at once through the
+ * transport pool, or spread over the nodes of a {@link MultiChainCluster}.
+ * Chunks answered early wait in a reorder buffer for the previous ones : the
+ * chunks in flight and waiting are bounded, so is the memory.
+ *
+ * The chunk size follows the duration of the calls, to aim at the target
+ * duration of the parameters. The parallelism grows while the time per block
+ * stays close to the best seen, and is halved when it degrades or a call
+ * fails. A chunk answered without exactly the blocks of its heights, as by a
+ * node behind the range, counts as failed.
+ *
+ * <pre>
+ * new BlockRangeFetcher(multiChainCommand.getBlockCommand()).fetch(0, 2000000, new Consumer&lt;Block&gt;() {
+ * 	public void accept(Block block) {
+ * 		index(block);
+ * 	}
+ * });
+ * </pre>
+ *
+ * @author Ub - H. MARTEAU
+ * @version 4.15
+ */
+public class BlockRangeFetcher {
+	private final BlockCommand blockCommand;
+	private final BlockRangeParameters rangeParameters;
+	private final boolean verbose;
+	private int chunkSize;
+	private int parallelism;
+	private double bestNanosPerBlock = Double.MAX_VALUE;
+
+	/**
+	 * @param blockCommand
+	 */
+	public BlockRangeFetcher(BlockCommand blockCommand) {
+		this(blockCommand, null, true);
+	}
+
+	/**
+	 * @param blockCommand
+	 * @param rangeParameters
+	 *            default ones if null
+	 * @param verbose
+	 *            listblocks verbose, with the transaction ids
+	 */
+	public BlockRangeFetcher(BlockCommand blockCommand, BlockRangeParameters rangeParameters, boolean verbose) {
+		if (rangeParameters == null) {
+			rangeParameters = new BlockRangeParameters();
+		}
+		this.blockCommand = blockCommand;
+		this.rangeParameters = rangeParameters;
+		this.verbose = verbose;
+		this.chunkSize = clamp(rangeParameters.getInitialChunkSize(), rangeParameters.getMinChunkSize(),
+				rangeParameters.getMaxChunkSize());
+		this.parallelism = clamp(rangeParameters.getInitialParallelism(), 1, rangeParameters.getMaxParallelism());
+	}
+
+	/**
+	 * Reads the blocks from one height to another, both included.
+	 *
+	 * @param fromHeight
+	 * @param toHeight
+	 * @param consumer
+	 *            receives the blocks in height order, on the calling thread
+	 * @return the number of blocks handed over
+	 * @throws MultichainException
+	 *             if a chunk still fails or misses blocks after the retries
+	 */
+	public long fetch(long fromHeight, long toHeight, Consumer<Block> consumer) throws MultichainException {
+		ExecutorService executor = Executors.newFixedThreadPool(rangeParameters.getMaxParallelism(),
+				new ThreadFactory() {
+					@Override
+					public Thread newThread(Runnable runnable) {
+						Thread thread = new Thread(runnable, "multichain-block-range-fetcher");
+						thread.setDaemon(true);
+						return thread;
+					}
+				});
+		CompletionService<Chunk> completion = new ExecutorCompletionService<Chunk>(executor);
+		TreeMap<Long, Chunk> buffer = new TreeMap<Long, Chunk>();
+		long next = fromHeight;
+		long nextToDeliver = fromHeight;
+		long delivered = 0;
+		int inFlight = 0;
+		try {
+			while (next <= toHeight || inFlight > 0) {
+				while (next <= toHeight && inFlight < parallelism
+						&& inFlight + buffer.size() < rangeParameters.getMaxBufferedChunks()) {
+					long to = Math.min(toHeight, next + chunkSize - 1);
+					completion.submit(new Chunk(next, to, 0));
+					inFlight++;
+					next = to + 1;
+				}
+
+				Chunk chunk = take(completion);
+				inFlight--;
+				if (chunk.failure != null) {
+					if (chunk.attempts >= rangeParameters.getMaxRetries()) {
+						throw chunk.failure;
+					}
+					parallelism = Math.max(1, parallelism / 2);
+					completion.submit(new Chunk(chunk.from, chunk.to, chunk.attempts + 1));
+					inFlight++;
+					continue;
+				}
+				adapt(chunk);
+				buffer.put(chunk.from, chunk);
+
+				Chunk first;
+				while (!buffer.isEmpty() && (first = buffer.firstEntry().getValue()).from == nextToDeliver) {
+					buffer.pollFirstEntry();
+					for (Block block : first.blocks) {
+						consumer.accept(block);
+						delivered++;
+					}
+					nextToDeliver = first.to + 1;
+				}
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+		return delivered;
+	}
+
+	/**
+	 * @return the current number of blocks per listblocks call
+	 */
+	public int getChunkSize() {
+		return chunkSize;
+	}
+
+	/**
+	 * @return the current number of listblocks calls in flight
+	 */
+	public int getParallelism() {
+		return parallelism;
+	}
+
+	private void adapt(Chunk chunk) {
+		long target = TimeUnit.MILLISECONDS.toNanos(rangeParameters.getTargetChunkMillis());
+		double ratio = (double) target / Math.max(1, chunk.durationNanos);
+		ratio = Math.max(0.5, Math.min(2, ratio));
+		chunkSize = clamp((int) (chunkSize * ratio), rangeParameters.getMinChunkSize(),
+				rangeParameters.getMaxChunkSize());
+
+		if (chunk.blocks.isEmpty()) {
+			return;
+		}
+		double nanosPerBlock = (double) chunk.durationNanos / chunk.blocks.size();
+		bestNanosPerBlock = Math.min(bestNanosPerBlock, nanosPerBlock);
+		if (nanosPerBlock <= bestNanosPerBlock * 1.5) {
+			parallelism = Math.min(rangeParameters.getMaxParallelism(), parallelism + 1);
+		} else {
+			parallelism = Math.max(1, parallelism / 2);
+		}
+	}
+
+	private static Chunk take(CompletionService<Chunk> completion) throws MultichainException {
+		try {
+			return completion.take().get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new MultichainException("Interrupted", e.toString());
+		} catch (ExecutionException e) {
+			throw new MultichainException(null, e.getCause().toString());
+		}
+	}
+
+	private static int clamp(int value, int min, int max) {
+		return Math.max(min, Math.min(max, value));
+	}
+
+	/**
+	 * One listblocks call, from and to included.
+	 */
+	private class Chunk implements Callable<Chunk> {
+		final long from;
+		final long to;
+		final int attempts;
+		final List<Block> blocks = new ArrayList<Block>();
+		long durationNanos;
+		MultichainException failure;
+
+		Chunk(long from, long to, int attempts) {
+			this.from = from;
+			this.to = to;
+			this.attempts = attempts;
+		}
+
+		@Override
+		public Chunk call() {
+			long start = System.nanoTime();
+			try (RpcResultIterator<Block> iterator = blockCommand.listBlocksIterator(from + "-" + to, verbose)) {
+				while (iterator.hasNext()) {
+					blocks.add(iterator.next());
+				}
+				check();
+			} catch (MultichainException e) {
+				failure = e;
+			} catch (IOException e) {
+				failure = new MultichainException(null, e.toString());
+			} catch (RuntimeException e) {
+				failure = new MultichainException(null, e.toString());
+			}
+			if (failure != null) {
+				blocks.clear();
+			}
+			durationNanos = System.nanoTime() - start;
+			return this;
+		}
+
+		/**
+		 * @throws MultichainException
+		 *             if a block is missing or out of place
+		 */
+		private void check() throws MultichainException {
+			if (blocks.size() != to - from + 1) {
+				throw new MultichainException("listblocks " + from + "-" + to,
+						blocks.size() + " blocks answered, " + (to - from + 1) + " expected");
+			}
+			for (int i = 0; i < blocks.size(); i++) {
+				if (blocks.get(i).getHeight() != from + i) {
+					throw new MultichainException("listblocks " + from + "-" + to,
+							"block at height " + blocks.get(i).getHeight() + " answered, " + (from + i) + " expected");
+				}
+			}
+		}
+	}
+}
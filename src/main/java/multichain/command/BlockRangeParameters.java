@@ -0,0 +1,163 @@
+/*
+ * Copyright (C) 2017 Worldline, Inc.
+ *
+ * MultiChainJavaAPI code distributed under the GPLv3 license, see COPYING file.
+ * https://github.com/SimplyUb/MultiChainJavaAPI/blob/master/LICENSE
+ *
+ */
+package multichain.command;
+
+/**
+ * Chunk and parallelism settings used by {@link BlockRangeFetcher}.
+ *
+ * @author Ub - H. MARTEAU
+ * @version 4.15
+ */
+public class BlockRangeParameters {
+	int initialChunkSize = 100;
+	int minChunkSize = 10;
+	int maxChunkSize = 2000;
+	int initialParallelism = 2;
+	int maxParallelism = 8;
+	long targetChunkMillis = 1000;
+	int maxBufferedChunks = 32;
+	int maxRetries = 2;
+
+	/**
+	 * Default settings
+	 */
+	public BlockRangeParameters() {
+		super();
+	}
+
+	/**
+	 * @param maxChunkSize
+	 * @param maxParallelism
+	 */
+	public BlockRangeParameters(int maxChunkSize, int maxParallelism) {
+		super();
+		this.maxChunkSize = maxChunkSize;
+		this.maxParallelism = maxParallelism;
+	}
+
+	/**
+	 * @return the number of blocks of the first listblocks calls
+	 */
+	public int getInitialChunkSize() {
+		return initialChunkSize;
+	}
+
+	/**
+	 * @param initialChunkSize
+	 *            the initialChunkSize to set
+	 */
+	public void setInitialChunkSize(int initialChunkSize) {
+		this.initialChunkSize = initialChunkSize;
+	}
+
+	/**
+	 * @return the chunk size is never lowered below
+	 */
+	public int getMinChunkSize() {
+		return minChunkSize;
+	}
+
+	/**
+	 * @param minChunkSize
+	 *            the minChunkSize to set
+	 */
+	public void setMinChunkSize(int minChunkSize) {
+		this.minChunkSize = minChunkSize;
+	}
+
+	/**
+	 * @return the chunk size is never raised above
+	 */
+	public int getMaxChunkSize() {
+		return maxChunkSize;
+	}
+
+	/**
+	 * @param maxChunkSize
+	 *            the maxChunkSize to set
+	 */
+	public void setMaxChunkSize(int maxChunkSize) {
+		this.maxChunkSize = maxChunkSize;
+	}
+
+	/**
+	 * @return the number of listblocks calls in flight at first
+	 */
+	public int getInitialParallelism() {
+		return initialParallelism;
+	}
+
+	/**
+	 * @param initialParallelism
+	 *            the initialParallelism to set
+	 */
+	public void setInitialParallelism(int initialParallelism) {
+		this.initialParallelism = initialParallelism;
+	}
+
+	/**
+	 * @return the number of listblocks calls in flight is never raised above
+	 */
+	public int getMaxParallelism() {
+		return maxParallelism;
+	}
+
+	/**
+	 * @param maxParallelism
+	 *            the maxParallelism to set
+	 */
+	public void setMaxParallelism(int maxParallelism) {
+		this.maxParallelism = maxParallelism;
+	}
+
+	/**
+	 * @return the duration of a listblocks call the chunk size aims at
+	 */
+	public long getTargetChunkMillis() {
+		return targetChunkMillis;
+	}
+
+	/**
+	 * @param targetChunkMillis
+	 *            the targetChunkMillis to set
+	 */
+	public void setTargetChunkMillis(long targetChunkMillis) {
+		this.targetChunkMillis = targetChunkMillis;
+	}
+
+	/**
+	 * @return the number of chunks in flight or waiting for their turn to be
+	 *         delivered, which bounds the memory used
+	 */
+	public int getMaxBufferedChunks() {
+		return maxBufferedChunks;
+	}
+
+	/**
+	 * @param maxBufferedChunks
+	 *            the maxBufferedChunks to set
+	 */
+	public void setMaxBufferedChunks(int maxBufferedChunks) {
+		this.maxBufferedChunks = maxBufferedChunks;
+	}
+
+	/**
+	 * @return how many times a failed chunk is fetched again
+	 */
+	public int getMaxRetries() {
+		return maxRetries;
+	}
+
+	/**
+	 * @param maxRetries
+	 *            the maxRetries to set
+	 */
+	public void setMaxRetries(int maxRetries) {
+		this.maxRetries = maxRetries;
+	}
+}
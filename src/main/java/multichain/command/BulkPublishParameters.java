@@ -0,0 +1,128 @@
+/*
+ * Copyright (C) 2017 Worldline, Inc.
+ *
+ * MultiChainJavaAPI code distributed under the GPLv3 license, see COPYING file.
+ * https://github.com/SimplyUb/MultiChainJavaAPI/blob/master/LICENSE
+ *
+ */
+package multichain.command;
+
+/**
+ * Queue, coalescing and packing settings used by {@link BulkPublisher}.
+ *
+ * @author Ub - H. MARTEAU
+ * @version 4.15
+ */
+public class BulkPublishParameters {
+	String fromAddress = null;
+	int itemsPerTransaction = 10;
+	int maxBatchSize = 500;
+	long lingerMillis = 5;
+	int maxQueueLength = 100000;
+
+	/**
+	 * Default settings : one publish per item, sent in JSON-RPC batches
+	 */
+	public BulkPublishParameters() {
+		super();
+	}
+
+	/**
+	 * @param fromAddress
+	 *            address of the wallet publishing the items, several items per
+	 *            transaction
+	 * @param itemsPerTransaction
+	 */
+	public BulkPublishParameters(String fromAddress, int itemsPerTransaction) {
+		super();
+		this.fromAddress = fromAddress;
+		this.itemsPerTransaction = itemsPerTransaction;
+	}
+
+	/**
+	 * @return the address publishing the items with createrawsendfrom, null to
+	 *         send one publish per item
+	 */
+	public String getFromAddress() {
+		return fromAddress;
+	}
+
+	/**
+	 * @param fromAddress
+	 *            the fromAddress to set
+	 */
+	public void setFromAddress(String fromAddress) {
+		this.fromAddress = fromAddress;
+	}
+
+	/**
+	 * @return the number of items packed in one transaction, at most the
+	 *         max-std-op-returns-count of the chain
+	 */
+	public int getItemsPerTransaction() {
+		return itemsPerTransaction;
+	}
+
+	/**
+	 * @param itemsPerTransaction
+	 *            the itemsPerTransaction to set
+	 */
+	public void setItemsPerTransaction(int itemsPerTransaction) {
+		this.itemsPerTransaction = itemsPerTransaction;
+	}
+
+	/**
+	 * @return the number of items taken from the queue and sent in one HTTP
+	 *         request
+	 */
+	public int getMaxBatchSize() {
+		return maxBatchSize;
+	}
+
+	/**
+	 * @param maxBatchSize
+	 *            the maxBatchSize to set, positive
+	 */
+	public void setMaxBatchSize(int maxBatchSize) {
+		if (maxBatchSize <= 0) {
+			throw new IllegalArgumentException("maxBatchSize must be positive");
+		}
+		this.maxBatchSize = maxBatchSize;
+	}
+
+	/**
+	 * @return the wait for more items before sending a batch which is not full
+	 */
+	public long getLingerMillis() {
+		return lingerMillis;
+	}
+
+	/**
+	 * @param lingerMillis
+	 *            the lingerMillis to set, 0 to send without waiting
+	 */
+	public void setLingerMillis(long lingerMillis) {
+		if (lingerMillis < 0) {
+			throw new IllegalArgumentException("lingerMillis must not be negative");
+		}
+		this.lingerMillis = lingerMillis;
+	}
+
+	/**
+	 * @return the number of items waiting beyond which new items are refused
+	 */
+	public int getMaxQueueLength() {
+		return maxQueueLength;
+	}
+
+	/**
+	 * @param maxQueueLength
+	 *            the maxQueueLength to set, positive
+	 */
+	public void setMaxQueueLength(int maxQueueLength) {
+		if (maxQueueLength <= 0) {
+			throw new IllegalArgumentException("maxQueueLength must be positive");
+		}
+		this.maxQueueLength = maxQueueLength;
+	}
+}
@@ -0,0 +1,332 @@
+/*
+ * Copyright (C) 2017 Worldline, Inc.
+ *
+ * MultiChainJavaAPI code distributed under the GPLv3 license, see COPYING file.
+ * https://github.com/SimplyUb/MultiChainJavaAPI/blob/master/LICENSE
+ *
+ */
+package multichain.command;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import multichain.command.builders.BatchResult;
+import multichain.object.formatters.HexCodec;
+import multichain.object.queryobjects.RawStreamParam;
+
+/**
+ * Publishes stream items from many threads, coalesced in few HTTP requests.
+ *
+ * The items are queued without lock, and a sender thread takes them by
+ * batches of up to {@link BulkPublishParameters#getMaxBatchSize()}, waiting
+ * {@link BulkPublishParameters#getLingerMillis()} for a batch to fill. A batch
+ * is sent as one JSON-RPC array, either :
+ * <ul>
+ * <li>one publish per item, when no from-address is set,</li>
+ * <li>one createrawsendfrom per group of
+ * {@link BulkPublishParameters#getItemsPerTransaction()} items, which packs
+ * them in a single transaction paid by the from-address.</li>
+ * </ul>
+ * Each item has its own future, completed with the id of its transaction or
+ * with the error of its call : a failed call does not fail the other items of
+ * the batch.
+ *
+ * <pre>
+ * BulkPublisher publisher = new BulkPublisher(multiChainCommand.newBatch(), null);
+ * CompletableFuture&lt;String&gt; txid = publisher.publish("stream1", "key1", "48656c6c6f");
+ * ...
+ * publisher.close();
+ * </pre>
+ *
+ * @author Ub - H. MARTEAU
+ * @version 4.15
+ */
+public class BulkPublisher implements Closeable {
+	private static final Logger LOGGER = Logger.getLogger(BulkPublisher.class.getName());
+	/** queue depth once closed, which stays negative whatever the items refused */
+	private static final int CLOSED = Integer.MIN_VALUE / 2;
+
+	/**
+	 * An item waiting to be sent.
+	 */
+	private static class QueuedItem {
+		final RawStreamParam streamItem;
+		final CompletableFuture<String> txid = new CompletableFuture<String>();
+
+		QueuedItem(String streamName, String key, String dataHex) {
+			this.streamItem = new RawStreamParam(streamName, key, dataHex);
+		}
+	}
+
+	private final BatchCommand batchCommand;
+	private final BulkPublishParameters publishParameters;
+	private final ConcurrentLinkedQueue<QueuedItem> queue = new ConcurrentLinkedQueue<QueuedItem>();
+	private final AtomicInteger queueDepth = new AtomicInteger();
+	private final AtomicLong published = new AtomicLong();
+	private final AtomicLong failed = new AtomicLong();
+	private final AtomicLong rejected = new AtomicLong();
+	private final AtomicLongArray batchSizes = new AtomicLongArray(32);
+	private final Thread sender;
+	private volatile boolean running = true;
+	private volatile long rateWindowStart = System.nanoTime();
+	private volatile long rateWindowCount = 0;
+	private volatile double ingestRate = 0;
+
+	/**
+	 * Starts the sender thread.
+	 *
+	 * @param batchCommand
+	 *            used by the publisher only
+	 * @param publishParameters
+	 *            default ones if null
+	 */
+	public BulkPublisher(BatchCommand batchCommand, BulkPublishParameters publishParameters) {
+		if (publishParameters == null) {
+			publishParameters = new BulkPublishParameters();
+		}
+		this.batchCommand = batchCommand;
+		this.publishParameters = publishParameters;
+		this.sender = new Thread("multichain-bulk-publisher") {
+			@Override
+			public void run() {
+				send();
+			}
+		};
+		sender.setDaemon(true);
+		sender.start();
+	}
+
+	/**
+	 * Queues a stream item. Can be called by any thread.
+	 *
+	 * @param streamName
+	 * @param key
+	 * @param dataHex
+	 * @return the id of the transaction of the item, or the error of its call ;
+	 *         failed at once if the queue is full or the publisher closed
+	 */
+	public CompletableFuture<String> publish(String streamName, String key, String dataHex) {
+		QueuedItem item = new QueuedItem(streamName, key, dataHex);
+		if (!item.streamItem.isFilled()) {
+			item.txid.completeExceptionally(new MultichainException("streamItem", "stream, key and data are required"));
+			return item.txid;
+		}
+		int depth = queueDepth.incrementAndGet();
+		if (depth < 0) {
+			item.txid.completeExceptionally(new MultichainException("BulkPublisher", "closed"));
+			return item.txid;
+		}
+		if (depth > publishParameters.getMaxQueueLength()) {
+			queueDepth.decrementAndGet();
+			rejected.incrementAndGet();
+			item.txid.completeExceptionally(new MultichainException("BulkPublisher",
+					"more than " + publishParameters.getMaxQueueLength() + " items waiting"));
+			return item.txid;
+		}
+		queue.offer(item);
+		if (depth == 1 || depth == publishParameters.getMaxBatchSize()) {
+			// wakes the sender up when idle, or lingering on a batch now full
+			LockSupport.unpark(sender);
+		}
+		return item.txid;
+	}
+
+	/**
+	 * {@link #publish(String, String, String)} with the data as bytes
+	 *
+	 * @param streamName
+	 * @param key
+	 * @param data
+	 * @return the id of the transaction of the item, or the error of its call
+	 */
+	public CompletableFuture<String> publish(String streamName, String key, byte[] data) {
+		return publish(streamName, key, data != null ? HexCodec.encode(data) : null);
+	}
+
+	/**
+	 * Sends the items queued, then stops the sender thread.
+	 */
+	@Override
+	public void close() {
+		running = false;
+		LockSupport.unpark(sender);
+		if (sender != Thread.currentThread()) {
+			try {
+				sender.join();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+
+	/**
+	 * @return the number of items waiting to be sent
+	 */
+	public int getQueueDepth() {
+		return Math.max(0, queueDepth.get());
+	}
+
+	/**
+	 * @return the number of items published
+	 */
+	public long getPublished() {
+		return published.get();
+	}
+
+	/**
+	 * @return the number of items whose call failed
+	 */
+	public long getFailed() {
+		return failed.get();
+	}
+
+	/**
+	 * @return the number of items refused because the queue was full
+	 */
+	public long getRejected() {
+		return rejected.get();
+	}
+
+	/**
+	 * @return the number of items published per second, over the last second
+	 *         of activity
+	 */
+	public double getIngestRate() {
+		long elapsed = System.nanoTime() - rateWindowStart;
+		if (elapsed > TimeUnit.SECONDS.toNanos(2)) {
+			return 0;
+		}
+		if (ingestRate == 0 && elapsed > 0) {
+			// first second
+			return rateWindowCount * (double) TimeUnit.SECONDS.toNanos(1) / elapsed;
+		}
+		return ingestRate;
+	}
+
+	/**
+	 * @return the number of batches sent by size : index i counts the batches
+	 *         of 2^i to 2^(i+1)-1 items
+	 */
+	public long[] getBatchSizeHistogram() {
+		long[] histogram = new long[batchSizes.length()];
+		for (int i = 0; i < histogram.length; i++) {
+			histogram[i] = batchSizes.get(i);
+		}
+		return histogram;
+	}
+
+	private void send() {
+		while (true) {
+			if (queueDepth.get() == 0) {
+				if (!running) {
+					if (queueDepth.compareAndSet(0, CLOSED)) {
+						return;
+					}
+					continue;
+				}
+				LockSupport.parkNanos(this, TimeUnit.MILLISECONDS.toNanos(100));
+				continue;
+			}
+			// lets the producers fill the batch
+			long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(publishParameters.getLingerMillis());
+			long remaining;
+			while (running && queueDepth.get() < publishParameters.getMaxBatchSize()
+					&& (remaining = deadline - System.nanoTime()) > 0) {
+				LockSupport.parkNanos(this, remaining);
+			}
+			List<QueuedItem> batch = new ArrayList<QueuedItem>();
+			QueuedItem item;
+			while (batch.size() < publishParameters.getMaxBatchSize() && (item = queue.poll()) != null) {
+				batch.add(item);
+			}
+			queueDepth.addAndGet(-batch.size());
+			if (!batch.isEmpty()) {
+				try {
+					sendBatch(batch);
+				} catch (RuntimeException e) {
+					LOGGER.log(Level.SEVERE, "bulk publisher batch failed", e);
+					for (QueuedItem failedItem : batch) {
+						failedItem.txid.completeExceptionally(e);
+					}
+				}
+			}
+		}
+	}
+
+	private void sendBatch(List<QueuedItem> batch) {
+		batchSizes.incrementAndGet(31 - Integer.numberOfLeadingZeros(batch.size()));
+		String fromAddress = publishParameters.getFromAddress();
+		int perCall = fromAddress != null ? Math.max(1, publishParameters.getItemsPerTransaction()) : 1;
+
+		List<BatchResult<String>> results = new ArrayList<BatchResult<String>>();
+		for (int start = 0; start < batch.size(); start += perCall) {
+			List<QueuedItem> group = batch.subList(start, Math.min(batch.size(), start + perCall));
+			try {
+				if (fromAddress != null) {
+					List<RawStreamParam> streamItems = new ArrayList<RawStreamParam>();
+					for (QueuedItem queuedItem : group) {
+						streamItems.add(queuedItem.streamItem);
+					}
+					results.add(batchCommand.createRawSendFrom(fromAddress, streamItems));
+				} else {
+					RawStreamParam streamItem = group.get(0).streamItem;
+					results.add(batchCommand.publish(streamItem.getFor_(), streamItem.getKey(), streamItem.getData()));
+				}
+			} catch (MultichainException e) {
+				results.add(null);
+				complete(group, null, e);
+			}
+		}
+		try {
+			batchCommand.execute();
+		} catch (MultichainException e) {
+			// also raised by the get() of each result
+		}
+
+		for (int i = 0; i < results.size(); i++) {
+			BatchResult<String> result = results.get(i);
+			if (result == null) {
+				continue;
+			}
+			List<QueuedItem> group = batch.subList(i * perCall, Math.min(batch.size(), (i + 1) * perCall));
+			try {
+				complete(group, result.get(), null);
+			} catch (MultichainException e) {
+				complete(group, null, e);
+			}
+		}
+	}
+
+	private void complete(List<QueuedItem> group, String txid, MultichainException exception) {
+		for (QueuedItem item : group) {
+			if (exception != null) {
+				item.txid.completeExceptionally(exception);
+			} else {
+				item.txid.complete(txid);
+			}
+		}
+		if (exception != null) {
+			failed.addAndGet(group.size());
+			return;
+		}
+		published.addAndGet(group.size());
+		rateWindowCount += group.size();
+		long now = System.nanoTime();
+		long elapsed = now - rateWindowStart;
+		if (elapsed >= TimeUnit.SECONDS.toNanos(1)) {
+			ingestRate = rateWindowCount * (double) TimeUnit.SECONDS.toNanos(1) / elapsed;
+			rateWindowCount = 0;
+			rateWindowStart = now;
+		}
+	}
+}
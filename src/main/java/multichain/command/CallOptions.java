@@ -0,0 +1,314 @@
+/*
+ * Copyright (C) 2017 Worldline, Inc.
+ *
+ * MultiChainJavaAPI code distributed under the GPLv3 license, see COPYING file.
+ * https://github.com/SimplyUb/MultiChainJavaAPI/blob/master/LICENSE
+ *
+ */
+package multichain.command;
+
+import java.io.Closeable;
+import java.net.SocketTimeoutException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.methods.HttpRequestBase;
+import org.apache.http.conn.ConnectTimeoutException;
+import org.apache.http.conn.ConnectionPoolTimeoutException;
+
+/**
+ * Deadline and cancellation of the calls made by a thread.
+ *
+ * The options apply to every call made by the thread while they are active,
+ * whatever the command :
+ * <pre>
+ * CallOptions options = CallOptions.timeout(2, TimeUnit.SECONDS);
+ * try (CallOptions.Scope scope = options.activate()) {
+ * 	items = multiChainCommand.getStreamCommand().listStreamKeyItems(stream, key);
+ * }
+ * </pre>
+ *
+ * The deadline caps the connect, socket and connection pool timeouts of the
+ * requests, and aborts a request still waiting for its answer when it
+ * expires : the call then fails with a {@link MultichainTimeoutException}.
+ * {@link #cancel()}, from any thread, aborts the requests waiting for their
+ * answer and fails the next calls.
+ *
+ * Asynchronous calls take the options active when they are sent, and are
+ * cancelled the same way.
+ *
+ * @author Ub - H. MARTEAU
+ * @version 4.15
+ */
+public class CallOptions {
+	private static final ThreadLocal<CallOptions> CURRENT = new ThreadLocal<CallOptions>();
+
+	private final long deadlineNanos;
+	private final boolean hasDeadline;
+	private volatile boolean cancelled = false;
+	private final Map<Object, Runnable> inFlight = new ConcurrentHashMap<Object, Runnable>();
+	private final Map<Object, ScheduledFuture<?>> expirations = new ConcurrentHashMap<Object, ScheduledFuture<?>>();
+
+	/**
+	 * Options without deadline, only cancellable
+	 */
+	public CallOptions() {
+		this.deadlineNanos = 0;
+		this.hasDeadline = false;
+	}
+
+	private CallOptions(long deadlineNanos) {
+		this.deadlineNanos = deadlineNanos;
+		this.hasDeadline = true;
+	}
+
+	/**
+	 * @param timeout
+	 * @param unit
+	 * @return options expiring after timeout, counted from now
+	 */
+	public static CallOptions timeout(long timeout, TimeUnit unit) {
+		return new CallOptions(System.nanoTime() + unit.toNanos(timeout));
+	}
+
+	/**
+	 * @return the options active on the current thread, null if none
+	 */
+	public static CallOptions current() {
+		return CURRENT.get();
+	}
+
+	/**
+	 * Makes the options active on the current thread until the scope is
+	 * closed. The options active before are restored then.
+	 *
+	 * @return the scope, to be closed
+	 */
+	public Scope activate() {
+		Scope scope = new Scope(CURRENT.get());
+		CURRENT.set(this);
+		return scope;
+	}
+
+	/**
+	 * @return true if the options have a deadline
+	 */
+	public boolean hasDeadline() {
+		return hasDeadline;
+	}
+
+	/**
+	 * @return the time left before the deadline, Long.MAX_VALUE without
+	 *         deadline
+	 */
+	public long getRemainingMillis() {
+		if (!hasDeadline) {
+			return Long.MAX_VALUE;
+		}
+		return TimeUnit.NANOSECONDS.toMillis(deadlineNanos - System.nanoTime());
+	}
+
+	/**
+	 * @return true if the deadline is passed
+	 */
+	public boolean isExpired() {
+		return hasDeadline && deadlineNanos - System.nanoTime() <= 0;
+	}
+
+	/**
+	 * @return true if {@link #cancel()} was called
+	 */
+	public boolean isCancelled() {
+		return cancelled;
+	}
+
+	/**
+	 * Aborts the requests waiting for their answer, and fails the next calls.
+	 */
+	public void cancel() {
+		cancelled = true;
+		for (Runnable abort : inFlight.values()) {
+			abort.run();
+		}
+	}
+
+	/**
+	 * Applies the options to a request about to be sent : its timeouts are
+	 * capped to the time left, and it is aborted on expiration or cancel until
+	 * {@link #detach(Object)}. Used by the command builders.
+	 *
+	 * @param request
+	 * @param defaults
+	 *            the timeouts of the transport, used when the request has none
+	 * @throws MultichainException
+	 *             if the options are already expired or cancelled
+	 */
+	public void attach(final HttpRequestBase request, RequestConfig defaults) throws MultichainException {
+		configure(request, defaults);
+		watch(request, new Runnable() {
+			@Override
+			public void run() {
+				request.abort();
+			}
+		});
+	}
+
+	/**
+	 * Caps the timeouts of a request about to be sent to the time left, without
+	 * watching it : the non-blocking client ignores the abort of a request, its
+	 * future is watched instead with {@link #attach(Future)}.
+	 *
+	 * @param request
+	 * @param defaults
+	 *            the timeouts of the transport, used when the request has none
+	 * @throws MultichainException
+	 *             if the options are already expired or cancelled
+	 */
+	public void configure(HttpRequestBase request, RequestConfig defaults) throws MultichainException {
+		checkActive();
+		if (hasDeadline) {
+			int cap = (int) Math.min(Math.max(1, getRemainingMillis()), Integer.MAX_VALUE);
+			RequestConfig base = request.getConfig() != null ? request.getConfig()
+					: (defaults != null ? defaults : RequestConfig.DEFAULT);
+			request.setConfig(RequestConfig.copy(base).setConnectTimeout(cap(base.getConnectTimeout(), cap))
+					.setConnectionRequestTimeout(cap(base.getConnectionRequestTimeout(), cap))
+					.setSocketTimeout(cap(base.getSocketTimeout(), cap)).build());
+		}
+	}
+
+	/**
+	 * Cancels a sent non-blocking request on expiration or cancel, until
+	 * {@link #detach(Object)}.
+	 *
+	 * @param future
+	 *            the future of the request
+	 */
+	public void attach(final Future<?> future) {
+		if (future.isDone()) {
+			return;
+		}
+		watch(future, new Runnable() {
+			@Override
+			public void run() {
+				future.cancel(true);
+			}
+		});
+	}
+
+	/**
+	 * The answer of the request was read : it is no more aborted by the
+	 * options.
+	 *
+	 * @param request
+	 *            the request or the future given to attach
+	 */
+	public void detach(Object request) {
+		inFlight.remove(request);
+		ScheduledFuture<?> expiration = expirations.remove(request);
+		if (expiration != null) {
+			expiration.cancel(false);
+		}
+	}
+
+	/**
+	 * @throws MultichainException
+	 *             a {@link MultichainTimeoutException} if expired, a
+	 *             MultichainException if cancelled
+	 */
+	public void checkActive() throws MultichainException {
+		if (cancelled) {
+			throw new MultichainException("Cancelled", "call cancelled");
+		}
+		if (isExpired()) {
+			throw new MultichainTimeoutException("Deadline", "deadline expired before the call");
+		}
+	}
+
+	/**
+	 * Converts the failure of a request.
+	 *
+	 * @param e
+	 *            the failure
+	 * @param options
+	 *            the options of the call, may be null
+	 * @return a {@link MultichainTimeoutException} if the request timed out or
+	 *         the options expired, a MultichainException otherwise ; caused by
+	 *         the failure
+	 */
+	public static MultichainException toMultichainException(Exception e, CallOptions options) {
+		MultichainException failure;
+		if (options != null && options.isCancelled()) {
+			failure = new MultichainException("Cancelled", "call cancelled");
+		} else if (options != null && options.isExpired()) {
+			failure = new MultichainTimeoutException("Deadline", "deadline expired : " + e.toString());
+		} else if (e instanceof SocketTimeoutException || e instanceof ConnectTimeoutException
+				|| e instanceof ConnectionPoolTimeoutException) {
+			failure = new MultichainTimeoutException("Timeout", e.toString());
+		} else {
+			failure = new MultichainException(null, e.toString());
+		}
+		failure.initCause(e);
+		return failure;
+	}
+
+	private void watch(Object request, Runnable abort) {
+		if (hasDeadline) {
+			// in nanoseconds : rounded to the millisecond, the abort could run
+			// before isExpired(), and be reported as a plain failure
+			expirations.put(request, Expirations.TIMER.schedule(abort,
+					Math.max(1, deadlineNanos - System.nanoTime()), TimeUnit.NANOSECONDS));
+		}
+		inFlight.put(request, abort);
+		if (cancelled) {
+			abort.run();
+		}
+	}
+
+	private static int cap(int timeout, int cap) {
+		return timeout <= 0 ? cap : Math.min(timeout, cap);
+	}
+
+	/**
+	 * Activation of options on a thread, see {@link CallOptions#activate()}.
+	 */
+	public static class Scope implements Closeable {
+		private final CallOptions previous;
+
+		private Scope(CallOptions previous) {
+			this.previous = previous;
+		}
+
+		@Override
+		public void close() {
+			if (previous != null) {
+				CURRENT.set(previous);
+			} else {
+				CURRENT.remove();
+			}
+		}
+	}
+
+	/**
+	 * Timer of the deadlines, created on the first deadline
+	 */
+	private static class Expirations {
+		static final ScheduledThreadPoolExecutor TIMER = new ScheduledThreadPoolExecutor(1, new ThreadFactory() {
+			@Override
+			public Thread newThread(Runnable runnable) {
+				Thread thread = new Thread(runnable, "multichain-call-deadlines");
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+
+		static {
+			TIMER.setRemoveOnCancelPolicy(true);
+		}
+	}
+}
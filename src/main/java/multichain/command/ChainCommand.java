@@ -19,6 +19,14 @@ public class ChainCommand extends QueryBuilderChain {
 		initialize(ip, port, login, password, runtimeparameters);
 	}
 
+	public ChainCommand(MultiChainTransport transport, RuntimeParameters runtimeparameters) {
+		initialize(transport, runtimeparameters);
+	}
+
+	public ChainCommand(MultiChainCluster cluster, RuntimeParameters runtimeparameters) {
+		initialize(cluster, runtimeparameters);
+	}
+
 	/**
 	 * getinfo
 	 * Returns an object containing various state info.
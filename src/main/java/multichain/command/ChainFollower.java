@@ -0,0 +1,398 @@
+/*
+ * Copyright (C) 2017 Worldline, Inc.
+ *
+ * MultiChainJavaAPI code distributed under the GPLv3 license, see COPYING file.
+ * https://github.com/SimplyUb/MultiChainJavaAPI/blob/master/LICENSE
+ *
+ */
+package multichain.command;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayDeque;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import multichain.command.builders.RpcResultIterator;
+import multichain.object.Block;
+
+/**
+ * Follows the tip of the chain, and emits the blocks connected to it in order.
+ *
+ * When the chain is reorganized, the blocks which left it are emitted as
+ * disconnected, from the tip down to the fork point, before the blocks of the
+ * new branch. The last block emitted is saved as a {@link Checkpoint} after
+ * each batch, so that a follower restarted with the same
+ * {@link CheckpointStore} resumes after it, rolling back first if the chain
+ * changed meanwhile.
+ *
+ * The period of the polls follows the time between the blocks, and the
+ * listblocks batches grow while the follower is far behind the tip.
+ *
+ * <pre>
+ * ChainFollower follower = new ChainFollower(multiChainCommand.getBlockCommand(), null,
+ * 		new FileCheckpointStore(Paths.get("indexer.checkpoint")), listener);
+ * follower.start();
+ * </pre>
+ *
+ * @author Ub - H. MARTEAU
+ * @version 4.15
+ */
+public class ChainFollower implements Closeable {
+	private static final Logger LOGGER = Logger.getLogger(ChainFollower.class.getName());
+
+	/**
+	 * Receives the blocks, on the thread of the follower.
+	 */
+	public interface Listener {
+		/**
+		 * @param block
+		 *            the next block of the chain
+		 */
+		void blockConnected(Block block);
+
+		/**
+		 * @param block
+		 *            the last block emitted, which left the chain
+		 */
+		void blockDisconnected(Block block);
+	}
+
+	/**
+	 * Keeps the last block emitted across restarts.
+	 */
+	public interface CheckpointStore {
+		/**
+		 * @return the saved checkpoint, null if none
+		 * @throws IOException
+		 */
+		Checkpoint load() throws IOException;
+
+		/**
+		 * @param checkpoint
+		 * @throws IOException
+		 */
+		void save(Checkpoint checkpoint) throws IOException;
+	}
+
+	/**
+	 * Height and hash of the last block emitted.
+	 */
+	public static class Checkpoint {
+		private final long height;
+		private final String hash;
+
+		public Checkpoint(long height, String hash) {
+			this.height = height;
+			this.hash = hash;
+		}
+
+		/**
+		 * @return the height
+		 */
+		public long getHeight() {
+			return height;
+		}
+
+		/**
+		 * @return the hash
+		 */
+		public String getHash() {
+			return hash;
+		}
+
+		@Override
+		public String toString() {
+			return height + " " + hash;
+		}
+	}
+
+	private final BlockCommand blockCommand;
+	private final ChainFollowerParameters followerParameters;
+	private final CheckpointStore checkpointStore;
+	private final Listener listener;
+	private final ArrayDeque<Block> recentBlocks = new ArrayDeque<Block>();
+	private boolean initialized = false;
+	private Checkpoint checkpoint = null;
+	private int batchSize;
+	private volatile long pollMillis;
+	private double blockIntervalMillis = -1;
+	private long lastBlockTime = -1;
+	private Thread thread = null;
+	private volatile boolean running = false;
+
+	/**
+	 * @param blockCommand
+	 * @param followerParameters
+	 *            default ones if null
+	 * @param checkpointStore
+	 *            null to start from the start height of the parameters on
+	 *            every run
+	 * @param listener
+	 */
+	public ChainFollower(BlockCommand blockCommand, ChainFollowerParameters followerParameters,
+			CheckpointStore checkpointStore, Listener listener) {
+		if (followerParameters == null) {
+			followerParameters = new ChainFollowerParameters();
+		}
+		this.blockCommand = blockCommand;
+		this.followerParameters = followerParameters;
+		this.checkpointStore = checkpointStore;
+		this.listener = listener;
+		this.batchSize = followerParameters.getMinBatchSize();
+		this.pollMillis = followerParameters.getMinPollMillis();
+	}
+
+	/**
+	 * Starts polling the node on a daemon thread.
+	 */
+	public synchronized void start() {
+		if (thread != null) {
+			return;
+		}
+		running = true;
+		thread = new Thread("multichain-chain-follower") {
+			@Override
+			public void run() {
+				follow();
+			}
+		};
+		thread.setDaemon(true);
+		thread.start();
+	}
+
+	/**
+	 * Stops polling, after the block being emitted if any.
+	 */
+	@Override
+	public void close() {
+		Thread current;
+		synchronized (this) {
+			running = false;
+			current = thread;
+			thread = null;
+		}
+		if (current != null) {
+			current.interrupt();
+			if (current != Thread.currentThread()) {
+				try {
+					current.join();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			}
+		}
+	}
+
+	/**
+	 * Catches up with the tip of the node once : rolls back the blocks which
+	 * left the chain, then emits the new ones. Called by the thread of
+	 * {@link #start()}, or directly by a caller polling by itself.
+	 *
+	 * @return the number of blocks connected
+	 * @throws MultichainException
+	 *             if the node fails, or the reorganization is deeper than the
+	 *             parameters allow ; the blocks emitted before are saved
+	 * @throws RuntimeException
+	 *             thrown by the listener, the blocks emitted before are saved
+	 */
+	public synchronized int poll() throws MultichainException {
+		initialize();
+		long tipHeight = blockCommand.getBlockCount();
+		rollback(tipHeight);
+
+		int connected = 0;
+		long next = checkpoint != null ? checkpoint.getHeight() + 1 : 0;
+		while (next <= tipHeight) {
+			long to = Math.min(tipHeight, next + batchSize - 1);
+			boolean forked = false;
+			try (RpcResultIterator<Block> blocks = blockCommand.listBlocksIterator(next + "-" + to, true)) {
+				while (!forked && blocks.hasNext()) {
+					Block block = blocks.next();
+					if (checkpoint != null && block.getPreviousblockhash() != null
+							&& !checkpoint.getHash().equals(block.getPreviousblockhash())) {
+						// reorganized since the tip was read : rolled back on the next poll
+						forked = true;
+					} else {
+						connect(block);
+						connected++;
+					}
+				}
+			} catch (IOException e) {
+				throw saveAfter(failure(null, e));
+			} catch (UncheckedIOException e) {
+				throw saveAfter(failure(null, e.getCause()));
+			} catch (RuntimeException e) {
+				throw saveAfter(e);
+			}
+			save();
+			if (forked) {
+				pollMillis = followerParameters.getMinPollMillis();
+				return connected;
+			}
+			next = to + 1;
+			batchSize = tipHeight - to > batchSize ? Math.min(followerParameters.getMaxBatchSize(), batchSize * 2)
+					: followerParameters.getMinBatchSize();
+		}
+		adaptPoll(connected);
+		return connected;
+	}
+
+	/**
+	 * @return the last block emitted, null if none yet
+	 */
+	public synchronized Checkpoint getCheckpoint() {
+		return checkpoint;
+	}
+
+	/**
+	 * @return the current period of the polls
+	 */
+	public long getPollMillis() {
+		return pollMillis;
+	}
+
+	/**
+	 * @return the current number of blocks of a listblocks call
+	 */
+	public synchronized int getBatchSize() {
+		return batchSize;
+	}
+
+	private void follow() {
+		while (running) {
+			try {
+				poll();
+			} catch (MultichainException e) {
+				LOGGER.log(Level.WARNING, "chain follower poll failed", e);
+				pollMillis = Math.min(followerParameters.getMaxPollMillis(), pollMillis * 2);
+			} catch (RuntimeException e) {
+				LOGGER.log(Level.SEVERE, "chain follower listener failed", e);
+				pollMillis = Math.min(followerParameters.getMaxPollMillis(), pollMillis * 2);
+			}
+			try {
+				Thread.sleep(pollMillis);
+			} catch (InterruptedException e) {
+				return;
+			}
+		}
+	}
+
+	private void initialize() throws MultichainException {
+		if (initialized) {
+			return;
+		}
+		if (checkpointStore != null) {
+			try {
+				checkpoint = checkpointStore.load();
+			} catch (IOException e) {
+				throw failure("Checkpoint", e);
+			}
+		}
+		if (checkpoint == null) {
+			long startHeight = followerParameters.getStartHeight();
+			if (startHeight < 0) {
+				long tipHeight = blockCommand.getBlockCount();
+				checkpoint = new Checkpoint(tipHeight, blockCommand.getBlockHash(tipHeight));
+			} else if (startHeight > 0) {
+				checkpoint = new Checkpoint(startHeight - 1, blockCommand.getBlockHash(startHeight - 1));
+			}
+		}
+		initialized = true;
+	}
+
+	/**
+	 * Disconnects the blocks emitted which are no more in the chain, from the
+	 * last one down to the fork point.
+	 */
+	private void rollback(long tipHeight) throws MultichainException {
+		int depth = 0;
+		try {
+			while (checkpoint != null && (checkpoint.getHeight() > tipHeight
+					|| !checkpoint.getHash().equals(blockCommand.getBlockHash(checkpoint.getHeight())))) {
+				if (++depth > followerParameters.getMaxReorgDepth()) {
+					throw new MultichainException("Reorganization",
+							"more than " + followerParameters.getMaxReorgDepth() + " blocks rolled back");
+				}
+				Block block = recentBlocks.peekLast();
+				if (block != null && checkpoint.getHash().equals(block.getHash())) {
+					recentBlocks.pollLast();
+				} else {
+					// emitted before a restart : still known by the node
+					block = blockCommand.getBlock(checkpoint.getHash(), true);
+				}
+				listener.blockDisconnected(block);
+				checkpoint = checkpoint.getHeight() > 0
+						? new Checkpoint(checkpoint.getHeight() - 1, block.getPreviousblockhash()) : null;
+			}
+		} catch (MultichainException e) {
+			throw depth > 0 ? saveAfter(e) : e;
+		} catch (RuntimeException e) {
+			throw depth > 0 ? saveAfter(e) : e;
+		}
+		if (depth > 0) {
+			save();
+		}
+	}
+
+	private void connect(Block block) {
+		listener.blockConnected(block);
+		checkpoint = new Checkpoint(block.getHeight(), block.getHash());
+		recentBlocks.addLast(block);
+		while (recentBlocks.size() > followerParameters.getMaxReorgDepth()) {
+			recentBlocks.pollFirst();
+		}
+		if (lastBlockTime > 0 && block.getTime() > lastBlockTime) {
+			double interval = (block.getTime() - lastBlockTime) * 1000.0;
+			blockIntervalMillis = blockIntervalMillis < 0 ? interval : 0.8 * blockIntervalMillis + 0.2 * interval;
+		}
+		lastBlockTime = block.getTime();
+	}
+
+	/**
+	 * A quarter of the time between blocks after a new block, growing while
+	 * the tip does not move.
+	 */
+	private void adaptPoll(int connected) {
+		long target = blockIntervalMillis > 0 ? (long) (blockIntervalMillis / 4)
+				: followerParameters.getMinPollMillis();
+		long period = connected > 0 ? target : Math.max(target, pollMillis * 3 / 2);
+		if (blockIntervalMillis > 0) {
+			period = Math.min(period, (long) (blockIntervalMillis / 2));
+		}
+		pollMillis = Math.max(followerParameters.getMinPollMillis(),
+				Math.min(followerParameters.getMaxPollMillis(), period));
+	}
+
+	private void save() throws MultichainException {
+		if (checkpointStore == null || checkpoint == null) {
+			return;
+		}
+		try {
+			checkpointStore.save(checkpoint);
+		} catch (IOException e) {
+			throw failure("Checkpoint", e);
+		}
+	}
+
+	/**
+	 * Saves the checkpoint on the way out of a failure, without hiding it.
+	 *
+	 * @return the failure, with the one of the save suppressed if any
+	 */
+	private <E extends Exception> E saveAfter(E failure) {
+		try {
+			save();
+		} catch (MultichainException e) {
+			failure.addSuppressed(e);
+		}
+		return failure;
+	}
+
+	private static MultichainException failure(String object, IOException cause) {
+		MultichainException failure = new MultichainException(object, cause.toString());
+		failure.initCause(cause);
+		return failure;
+	}
+}
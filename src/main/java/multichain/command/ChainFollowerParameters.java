@@ -0,0 +1,131 @@
+/*
+ * Copyright (C) 2017 Worldline, Inc.
+ *
+ * MultiChainJavaAPI code distributed under the GPLv3 license, see COPYING file.
+ * https://github.com/SimplyUb/MultiChainJavaAPI/blob/master/LICENSE
+ *
+ */
+package multichain.command;
+
+/**
+ * Polling and batch settings used by {@link ChainFollower}.
+ *
+ * @author Ub - H. MARTEAU
+ * @version 4.15
+ */
+public class ChainFollowerParameters {
+	long startHeight = 0;
+	long minPollMillis = 500;
+	long maxPollMillis = 30000;
+	int minBatchSize = 10;
+	int maxBatchSize = 500;
+	int maxReorgDepth = 100;
+
+	/**
+	 * Default settings : follows the chain from the genesis block
+	 */
+	public ChainFollowerParameters() {
+		super();
+	}
+
+	/**
+	 * @param startHeight
+	 *            height of the first block emitted without checkpoint, -1 for
+	 *            the blocks after the current tip
+	 */
+	public ChainFollowerParameters(long startHeight) {
+		super();
+		this.startHeight = startHeight;
+	}
+
+	/**
+	 * @return height of the first block emitted when there is no checkpoint,
+	 *         -1 for the blocks after the current tip
+	 */
+	public long getStartHeight() {
+		return startHeight;
+	}
+
+	/**
+	 * @param startHeight
+	 *            the startHeight to set
+	 */
+	public void setStartHeight(long startHeight) {
+		this.startHeight = startHeight;
+	}
+
+	/**
+	 * @return the shortest period between two polls of the tip
+	 */
+	public long getMinPollMillis() {
+		return minPollMillis;
+	}
+
+	/**
+	 * @param minPollMillis
+	 *            the minPollMillis to set
+	 */
+	public void setMinPollMillis(long minPollMillis) {
+		this.minPollMillis = minPollMillis;
+	}
+
+	/**
+	 * @return the longest period between two polls of the tip
+	 */
+	public long getMaxPollMillis() {
+		return maxPollMillis;
+	}
+
+	/**
+	 * @param maxPollMillis
+	 *            the maxPollMillis to set
+	 */
+	public void setMaxPollMillis(long maxPollMillis) {
+		this.maxPollMillis = maxPollMillis;
+	}
+
+	/**
+	 * @return the number of blocks of a listblocks call near the tip
+	 */
+	public int getMinBatchSize() {
+		return minBatchSize;
+	}
+
+	/**
+	 * @param minBatchSize
+	 *            the minBatchSize to set
+	 */
+	public void setMinBatchSize(int minBatchSize) {
+		this.minBatchSize = minBatchSize;
+	}
+
+	/**
+	 * @return the number of blocks of a listblocks call when far behind the tip
+	 */
+	public int getMaxBatchSize() {
+		return maxBatchSize;
+	}
+
+	/**
+	 * @param maxBatchSize
+	 *            the maxBatchSize to set
+	 */
+	public void setMaxBatchSize(int maxBatchSize) {
+		this.maxBatchSize = maxBatchSize;
+	}
+
+	/**
+	 * @return the number of blocks a reorganization may roll back
+	 */
+	public int getMaxReorgDepth() {
+		return maxReorgDepth;
+	}
+
+	/**
+	 * @param maxReorgDepth
+	 *            the maxReorgDepth to set
+	 */
+	public void setMaxReorgDepth(int maxReorgDepth) {
+		this.maxReorgDepth = maxReorgDepth;
+	}
+}
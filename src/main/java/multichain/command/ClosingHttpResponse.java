@@ -0,0 +1,196 @@
+/*
+ * Copyright (C) 2017 Worldline, Inc.
+ *
+ * MultiChainJavaAPI code distributed under the GPLv3 license, see COPYING file.
+ * https://github.com/SimplyUb/MultiChainJavaAPI/blob/master/LICENSE
+ *
+ */
+package multichain.command;
+
+import java.io.IOException;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.apache.http.Header;
+import org.apache.http.HeaderIterator;
+import org.apache.http.HttpEntity;
+import org.apache.http.ProtocolVersion;
+import org.apache.http.StatusLine;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.params.HttpParams;
+
+/**
+ * A response running an action once, when closed : the body of a response is
+ * read by the caller after the request returned, so what covers the request
+ * has to last until then.
+ *
+ * @author Ub - H. MARTEAU
+ * @version 4.15
+ */
+@SuppressWarnings("deprecation")
+final class ClosingHttpResponse implements CloseableHttpResponse {
+	private final CloseableHttpResponse response;
+	private final Runnable onClose;
+	private final AtomicBoolean closed = new AtomicBoolean();
+
+	/**
+	 * @param response
+	 * @param onClose
+	 *            run after the response is closed, once
+	 */
+	ClosingHttpResponse(CloseableHttpResponse response, Runnable onClose) {
+		this.response = response;
+		this.onClose = onClose;
+	}
+
+	@Override
+	public void close() throws IOException {
+		try {
+			response.close();
+		} finally {
+			if (closed.compareAndSet(false, true)) {
+				onClose.run();
+			}
+		}
+	}
+
+	@Override
+	public StatusLine getStatusLine() {
+		return response.getStatusLine();
+	}
+
+	@Override
+	public void setStatusLine(StatusLine statusline) {
+		response.setStatusLine(statusline);
+	}
+
+	@Override
+	public void setStatusLine(ProtocolVersion ver, int code) {
+		response.setStatusLine(ver, code);
+	}
+
+	@Override
+	public void setStatusLine(ProtocolVersion ver, int code, String reason) {
+		response.setStatusLine(ver, code, reason);
+	}
+
+	@Override
+	public void setStatusCode(int code) {
+		response.setStatusCode(code);
+	}
+
+	@Override
+	public void setReasonPhrase(String reason) {
+		response.setReasonPhrase(reason);
+	}
+
+	@Override
+	public HttpEntity getEntity() {
+		return response.getEntity();
+	}
+
+	@Override
+	public void setEntity(HttpEntity entity) {
+		response.setEntity(entity);
+	}
+
+	@Override
+	public Locale getLocale() {
+		return response.getLocale();
+	}
+
+	@Override
+	public void setLocale(Locale loc) {
+		response.setLocale(loc);
+	}
+
+	@Override
+	public ProtocolVersion getProtocolVersion() {
+		return response.getProtocolVersion();
+	}
+
+	@Override
+	public boolean containsHeader(String name) {
+		return response.containsHeader(name);
+	}
+
+	@Override
+	public Header[] getHeaders(String name) {
+		return response.getHeaders(name);
+	}
+
+	@Override
+	public Header getFirstHeader(String name) {
+		return response.getFirstHeader(name);
+	}
+
+	@Override
+	public Header getLastHeader(String name) {
+		return response.getLastHeader(name);
+	}
+
+	@Override
+	public Header[] getAllHeaders() {
+		return response.getAllHeaders();
+	}
+
+	@Override
+	public void addHeader(Header header) {
+		response.addHeader(header);
+	}
+
+	@Override
+	public void addHeader(String name, String value) {
+		response.addHeader(name, value);
+	}
+
+	@Override
+	public void setHeader(Header header) {
+		response.setHeader(header);
+	}
+
+	@Override
+	public void setHeader(String name, String value) {
+		response.setHeader(name, value);
+	}
+
+	@Override
+	public void setHeaders(Header[] headers) {
+		response.setHeaders(headers);
+	}
+
+	@Override
+	public void removeHeader(Header header) {
+		response.removeHeader(header);
+	}
+
+	@Override
+	public void removeHeaders(String name) {
+		response.removeHeaders(name);
+	}
+
+	@Override
+	public HeaderIterator headerIterator() {
+		return response.headerIterator();
+	}
+
+	@Override
+	public HeaderIterator headerIterator(String name) {
+		return response.headerIterator(name);
+	}
+
+	@Override
+	public HttpParams getParams() {
+		return response.getParams();
+	}
+
+	@Override
+	public void setParams(HttpParams params) {
+		response.setParams(params);
+	}
+
+	@Override
+	public String toString() {
+		return response.toString();
+	}
+}
@@ -0,0 +1,117 @@
+/*
+ * Copyright (C) 2017 Worldline, Inc.
+ *
+ * MultiChainJavaAPI code distributed under the GPLv3 license, see COPYING file.
+ * https://github.com/SimplyUb/MultiChainJavaAPI/blob/master/LICENSE
+ *
+ */
+package multichain.command;
+
+/**
+ * Routing and health check settings used by {@link MultiChainCluster}.
+ *
+ * @author Ub - H. MARTEAU
+ * @version 4.15
+ */
+public class ClusterParameters {
+	int writeNodeIndex = 0;
+	long probeIntervalMillis = 5000;
+	long probeTimeoutMillis = 2000;
+	long maxBlockLag = 2;
+	int requestTimeoutMillis = 0;
+
+	/**
+	 * Default settings : writes on the first node
+	 */
+	public ClusterParameters() {
+		super();
+	}
+
+	/**
+	 * @param writeNodeIndex
+	 *            index of the node receiving the writes
+	 */
+	public ClusterParameters(int writeNodeIndex) {
+		super();
+		this.writeNodeIndex = writeNodeIndex;
+	}
+
+	/**
+	 * @return index, in the nodes of the cluster, of the node receiving the
+	 *         writes and the wallet calls
+	 */
+	public int getWriteNodeIndex() {
+		return writeNodeIndex;
+	}
+
+	/**
+	 * @param writeNodeIndex
+	 *            the writeNodeIndex to set
+	 */
+	public void setWriteNodeIndex(int writeNodeIndex) {
+		this.writeNodeIndex = writeNodeIndex;
+	}
+
+	/**
+	 * @return the period of the getblockcount probe of every node
+	 */
+	public long getProbeIntervalMillis() {
+		return probeIntervalMillis;
+	}
+
+	/**
+	 * @param probeIntervalMillis
+	 *            the probeIntervalMillis to set
+	 */
+	public void setProbeIntervalMillis(long probeIntervalMillis) {
+		this.probeIntervalMillis = probeIntervalMillis;
+	}
+
+	/**
+	 * @return how long a node may take to answer the probe before being
+	 *         considered down
+	 */
+	public long getProbeTimeoutMillis() {
+		return probeTimeoutMillis;
+	}
+
+	/**
+	 * @param probeTimeoutMillis
+	 *            the probeTimeoutMillis to set
+	 */
+	public void setProbeTimeoutMillis(long probeTimeoutMillis) {
+		this.probeTimeoutMillis = probeTimeoutMillis;
+	}
+
+	/**
+	 * @return how many blocks a node may be behind the highest node and still
+	 *         receive reads
+	 */
+	public long getMaxBlockLag() {
+		return maxBlockLag;
+	}
+
+	/**
+	 * @param maxBlockLag
+	 *            the maxBlockLag to set
+	 */
+	public void setMaxBlockLag(long maxBlockLag) {
+		this.maxBlockLag = maxBlockLag;
+	}
+
+	/**
+	 * @return how long a call may wait for data from a node before failing
+	 *         over, 0 for no limit
+	 */
+	public int getRequestTimeoutMillis() {
+		return requestTimeoutMillis;
+	}
+
+	/**
+	 * @param requestTimeoutMillis
+	 *            the requestTimeoutMillis to set
+	 */
+	public void setRequestTimeoutMillis(int requestTimeoutMillis) {
+		this.requestTimeoutMillis = requestTimeoutMillis;
+	}
+}
@@ -0,0 +1,383 @@
+/*
+ * Copyright (C) 2017 Worldline, Inc.
+ *
+ * MultiChainJavaAPI code distributed under the GPLv3 license, see COPYING file.
+ * https://github.com/SimplyUb/MultiChainJavaAPI/blob/master/LICENSE
+ *
+ */
+package multichain.command;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Adaptive limit of the calls in flight to one node.
+ *
+ * The RPC server of a node has a small pool of workers : past it, the calls
+ * only wait longer on the node. The limit follows the latency of the answers,
+ * in the AIMD way : it grows by one per limit of answers received in time
+ * while the limit is used, and is multiplied by the backoff ratio on each
+ * answer slower than the target or failed call.
+ *
+ * Calls beyond the limit wait in a queue, and are rejected when the queue is
+ * full, or failed when they wait longer than the queue wait of the settings or
+ * the deadline of their {@link CallOptions}. {@link MultiChainTransport} keeps one limiter for the heavy calls
+ * ({@link #HEAVY_METHODS}) and one for the others, when its
+ * {@link TransportParameters} have limiter settings.
+ *
+ * @author Ub - H. MARTEAU
+ * @version 4.15
+ */
+public class ConcurrencyLimiter {
+
+	/**
+	 * Methods scanning a part of the chain or of the wallet
+	 */
+	public static final Set<String> HEAVY_METHODS = Collections.unmodifiableSet(new HashSet<String>(Arrays.asList(
+			"listblocks", "liststreamitems", "liststreamkeyitems", "liststreampublisheritems", "liststreamkeys",
+			"liststreampublishers", "listwallettransactions", "listaddresstransactions", "listunspent",
+			"getmultibalances", "gettotalbalances", "getaddressbalances", "listassets", "listpermissions")));
+
+	/**
+	 * Wakes up a call waiting in the queue of
+	 * {@link #acquireAsync(Grant, CallOptions)}.
+	 */
+	public interface Grant {
+		/**
+		 * Called once with the permit of the call, by the thread releasing it
+		 * or by the caller of acquireAsync
+		 *
+		 * @param permit
+		 *            to be released when the call is answered
+		 */
+		void granted(Permit permit);
+
+		/**
+		 * Called instead of {@link #granted(Permit)} when the call waited too
+		 * long in the queue, by the timer thread of the limiters
+		 *
+		 * @param exception
+		 *            the failure of the call
+		 */
+		void timedOut(MultichainTimeoutException exception);
+	}
+
+	private static ScheduledThreadPoolExecutor timer = null;
+
+	private final String name;
+	private final LimiterParameters limiterParameters;
+	private final ArrayDeque<Waiter> queue = new ArrayDeque<Waiter>();
+	private double limit;
+	private int inFlight = 0;
+	private long rejected = 0;
+
+	/**
+	 * @param name
+	 *            of the budget, for the errors
+	 * @param limiterParameters
+	 */
+	public ConcurrencyLimiter(String name, LimiterParameters limiterParameters) {
+		this.name = name;
+		this.limiterParameters = limiterParameters;
+		this.limit = Math.max(limiterParameters.getMinLimit(),
+				Math.min(limiterParameters.getMaxLimit(), limiterParameters.getInitialLimit()));
+	}
+
+	/**
+	 * @param methods
+	 * @return true if one of the methods is heavy
+	 */
+	public static boolean isHeavy(String... methods) {
+		for (String method : methods) {
+			if (HEAVY_METHODS.contains(method)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Waits for the limit, within the queue wait of the settings and the
+	 * deadline of the {@link CallOptions} if any.
+	 *
+	 * @param options
+	 *            the options of the call, may be null
+	 * @return the permit of the call, to be released when it is answered
+	 * @throws MultichainException
+	 *             if the queue is full or the thread is interrupted, a
+	 *             {@link MultichainTimeoutException} if the wait is too long
+	 */
+	public Permit acquire(CallOptions options) throws MultichainException {
+		long maxWaitMillis = getMaxWaitMillis(options);
+		Waiter waiter;
+		synchronized (this) {
+			if (queue.isEmpty() && inFlight < getLimit()) {
+				return grant();
+			}
+			waiter = enqueue(null);
+			long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(maxWaitMillis);
+			boolean interrupted = false;
+			try {
+				while (waiter.permit == null) {
+					long remaining = deadline - System.nanoTime();
+					if (remaining <= 0) {
+						break;
+					}
+					TimeUnit.NANOSECONDS.timedWait(this, remaining);
+				}
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				interrupted = true;
+			}
+			if (waiter.permit == null) {
+				queue.remove(waiter);
+				if (interrupted) {
+					throw new MultichainException("Concurrency Limit",
+							name + " call interrupted while waiting for the node");
+				}
+				throw timeout(maxWaitMillis);
+			}
+			return waiter.permit;
+		}
+	}
+
+	/**
+	 * Takes a permit without blocking, within the queue wait of the settings.
+	 *
+	 * @param grant
+	 *            receives the permit
+	 * @return the waiter, to leave the queue if the call is cancelled
+	 * @throws MultichainException
+	 *             if the queue is full
+	 * @see #acquireAsync(Grant, CallOptions)
+	 */
+	public Waiter acquireAsync(Grant grant) throws MultichainException {
+		return acquireAsync(grant, null);
+	}
+
+	/**
+	 * Takes a permit without blocking : now if under the limit, else when a
+	 * call in flight is answered. A call still queued after the queue wait of
+	 * the settings or the deadline of the {@link CallOptions} leaves the queue,
+	 * and its grant is told it timed out.
+	 *
+	 * @param grant
+	 *            receives the permit
+	 * @param options
+	 *            the options of the call, may be null
+	 * @return the waiter, to leave the queue if the call is cancelled
+	 * @throws MultichainException
+	 *             if the queue is full, a {@link MultichainTimeoutException} if
+	 *             the call has no time left to wait
+	 */
+	public Waiter acquireAsync(Grant grant, CallOptions options) throws MultichainException {
+		final long maxWaitMillis = getMaxWaitMillis(options);
+		final Waiter waiter;
+		synchronized (this) {
+			if (queue.isEmpty() && inFlight < getLimit()) {
+				waiter = new Waiter(grant);
+				waiter.permit = grant();
+			} else {
+				if (maxWaitMillis <= 0) {
+					throw timeout(maxWaitMillis);
+				}
+				waiter = enqueue(grant);
+				waiter.timeout = timer().schedule(new Runnable() {
+					@Override
+					public void run() {
+						synchronized (ConcurrencyLimiter.this) {
+							if (!queue.remove(waiter)) {
+								return;
+							}
+						}
+						waiter.grant.timedOut(timeout(maxWaitMillis));
+					}
+				}, maxWaitMillis, TimeUnit.MILLISECONDS);
+				return waiter;
+			}
+		}
+		grant.granted(waiter.permit);
+		return waiter;
+	}
+
+	/**
+	 * @return the current limit of calls in flight
+	 */
+	public synchronized int getLimit() {
+		return (int) limit;
+	}
+
+	/**
+	 * @return the number of calls in flight
+	 */
+	public synchronized int getInFlight() {
+		return inFlight;
+	}
+
+	/**
+	 * @return the number of calls waiting for the limit
+	 */
+	public synchronized int getQueueDepth() {
+		return queue.size();
+	}
+
+	/**
+	 * @return the number of calls rejected because the queue was full
+	 */
+	public synchronized long getRejected() {
+		return rejected;
+	}
+
+	/**
+	 * @return the name of the budget
+	 */
+	public String getName() {
+		return name;
+	}
+
+	private long getMaxWaitMillis(CallOptions options) {
+		long maxWaitMillis = limiterParameters.getMaxQueueWaitMillis();
+		if (options != null) {
+			maxWaitMillis = Math.min(maxWaitMillis, options.getRemainingMillis());
+		}
+		return maxWaitMillis;
+	}
+
+	private MultichainTimeoutException timeout(long maxWaitMillis) {
+		return new MultichainTimeoutException("Concurrency Limit",
+				name + " calls waited " + maxWaitMillis + " ms for the node");
+	}
+
+	private static synchronized ScheduledThreadPoolExecutor timer() {
+		if (timer == null) {
+			timer = new ScheduledThreadPoolExecutor(1, new ThreadFactory() {
+				@Override
+				public Thread newThread(Runnable runnable) {
+					Thread thread = new Thread(runnable, "multichain-limiter-queue-timer");
+					thread.setDaemon(true);
+					return thread;
+				}
+			});
+			timer.setRemoveOnCancelPolicy(true);
+			timer.setKeepAliveTime(60, TimeUnit.SECONDS);
+			timer.allowCoreThreadTimeOut(true);
+		}
+		return timer;
+	}
+
+	private Permit grant() {
+		inFlight++;
+		return new Permit(inFlight);
+	}
+
+	private Waiter enqueue(Grant grant) throws MultichainException {
+		if (queue.size() >= limiterParameters.getMaxQueueLength()) {
+			rejected++;
+			throw new MultichainException("Concurrency Limit",
+					name + " calls queue full, " + queue.size() + " calls waiting for the node");
+		}
+		Waiter waiter = new Waiter(grant);
+		queue.add(waiter);
+		return waiter;
+	}
+
+	private void release(Permit permit, boolean dropped) {
+		List<Waiter> granted = new ArrayList<Waiter>();
+		synchronized (this) {
+			inFlight--;
+			long latencyNanos = System.nanoTime() - permit.startNanos;
+			if (dropped || latencyNanos > TimeUnit.MILLISECONDS.toNanos(limiterParameters.getLatencyTargetMillis())) {
+				limit = Math.max(limiterParameters.getMinLimit(), limit * limiterParameters.getBackoffRatio());
+			} else if (permit.inFlightAtStart * 2 >= (int) limit) {
+				// grows only while the limit is used
+				limit = Math.min(limiterParameters.getMaxLimit(), limit + 1 / limit);
+			}
+			while (!queue.isEmpty() && inFlight < getLimit()) {
+				Waiter waiter = queue.poll();
+				waiter.permit = grant();
+				waiter.cancelTimeout();
+				granted.add(waiter);
+			}
+			if (!granted.isEmpty()) {
+				notifyAll();
+			}
+		}
+		for (Waiter waiter : granted) {
+			if (waiter.grant != null) {
+				waiter.grant.granted(waiter.permit);
+			}
+		}
+	}
+
+	/**
+	 * Right to send one call.
+	 */
+	public class Permit {
+		private final long startNanos = System.nanoTime();
+		private final int inFlightAtStart;
+		private boolean released = false;
+
+		private Permit(int inFlightAtStart) {
+			this.inFlightAtStart = inFlightAtStart;
+		}
+
+		/**
+		 * The call is answered or failed : its latency adjusts the limit.
+		 *
+		 * @param dropped
+		 *            true if the call failed or timed out
+		 */
+		public void release(boolean dropped) {
+			synchronized (ConcurrencyLimiter.this) {
+				if (released) {
+					return;
+				}
+				released = true;
+			}
+			ConcurrencyLimiter.this.release(this, dropped);
+		}
+	}
+
+	/**
+	 * A call of {@link ConcurrencyLimiter#acquireAsync(Grant)}.
+	 */
+	public class Waiter {
+		private final Grant grant;
+		private Permit permit;
+		private ScheduledFuture<?> timeout;
+
+		private Waiter(Grant grant) {
+			this.grant = grant;
+		}
+
+		private void cancelTimeout() {
+			if (timeout != null) {
+				timeout.cancel(false);
+			}
+		}
+
+		/**
+		 * Leaves the queue if the permit is not granted yet.
+		 *
+		 * @return true if the waiter left the queue
+		 */
+		public boolean cancel() {
+			synchronized (ConcurrencyLimiter.this) {
+				if (!queue.remove(this)) {
+					return false;
+				}
+				cancelTimeout();
+				return true;
+			}
+		}
+	}
+}
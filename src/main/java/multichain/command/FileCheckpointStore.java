@@ -0,0 +1,54 @@
+/*
+ * Copyright (C) 2017 Worldline, Inc.
+ *
+ * MultiChainJavaAPI code distributed under the GPLv3 license, see COPYING file.
+ * https://github.com/SimplyUb/MultiChainJavaAPI/blob/master/LICENSE
+ *
+ */
+package multichain.command;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * Checkpoint of a {@link ChainFollower} kept in a file, as "height hash".
+ *
+ * The file is replaced atomically : a crash while saving leaves the previous
+ * checkpoint.
+ *
+ * @author Ub - H. MARTEAU
+ * @version 4.15
+ */
+public class FileCheckpointStore implements ChainFollower.CheckpointStore {
+	private final Path file;
+
+	/**
+	 * @param file
+	 */
+	public FileCheckpointStore(Path file) {
+		this.file = file;
+	}
+
+	@Override
+	public ChainFollower.Checkpoint load() throws IOException {
+		if (!Files.exists(file)) {
+			return null;
+		}
+		String[] fields = new String(Files.readAllBytes(file), StandardCharsets.UTF_8).trim().split(" ");
+		if (fields.length != 2) {
+			throw new IOException("Invalid checkpoint in " + file);
+		}
+		return new ChainFollower.Checkpoint(Long.parseLong(fields[0]), fields[1]);
+	}
+
+	@Override
+	public void save(ChainFollower.Checkpoint checkpoint) throws IOException {
+		Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+		Files.write(temporary,
+				(checkpoint.getHeight() + " " + checkpoint.getHash()).getBytes(StandardCharsets.UTF_8));
+		Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+	}
+}
@@ -7,13 +7,11 @@
  */
 package multichain.command;
 
-import java.util.ArrayList;
 import java.util.List;
 
 import multichain.command.builders.QueryBuilderGrant;
 import multichain.object.Address;
 import multichain.object.Permission;
-import multichain.object.formatters.GrantFormatter;
 
 /**
  * @author Ub - H. MARTEAU & Jagrut KOSTI
@@ -37,6 +35,14 @@ public class GrantCommand extends QueryBuilderGrant {
 		initialize(ip, port, login, password, runtimeparameters);
 	}
 
+	public GrantCommand(MultiChainTransport transport, RuntimeParameters runtimeparameters) {
+		initialize(transport, runtimeparameters);
+	}
+
+	public GrantCommand(MultiChainCluster cluster, RuntimeParameters runtimeparameters) {
+		initialize(cluster, runtimeparameters);
+	}
+
 	/**
 	 * Give grant permissions to an address
 	 * 
@@ -363,19 +369,9 @@ public class GrantCommand extends QueryBuilderGrant {
 	 * @return a list of all permissions currently granted to addresses.
 	 * @throws MultichainException
 	 */
-	@SuppressWarnings("unchecked")
 	public List<Permission> listPermissions(int permissions, String address, boolean verbose)
 			throws MultichainException {
-		List<Permission> permission = new ArrayList<Permission>();
-
-		Object objectPermission = executeListPermissions(permissions, address, verbose);
-
-		if (verifyInstance(objectPermission, ArrayList.class)
-				&& verifyInstanceofList((ArrayList<Object>) objectPermission, Permission.class)) {
-			permission = GrantFormatter.formatPermissions((ArrayList<Object>) objectPermission);
-		}
-
-		return permission;
+		return executeListPermissions(permissions, address, verbose);
 	}
 
 	/**
@@ -391,19 +387,9 @@ public class GrantCommand extends QueryBuilderGrant {
 	 * @return a list of all permissions currently granted to addresses.
 	 * @throws MultichainException
 	 */
-	@SuppressWarnings("unchecked")
 	public List<Permission> listPermissions(byte permissions, String address, boolean verbose)
 			throws MultichainException {
-		List<Permission> permission = new ArrayList<Permission>();
-
-		Object objectPermission = executeListPermissions(permissions, address, verbose);
-
-		if (verifyInstance(objectPermission, ArrayList.class)
-				&& verifyInstanceofList((ArrayList<Object>) objectPermission, Permission.class)) {
-			permission = GrantFormatter.formatPermissions((ArrayList<Object>) objectPermission);
-		}
-
-		return permission;
+		return executeListPermissions(permissions, address, verbose);
 	}
 
 	/**
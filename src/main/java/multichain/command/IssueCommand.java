@@ -7,12 +7,11 @@
  */
 package multichain.command;
 
-import java.util.ArrayList;
 import java.util.List;
 
+import multichain.command.builders.PagedIterator;
 import multichain.command.builders.QueryBuilderIssue;
 import multichain.object.BalanceAsset;
-import multichain.object.formatters.BalanceFormatter;
 import multichain.object.queryobjects.AssetParams;
 import multichain.object.queryobjects.CustomParamString;
 
@@ -26,6 +25,14 @@ public class IssueCommand extends QueryBuilderIssue {
 		initialize(ip, port, login, password, runtimeparameters);
 	}
 
+	public IssueCommand(MultiChainTransport transport, RuntimeParameters runtimeparameters) {
+		initialize(transport, runtimeparameters);
+	}
+
+	public IssueCommand(MultiChainCluster cluster, RuntimeParameters runtimeparameters) {
+		initialize(cluster, runtimeparameters);
+	}
+
 	/**
 	 * getassetbalances ( "account" minconf includeWatchonly includeLocked)
 	 * 
@@ -48,17 +55,8 @@ public class IssueCommand extends QueryBuilderIssue {
 	 * @throws MultichainException
 	 * 
 	 */
-	@SuppressWarnings("unchecked")
 	public List<BalanceAsset> getAssetBalances() throws MultichainException {
-		List<BalanceAsset> listBalanceAsset = new ArrayList<BalanceAsset>();
-
-		Object objectBalanceAsset = executeGetAssetBalances();
-		if (verifyInstance(objectBalanceAsset, ArrayList.class)
-				&& verifyInstanceofList((ArrayList<Object>) objectBalanceAsset, BalanceAsset.class)) {
-			listBalanceAsset = BalanceFormatter.formatBalanceAssets((ArrayList<Object>) objectBalanceAsset);
-		}
-
-		return listBalanceAsset;
+		return executeGetAssetBalances();
 	}
 
 	/**
@@ -634,17 +632,8 @@ public class IssueCommand extends QueryBuilderIssue {
 	 *         asset name, ref or issuance txid
 	 * @throws MultichainException
 	 */
-	@SuppressWarnings("unchecked")
 	public List<BalanceAsset> listAssets(String asset, boolean verbose) throws MultichainException {
-		List<BalanceAsset> listBalanceAsset = new ArrayList<BalanceAsset>();
-
-		Object objectBalances = executeListAssets(asset, verbose);
-		if (verifyInstance(objectBalances, ArrayList.class)
-				&& verifyInstanceofList((ArrayList<Object>) objectBalances, BalanceAsset.class)) {
-			listBalanceAsset = BalanceFormatter.formatBalanceAssets((ArrayList<Object>) objectBalances);
-		}
-
-		return listBalanceAsset;
+		return executeListAssets(asset, verbose);
 	}
 
 	/**
@@ -665,6 +654,24 @@ public class IssueCommand extends QueryBuilderIssue {
 		return listAssets(asset, false);
 	}
 
+	/**
+	 * listassets "*" verbose count start, over all the assets of the chain,
+	 * read lazily page by page
+	 * 
+	 * @param verbose
+	 * @param pageSize
+	 *            count of each call
+	 * @return the assets, to be read until the end or closed
+	 */
+	public PagedIterator<BalanceAsset> listAssetsPaged(final boolean verbose, int pageSize) {
+		return new PagedIterator<BalanceAsset>(new PagedIterator.PageFetcher<BalanceAsset>() {
+			@Override
+			public List<BalanceAsset> fetch(long start, int count) throws MultichainException {
+				return executeListAssets(verbose, count, start);
+			}
+		}, 0, pageSize, true);
+	}
+
 	/**
 	 * Sends assets to address, returning the txid.
 	 * 
@@ -18,6 +18,14 @@ public class KeyCommand extends QueryBuilderKey {
 		initialize(ip, port, login, password, runtimeparameters);
 	}
 
+	public KeyCommand(MultiChainTransport transport, RuntimeParameters runtimeparameters) {
+		initialize(transport, runtimeparameters);
+	}
+
+	public KeyCommand(MultiChainCluster cluster, RuntimeParameters runtimeparameters) {
+		initialize(cluster, runtimeparameters);
+	}
+
 	public Object getPrivkey(String privkey) throws MultichainException {
 		return executeDumpPrivkey(privkey);
 	}
@@ -0,0 +1,147 @@
+/*
+ * Copyright (C) 2017 Worldline, Inc.
+ *
+ * MultiChainJavaAPI code distributed under the GPLv3 license, see COPYING file.
+ * https://github.com/SimplyUb/MultiChainJavaAPI/blob/master/LICENSE
+ *
+ */
+package multichain.command;
+
+/**
+ * Settings of one budget of {@link ConcurrencyLimiter}.
+ *
+ * @author Ub - H. MARTEAU
+ * @version 4.15
+ */
+public class LimiterParameters {
+	int initialLimit = 4;
+	int minLimit = 1;
+	int maxLimit = 32;
+	long latencyTargetMillis = 500;
+	double backoffRatio = 0.9;
+	int maxQueueLength = 256;
+	long maxQueueWaitMillis = 10000;
+
+	/**
+	 * Default settings
+	 */
+	public LimiterParameters() {
+		super();
+	}
+
+	/**
+	 * @param maxLimit
+	 * @param latencyTargetMillis
+	 */
+	public LimiterParameters(int maxLimit, long latencyTargetMillis) {
+		super();
+		this.maxLimit = maxLimit;
+		this.latencyTargetMillis = latencyTargetMillis;
+	}
+
+	/**
+	 * @return the limit of calls in flight before the first answer
+	 */
+	public int getInitialLimit() {
+		return initialLimit;
+	}
+
+	/**
+	 * @param initialLimit
+	 *            the initialLimit to set
+	 */
+	public void setInitialLimit(int initialLimit) {
+		this.initialLimit = initialLimit;
+	}
+
+	/**
+	 * @return the limit is never lowered below
+	 */
+	public int getMinLimit() {
+		return minLimit;
+	}
+
+	/**
+	 * @param minLimit
+	 *            the minLimit to set
+	 */
+	public void setMinLimit(int minLimit) {
+		this.minLimit = minLimit;
+	}
+
+	/**
+	 * @return the limit is never raised above
+	 */
+	public int getMaxLimit() {
+		return maxLimit;
+	}
+
+	/**
+	 * @param maxLimit
+	 *            the maxLimit to set
+	 */
+	public void setMaxLimit(int maxLimit) {
+		this.maxLimit = maxLimit;
+	}
+
+	/**
+	 * @return a call answered slower than this lowers the limit
+	 */
+	public long getLatencyTargetMillis() {
+		return latencyTargetMillis;
+	}
+
+	/**
+	 * @param latencyTargetMillis
+	 *            the latencyTargetMillis to set
+	 */
+	public void setLatencyTargetMillis(long latencyTargetMillis) {
+		this.latencyTargetMillis = latencyTargetMillis;
+	}
+
+	/**
+	 * @return factor applied to the limit on a slow or failed call
+	 */
+	public double getBackoffRatio() {
+		return backoffRatio;
+	}
+
+	/**
+	 * @param backoffRatio
+	 *            the backoffRatio to set, between 0 and 1
+	 */
+	public void setBackoffRatio(double backoffRatio) {
+		this.backoffRatio = backoffRatio;
+	}
+
+	/**
+	 * @return the number of calls waiting for the limit beyond which new calls
+	 *         are rejected
+	 */
+	public int getMaxQueueLength() {
+		return maxQueueLength;
+	}
+
+	/**
+	 * @param maxQueueLength
+	 *            the maxQueueLength to set, 0 to reject instead of queueing
+	 */
+	public void setMaxQueueLength(int maxQueueLength) {
+		this.maxQueueLength = maxQueueLength;
+	}
+
+	/**
+	 * @return how long a blocking call may wait for the limit
+	 */
+	public long getMaxQueueWaitMillis() {
+		return maxQueueWaitMillis;
+	}
+
+	/**
+	 * @param maxQueueWaitMillis
+	 *            the maxQueueWaitMillis to set
+	 */
+	public void setMaxQueueWaitMillis(long maxQueueWaitMillis) {
+		this.maxQueueWaitMillis = maxQueueWaitMillis;
+	}
+}
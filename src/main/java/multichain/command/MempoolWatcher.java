@@ -0,0 +1,349 @@
+/*
+ * Copyright (C) 2017 Worldline, Inc.
+ *
+ * MultiChainJavaAPI code distributed under the GPLv3 license, see COPYING file.
+ * https://github.com/SimplyUb/MultiChainJavaAPI/blob/master/LICENSE
+ *
+ */
+package multichain.command;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import multichain.command.builders.BatchResult;
+import multichain.object.MempoolInfo;
+import multichain.object.TransactionRAW;
+import multichain.object.TransactionRAWDecoder;
+
+/**
+ * Follows the memory pool of the node, emitting the transactions entering and
+ * leaving it.
+ *
+ * Each poll is a single request, getmempoolinfo and getrawmempool batched,
+ * compared with the txids of the previous poll. Only the transactions entering
+ * the pool are then read, by batches of getrawtransaction, and decoded
+ * locally. The period of the polls grows while the pool does not change.
+ *
+ * The size of the pool and the histograms of the ages and sizes of its
+ * transactions let the senders slow down before the node refuses their
+ * transactions, see {@link #isCongested()}. The age of a transaction is
+ * counted from the poll which saw it first.
+ *
+ * @author Ub - H. MARTEAU
+ * @version 4.15
+ */
+public class MempoolWatcher implements Closeable {
+	private static final Logger LOGGER = Logger.getLogger(MempoolWatcher.class.getName());
+
+	/**
+	 * Receives the changes of the memory pool, on the thread of the watcher.
+	 */
+	public interface Listener {
+		/**
+		 * @param transactions
+		 *            the transactions entering the pool by txid, in the order
+		 *            of the node ; a transaction is null if not read, or left
+		 *            the pool before being read
+		 */
+		void transactionsAdded(Map<String, TransactionRAW> transactions);
+
+		/**
+		 * @param txids
+		 *            the transactions which left the pool, mined or dropped
+		 */
+		void transactionsRemoved(List<String> txids);
+	}
+
+	/**
+	 * A transaction of the pool.
+	 */
+	private static class Entry {
+		final long firstSeen;
+		/** bytes, -1 if not read */
+		long size = -1;
+
+		Entry(long firstSeen) {
+			this.firstSeen = firstSeen;
+		}
+	}
+
+	private final BatchCommand batchCommand;
+	private final MempoolWatcherParameters watcherParameters;
+	private final TransactionRAWDecoder decoder;
+	private final Listener listener;
+	private final Object pollLock = new Object();
+	/** written under its own lock, read without lock by the polling thread */
+	private final Map<String, Entry> entries = new HashMap<String, Entry>();
+	private volatile long size = 0;
+	private volatile long bytes = 0;
+	private volatile long pollMillis;
+	private Thread thread = null;
+	private volatile boolean running = false;
+
+	/**
+	 * @param multiChainCommand
+	 *            gives the batch of the polls
+	 * @param watcherParameters
+	 *            default ones if null
+	 * @param decoder
+	 *            decodes the transactions entering the pool, one of bitcoin if
+	 *            null
+	 * @param listener
+	 *            null to only keep the statistics
+	 */
+	public MempoolWatcher(MultiChainCommand multiChainCommand, MempoolWatcherParameters watcherParameters,
+			TransactionRAWDecoder decoder, Listener listener) {
+		if (watcherParameters == null) {
+			watcherParameters = new MempoolWatcherParameters();
+		}
+		this.batchCommand = multiChainCommand.newBatch();
+		this.watcherParameters = watcherParameters;
+		this.decoder = decoder != null ? decoder : new TransactionRAWDecoder();
+		this.listener = listener;
+		this.pollMillis = watcherParameters.getMinPollMillis();
+	}
+
+	/**
+	 * Starts polling the node on a daemon thread.
+	 */
+	public synchronized void start() {
+		if (thread != null) {
+			return;
+		}
+		running = true;
+		thread = new Thread("multichain-mempool-watcher") {
+			@Override
+			public void run() {
+				watch();
+			}
+		};
+		thread.setDaemon(true);
+		thread.start();
+	}
+
+	/**
+	 * Stops polling, after the changes being emitted if any.
+	 */
+	@Override
+	public void close() {
+		Thread current;
+		synchronized (this) {
+			running = false;
+			current = thread;
+			thread = null;
+		}
+		if (current != null) {
+			current.interrupt();
+			if (current != Thread.currentThread()) {
+				try {
+					current.join();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			}
+		}
+	}
+
+	/**
+	 * Compares the pool with the previous poll once, and emits the changes.
+	 * Called by the thread of {@link #start()}, or directly by a caller
+	 * polling by itself.
+	 *
+	 * @return the number of transactions added and removed
+	 * @throws MultichainException
+	 *             if the node fails ; the changes are then emitted by the next
+	 *             poll
+	 */
+	public int poll() throws MultichainException {
+		synchronized (pollLock) {
+			BatchResult<MempoolInfo> infoResult = batchCommand.getMempoolInfo();
+			BatchResult<List<String>> txidsResult = batchCommand.getRawMempool();
+			batchCommand.execute();
+			MempoolInfo info = infoResult.get();
+			List<String> txids = txidsResult.get();
+			long now = System.currentTimeMillis();
+
+			Set<String> current = new HashSet<String>(txids);
+			List<String> removed = new ArrayList<String>();
+			for (String txid : entries.keySet()) {
+				if (!current.contains(txid)) {
+					removed.add(txid);
+				}
+			}
+			Map<String, TransactionRAW> added = new LinkedHashMap<String, TransactionRAW>();
+			for (String txid : txids) {
+				if (!entries.containsKey(txid)) {
+					added.put(txid, null);
+				}
+			}
+			Map<String, Long> sizes = watcherParameters.isFetchDetails() ? read(added)
+					: new HashMap<String, Long>();
+
+			synchronized (entries) {
+				for (String txid : removed) {
+					entries.remove(txid);
+				}
+				for (String txid : added.keySet()) {
+					Entry entry = new Entry(now);
+					Long transactionSize = sizes.get(txid);
+					if (transactionSize != null) {
+						entry.size = transactionSize;
+					}
+					entries.put(txid, entry);
+				}
+			}
+			size = txids.size();
+			bytes = info.getBytes();
+
+			if (listener != null) {
+				if (!removed.isEmpty()) {
+					listener.transactionsRemoved(removed);
+				}
+				if (!added.isEmpty()) {
+					listener.transactionsAdded(added);
+				}
+			}
+			int changes = added.size() + removed.size();
+			pollMillis = changes > 0 ? watcherParameters.getMinPollMillis()
+					: Math.min(watcherParameters.getMaxPollMillis(), Math.max(pollMillis * 3 / 2, pollMillis + 1));
+			return changes;
+		}
+	}
+
+	/**
+	 * @return the number of transactions in the pool at the last poll
+	 */
+	public long getSize() {
+		return size;
+	}
+
+	/**
+	 * @return the bytes of the transactions in the pool at the last poll
+	 */
+	public long getBytes() {
+		return bytes;
+	}
+
+	/**
+	 * @return true if the size or the bytes of the pool reached the thresholds
+	 *         of the parameters
+	 */
+	public boolean isCongested() {
+		return (watcherParameters.getCongestionSize() > 0 && size >= watcherParameters.getCongestionSize())
+				|| (watcherParameters.getCongestionBytes() > 0 && bytes >= watcherParameters.getCongestionBytes());
+	}
+
+	/**
+	 * @return the number of transactions by age, one bucket per bound of
+	 *         {@link MempoolWatcherParameters#getAgeBoundsMillis()} and a last
+	 *         one for the older ones
+	 */
+	public long[] getAgeHistogram() {
+		long[] bounds = watcherParameters.getAgeBoundsMillis();
+		long[] histogram = new long[bounds.length + 1];
+		long now = System.currentTimeMillis();
+		synchronized (entries) {
+			for (Entry entry : entries.values()) {
+				histogram[bucket(bounds, now - entry.firstSeen)]++;
+			}
+		}
+		return histogram;
+	}
+
+	/**
+	 * @return the number of transactions read by size, one bucket per bound of
+	 *         {@link MempoolWatcherParameters#getSizeBounds()} and a last one
+	 *         for the larger ones
+	 */
+	public long[] getSizeHistogram() {
+		long[] bounds = watcherParameters.getSizeBounds();
+		long[] histogram = new long[bounds.length + 1];
+		synchronized (entries) {
+			for (Entry entry : entries.values()) {
+				if (entry.size >= 0) {
+					histogram[bucket(bounds, entry.size)]++;
+				}
+			}
+		}
+		return histogram;
+	}
+
+	/**
+	 * @return the current period of the polls
+	 */
+	public long getPollMillis() {
+		return pollMillis;
+	}
+
+	private void watch() {
+		while (running) {
+			try {
+				poll();
+			} catch (MultichainException e) {
+				LOGGER.log(Level.WARNING, "mempool watcher poll failed", e);
+				pollMillis = Math.min(watcherParameters.getMaxPollMillis(), pollMillis * 2);
+			} catch (RuntimeException e) {
+				LOGGER.log(Level.SEVERE, "mempool watcher listener failed", e);
+				pollMillis = Math.min(watcherParameters.getMaxPollMillis(), pollMillis * 2);
+			}
+			try {
+				Thread.sleep(pollMillis);
+			} catch (InterruptedException e) {
+				return;
+			}
+		}
+	}
+
+	/**
+	 * Reads and decodes the transactions added, by batches.
+	 *
+	 * @return the sizes of the transactions read
+	 */
+	private Map<String, Long> read(Map<String, TransactionRAW> added) throws MultichainException {
+		Map<String, Long> sizes = new HashMap<String, Long>();
+		Iterator<String> txids = added.keySet().iterator();
+		while (txids.hasNext()) {
+			Map<String, BatchResult<String>> results = new LinkedHashMap<String, BatchResult<String>>();
+			while (txids.hasNext() && results.size() < watcherParameters.getMaxDetailBatchSize()) {
+				String txid = txids.next();
+				results.put(txid, batchCommand.getRAWTransactionWithoutDetail(txid));
+			}
+			batchCommand.execute();
+			for (Map.Entry<String, BatchResult<String>> result : results.entrySet()) {
+				if (result.getValue().isError()) {
+					// left the pool since getrawmempool
+					continue;
+				}
+				String hex = result.getValue().get();
+				if (hex == null) {
+					continue;
+				}
+				sizes.put(result.getKey(), (long) hex.length() / 2);
+				try {
+					added.put(result.getKey(), decoder.decode(hex));
+				} catch (IllegalArgumentException e) {
+					LOGGER.log(Level.FINE, "transaction " + result.getKey() + " not decoded", e);
+				}
+			}
+		}
+		return sizes;
+	}
+
+	private static int bucket(long[] bounds, long value) {
+		for (int i = 0; i < bounds.length; i++) {
+			if (value < bounds[i]) {
+				return i;
+			}
+		}
+		return bounds.length;
+	}
+}
@@ -0,0 +1,170 @@
+/*
+ * Copyright (C) 2017 Worldline, Inc.
+ *
+ * MultiChainJavaAPI code distributed under the GPLv3 license, see COPYING file.
+ * https://github.com/SimplyUb/MultiChainJavaAPI/blob/master/LICENSE
+ *
+ */
+package multichain.command;
+
+/**
+ * Polling, histogram and congestion settings used by {@link MempoolWatcher}.
+ *
+ * @author Ub - H. MARTEAU
+ * @version 4.15
+ */
+public class MempoolWatcherParameters {
+	long minPollMillis = 200;
+	long maxPollMillis = 5000;
+	boolean fetchDetails = true;
+	int maxDetailBatchSize = 500;
+	long[] ageBoundsMillis = { 1000, 5000, 30000, 60000, 300000 };
+	long[] sizeBounds = { 250, 1000, 10000, 100000 };
+	long congestionSize = 0;
+	long congestionBytes = 0;
+
+	/**
+	 * Default settings : no congestion threshold
+	 */
+	public MempoolWatcherParameters() {
+		super();
+	}
+
+	/**
+	 * @param congestionSize
+	 *            0 for none
+	 * @param congestionBytes
+	 *            0 for none
+	 */
+	public MempoolWatcherParameters(long congestionSize, long congestionBytes) {
+		super();
+		this.congestionSize = congestionSize;
+		this.congestionBytes = congestionBytes;
+	}
+
+	/**
+	 * @return the shortest period between two polls, used while the memory
+	 *         pool changes
+	 */
+	public long getMinPollMillis() {
+		return minPollMillis;
+	}
+
+	/**
+	 * @param minPollMillis
+	 *            the minPollMillis to set
+	 */
+	public void setMinPollMillis(long minPollMillis) {
+		this.minPollMillis = minPollMillis;
+	}
+
+	/**
+	 * @return the longest period between two polls, reached while the memory
+	 *         pool does not change
+	 */
+	public long getMaxPollMillis() {
+		return maxPollMillis;
+	}
+
+	/**
+	 * @param maxPollMillis
+	 *            the maxPollMillis to set
+	 */
+	public void setMaxPollMillis(long maxPollMillis) {
+		this.maxPollMillis = maxPollMillis;
+	}
+
+	/**
+	 * @return true if the transactions entering the memory pool are read and
+	 *         decoded, false to only emit their txids
+	 */
+	public boolean isFetchDetails() {
+		return fetchDetails;
+	}
+
+	/**
+	 * @param fetchDetails
+	 *            the fetchDetails to set
+	 */
+	public void setFetchDetails(boolean fetchDetails) {
+		this.fetchDetails = fetchDetails;
+	}
+
+	/**
+	 * @return the number of transactions read in one request
+	 */
+	public int getMaxDetailBatchSize() {
+		return maxDetailBatchSize;
+	}
+
+	/**
+	 * @param maxDetailBatchSize
+	 *            the maxDetailBatchSize to set
+	 */
+	public void setMaxDetailBatchSize(int maxDetailBatchSize) {
+		this.maxDetailBatchSize = maxDetailBatchSize;
+	}
+
+	/**
+	 * @return the upper bounds of the age buckets, in increasing order ; the
+	 *         last bucket has no bound
+	 */
+	public long[] getAgeBoundsMillis() {
+		return ageBoundsMillis;
+	}
+
+	/**
+	 * @param ageBoundsMillis
+	 *            the ageBoundsMillis to set
+	 */
+	public void setAgeBoundsMillis(long[] ageBoundsMillis) {
+		this.ageBoundsMillis = ageBoundsMillis;
+	}
+
+	/**
+	 * @return the upper bounds of the size buckets in bytes, in increasing
+	 *         order ; the last bucket has no bound
+	 */
+	public long[] getSizeBounds() {
+		return sizeBounds;
+	}
+
+	/**
+	 * @param sizeBounds
+	 *            the sizeBounds to set
+	 */
+	public void setSizeBounds(long[] sizeBounds) {
+		this.sizeBounds = sizeBounds;
+	}
+
+	/**
+	 * @return the number of transactions from which the memory pool is
+	 *         congested, 0 for none
+	 */
+	public long getCongestionSize() {
+		return congestionSize;
+	}
+
+	/**
+	 * @param congestionSize
+	 *            the congestionSize to set
+	 */
+	public void setCongestionSize(long congestionSize) {
+		this.congestionSize = congestionSize;
+	}
+
+	/**
+	 * @return the bytes from which the memory pool is congested, 0 for none
+	 */
+	public long getCongestionBytes() {
+		return congestionBytes;
+	}
+
+	/**
+	 * @param congestionBytes
+	 *            the congestionBytes to set
+	 */
+	public void setCongestionBytes(long congestionBytes) {
+		this.congestionBytes = congestionBytes;
+	}
+}
@@ -21,6 +21,14 @@ public class MessagingCommand extends QueryBuilderMessaging {
 		initialize(ip, port, login, password, runtimeparameters);
 	}
 
+	public MessagingCommand(MultiChainTransport transport, RuntimeParameters runtimeparameters) {
+		initialize(transport, runtimeparameters);
+	}
+
+	public MessagingCommand(MultiChainCluster cluster, RuntimeParameters runtimeparameters) {
+		initialize(cluster, runtimeparameters);
+	}
+
 	/**
 	 * Verifies that message was approved by the owner of address by checking
 	 * the base64-encoded digital signature provided.
@@ -17,6 +17,14 @@ public class MiningCommand extends QueryBuilderMining {
 	public MiningCommand(String ip, String port, String login, String password, RuntimeParameters runtimeparameters) {
 		initialize(ip, port, login, password, runtimeparameters);
 	}
+
+	public MiningCommand(MultiChainTransport transport, RuntimeParameters runtimeparameters) {
+		initialize(transport, runtimeparameters);
+	}
+
+	public MiningCommand(MultiChainCluster cluster, RuntimeParameters runtimeparameters) {
+		initialize(cluster, runtimeparameters);
+	}
 	
 	public Object pauseMining() throws MultichainException {
 		return executePauseMining();
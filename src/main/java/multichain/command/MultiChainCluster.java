@@ -0,0 +1,596 @@
+/*
+ * Copyright (C) 2017 Worldline, Inc.
+ *
+ * MultiChainJavaAPI code distributed under the GPLv3 license, see COPYING file.
+ * https://github.com/SimplyUb/MultiChainJavaAPI/blob/master/LICENSE
+ *
+ */
+package multichain.command;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpResponse;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.concurrent.FutureCallback;
+import org.apache.http.conn.ConnectTimeoutException;
+import org.apache.http.conn.HttpHostConnectException;
+import org.apache.http.entity.BufferedHttpEntity;
+import org.apache.http.entity.StringEntity;
+import org.apache.http.util.EntityUtils;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+/**
+ * Several MultiChain nodes of the same chain, seen as one.
+ *
+ * Chain reads (blocks, raw transactions, streams, permissions...) are spread
+ * over the healthy nodes which are not behind in blocks, to the node with the
+ * fewest requests in flight. Any other call (publish, sendrawtransaction,
+ * grant, wallet calls...) goes to the write node, see
+ * {@link ClusterParameters#getWriteNodeIndex()}.
+ *
+ * A node failing a request, or answering with a 5xx status which is not a
+ * JSON-RPC error, or with RPC_IN_WARMUP (-28), is considered down until it
+ * answers a probe again. A read is then retried on the next node. A
+ * sendrawtransaction, which any node can relay, is only retried when the
+ * connection could not be opened, or the node answered RPC_IN_WARMUP or 503,
+ * so that it is never sent twice. The other writes use the keys and the
+ * outputs of the wallet of the write node : they are never sent to another
+ * node, and fail while the write node is down.
+ *
+ * Every node is probed with getblockcount, on its own pooled transport :
+ * <pre>
+ * MultiChainCluster cluster = new MultiChainCluster(Arrays.asList(
+ * 		new MultiChainTransport("10.0.0.1", "6820", login, password),
+ * 		new MultiChainTransport("10.0.0.2", "6820", login, password)));
+ * MultiChainCommand multiChainCommand = new MultiChainCommand(cluster, null);
+ * </pre>
+ *
+ * @author Ub - H. MARTEAU
+ * @version 4.15
+ */
+public class MultiChainCluster implements Closeable {
+
+	/**
+	 * Calls answered the same way by every node of the chain
+	 */
+	private static final Set<String> READ_METHODS = new HashSet<String>(Arrays.asList("getbestblockhash",
+			"getblock", "getblockchainparams", "getblockcount", "getblockhash", "listblocks", "getrawtransaction",
+			"decoderawtransaction", "decoderawexchange", "gettxout", "gettxoutdata", "getstreamitem", "liststreams",
+			"liststreamitems", "liststreamkeyitems", "liststreamkeys", "liststreampublishers",
+			"liststreampublisheritems", "listassets", "listpermissions", "verifymessage"));
+
+	/**
+	 * Writes which do not use the wallet of the node, and can be sent to any
+	 * node
+	 */
+	private static final Set<String> WALLET_INDEPENDENT_METHODS = new HashSet<String>(
+			Arrays.asList("sendrawtransaction"));
+
+	/** RPC_IN_WARMUP */
+	private static final int CODE_IN_WARMUP = -28;
+	/** the node answered, successfully or with an RPC error */
+	private static final int ANSWERED = 0;
+	/** the node failed without running the call */
+	private static final int NOT_RUN = 1;
+	/** the node failed, maybe after running the call */
+	private static final int MAY_HAVE_RUN = 2;
+	private static final String PROBE = "{\"id\":\"probe\",\"method\":\"getblockcount\",\"params\":[]}";
+
+	/**
+	 * One node of the cluster and what is known of it.
+	 */
+	public static class Node {
+		private final MultiChainTransport transport;
+		private final AtomicInteger outstandingRequests = new AtomicInteger();
+		private volatile boolean healthy = true;
+		private volatile long blockCount = -1;
+
+		Node(MultiChainTransport transport) {
+			this.transport = transport;
+		}
+
+		/**
+		 * @return the transport to the node
+		 */
+		public MultiChainTransport getTransport() {
+			return transport;
+		}
+
+		/**
+		 * @return the number of requests sent to the node and not answered yet
+		 */
+		public int getOutstandingRequests() {
+			return outstandingRequests.get();
+		}
+
+		/**
+		 * @return false if the last request or probe of the node failed
+		 */
+		public boolean isHealthy() {
+			return healthy;
+		}
+
+		/**
+		 * @return the block count given by the last probe, -1 before the first
+		 *         answered probe
+		 */
+		public long getBlockCount() {
+			return blockCount;
+		}
+
+		@Override
+		public String toString() {
+			return "Node [url=" + transport.getUrl() + ", healthy=" + healthy + ", blockCount=" + blockCount
+					+ ", outstandingRequests=" + outstandingRequests + "]";
+		}
+	}
+
+	private final List<Node> nodes;
+	private final Node writeNode;
+	private final ClusterParameters clusterParameters;
+	private final AtomicInteger rotation = new AtomicInteger();
+	private final HealthProber healthProber;
+
+	/**
+	 * @param transports
+	 *            one transport per node
+	 */
+	public MultiChainCluster(List<MultiChainTransport> transports) {
+		this(transports, new ClusterParameters());
+	}
+
+	/**
+	 * @param transports
+	 *            one transport per node
+	 * @param clusterParameters
+	 *            routing settings, default ones if null
+	 */
+	public MultiChainCluster(List<MultiChainTransport> transports, ClusterParameters clusterParameters) {
+		if (clusterParameters == null) {
+			clusterParameters = new ClusterParameters();
+		}
+		if (transports == null || transports.isEmpty()) {
+			throw new IllegalArgumentException("a cluster needs at least one node");
+		}
+		if (clusterParameters.getWriteNodeIndex() < 0 || clusterParameters.getWriteNodeIndex() >= transports.size()) {
+			throw new IllegalArgumentException("no node at write node index " + clusterParameters.getWriteNodeIndex());
+		}
+		this.clusterParameters = clusterParameters;
+
+		List<Node> clusterNodes = new ArrayList<Node>(transports.size());
+		for (MultiChainTransport transport : transports) {
+			clusterNodes.add(new Node(transport));
+		}
+		nodes = Collections.unmodifiableList(clusterNodes);
+		writeNode = nodes.get(clusterParameters.getWriteNodeIndex());
+
+		healthProber = new HealthProber(clusterParameters.getProbeIntervalMillis());
+		healthProber.start();
+	}
+
+	/**
+	 * @return the nodes, in the given order
+	 */
+	public List<Node> getNodes() {
+		return nodes;
+	}
+
+	/**
+	 * @return the transport of the write node
+	 */
+	public MultiChainTransport getWriteTransport() {
+		return writeNode.getTransport();
+	}
+
+	/**
+	 * @return the clusterParameters
+	 */
+	public ClusterParameters getClusterParameters() {
+		return clusterParameters;
+	}
+
+	/**
+	 * @param methods
+	 *            the RPC methods of the request
+	 * @return true if the request can be sent to any node
+	 */
+	public static boolean isRead(String... methods) {
+		for (String method : methods) {
+			if (!READ_METHODS.contains(method)) {
+				return false;
+			}
+		}
+		return methods.length > 0;
+	}
+
+	/**
+	 * @param methods
+	 *            the RPC methods of the request
+	 * @return true if the request can be sent to another node when the write
+	 *         node is down : it uses no wallet
+	 */
+	public static boolean isWalletIndependent(String... methods) {
+		for (String method : methods) {
+			if (!READ_METHODS.contains(method) && !WALLET_INDEPENDENT_METHODS.contains(method)) {
+				return false;
+			}
+		}
+		return methods.length > 0;
+	}
+
+	/**
+	 * Sends a request to the node chosen for its methods, and to the next ones
+	 * if it fails.
+	 *
+	 * @param entity
+	 *            the JSON-RPC body
+	 * @param methods
+	 *            the RPC methods of the body
+	 * @return the answer of the first node which answered, or the failure
+	 *         answer of the last node tried if none did ; the request is
+	 *         counted in flight on its node until the answer is closed
+	 * @throws IOException
+	 *             the failure of the last node tried
+	 * @throws MultichainException
+	 *             if the {@link CallOptions} of the thread are expired or
+	 *             cancelled, or the request uses the wallet and the write node
+	 *             is down
+	 */
+	public CloseableHttpResponse execute(HttpEntity entity, String... methods)
+			throws IOException, MultichainException {
+		CallOptions options = CallOptions.current();
+		boolean read = isRead(methods);
+		boolean walletIndependent = isWalletIndependent(methods);
+		List<Node> tried = new ArrayList<Node>(nodes.size());
+		IOException failure = null;
+		CloseableHttpResponse unavailable = null;
+		Node node;
+		while ((node = read ? pickRead(tried) : walletIndependent ? pickWrite(tried) : pickWallet(tried)) != null) {
+			tried.add(node);
+			HttpPost httppost = createPost(node, clusterParameters.getRequestTimeoutMillis());
+			httppost.setEntity(entity);
+			node.outstandingRequests.incrementAndGet();
+			boolean inFlight = false;
+			try {
+				CloseableHttpResponse response = node.transport.execute(httppost, methods);
+				int answer = checkAnswer(response);
+				if (answer != ANSWERED) {
+					node.healthy = false;
+				}
+				if (answer == ANSWERED || (!read && answer == MAY_HAVE_RUN)) {
+					closeQuietly(unavailable);
+					inFlight = true;
+					return new ClosingHttpResponse(response, release(node));
+				}
+				// buffered by checkAnswer : answered if no other node does
+				closeQuietly(unavailable);
+				unavailable = response;
+			} catch (IOException e) {
+				if (options != null && (options.isExpired() || options.isCancelled())) {
+					// the call gave up, not the node
+					closeQuietly(unavailable);
+					throw e;
+				}
+				node.healthy = false;
+				failure = e;
+				if (!read && !(e instanceof HttpHostConnectException || e instanceof ConnectTimeoutException)) {
+					// the write may have reached the node
+					closeQuietly(unavailable);
+					throw e;
+				}
+			} finally {
+				if (!inFlight) {
+					node.outstandingRequests.decrementAndGet();
+				}
+			}
+		}
+		if (unavailable != null) {
+			return unavailable;
+		}
+		throw failure;
+	}
+
+	/**
+	 * Sends a request without blocking, to the node chosen for its methods. A
+	 * failed request is not retried, but the node is not chosen again before it
+	 * answers a probe.
+	 *
+	 * @param entity
+	 *            the JSON-RPC body
+	 * @param callback
+	 * @param methods
+	 *            the RPC methods of the body
+	 * @return the request
+	 * @throws MultichainException
+	 *             if the non-blocking client could not be started, the
+	 *             {@link CallOptions} of the thread are expired or cancelled,
+	 *             or the request uses the wallet and the write node is down
+	 */
+	public Future<HttpResponse> executeAsync(HttpEntity entity, final FutureCallback<HttpResponse> callback,
+			String... methods) throws MultichainException {
+		List<Node> none = Collections.emptyList();
+		final Node node = isRead(methods) ? pickRead(none)
+				: isWalletIndependent(methods) ? pickWrite(none) : pickWallet(none);
+		final CallOptions options = CallOptions.current();
+		HttpPost httppost = createPost(node, clusterParameters.getRequestTimeoutMillis());
+		httppost.setEntity(entity);
+		node.outstandingRequests.incrementAndGet();
+		try {
+			return node.transport.executeAsync(httppost, new FutureCallback<HttpResponse>() {
+				@Override
+				public void completed(HttpResponse response) {
+					node.outstandingRequests.decrementAndGet();
+					callback.completed(response);
+				}
+
+				@Override
+				public void failed(Exception e) {
+					node.outstandingRequests.decrementAndGet();
+					if (options == null || !(options.isExpired() || options.isCancelled())) {
+						node.healthy = false;
+					}
+					callback.failed(e);
+				}
+
+				@Override
+				public void cancelled() {
+					node.outstandingRequests.decrementAndGet();
+					callback.cancelled();
+				}
+			}, methods);
+		} catch (MultichainException e) {
+			node.outstandingRequests.decrementAndGet();
+			throw e;
+		}
+	}
+
+	/**
+	 * Probes every node now, without waiting for the next period.
+	 */
+	public void probe() {
+		for (Node node : nodes) {
+			probe(node);
+		}
+	}
+
+	/**
+	 * Stops the probes and closes the transport of every node.
+	 */
+	@Override
+	public void close() throws IOException {
+		healthProber.shutdown();
+		IOException failure = null;
+		for (Node node : nodes) {
+			try {
+				node.transport.close();
+			} catch (IOException e) {
+				failure = e;
+			}
+		}
+		if (failure != null) {
+			throw failure;
+		}
+	}
+
+	/**
+	 * Tells a node failure from an answer, without reading the body of a
+	 * successful response : bitcoin and MultiChain nodes answer RPC errors
+	 * with a 5xx status too, so the body of a 5xx response is buffered and
+	 * read.
+	 *
+	 * @return {@link #ANSWERED} for a JSON-RPC answer other than
+	 *         RPC_IN_WARMUP, {@link #NOT_RUN} for RPC_IN_WARMUP or 503,
+	 *         {@link #MAY_HAVE_RUN} for any other 5xx
+	 */
+	private static int checkAnswer(CloseableHttpResponse response) throws IOException {
+		int status = response.getStatusLine().getStatusCode();
+		if (status < 500) {
+			return ANSWERED;
+		}
+		if (response.getEntity() != null) {
+			try {
+				HttpEntity buffered = new BufferedHttpEntity(response.getEntity());
+				response.setEntity(buffered);
+				JsonElement answer = new JsonParser().parse(EntityUtils.toString(buffered, StandardCharsets.UTF_8));
+				if (answer.isJsonArray()) {
+					return ANSWERED;
+				}
+				JsonElement error = answer.isJsonObject() ? answer.getAsJsonObject().get("error") : null;
+				if (error != null && error.isJsonObject() && error.getAsJsonObject().has("code")) {
+					return error.getAsJsonObject().get("code").getAsInt() == CODE_IN_WARMUP ? NOT_RUN : ANSWERED;
+				}
+			} catch (IOException e) {
+				closeQuietly(response);
+				throw e;
+			} catch (RuntimeException e) {
+				// not a JSON-RPC answer : a proxy or a failing node
+			}
+		}
+		return status == 503 ? NOT_RUN : MAY_HAVE_RUN;
+	}
+
+	private static Runnable release(final Node node) {
+		return new Runnable() {
+			@Override
+			public void run() {
+				node.outstandingRequests.decrementAndGet();
+			}
+		};
+	}
+
+	private static void closeQuietly(CloseableHttpResponse response) {
+		if (response != null) {
+			try {
+				response.close();
+			} catch (IOException e) {
+				// the connection is discarded
+			}
+		}
+	}
+
+	/**
+	 * Healthy nodes up to date first, then healthy nodes behind in blocks, then
+	 * the others. Among equals, the one with the fewest requests in flight.
+	 */
+	private Node pickRead(Collection<Node> excluded) {
+		long highestBlockCount = -1;
+		for (Node node : nodes) {
+			if (node.healthy) {
+				highestBlockCount = Math.max(highestBlockCount, node.blockCount);
+			}
+		}
+
+		Node picked = null;
+		int pickedRank = Integer.MAX_VALUE;
+		int start = (rotation.getAndIncrement() & Integer.MAX_VALUE) % nodes.size();
+		for (int i = 0; i < nodes.size(); i++) {
+			Node node = nodes.get((start + i) % nodes.size());
+			if (excluded.contains(node)) {
+				continue;
+			}
+			int rank;
+			if (!node.healthy) {
+				rank = 2;
+			} else if (highestBlockCount >= 0
+					&& node.blockCount < highestBlockCount - clusterParameters.getMaxBlockLag()) {
+				rank = 1;
+			} else {
+				rank = 0;
+			}
+			if (picked == null || rank < pickedRank || (rank == pickedRank
+					&& node.outstandingRequests.get() < picked.outstandingRequests.get())) {
+				picked = node;
+				pickedRank = rank;
+			}
+		}
+		return picked;
+	}
+
+	/**
+	 * The write node if healthy, else the next healthy node in the given order.
+	 */
+	private Node pickWrite(Collection<Node> excluded) {
+		int start = nodes.indexOf(writeNode);
+		Node fallback = null;
+		for (int i = 0; i < nodes.size(); i++) {
+			Node node = nodes.get((start + i) % nodes.size());
+			if (excluded.contains(node)) {
+				continue;
+			}
+			if (node.healthy) {
+				return node;
+			}
+			if (fallback == null) {
+				fallback = node;
+			}
+		}
+		return fallback;
+	}
+
+	/**
+	 * The write node, whose wallet the request uses, or null once tried.
+	 *
+	 * @throws MultichainException
+	 *             if the write node is down
+	 */
+	private Node pickWallet(Collection<Node> excluded) throws MultichainException {
+		if (excluded.contains(writeNode)) {
+			return null;
+		}
+		if (!writeNode.healthy) {
+			throw new MultichainException(writeNode.transport.getUrl(),
+					"write node down, wallet calls are not sent to another node");
+		}
+		return writeNode;
+	}
+
+	private static HttpPost createPost(Node node, int timeoutMillis) {
+		HttpPost httppost = node.transport.createPost();
+		if (timeoutMillis > 0) {
+			httppost.setConfig(RequestConfig.copy(node.transport.getDefaultRequestConfig())
+					.setConnectTimeout(timeoutMillis).setSocketTimeout(timeoutMillis).build());
+		} else {
+			httppost.setConfig(node.transport.getDefaultRequestConfig());
+		}
+		return httppost;
+	}
+
+	private void probe(Node node) {
+		try {
+			HttpPost httppost = createPost(node, (int) clusterParameters.getProbeTimeoutMillis());
+			httppost.setEntity(new StringEntity(PROBE));
+			CloseableHttpResponse response = node.transport.getHttpClient().execute(httppost);
+			try {
+				JsonObject answer = new JsonParser().parse(EntityUtils.toString(response.getEntity()))
+						.getAsJsonObject();
+				JsonElement result = answer.get("result");
+				if (result != null && result.isJsonPrimitive() && result.getAsJsonPrimitive().isNumber()) {
+					node.blockCount = result.getAsLong();
+					node.healthy = true;
+				} else {
+					node.healthy = false;
+				}
+			} finally {
+				response.close();
+			}
+		} catch (IOException e) {
+			node.healthy = false;
+		} catch (RuntimeException e) {
+			node.healthy = false;
+		}
+	}
+
+	/**
+	 * Probes every node periodically, the first time as soon as started.
+	 */
+	private class HealthProber extends Thread {
+		private final long intervalMillis;
+		private volatile boolean shutdown = false;
+
+		HealthProber(long intervalMillis) {
+			super("multichain-cluster-health-prober");
+			setDaemon(true);
+			this.intervalMillis = intervalMillis;
+		}
+
+		@Override
+		public void run() {
+			try {
+				while (!shutdown) {
+					probe();
+					synchronized (this) {
+						if (!shutdown) {
+							wait(intervalMillis);
+						}
+					}
+				}
+			} catch (InterruptedException e) {
+				// terminate
+			}
+		}
+
+		void shutdown() {
+			shutdown = true;
+			synchronized (this) {
+				notifyAll();
+			}
+		}
+	}
+}
@@ -7,6 +7,8 @@
  */
 package multichain.command;
 
+import java.io.IOException;
+
 /**
  * @author Ub - H. MARTEAU
  * @version 4.15
@@ -24,27 +26,123 @@ public class MultiChainCommand {
 	private WalletTransactionCommand walletTransactionCommand;
 	private WalletCommand walletCommand;
 	private KeyCommand keyCommand;
+	private AsyncCommand asyncCommand;
 
-	public MultiChainCommand(String ip, String port, String login, String password, RuntimeParameters runtimeparameters) {
+	private MultiChainTransport transport;
+	private MultiChainCluster cluster;
+	private RuntimeParameters runtimeParameters;
+
+	/**
+	 * All the commands share one pooled transport to the node.
+	 * 
+	 * @param transport
+	 * @param runtimeparameters
+	 */
+	public MultiChainCommand(MultiChainTransport transport, RuntimeParameters runtimeparameters) {
+		super();
+		this.transport = transport;
+		this.runtimeParameters = runtimeparameters;
+		addressCommand = new AddressCommand(transport, runtimeparameters);
+		balanceCommand = new BalanceCommand(transport, runtimeparameters);
+		blockCommand = new BlockCommand(transport, runtimeparameters);
+		chainCommand = new ChainCommand(transport, runtimeparameters);
+		grantCommand = new GrantCommand(transport, runtimeparameters);
+		issueCommand = new IssueCommand(transport, runtimeparameters);
+		messagingCommand = new MessagingCommand(transport, runtimeparameters);
+		rawTransactionCommand = new RAWTransactionCommand(transport, runtimeparameters);
+		streamCommand = new StreamCommand(transport, runtimeparameters);
+		walletTransactionCommand = new WalletTransactionCommand(transport, runtimeparameters);
+		walletCommand = new WalletCommand(transport);
+		keyCommand = new KeyCommand(transport, runtimeparameters);
+		asyncCommand = new AsyncCommand(transport, runtimeparameters);
+	}
+
+	/**
+	 * All the commands are spread over the nodes of the cluster.
+	 * 
+	 * @param cluster
+	 * @param runtimeparameters
+	 */
+	public MultiChainCommand(MultiChainCluster cluster, RuntimeParameters runtimeparameters) {
 		super();
-		addressCommand = new AddressCommand(ip, port, login, password, runtimeparameters);
-		balanceCommand = new BalanceCommand(ip, port, login, password, runtimeparameters);
-		blockCommand = new BlockCommand(ip, port, login, password, runtimeparameters);
-		chainCommand = new ChainCommand(ip, port, login, password, runtimeparameters);
-		grantCommand = new GrantCommand(ip, port, login, password, runtimeparameters);
-		issueCommand = new IssueCommand(ip, port, login, password, runtimeparameters);
-		messagingCommand = new MessagingCommand(ip, port, login, password, runtimeparameters);
-		rawTransactionCommand = new RAWTransactionCommand(ip, port, login, password, runtimeparameters);
-		streamCommand = new StreamCommand(ip, port, login, password, runtimeparameters);
-		walletTransactionCommand = new WalletTransactionCommand(ip, port, login, password, runtimeparameters);
-		walletCommand = new WalletCommand(ip, port, login, password);
-		keyCommand = new KeyCommand(ip, port, login, password, runtimeparameters);
+		this.cluster = cluster;
+		this.transport = cluster.getWriteTransport();
+		this.runtimeParameters = runtimeparameters;
+		addressCommand = new AddressCommand(cluster, runtimeparameters);
+		balanceCommand = new BalanceCommand(cluster, runtimeparameters);
+		blockCommand = new BlockCommand(cluster, runtimeparameters);
+		chainCommand = new ChainCommand(cluster, runtimeparameters);
+		grantCommand = new GrantCommand(cluster, runtimeparameters);
+		issueCommand = new IssueCommand(cluster, runtimeparameters);
+		messagingCommand = new MessagingCommand(cluster, runtimeparameters);
+		rawTransactionCommand = new RAWTransactionCommand(cluster, runtimeparameters);
+		streamCommand = new StreamCommand(cluster, runtimeparameters);
+		walletTransactionCommand = new WalletTransactionCommand(cluster, runtimeparameters);
+		walletCommand = new WalletCommand(cluster);
+		keyCommand = new KeyCommand(cluster, runtimeparameters);
+		asyncCommand = new AsyncCommand(cluster, runtimeparameters);
+	}
+
+	public MultiChainCommand(String ip, String port, String login, String password, RuntimeParameters runtimeparameters,
+			TransportParameters transportParameters) {
+		this(new MultiChainTransport(ip, port, login, password, transportParameters), runtimeparameters);
+	}
+
+	public MultiChainCommand(String ip, String port, String login, String password, RuntimeParameters runtimeparameters) {
+		this(ip, port, login, password, runtimeparameters, null);
 	}
 	
 	public MultiChainCommand(String ip, String port, String login, String password) {
 		this(ip, port, login, password, null);
 	}
 
+	/**
+	 * @return the transport shared by all the commands, the one of the write
+	 *         node on a cluster
+	 */
+	public MultiChainTransport getTransport() {
+		return transport;
+	}
+
+	/**
+	 * @return the cluster of the commands, null on a single node
+	 */
+	public MultiChainCluster getCluster() {
+		return cluster;
+	}
+
+	/**
+	 * @return a new batch of calls, sent on the shared transport
+	 */
+	public BatchCommand newBatch() {
+		if (cluster != null) {
+			return new BatchCommand(cluster, runtimeParameters);
+		}
+		return new BatchCommand(transport, runtimeParameters);
+	}
+
+	/**
+	 * @return the non-blocking version of the commands, sent on the shared
+	 *         transport
+	 */
+	public AsyncCommand async() {
+		return asyncCommand;
+	}
+
+	/**
+	 * Closes the shared transport and its pooled connections, or every node of
+	 * the cluster.
+	 * 
+	 * @throws IOException
+	 */
+	public void close() throws IOException {
+		if (cluster != null) {
+			cluster.close();
+		} else {
+			transport.close();
+		}
+	}
+
 	/**
 	 * @return the issueCommand
 	 */
@@ -0,0 +1,509 @@
+/*
+ * Copyright (C) 2017 Worldline, Inc.
+ *
+ * MultiChainJavaAPI code distributed under the GPLv3 license, see COPYING file.
+ * https://github.com/SimplyUb/MultiChainJavaAPI/blob/master/LICENSE
+ *
+ */
+package multichain.command;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.ref.WeakReference;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.codec.binary.Base64;
+import org.apache.http.HttpHeaders;
+import org.apache.http.HttpHost;
+import org.apache.http.HttpResponse;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.concurrent.BasicFuture;
+import org.apache.http.concurrent.FutureCallback;
+import org.apache.http.conn.ConnectionKeepAliveStrategy;
+import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
+import org.apache.http.impl.client.HttpClientBuilder;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.impl.nio.client.CloseableHttpAsyncClient;
+import org.apache.http.impl.nio.client.HttpAsyncClients;
+import org.apache.http.impl.nio.conn.PoolingNHttpClientConnectionManager;
+import org.apache.http.impl.nio.reactor.DefaultConnectingIOReactor;
+import org.apache.http.nio.reactor.IOReactorException;
+import org.apache.http.protocol.HttpContext;
+
+/**
+ * HTTP transport to one MultiChain node.
+ *
+ * A transport owns a pooled connection manager and a single HttpClient. It is
+ * meant to be created once per node and shared by every command class (see
+ * {@link MultiChainCommand#MultiChainCommand(MultiChainTransport, RuntimeParameters)}),
+ * so that all commands reuse the same warm, already authenticated connections.
+ *
+ * The non-blocking client used by {@link AsyncCommand} is only created on its
+ * first use, with the same pool settings.
+ *
+ * The idle connections of every transport are closed by a single shared
+ * thread, started with the first transport and stopped once no transport is
+ * left. It only holds the transports weakly : a transport which is not
+ * closed, like the one created by a command built from an ip and a port, is
+ * still garbage collected with its pool.
+ *
+ * When the parameters have limiter settings, the calls go through a
+ * {@link ConcurrencyLimiter} for the heavy calls and one for the others.
+ *
+ * @author Ub - H. MARTEAU
+ * @version 4.15
+ */
+public class MultiChainTransport implements Closeable {
+
+	private final String url;
+	private final String authorization;
+	private final TransportParameters transportParameters;
+	private final RequestConfig defaultRequestConfig;
+	private final PoolingHttpClientConnectionManager connectionManager;
+	private final CloseableHttpClient httpClient;
+	private final IdleConnectionEvictor idleConnectionEvictor;
+	private final ConcurrencyLimiter heavyLimiter;
+	private final ConcurrencyLimiter lightLimiter;
+	private volatile PoolingNHttpClientConnectionManager asyncConnectionManager = null;
+	private volatile CloseableHttpAsyncClient asyncHttpClient = null;
+	private boolean closed = false;
+
+	/**
+	 * @param ip
+	 * @param port
+	 * @param login
+	 * @param password
+	 */
+	public MultiChainTransport(String ip, String port, String login, String password) {
+		this(ip, port, login, password, new TransportParameters());
+	}
+
+	/**
+	 * @param ip
+	 * @param port
+	 * @param login
+	 * @param password
+	 * @param transportParameters
+	 *            pool and timeout settings, default ones if null
+	 */
+	public MultiChainTransport(String ip, String port, String login, String password,
+			TransportParameters transportParameters) {
+		if (transportParameters == null) {
+			transportParameters = new TransportParameters();
+		}
+		this.transportParameters = transportParameters;
+		this.url = "http://" + ip + ":" + port;
+
+		// Credentials are sent preemptively : avoids the 401 challenge round trip
+		// on every new connection
+		String credentials = login + ":" + password;
+		this.authorization = "Basic "
+				+ Base64.encodeBase64String(credentials.getBytes(StandardCharsets.UTF_8));
+
+		connectionManager = new PoolingHttpClientConnectionManager();
+		connectionManager.setMaxTotal(transportParameters.getMaxTotalConnections());
+		connectionManager.setDefaultMaxPerRoute(transportParameters.getMaxConnectionsPerRoute());
+		connectionManager.setMaxPerRoute(new HttpRoute(new HttpHost(ip, Integer.parseInt(port))),
+				transportParameters.getMaxConnectionsPerRoute());
+
+		defaultRequestConfig = RequestConfig.custom()
+				.setConnectTimeout(transportParameters.getConnectTimeoutMillis())
+				.setConnectionRequestTimeout(transportParameters.getConnectionRequestTimeoutMillis())
+				.setSocketTimeout(transportParameters.getSocketTimeoutMillis()).build();
+
+		httpClient = HttpClientBuilder.create().setConnectionManager(connectionManager)
+				.setDefaultRequestConfig(defaultRequestConfig)
+				.setKeepAliveStrategy(new DefaultKeepAliveStrategy(transportParameters.getKeepAliveMillis())).build();
+
+		idleConnectionEvictor = IdleConnectionEvictor.schedule(this);
+
+		heavyLimiter = transportParameters.getHeavyLimiterParameters() != null
+				? new ConcurrencyLimiter("heavy", transportParameters.getHeavyLimiterParameters()) : null;
+		lightLimiter = transportParameters.getLightLimiterParameters() != null
+				? new ConcurrencyLimiter("light", transportParameters.getLightLimiterParameters()) : null;
+	}
+
+	/**
+	 * @return a new POST request to the node, with authentication header
+	 */
+	public HttpPost createPost() {
+		HttpPost httppost = new HttpPost(url);
+		httppost.setHeader(HttpHeaders.AUTHORIZATION, authorization);
+		return httppost;
+	}
+
+	/**
+	 * Sends a request within the concurrency limit of its methods and the
+	 * {@link CallOptions} of the thread if any.
+	 *
+	 * @param httppost
+	 *            from {@link #createPost()}
+	 * @param methods
+	 *            the RPC methods of the body
+	 * @return the answer, which body is still to be read ; the options of the
+	 *         thread abort the request until the answer is closed
+	 * @throws IOException
+	 * @throws MultichainException
+	 *             if the options are expired or cancelled, or the limiter
+	 *             rejects the call
+	 */
+	public CloseableHttpResponse execute(HttpPost httppost, String... methods)
+			throws IOException, MultichainException {
+		CallOptions options = CallOptions.current();
+		ConcurrencyLimiter limiter = getLimiter(methods);
+		ConcurrencyLimiter.Permit permit = limiter != null ? limiter.acquire(options) : null;
+		boolean dropped = true;
+		try {
+			if (options == null) {
+				CloseableHttpResponse response = httpClient.execute(httppost);
+				dropped = false;
+				return response;
+			}
+			options.attach(httppost, defaultRequestConfig);
+			boolean answered = false;
+			try {
+				CloseableHttpResponse response = httpClient.execute(httppost);
+				dropped = false;
+				answered = true;
+				// the body is read after the headers : still aborted until closed
+				return new ClosingHttpResponse(response, detach(options, httppost));
+			} finally {
+				if (!answered) {
+					options.detach(httppost);
+				}
+			}
+		} finally {
+			if (permit != null) {
+				permit.release(dropped);
+			}
+		}
+	}
+
+	/**
+	 * Sends a request without blocking, within the concurrency limit of its
+	 * methods : a call beyond the limit is sent when a call in flight is
+	 * answered.
+	 *
+	 * @param httppost
+	 *            from {@link #createPost()}
+	 * @param callback
+	 * @param methods
+	 *            the RPC methods of the body
+	 * @return the request
+	 * @throws MultichainException
+	 *             if the non-blocking client could not be started, the
+	 *             {@link CallOptions} of the thread are expired or cancelled,
+	 *             or the limiter rejects the call
+	 */
+	public Future<HttpResponse> executeAsync(final HttpPost httppost, FutureCallback<HttpResponse> callback,
+			String... methods) throws MultichainException {
+		CallOptions options = CallOptions.current();
+		if (options != null) {
+			options.configure(httppost, defaultRequestConfig);
+		}
+		final CloseableHttpAsyncClient client = getAsyncHttpClient();
+		ConcurrencyLimiter limiter = getLimiter(methods);
+		if (limiter == null) {
+			return client.execute(httppost, callback);
+		}
+		final LimitedFuture future = new LimitedFuture(callback);
+		future.waiter = limiter.acquireAsync(new ConcurrencyLimiter.Grant() {
+			@Override
+			public void granted(ConcurrencyLimiter.Permit permit) {
+				future.send(client, httppost, permit);
+			}
+
+			@Override
+			public void timedOut(MultichainTimeoutException exception) {
+				future.failed(exception);
+			}
+		}, options);
+		return future;
+	}
+
+	/**
+	 * @param methods
+	 *            the RPC methods of a call
+	 * @return the limiter of the call, null if not limited
+	 */
+	public ConcurrencyLimiter getLimiter(String... methods) {
+		return ConcurrencyLimiter.isHeavy(methods) ? heavyLimiter : lightLimiter;
+	}
+
+	/**
+	 * @return the limiter of the heavy calls, to read its limit and queue
+	 *         depth, null if not limited
+	 */
+	public ConcurrencyLimiter getHeavyLimiter() {
+		return heavyLimiter;
+	}
+
+	/**
+	 * @return the limiter of the other calls, null if not limited
+	 */
+	public ConcurrencyLimiter getLightLimiter() {
+		return lightLimiter;
+	}
+
+	/**
+	 * @return the shared HttpClient
+	 */
+	public CloseableHttpClient getHttpClient() {
+		return httpClient;
+	}
+
+	/**
+	 * The non-blocking client is created and started on the first call. Its I/O
+	 * threads serve every asynchronous call, whatever the number of calls in
+	 * flight.
+	 * 
+	 * @return the shared non-blocking HttpClient
+	 * @throws MultichainException
+	 *             if the client could not be started or the transport is closed
+	 */
+	public CloseableHttpAsyncClient getAsyncHttpClient() throws MultichainException {
+		CloseableHttpAsyncClient client = asyncHttpClient;
+		if (client == null) {
+			synchronized (this) {
+				if (closed) {
+					throw new MultichainException("Initialization Problem", "transport is closed");
+				}
+				client = asyncHttpClient;
+				if (client == null) {
+					try {
+						PoolingNHttpClientConnectionManager manager = new PoolingNHttpClientConnectionManager(
+								new DefaultConnectingIOReactor());
+						manager.setMaxTotal(transportParameters.getMaxTotalConnections());
+						manager.setDefaultMaxPerRoute(transportParameters.getMaxConnectionsPerRoute());
+						client = HttpAsyncClients.custom().setConnectionManager(manager)
+								.setDefaultRequestConfig(defaultRequestConfig)
+								.setKeepAliveStrategy(
+										new DefaultKeepAliveStrategy(transportParameters.getKeepAliveMillis()))
+								.build();
+						client.start();
+						asyncConnectionManager = manager;
+						asyncHttpClient = client;
+					} catch (IOReactorException e) {
+						throw new MultichainException(null, e.toString());
+					}
+				}
+			}
+		}
+		return client;
+	}
+
+	/**
+	 * @return the timeouts of the requests, from the transport parameters
+	 */
+	public RequestConfig getDefaultRequestConfig() {
+		return defaultRequestConfig;
+	}
+
+	/**
+	 * @return the pooled connection manager, useful to read pool statistics
+	 */
+	public PoolingHttpClientConnectionManager getConnectionManager() {
+		return connectionManager;
+	}
+
+	/**
+	 * @return the url of the node
+	 */
+	public String getUrl() {
+		return url;
+	}
+
+	/**
+	 * @return the transportParameters
+	 */
+	public TransportParameters getTransportParameters() {
+		return transportParameters;
+	}
+
+	/**
+	 * Stops the eviction of the idle connections and closes every pooled
+	 * connection.
+	 */
+	@Override
+	public void close() throws IOException {
+		idleConnectionEvictor.cancel();
+		CloseableHttpAsyncClient client;
+		synchronized (this) {
+			closed = true;
+			client = asyncHttpClient;
+			asyncHttpClient = null;
+		}
+		try {
+			httpClient.close();
+		} finally {
+			if (client != null) {
+				client.close();
+			}
+		}
+	}
+
+	private static Runnable detach(final CallOptions options, final HttpPost httppost) {
+		return new Runnable() {
+			@Override
+			public void run() {
+				options.detach(httppost);
+			}
+		};
+	}
+
+	/**
+	 * Keep-Alive header of the node if any, else the configured default duration.
+	 */
+	private static class DefaultKeepAliveStrategy implements ConnectionKeepAliveStrategy {
+		private final ConnectionKeepAliveStrategy headerStrategy = DefaultConnectionKeepAliveStrategy.INSTANCE;
+		private final long defaultKeepAliveMillis;
+
+		DefaultKeepAliveStrategy(long defaultKeepAliveMillis) {
+			this.defaultKeepAliveMillis = defaultKeepAliveMillis;
+		}
+
+		@Override
+		public long getKeepAliveDuration(HttpResponse response, HttpContext context) {
+			long duration = headerStrategy.getKeepAliveDuration(response, context);
+			if (duration < 0) {
+				duration = defaultKeepAliveMillis;
+			}
+			return duration;
+		}
+	}
+
+	/**
+	 * Future of a non-blocking call waiting for the limit, then of its request.
+	 */
+	private static class LimitedFuture extends BasicFuture<HttpResponse> {
+		volatile ConcurrencyLimiter.Waiter waiter;
+		volatile Future<HttpResponse> request;
+
+		LimitedFuture(FutureCallback<HttpResponse> callback) {
+			super(callback);
+		}
+
+		void send(CloseableHttpAsyncClient client, HttpPost httppost, final ConcurrencyLimiter.Permit permit) {
+			if (isDone()) {
+				// cancelled while waiting
+				permit.release(false);
+				return;
+			}
+			request = client.execute(httppost, new FutureCallback<HttpResponse>() {
+				@Override
+				public void completed(HttpResponse response) {
+					permit.release(false);
+					LimitedFuture.this.completed(response);
+				}
+
+				@Override
+				public void failed(Exception e) {
+					permit.release(true);
+					LimitedFuture.this.failed(e);
+				}
+
+				@Override
+				public void cancelled() {
+					permit.release(false);
+					LimitedFuture.this.cancel(true);
+				}
+			});
+			if (isCancelled()) {
+				request.cancel(true);
+			}
+		}
+
+		@Override
+		public boolean cancel(boolean mayInterruptIfRunning) {
+			if (!super.cancel(mayInterruptIfRunning)) {
+				return false;
+			}
+			ConcurrencyLimiter.Waiter queued = waiter;
+			if (queued != null) {
+				queued.cancel();
+			}
+			Future<HttpResponse> sent = request;
+			if (sent != null) {
+				sent.cancel(mayInterruptIfRunning);
+			}
+			return true;
+		}
+	}
+
+	/**
+	 * Periodically closes the expired connections of a transport and the ones
+	 * idle for too long, so that a burst after a quiet period does not hit
+	 * half-closed sockets. The tasks of all the transports share one daemon
+	 * thread, which ends when no task is left.
+	 */
+	private static class IdleConnectionEvictor implements Runnable {
+		private static ScheduledThreadPoolExecutor scheduler = null;
+
+		private final WeakReference<MultiChainTransport> transport;
+		private final long idleTimeoutMillis;
+		private volatile ScheduledFuture<?> future;
+
+		private IdleConnectionEvictor(MultiChainTransport transport) {
+			this.transport = new WeakReference<MultiChainTransport>(transport);
+			this.idleTimeoutMillis = transport.transportParameters.getIdleTimeoutMillis();
+		}
+
+		static IdleConnectionEvictor schedule(MultiChainTransport transport) {
+			IdleConnectionEvictor evictor = new IdleConnectionEvictor(transport);
+			long intervalMillis = transport.transportParameters.getEvictionIntervalMillis();
+			evictor.future = scheduler().scheduleWithFixedDelay(evictor, intervalMillis, intervalMillis,
+					TimeUnit.MILLISECONDS);
+			return evictor;
+		}
+
+		private static synchronized ScheduledThreadPoolExecutor scheduler() {
+			if (scheduler == null) {
+				scheduler = new ScheduledThreadPoolExecutor(1, new ThreadFactory() {
+					@Override
+					public Thread newThread(Runnable runnable) {
+						Thread thread = new Thread(runnable, "multichain-idle-connection-evictor");
+						thread.setDaemon(true);
+						return thread;
+					}
+				});
+				scheduler.setRemoveOnCancelPolicy(true);
+				scheduler.setKeepAliveTime(60, TimeUnit.SECONDS);
+				scheduler.allowCoreThreadTimeOut(true);
+			}
+			return scheduler;
+		}
+
+		@Override
+		public void run() {
+			MultiChainTransport current = transport.get();
+			if (current == null) {
+				// garbage collected without being closed
+				cancel();
+				return;
+			}
+			current.connectionManager.closeExpiredConnections();
+			current.connectionManager.closeIdleConnections(idleTimeoutMillis, TimeUnit.MILLISECONDS);
+			PoolingNHttpClientConnectionManager asyncManager = current.asyncConnectionManager;
+			if (asyncManager != null) {
+				asyncManager.closeExpiredConnections();
+				asyncManager.closeIdleConnections(idleTimeoutMillis, TimeUnit.MILLISECONDS);
+			}
+		}
+
+		void cancel() {
+			ScheduledFuture<?> scheduled = future;
+			if (scheduled != null) {
+				scheduled.cancel(false);
+			}
+		}
+	}
+}
@@ -0,0 +1,27 @@
+/*
+ * Copyright (C) 2017 Worldline, Inc.
+ *
+ * MultiChainJavaAPI code distributed under the GPLv3 license, see COPYING file.
+ * https://github.com/SimplyUb/MultiChainJavaAPI/blob/master/LICENSE
+ *
+ */
+package multichain.command;
+
+/**
+ * A call did not complete in time : deadline of its {@link CallOptions}, or
+ * connect, socket or connection pool timeout of its transport.
+ *
+ * @author Ub - H. MARTEAU
+ * @version 4.15
+ */
+public class MultichainTimeoutException extends MultichainException {
+
+	/**
+	 * Serial
+	 */
+	private static final long serialVersionUID = -3185512440385716027L;
+
+	public MultichainTimeoutException(String excep_object, String excep_reason) {
+		super(excep_object, excep_reason);
+	}
+}
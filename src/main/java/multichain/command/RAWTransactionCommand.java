@@ -15,6 +15,7 @@ import multichain.object.Address;
 import multichain.object.AddressBalance;
 import multichain.object.SignedTransactionRAW;
 import multichain.object.TransactionRAW;
+import multichain.object.TransactionRAWDecoder;
 import multichain.object.formatters.RAWTransactionFormatter;
 import multichain.object.queryobjects.RawParam;
 import multichain.object.queryobjects.TxIdVout;
@@ -24,11 +25,49 @@ import multichain.object.queryobjects.TxIdVout;
  * @version 4.15
  */
 public class RAWTransactionCommand extends QueryBuilderRAWTransaction {
+	private volatile TransactionRAWDecoder localDecoder = null;
+	private volatile TransactionCache transactionCache = null;
 
 	public RAWTransactionCommand(String ip, String port, String login, String password, RuntimeParameters runtimeparameters) {
 		initialize(ip, port, login, password, runtimeparameters);
 	}
 
+	public RAWTransactionCommand(MultiChainTransport transport, RuntimeParameters runtimeparameters) {
+		initialize(transport, runtimeparameters);
+	}
+
+	public RAWTransactionCommand(MultiChainCluster cluster, RuntimeParameters runtimeparameters) {
+		initialize(cluster, runtimeparameters);
+	}
+
+	/**
+	 * @param localDecoder
+	 *            decodes the transactions of {@link #decodeRawTransaction(String)}
+	 *            instead of the node, null to call the node
+	 */
+	public void setLocalDecoder(TransactionRAWDecoder localDecoder) {
+		this.localDecoder = localDecoder;
+	}
+
+	/**
+	 * Caches the transactions read by {@link #getRawTransaction(String, int)} in verbose mode.
+	 * 
+	 * @param transactionCache
+	 *            the cache, possibly shared with the
+	 *            {@link WalletTransactionCommand}, null to read every
+	 *            transaction from the node
+	 */
+	public void setTransactionCache(TransactionCache transactionCache) {
+		this.transactionCache = transactionCache;
+	}
+
+	/**
+	 * @return the transaction cache, null if none
+	 */
+	public TransactionCache getTransactionCache() {
+		return transactionCache;
+	}
+
 	/**
 	 * appendrawchange "hexstring" address ( native-fee )
 	 * 
@@ -511,17 +550,22 @@ public class RAWTransactionCommand extends QueryBuilderRAWTransaction {
 	 * ],
 	 * }
 	 * 
+	 * Decoded without calling the node when a local decoder is set.
+	 * 
 	 * @param hex
 	 * @return
 	 * @throws MultichainException
 	 */
 	public TransactionRAW decodeRawTransaction(String hex) throws MultichainException {
-		TransactionRAW transactionRAW = new TransactionRAW();
-
-		Object objectTransactionRAW = executeDecodeRawTransaction(hex);
-		transactionRAW = RAWTransactionFormatter.formatTransactionRAW(objectTransactionRAW);
-
-		return transactionRAW;
+		TransactionRAWDecoder decoder = localDecoder;
+		if (decoder != null) {
+			try {
+				return decoder.decode(hex);
+			} catch (IllegalArgumentException e) {
+				throw new MultichainException("hex", e.getMessage());
+			}
+		}
+		return executeDecodeRawTransaction(hex);
 	}
 
 	/**
@@ -614,11 +658,20 @@ public class RAWTransactionCommand extends QueryBuilderRAWTransaction {
 	 * @throws MultichainException
 	 */
 	public Object getRawTransaction(String txid, int verbose) throws MultichainException {
-		Object objectTransactionRAW = executeGetRawTransaction(txid, verbose);
+		TransactionCache cache = transactionCache;
+		if (verbose != 0 && cache != null) {
+			Object cached = cache.get(TransactionCache.Kind.RAW_TRANSACTION, txid);
+			if (cached != null) {
+				return cached;
+			}
+		}
 		if (verbose == 0) {
-          return objectTransactionRAW;
+          return executeGetRawTransaction(txid, verbose);
 		} else {
-          TransactionRAW transactionRAW = RAWTransactionFormatter.formatTransactionRAW(objectTransactionRAW);
+          TransactionRAW transactionRAW = executeGetRawTransactionDetail(txid);
+          if (cache != null) {
+            cache.put(TransactionCache.Kind.RAW_TRANSACTION, txid, transactionRAW);
+          }
           return transactionRAW;
 		}
 		
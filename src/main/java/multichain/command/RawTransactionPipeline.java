@@ -0,0 +1,591 @@
+/*
+ * Copyright (C) 2017 Worldline, Inc.
+ *
+ * MultiChainJavaAPI code distributed under the GPLv3 license, see COPYING file.
+ * https://github.com/SimplyUb/MultiChainJavaAPI/blob/master/LICENSE
+ *
+ */
+package multichain.command;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.UnknownHostException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.apache.http.conn.ConnectTimeoutException;
+
+import multichain.command.builders.BatchResult;
+import multichain.object.SignedTransactionRAW;
+import multichain.object.TransactionRAW;
+import multichain.object.TransactionRAWDecoder;
+import multichain.object.TransactionRAWVin;
+import multichain.object.formatters.HexCodec;
+import multichain.object.queryobjects.RawTransactionIntent;
+import multichain.object.queryobjects.TxIdVout;
+
+/**
+ * Creates, signs and sends many raw transactions, each step batched across
+ * the transactions and the three steps running at the same time.
+ *
+ * Each step has its own thread and {@link BatchCommand} : while a batch of
+ * transactions is being sent, the next one is being signed and another one
+ * created. Each intent has its own future, completed with the txid or with
+ * the error of its first failed step.
+ *
+ * Retries never create a second transaction once one may have reached the
+ * network :
+ * <ul>
+ * <li>a transient error (transport failure, timeout, node warming up) on
+ * creation or signature retries the same step, nothing was sent yet ; a
+ * creation locking its inputs is only retried if it surely did not reach the
+ * node, since the inputs locked by a lost answer cannot be known;</li>
+ * <li>sendrawtransaction is retried with the same signed transaction, whose
+ * txid is computed locally : the node answering that it is already in the
+ * chain completes the future with it;</li>
+ * <li>when the send is finally refused after a transient error, the
+ * transaction is looked up before failing, since the first attempt may have
+ * been accepted.</li>
+ * </ul>
+ * The unspent outputs chosen for a from-address are locked by the node until
+ * the transaction is sent, and unlocked when it fails for sure.
+ *
+ * <pre>
+ * RawTransactionPipeline pipeline = new RawTransactionPipeline(multiChainCommand, null);
+ * CompletableFuture&lt;String&gt; txid = pipeline.submit(new RawTransactionIntent(from, amounts));
+ * ...
+ * pipeline.close();
+ * </pre>
+ *
+ * @author Ub - H. MARTEAU
+ * @version 4.15
+ */
+public class RawTransactionPipeline implements Closeable {
+	private static final Logger LOGGER = Logger.getLogger(RawTransactionPipeline.class.getName());
+	/** RPC_IN_WARMUP */
+	private static final int CODE_IN_WARMUP = -28;
+	/** RPC_VERIFY_ALREADY_IN_CHAIN */
+	private static final int CODE_ALREADY_IN_CHAIN = -27;
+
+	/**
+	 * An intent going through the steps.
+	 */
+	private static class Job {
+		final RawTransactionIntent intent;
+		final CompletableFuture<String> txid = new CompletableFuture<String>();
+		String unsignedHex;
+		String signedHex;
+		String localTxid;
+		int attempts = 0;
+		/** a send failed without knowing whether the node got it */
+		boolean sendUncertain = false;
+
+		Job(RawTransactionIntent intent) {
+			this.intent = intent;
+		}
+	}
+
+	/**
+	 * A step : its queue, thread and batch.
+	 */
+	private abstract class Stage {
+		final LinkedBlockingQueue<Job> queue = new LinkedBlockingQueue<Job>();
+		final BatchCommand batchCommand;
+		final Thread thread;
+
+		Stage(BatchCommand batchCommand, String name) {
+			this.batchCommand = batchCommand;
+			this.thread = new Thread("multichain-raw-pipeline-" + name) {
+				@Override
+				public void run() {
+					runStage();
+				}
+			};
+			thread.setDaemon(true);
+		}
+
+		void runStage() {
+			while (running) {
+				List<Job> batch = new ArrayList<Job>();
+				try {
+					Job first = queue.poll(100, TimeUnit.MILLISECONDS);
+					if (first == null) {
+						continue;
+					}
+					batch.add(first);
+					// lets the previous step fill the batch
+					long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(parameters.getLingerMillis());
+					while (batch.size() < parameters.getMaxBatchSize()) {
+						queue.drainTo(batch, parameters.getMaxBatchSize() - batch.size());
+						long remaining = deadline - System.nanoTime();
+						if (batch.size() >= parameters.getMaxBatchSize() || remaining <= 0) {
+							break;
+						}
+						Job next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+						if (next != null) {
+							batch.add(next);
+						}
+					}
+				} catch (InterruptedException e) {
+					queue.addAll(batch);
+					return;
+				}
+				Set<Job> handedOff = new HashSet<Job>();
+				try {
+					process(batch, handedOff);
+				} catch (RuntimeException e) {
+					LOGGER.log(Level.SEVERE, "raw transaction pipeline batch failed", e);
+					// the calls left would be sent with the next batch
+					batchCommand.clearQueued();
+					for (Job job : batch) {
+						if (!handedOff.contains(job)) {
+							fail(job, new MultichainException("RawTransactionPipeline", e.toString()), false);
+						}
+					}
+				}
+			}
+		}
+
+		/**
+		 * Queues the calls of the jobs, sends them, then moves each job on.
+		 *
+		 * @param handedOff
+		 *            filled with the jobs moved on : failed, completed, queued
+		 *            for a retry or for the next step
+		 */
+		void process(List<Job> batch, Set<Job> handedOff) {
+			List<BatchResult<?>> results = new ArrayList<BatchResult<?>>();
+			for (Job job : batch) {
+				try {
+					results.add(queueCall(job));
+				} catch (MultichainException e) {
+					results.add(null);
+					fail(job, e, true);
+					handedOff.add(job);
+				}
+			}
+			try {
+				batchCommand.execute();
+			} catch (MultichainException e) {
+				// also raised by the get() of each result
+			}
+			for (int i = 0; i < batch.size(); i++) {
+				BatchResult<?> result = results.get(i);
+				if (result == null) {
+					continue;
+				}
+				Job job = batch.get(i);
+				try {
+					succeeded(job, result.get());
+				} catch (MultichainException e) {
+					failed(job, e);
+				}
+				handedOff.add(job);
+			}
+		}
+
+		abstract BatchResult<?> queueCall(Job job) throws MultichainException;
+
+		abstract void succeeded(Job job, Object result);
+
+		void failed(Job job, MultichainException exception) {
+			if (!retry(job, this, exception)) {
+				fail(job, exception, true);
+			}
+		}
+	}
+
+	private final RawTransactionPipelineParameters parameters;
+	private final TransactionRAWDecoder decoder = new TransactionRAWDecoder();
+	private final Stage create;
+	private final Stage sign;
+	private final Stage send;
+	private final BatchCommand unlockBatch;
+	private final ScheduledExecutorService retryScheduler;
+	private final AtomicInteger pending = new AtomicInteger();
+	private final AtomicLong submitted = new AtomicLong();
+	private final AtomicLong sent = new AtomicLong();
+	private final AtomicLong failedCount = new AtomicLong();
+	private final AtomicLong rejected = new AtomicLong();
+	private final AtomicLong retries = new AtomicLong();
+	private volatile boolean accepting = true;
+	private volatile boolean running = true;
+
+	/**
+	 * Starts the threads of the steps.
+	 *
+	 * @param multiChainCommand
+	 *            gives the batches of the steps
+	 * @param parameters
+	 *            default ones if null
+	 */
+	public RawTransactionPipeline(MultiChainCommand multiChainCommand, RawTransactionPipelineParameters parameters) {
+		if (parameters == null) {
+			parameters = new RawTransactionPipelineParameters();
+		}
+		this.parameters = parameters;
+		this.unlockBatch = multiChainCommand.newBatch();
+		this.create = new Stage(multiChainCommand.newBatch(), "create") {
+			@Override
+			BatchResult<?> queueCall(Job job) throws MultichainException {
+				RawTransactionIntent intent = job.intent;
+				if (intent.getFromAddress() != null) {
+					return batchCommand.createRawSendFrom(intent.getFromAddress(), intent.getAmounts(),
+							intent.getData(), RawTransactionPipeline.this.parameters.isLockInputs() ? "lock" : "");
+				}
+				return batchCommand.createRawTransaction(intent.getInputs(), intent.getAmounts(), intent.getData());
+			}
+
+			@Override
+			void succeeded(Job job, Object result) {
+				job.unsignedHex = (String) result;
+				job.attempts = 0;
+				sign.queue.offer(job);
+			}
+
+			@Override
+			void failed(Job job, MultichainException exception) {
+				if (job.intent.getFromAddress() != null && RawTransactionPipeline.this.parameters.isLockInputs()
+						&& isTransient(exception) && !isNotSent(exception)) {
+					// the node may have locked inputs for a transaction never
+					// returned : another one would lock more of them
+					LOGGER.log(Level.WARNING, "locking creation of a raw transaction not retried, "
+							+ "its inputs may stay locked until the node restarts", exception);
+					fail(job, exception, false);
+					return;
+				}
+				super.failed(job, exception);
+			}
+		};
+		this.sign = new Stage(multiChainCommand.newBatch(), "sign") {
+			@Override
+			BatchResult<?> queueCall(Job job) throws MultichainException {
+				return batchCommand.signRawTransaction(job.unsignedHex);
+			}
+
+			@Override
+			void succeeded(Job job, Object result) {
+				SignedTransactionRAW signed = (SignedTransactionRAW) result;
+				if (signed == null || signed.getHex() == null || !signed.isComplete()) {
+					fail(job, new MultichainException("signrawtransaction", "incomplete signature"), true);
+					return;
+				}
+				job.signedHex = signed.getHex();
+				job.localTxid = txid(job.signedHex);
+				job.attempts = 0;
+				send.queue.offer(job);
+			}
+		};
+		this.send = new Stage(multiChainCommand.newBatch(), "send") {
+			@Override
+			BatchResult<?> queueCall(Job job) throws MultichainException {
+				return batchCommand.sendRawTransaction(job.signedHex);
+			}
+
+			@Override
+			void succeeded(Job job, Object result) {
+				complete(job, result != null ? (String) result : job.localTxid);
+			}
+
+			@Override
+			void failed(Job job, MultichainException exception) {
+				if (errorCode(exception) == CODE_ALREADY_IN_CHAIN) {
+					complete(job, job.localTxid);
+					return;
+				}
+				if (isTransient(exception)) {
+					job.sendUncertain = true;
+					if (retry(job, this, exception)) {
+						return;
+					}
+				}
+				if (job.sendUncertain && isKnown(job.localTxid)) {
+					complete(job, job.localTxid);
+					return;
+				}
+				fail(job, exception, !job.sendUncertain);
+			}
+
+			boolean isKnown(String txid) {
+				try {
+					BatchResult<String> result = batchCommand.getRAWTransactionWithoutDetail(txid);
+					batchCommand.execute();
+					return result.get() != null;
+				} catch (MultichainException e) {
+					return false;
+				}
+			}
+		};
+		this.retryScheduler = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+			@Override
+			public Thread newThread(Runnable runnable) {
+				Thread thread = new Thread(runnable, "multichain-raw-pipeline-retry");
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+		create.thread.start();
+		sign.thread.start();
+		send.thread.start();
+	}
+
+	/**
+	 * Queues a transaction. Can be called by any thread.
+	 *
+	 * @param intent
+	 * @return the id of the transaction sent, or the error of its first failed
+	 *         step ; failed at once if too many intents are pending or the
+	 *         pipeline is closed
+	 */
+	public CompletableFuture<String> submit(RawTransactionIntent intent) {
+		Job job = new Job(intent);
+		if (intent == null || !intent.isFilled()) {
+			job.txid.completeExceptionally(new MultichainException("intent", "from-address or inputs are required"));
+			return job.txid;
+		}
+		if (!accepting) {
+			job.txid.completeExceptionally(new MultichainException("RawTransactionPipeline", "closed"));
+			return job.txid;
+		}
+		if (pending.incrementAndGet() > parameters.getMaxPending()) {
+			pending.decrementAndGet();
+			rejected.incrementAndGet();
+			job.txid.completeExceptionally(new MultichainException("RawTransactionPipeline",
+					"more than " + parameters.getMaxPending() + " intents pending"));
+			return job.txid;
+		}
+		submitted.incrementAndGet();
+		create.queue.offer(job);
+		return job.txid;
+	}
+
+	/**
+	 * @param intents
+	 * @return the future of each intent, in the same order
+	 */
+	public List<CompletableFuture<String>> submitAll(Collection<RawTransactionIntent> intents) {
+		List<CompletableFuture<String>> txids = new ArrayList<CompletableFuture<String>>(intents.size());
+		for (RawTransactionIntent intent : intents) {
+			txids.add(submit(intent));
+		}
+		return txids;
+	}
+
+	/**
+	 * Refuses new intents, waits for the pending ones to complete, then stops
+	 * the threads.
+	 */
+	@Override
+	public void close() {
+		accepting = false;
+		synchronized (pending) {
+			while (pending.get() > 0) {
+				try {
+					pending.wait(100);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					break;
+				}
+			}
+		}
+		running = false;
+		retryScheduler.shutdownNow();
+		for (Stage stage : new Stage[] { create, sign, send }) {
+			if (stage.thread != Thread.currentThread()) {
+				try {
+					stage.thread.join();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			}
+		}
+	}
+
+	/**
+	 * @return the number of intents accepted and not completed yet
+	 */
+	public int getPending() {
+		return pending.get();
+	}
+
+	/**
+	 * @return the number of intents accepted
+	 */
+	public long getSubmitted() {
+		return submitted.get();
+	}
+
+	/**
+	 * @return the number of transactions sent
+	 */
+	public long getSent() {
+		return sent.get();
+	}
+
+	/**
+	 * @return the number of intents failed
+	 */
+	public long getFailed() {
+		return failedCount.get();
+	}
+
+	/**
+	 * @return the number of intents refused because too many were pending
+	 */
+	public long getRejected() {
+		return rejected.get();
+	}
+
+	/**
+	 * @return the number of steps retried after a transient error
+	 */
+	public long getRetries() {
+		return retries.get();
+	}
+
+	/**
+	 * Queues the job again in this step after a delay, if the error is
+	 * transient and the retries not exhausted.
+	 */
+	private boolean retry(final Job job, final Stage stage, MultichainException exception) {
+		if (!isTransient(exception) || job.attempts >= parameters.getMaxRetries()) {
+			return false;
+		}
+		long delay = parameters.getRetryDelayMillis() << Math.min(job.attempts, 16);
+		job.attempts++;
+		retries.incrementAndGet();
+		try {
+			retryScheduler.schedule(new Runnable() {
+				@Override
+				public void run() {
+					stage.queue.offer(job);
+				}
+			}, delay, TimeUnit.MILLISECONDS);
+			return true;
+		} catch (RuntimeException e) {
+			// the pipeline is closing
+			return false;
+		}
+	}
+
+	private void complete(Job job, String txid) {
+		sent.incrementAndGet();
+		job.txid.complete(txid);
+		done();
+	}
+
+	/**
+	 * @param unlock
+	 *            true if the transaction surely never reached the network,
+	 *            so that its locked inputs can be unlocked
+	 */
+	private void fail(Job job, MultichainException exception, boolean unlock) {
+		if (unlock && job.unsignedHex != null && job.intent.getFromAddress() != null
+				&& parameters.isLockInputs()) {
+			unlockInputs(job.unsignedHex);
+		}
+		failedCount.incrementAndGet();
+		job.txid.completeExceptionally(exception);
+		done();
+	}
+
+	private void done() {
+		if (pending.decrementAndGet() == 0) {
+			synchronized (pending) {
+				pending.notifyAll();
+			}
+		}
+	}
+
+	private void unlockInputs(String unsignedHex) {
+		try {
+			TransactionRAW transaction = decoder.decode(unsignedHex);
+			List<TxIdVout> inputs = new ArrayList<TxIdVout>();
+			for (TransactionRAWVin vin : transaction.getVin()) {
+				TxIdVout input = new TxIdVout();
+				input.setTxId(vin.getTxid());
+				input.setvOut((int) vin.getVout());
+				inputs.add(input);
+			}
+			synchronized (unlockBatch) {
+				BatchResult<Boolean> result = unlockBatch.lockUnspent(true, inputs);
+				unlockBatch.execute();
+				result.get();
+			}
+		} catch (MultichainException | RuntimeException e) {
+			LOGGER.log(Level.WARNING, "inputs of a failed transaction not unlocked", e);
+		}
+	}
+
+	/**
+	 * Transport failures and timeouts, and a node still warming up. An
+	 * unexpected answer, a refused authentication or a cancelled call is not
+	 * transient.
+	 */
+	private static boolean isTransient(MultichainException exception) {
+		Integer code = errorCode(exception);
+		if (code != null) {
+			return code == CODE_IN_WARMUP;
+		}
+		if ("Cancelled".equals(exception.getObject())) {
+			return false;
+		}
+		return exception instanceof MultichainTimeoutException || exception.getCause() instanceof IOException;
+	}
+
+	/**
+	 * @return true if the call surely did not run : no connection to the node,
+	 *         or the node warming up
+	 */
+	private static boolean isNotSent(MultichainException exception) {
+		Throwable cause = exception.getCause();
+		return cause instanceof ConnectException || cause instanceof ConnectTimeoutException
+				|| cause instanceof UnknownHostException || errorCode(exception) != null;
+	}
+
+	/**
+	 * @return the code of an error answered by the node, null for other errors
+	 */
+	private static Integer errorCode(MultichainException exception) {
+		String object = exception.getObject();
+		if (object == null || !object.startsWith("code :")) {
+			return null;
+		}
+		try {
+			return (int) Double.parseDouble(object.substring("code :".length()).trim());
+		} catch (NumberFormatException e) {
+			return null;
+		}
+	}
+
+	private static String txid(String hex) {
+		try {
+			MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
+			byte[] hash = sha256.digest(sha256.digest(HexCodec.decode(hex)));
+			for (int i = 0; i < hash.length / 2; i++) {
+				byte b = hash[i];
+				hash[i] = hash[hash.length - 1 - i];
+				hash[hash.length - 1 - i] = b;
+			}
+			return HexCodec.encode(hash);
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+}
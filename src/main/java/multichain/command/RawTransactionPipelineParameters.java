@@ -0,0 +1,133 @@
+/*
+ * Copyright (C) 2017 Worldline, Inc.
+ *
+ * MultiChainJavaAPI code distributed under the GPLv3 license, see COPYING file.
+ * https://github.com/SimplyUb/MultiChainJavaAPI/blob/master/LICENSE
+ *
+ */
+package multichain.command;
+
+/**
+ * Batching and retry settings used by {@link RawTransactionPipeline}.
+ *
+ * @author Ub - H. MARTEAU
+ * @version 4.15
+ */
+public class RawTransactionPipelineParameters {
+	int maxBatchSize = 100;
+	long lingerMillis = 2;
+	int maxPending = 10000;
+	int maxRetries = 3;
+	long retryDelayMillis = 100;
+	boolean lockInputs = true;
+
+	/**
+	 * Default settings
+	 */
+	public RawTransactionPipelineParameters() {
+		super();
+	}
+
+	/**
+	 * @param maxBatchSize
+	 * @param maxRetries
+	 */
+	public RawTransactionPipelineParameters(int maxBatchSize, int maxRetries) {
+		super();
+		this.maxBatchSize = maxBatchSize;
+		this.maxRetries = maxRetries;
+	}
+
+	/**
+	 * @return the number of calls of a stage sent in one request
+	 */
+	public int getMaxBatchSize() {
+		return maxBatchSize;
+	}
+
+	/**
+	 * @param maxBatchSize
+	 *            the maxBatchSize to set
+	 */
+	public void setMaxBatchSize(int maxBatchSize) {
+		this.maxBatchSize = maxBatchSize;
+	}
+
+	/**
+	 * @return the time a stage waits for its batch to fill
+	 */
+	public long getLingerMillis() {
+		return lingerMillis;
+	}
+
+	/**
+	 * @param lingerMillis
+	 *            the lingerMillis to set
+	 */
+	public void setLingerMillis(long lingerMillis) {
+		this.lingerMillis = lingerMillis;
+	}
+
+	/**
+	 * @return the number of intents in the pipeline beyond which new ones are
+	 *         refused
+	 */
+	public int getMaxPending() {
+		return maxPending;
+	}
+
+	/**
+	 * @param maxPending
+	 *            the maxPending to set
+	 */
+	public void setMaxPending(int maxPending) {
+		this.maxPending = maxPending;
+	}
+
+	/**
+	 * @return the retries of a stage on transient errors
+	 */
+	public int getMaxRetries() {
+		return maxRetries;
+	}
+
+	/**
+	 * @param maxRetries
+	 *            the maxRetries to set
+	 */
+	public void setMaxRetries(int maxRetries) {
+		this.maxRetries = maxRetries;
+	}
+
+	/**
+	 * @return the delay before the first retry, doubled at each retry
+	 */
+	public long getRetryDelayMillis() {
+		return retryDelayMillis;
+	}
+
+	/**
+	 * @param retryDelayMillis
+	 *            the retryDelayMillis to set
+	 */
+	public void setRetryDelayMillis(long retryDelayMillis) {
+		this.retryDelayMillis = retryDelayMillis;
+	}
+
+	/**
+	 * @return true if the unspent outputs chosen for a from-address are locked
+	 *         until sent, so that the transactions in the pipeline do not spend
+	 *         the same ones
+	 */
+	public boolean isLockInputs() {
+		return lockInputs;
+	}
+
+	/**
+	 * @param lockInputs
+	 *            the lockInputs to set
+	 */
+	public void setLockInputs(boolean lockInputs) {
+		this.lockInputs = lockInputs;
+	}
+}
@@ -0,0 +1,272 @@
+/*
+ * Copyright (C) 2017 Worldline, Inc.
+ *
+ * MultiChainJavaAPI code distributed under the GPLv3 license, see COPYING file.
+ * https://github.com/SimplyUb/MultiChainJavaAPI/blob/master/LICENSE
+ *
+ */
+package multichain.command;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+import multichain.object.Address;
+import multichain.object.BalanceAsset;
+import multichain.object.BalanceAssetGeneral;
+import multichain.object.Block;
+import multichain.object.KeyPairs;
+import multichain.object.MempoolInfo;
+import multichain.object.MultiBalance;
+import multichain.object.Permission;
+import multichain.object.SignedTransactionRAW;
+import multichain.object.Stream;
+import multichain.object.StreamKey;
+import multichain.object.StreamKeyItem;
+import multichain.object.Transaction;
+import multichain.object.TransactionRAW;
+import multichain.object.TransactionWallet;
+import multichain.object.TransactionWalletDetailed;
+import multichain.object.TxOut;
+import multichain.object.UnspentOutput;
+import multichain.object.WalletInfo;
+import multichain.object.formatters.AddressFormatter;
+import multichain.object.formatters.BalanceFormatter;
+import multichain.object.formatters.BlockFormatter;
+import multichain.object.formatters.MultiChainInfoFormatter;
+import multichain.object.formatters.GrantFormatter;
+import multichain.object.formatters.RAWTransactionFormatter;
+import multichain.object.formatters.StreamFormatter;
+import multichain.object.formatters.TransactionFormatter;
+import multichain.object.formatters.TxOutFormatter;
+import multichain.object.formatters.WalletFormatter;
+import multichain.object.formatters.WalletTransactionFormatter;
+
+/**
+ * The formatters of multichain.object.formatters as functions, for the commands
+ * which format results later than the call (batch and asynchronous calls).
+ *
+ * @author Ub - H. MARTEAU
+ * @version 4.15
+ */
+@SuppressWarnings("unchecked")
+final class ResultFormatters {
+
+	static final Function<Object, Void> VOID = new Function<Object, Void>() {
+		@Override
+		public Void apply(Object result) {
+			return null;
+		}
+	};
+
+	static final Function<Object, String> STRING = new Function<Object, String>() {
+		@Override
+		public String apply(Object result) {
+			return result == null ? null : result.toString();
+		}
+	};
+
+	static final Function<Object, Long> LONG = new Function<Object, Long>() {
+		@Override
+		public Long apply(Object result) {
+			return result == null ? null : ((Number) result).longValue();
+		}
+	};
+
+	static final Function<Object, List<String>> STRINGS = new Function<Object, List<String>>() {
+		@Override
+		public List<String> apply(Object result) {
+			List<String> strings = new ArrayList<String>();
+			if (result != null) {
+				for (Object string : (List<Object>) result) {
+					strings.add(string.toString());
+				}
+			}
+			return strings;
+		}
+	};
+
+	static final Function<Object, Boolean> BOOLEAN = new Function<Object, Boolean>() {
+		@Override
+		public Boolean apply(Object result) {
+			return (Boolean) result;
+		}
+	};
+
+	static final Function<Object, Address> ADDRESS = new Function<Object, Address>() {
+		@Override
+		public Address apply(Object result) {
+			return AddressFormatter.formatAddress(result);
+		}
+	};
+
+	static final Function<Object, List<Address>> ADDRESSES = new Function<Object, List<Address>>() {
+		@Override
+		public List<Address> apply(Object result) {
+			return AddressFormatter.formatAddressesList((List<Object>) result);
+		}
+	};
+
+	static final Function<Object, List<KeyPairs>> KEY_PAIRS = new Function<Object, List<KeyPairs>>() {
+		@Override
+		public List<KeyPairs> apply(Object result) {
+			return AddressFormatter.formatKeyPairsList((List<Object>) result);
+		}
+	};
+
+	static final Function<Object, MultiBalance> MULTI_BALANCE = new Function<Object, MultiBalance>() {
+		@Override
+		public MultiBalance apply(Object result) {
+			return BalanceFormatter.formatMultiBalance(result);
+		}
+	};
+
+	static final Function<Object, WalletInfo> WALLET_INFO = new Function<Object, WalletInfo>() {
+		@Override
+		public WalletInfo apply(Object result) {
+			return WalletFormatter.formatWalletInfo(result);
+		}
+	};
+
+	static final Function<Object, TransactionWallet> TRANSACTION_WALLET = new Function<Object, TransactionWallet>() {
+		@Override
+		public TransactionWallet apply(Object result) {
+			return WalletTransactionFormatter.formatTransactionWallet(result);
+		}
+	};
+
+	static final Function<Object, Block> BLOCK = new Function<Object, Block>() {
+		@Override
+		public Block apply(Object result) {
+			return BlockFormatter.formatBlock(result);
+		}
+	};
+
+	static final Function<Object, List<Block>> BLOCKS = new Function<Object, List<Block>>() {
+		@Override
+		public List<Block> apply(Object result) {
+			List<Block> blocks = new ArrayList<Block>();
+			if (result != null) {
+				for (Object block : (List<Object>) result) {
+					blocks.add(BlockFormatter.formatBlock(block));
+				}
+			}
+			return blocks;
+		}
+	};
+
+	static final Function<Object, Stream> STREAM = new Function<Object, Stream>() {
+		@Override
+		public Stream apply(Object result) {
+			return StreamFormatter.formatStream(result);
+		}
+	};
+
+	static final Function<Object, List<Stream>> STREAMS = new Function<Object, List<Stream>>() {
+		@Override
+		public List<Stream> apply(Object result) {
+			return StreamFormatter.formatStreams((List<Object>) result);
+		}
+	};
+
+	static final Function<Object, List<StreamKey>> STREAM_KEYS = new Function<Object, List<StreamKey>>() {
+		@Override
+		public List<StreamKey> apply(Object result) {
+			return StreamFormatter.formatStreamKeys((List<Object>) result);
+		}
+	};
+
+	static final Function<Object, StreamKeyItem> STREAM_KEY_ITEM = new Function<Object, StreamKeyItem>() {
+		@Override
+		public StreamKeyItem apply(Object result) {
+			return StreamFormatter.formatStreamKeyItem(result);
+		}
+	};
+
+	static final Function<Object, List<StreamKeyItem>> STREAM_KEY_ITEMS = new Function<Object, List<StreamKeyItem>>() {
+		@Override
+		public List<StreamKeyItem> apply(Object result) {
+			return StreamFormatter.formatStreamKeyItems((List<Object>) result);
+		}
+	};
+
+	static final Function<Object, TransactionRAW> TRANSACTION_RAW = new Function<Object, TransactionRAW>() {
+		@Override
+		public TransactionRAW apply(Object result) {
+			return RAWTransactionFormatter.formatTransactionRAW(result);
+		}
+	};
+
+	static final Function<Object, SignedTransactionRAW> SIGNED_TRANSACTION_RAW = new Function<Object, SignedTransactionRAW>() {
+		@Override
+		public SignedTransactionRAW apply(Object result) {
+			return RAWTransactionFormatter.formatSignedTransactionRAW(result);
+		}
+	};
+
+	static final Function<Object, Transaction> TRANSACTION = new Function<Object, Transaction>() {
+		@Override
+		public Transaction apply(Object result) {
+			return TransactionFormatter.formatTransaction(result);
+		}
+	};
+
+	static final Function<Object, TransactionWalletDetailed> TRANSACTION_WALLET_DETAILED = new Function<Object, TransactionWalletDetailed>() {
+		@Override
+		public TransactionWalletDetailed apply(Object result) {
+			return WalletTransactionFormatter.formatTransactionWalletDetailed(result);
+		}
+	};
+
+	static final Function<Object, List<TransactionWalletDetailed>> TRANSACTIONS_WALLET_DETAILED = new Function<Object, List<TransactionWalletDetailed>>() {
+		@Override
+		public List<TransactionWalletDetailed> apply(Object result) {
+			return WalletTransactionFormatter.formatListTransactionWalletDetailed((List<Object>) result);
+		}
+	};
+
+	static final Function<Object, TxOut> TX_OUT = new Function<Object, TxOut>() {
+		@Override
+		public TxOut apply(Object result) {
+			return TxOutFormatter.formatTxOut(result);
+		}
+	};
+
+	static final Function<Object, MempoolInfo> MEMPOOL_INFO = new Function<Object, MempoolInfo>() {
+		@Override
+		public MempoolInfo apply(Object result) {
+			return MultiChainInfoFormatter.formatMempoolInfo(result);
+		}
+	};
+
+	static final Function<Object, List<UnspentOutput>> UNSPENT_OUTPUTS = new Function<Object, List<UnspentOutput>>() {
+		@Override
+		public List<UnspentOutput> apply(Object result) {
+			return TxOutFormatter.formatUnspentOutputs((List<Object>) result);
+		}
+	};
+
+	static final Function<Object, List<Permission>> PERMISSIONS = new Function<Object, List<Permission>>() {
+		@Override
+		public List<Permission> apply(Object result) {
+			return GrantFormatter.formatPermissions((List<Object>) result);
+		}
+	};
+
+	static final Function<Object, List<BalanceAsset>> BALANCE_ASSETS = new Function<Object, List<BalanceAsset>>() {
+		@Override
+		public List<BalanceAsset> apply(Object result) {
+			return BalanceFormatter.formatBalanceAssets((List<Object>) result);
+		}
+	};
+
+	static final Function<Object, List<BalanceAssetGeneral>> BALANCE_ASSETS_GENERAL = new Function<Object, List<BalanceAssetGeneral>>() {
+		@Override
+		public List<BalanceAssetGeneral> apply(Object result) {
+			return BalanceFormatter.formatBalanceAssetsGeneral((List<Object>) result);
+		}
+	};
+
+	private ResultFormatters() {
+	}
+}
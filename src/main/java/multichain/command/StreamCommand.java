@@ -12,12 +12,14 @@ import java.util.List;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
+import multichain.command.builders.PagedIterator;
 import multichain.command.builders.QueryBuilderStream;
+import multichain.command.builders.RpcResultIterator;
 import multichain.object.Address;
 import multichain.object.Stream;
 import multichain.object.StreamKey;
 import multichain.object.StreamKeyItem;
-import multichain.object.formatters.StreamFormatter;
+import multichain.object.formatters.HexCodec;
 
 /**
  * @author Ub - H. MARTEAU
@@ -29,6 +31,14 @@ public class StreamCommand extends QueryBuilderStream {
 		initialize(ip, port, login, password, runtimeparameters);
 	}
 
+	public StreamCommand(MultiChainTransport transport, RuntimeParameters runtimeparameters) {
+		initialize(transport, runtimeparameters);
+	}
+
+	public StreamCommand(MultiChainCluster cluster, RuntimeParameters runtimeparameters) {
+		initialize(cluster, runtimeparameters);
+	}
+
 	/**
 	 * create stream "stream-name" open ( custom-fields )
 	 * 
@@ -102,19 +112,12 @@ public class StreamCommand extends QueryBuilderStream {
          * @return 
          */
         public List<StreamKeyItem> listStreamItems(String streanmane,boolean verbose,int count,int start,boolean localordering){
-            Object obj=null;
+            List<StreamKeyItem> items=new ArrayList<StreamKeyItem>();
             try {
-                obj = executeListStreamItems(streanmane,verbose,count,start,localordering);
+                items = executeListStreamItems(streanmane,verbose,count,start,localordering);
             } catch (MultichainException ex) {
                 Logger.getLogger(StreamCommand.class.getName()).log(Level.SEVERE, null, ex);
             }
-            int size=((List)obj).size();
-            StreamKeyItem item=null;
-            List<StreamKeyItem> items=new ArrayList<StreamKeyItem>();
-            for(int a=0;a<size;a++){
-                item=StreamFormatter.formatStreamKeyItem(((List)obj).get(a));
-                items.add(item);
-            }
             return items;
         }
         /****
@@ -126,20 +129,13 @@ public class StreamCommand extends QueryBuilderStream {
          * @return 
          */
         public StreamKeyItem getStreamItem(String streamname,String txid,boolean verbose){
-            Object obj=null;
             StreamKeyItem item=null;
             try {
-                obj=executeGetstreamitem(streamname,txid,verbose);
+                item=executeGetstreamitem(streamname,txid,verbose);
             } catch (MultichainException ex) {
                 Logger.getLogger(StreamCommand.class.getName()).log(Level.SEVERE, null, ex);
             }
-            if(verifyInstance(obj,com.google.gson.internal.LinkedTreeMap.class)){
-                item=StreamFormatter.formatStreamKeyItem(obj);
-            }
-            if(item!=null){
-                return item;
-            }
-            return null;
+            return item;
         }
         /**
      * **
@@ -153,11 +149,9 @@ public class StreamCommand extends QueryBuilderStream {
      */
     public StreamKeyItem getLatestStreamKeyItem(String streamname, String key, boolean verbose) throws MultichainException {
         StreamKeyItem result = new StreamKeyItem();
-        Object obj = executeListStreamKeyItems(streamname, key, verbose, 1, -1);
-        if (verifyInstance(obj, ArrayList.class) && verifyInstanceofList((ArrayList<Object>) obj, StreamKeyItem.class)) {
-            if (StreamFormatter.formatStreamKeyItems((ArrayList<Object>) obj).size() > 0) {
-                result = StreamFormatter.formatStreamKeyItems((ArrayList<Object>) obj).get(0);
-            }
+        List<StreamKeyItem> items = executeListStreamKeyItems(streamname, key, verbose, 1, -1);
+        if (items.size() > 0) {
+            result = items.get(0);
         }
         return result;
     }
@@ -253,18 +247,9 @@ public class StreamCommand extends QueryBuilderStream {
 	 * @return
 	 * @throws MultichainException
 	 */
-	@SuppressWarnings("unchecked")
 	public List<Stream> listStreams(String streamName, boolean verbose, int count, int start)
 			throws MultichainException {
-		List<Stream> streams = new ArrayList<Stream>();
-
-		Object objectStreams = executeListStreams(streamName, verbose, count, start);
-		if (verifyInstance(objectStreams, ArrayList.class)
-				&& verifyInstanceofList((ArrayList<Object>) objectStreams, Stream.class)) {
-			streams = StreamFormatter.formatStreams((ArrayList<Object>) objectStreams);
-		}
-
-		return streams;
+		return executeListStreams(streamName, verbose, count, start);
 	}
 
 	/**
@@ -276,17 +261,8 @@ public class StreamCommand extends QueryBuilderStream {
 	 * @return
 	 * @throws MultichainException
 	 */
-	@SuppressWarnings("unchecked")
 	public List<Stream> listStreams(String streamName, boolean verbose, int count) throws MultichainException {
-		List<Stream> streams = new ArrayList<Stream>();
-
-		Object objectStreams = executeListStreams(streamName, verbose, count);
-		if (verifyInstance(objectStreams, ArrayList.class)
-				&& verifyInstanceofList((ArrayList<Object>) objectStreams, Stream.class)) {
-			streams = StreamFormatter.formatStreams((ArrayList<Object>) objectStreams);
-		}
-
-		return streams;
+		return executeListStreams(streamName, verbose, count);
 
 	}
 
@@ -299,17 +275,8 @@ public class StreamCommand extends QueryBuilderStream {
 	 * @return
 	 * @throws MultichainException
 	 */
-	@SuppressWarnings("unchecked")
 	public List<Stream> listStreams(String streamName, boolean verbose) throws MultichainException {
-		List<Stream> streams = new ArrayList<Stream>();
-
-		Object objectStreams = executeListStreams(streamName, verbose, 10);
-		if (verifyInstance(objectStreams, ArrayList.class)
-				&& verifyInstanceofList((ArrayList<Object>) objectStreams, Stream.class)) {
-			streams = StreamFormatter.formatStreams((ArrayList<Object>) objectStreams);
-		}
-
-		return streams;
+		return executeListStreams(streamName, verbose, 10);
 
 	}
 
@@ -321,17 +288,8 @@ public class StreamCommand extends QueryBuilderStream {
 	 * @return
 	 * @throws MultichainException
 	 */
-	@SuppressWarnings("unchecked")
 	public List<Stream> listStreams(String streamName) throws MultichainException {
-		List<Stream> streams = new ArrayList<Stream>();
-
-		Object objectStreams = executeListStreams(streamName, false, 10);
-		if (verifyInstance(objectStreams, ArrayList.class)
-				&& verifyInstanceofList((ArrayList<Object>) objectStreams, Stream.class)) {
-			streams = StreamFormatter.formatStreams((ArrayList<Object>) objectStreams);
-		}
-
-		return streams;
+		return executeListStreams(streamName, false, 10);
 
 	}
 
@@ -362,18 +320,30 @@ public class StreamCommand extends QueryBuilderStream {
 	 * @return
 	 * @throws MultichainException
 	 */
-	@SuppressWarnings("unchecked")
 	public List<StreamKey> listStreamKeys(String streamName, String key, boolean verbose, int count, int start)
 			throws MultichainException {
-		List<StreamKey> streamKeys = new ArrayList<StreamKey>();
-
-		Object objectStreamKeys = executeListStreamKeys(streamName, key, verbose, count, start);
-		if (verifyInstance(objectStreamKeys, ArrayList.class)
-				&& verifyInstanceofList((ArrayList<Object>) objectStreamKeys, StreamKey.class)) {
-			streamKeys = StreamFormatter.formatStreamKeys((ArrayList<Object>) objectStreamKeys);
-		}
+		return executeListStreamKeys(streamName, key, verbose, count, start);
+	}
 
-		return streamKeys;
+	/**
+	 * {@link #listStreamKeys(String, String, boolean, int, int)} over all the
+	 * keys, read lazily page by page
+	 * 
+	 * @param streamName
+	 * @param key
+	 * @param verbose
+	 * @param pageSize
+	 *            count of each call
+	 * @return the keys, to be read until the end or closed
+	 */
+	public PagedIterator<StreamKey> listStreamKeysPaged(final String streamName, final String key,
+			final boolean verbose, int pageSize) {
+		return new PagedIterator<StreamKey>(new PagedIterator.PageFetcher<StreamKey>() {
+			@Override
+			public List<StreamKey> fetch(long start, int count) throws MultichainException {
+				return executeListStreamKeys(streamName, key, verbose, count, (int) start);
+			}
+		}, 0, pageSize, true);
 	}
 
 	/**
@@ -387,18 +357,9 @@ public class StreamCommand extends QueryBuilderStream {
 	 * @return
 	 * @throws MultichainException
 	 */
-	@SuppressWarnings("unchecked")
 	public List<StreamKey> listStreamKeys(String streamName, String key, boolean verbose, int count)
 			throws MultichainException {
-		List<StreamKey> streamKeys = new ArrayList<StreamKey>();
-
-		Object objectStreamKeys = executeListStreamKeys(streamName, key, verbose, count);
-		if (verifyInstance(objectStreamKeys, ArrayList.class)
-				&& verifyInstanceofList((ArrayList<Object>) objectStreamKeys, StreamKey.class)) {
-			streamKeys = StreamFormatter.formatStreamKeys((ArrayList<Object>) objectStreamKeys);
-		}
-
-		return streamKeys;
+		return executeListStreamKeys(streamName, key, verbose, count);
 	}
 
 	/**
@@ -472,18 +433,48 @@ public class StreamCommand extends QueryBuilderStream {
 	 * @return
 	 * @throws MultichainException
 	 */
-	@SuppressWarnings("unchecked")
 	public List<StreamKeyItem> listStreamKeyItems(String streamName, String key, boolean verbose, int count, int start)
 			throws MultichainException {
-		List<StreamKeyItem> streamKeyItems = new ArrayList<StreamKeyItem>();
+		return executeListStreamKeyItems(streamName, key, verbose, count, start);
+	}
 
-		Object objectStreamKeyItems = executeListStreamKeyItems(streamName, key, verbose, count, start);
-		if (verifyInstance(objectStreamKeyItems, ArrayList.class)
-				&& verifyInstanceofList((ArrayList<Object>) objectStreamKeyItems, StreamKeyItem.class)) {
-			streamKeyItems = StreamFormatter.formatStreamKeyItems((ArrayList<Object>) objectStreamKeyItems);
-		}
+	/**
+	 * {@link #listStreamKeyItems(String, String, boolean, int, int)} over all
+	 * the items of the key, read lazily page by page
+	 * 
+	 * @param streamName
+	 * @param key
+	 * @param verbose
+	 * @param pageSize
+	 *            count of each call
+	 * @return the items, to be read until the end or closed
+	 */
+	public PagedIterator<StreamKeyItem> listStreamKeyItemsPaged(final String streamName, final String key,
+			final boolean verbose, int pageSize) {
+		return new PagedIterator<StreamKeyItem>(new PagedIterator.PageFetcher<StreamKeyItem>() {
+			@Override
+			public List<StreamKeyItem> fetch(long start, int count) throws MultichainException {
+				return executeListStreamKeyItems(streamName, key, verbose, count, (int) start);
+			}
+		}, 0, pageSize, true);
+	}
 
-		return streamKeyItems;
+	/**
+	 * {@link #listStreamKeyItems(String, String, boolean, int, int)} for large
+	 * results : the items are decoded one at a time while the answer is read,
+	 * so memory does not grow with count.
+	 *
+	 * @param streamName
+	 * @param key
+	 * @param verbose
+	 * @param count
+	 * @param start
+	 * @return the items, to be read until the end or closed
+	 * @throws MultichainException
+	 */
+	public RpcResultIterator<StreamKeyItem> listStreamKeyItemsIterator(String streamName, String key, boolean verbose,
+			int count, int start) throws MultichainException {
+		return executeListStreamKeyItemsIterator(streamName, key, verbose, count, start);
 	}
 
 	/**
@@ -511,18 +502,9 @@ public class StreamCommand extends QueryBuilderStream {
 	 *            * @return
 	 * @throws MultichainException
 	 */
-	@SuppressWarnings("unchecked")
 	public List<StreamKeyItem> listStreamKeyItems(String streamName, String key, boolean verbose, int count)
 			throws MultichainException {
-		List<StreamKeyItem> streamKeyItems = new ArrayList<StreamKeyItem>();
-
-		Object objectStreamKeyItems = executeListStreamKeyItems(streamName, key, verbose, count);
-		if (verifyInstance(objectStreamKeyItems, ArrayList.class)
-				&& verifyInstanceofList((ArrayList<Object>) objectStreamKeyItems, StreamKeyItem.class)) {
-			streamKeyItems = StreamFormatter.formatStreamKeyItems((ArrayList<Object>) objectStreamKeyItems);
-		}
-
-		return streamKeyItems;
+		return executeListStreamKeyItems(streamName, key, verbose, count);
 	}
 
 	/**
@@ -609,18 +591,63 @@ public class StreamCommand extends QueryBuilderStream {
 	 * @return
 	 * @throws MultichainException
 	 */
-	@SuppressWarnings("unchecked")
 	public List<StreamKeyItem> listStreamItems(String streamName, boolean verbose, int count, int start)
 			throws MultichainException {
-		List<StreamKeyItem> streamKeyItems = new ArrayList<StreamKeyItem>();
+		return executeListStreamItems(streamName, verbose, count, start);
+	}
 
-		Object objectStreamKeyItems = executeListStreamItems(streamName, verbose, count, start);
-		if (verifyInstance(objectStreamKeyItems, ArrayList.class)
-				&& verifyInstanceofList((ArrayList<Object>) objectStreamKeyItems, StreamKeyItem.class)) {
-			streamKeyItems = StreamFormatter.formatStreamKeyItems((ArrayList<Object>) objectStreamKeyItems);
-		}
+	/**
+	 * {@link #listStreamItems(String, boolean, int, int)} over all the items of
+	 * the stream, read lazily page by page : the next page is fetched while
+	 * the current one is consumed.
+	 * 
+	 * <pre>
+	 * try (PagedIterator&lt;StreamKeyItem&gt; items = listStreamItemsPaged("stream1", true, 1000)) {
+	 * 	while (items.hasNext()) {
+	 * 		process(items.next());
+	 * 	}
+	 * }
+	 * </pre>
+	 * 
+	 * @param streamName
+	 * @param verbose
+	 * @param pageSize
+	 *            count of each call
+	 * @return the items, to be read until the end or closed
+	 */
+	public PagedIterator<StreamKeyItem> listStreamItemsPaged(final String streamName, final boolean verbose,
+			int pageSize) {
+		return new PagedIterator<StreamKeyItem>(new PagedIterator.PageFetcher<StreamKeyItem>() {
+			@Override
+			public List<StreamKeyItem> fetch(long start, int count) throws MultichainException {
+				return executeListStreamItems(streamName, verbose, count, (int) start);
+			}
+		}, 0, pageSize, true);
+	}
 
-		return streamKeyItems;
+	/**
+	 * {@link #listStreamItems(String, boolean, int, int)} for large results :
+	 * the items are decoded one at a time while the answer is read, so memory
+	 * does not grow with count.
+	 *
+	 * <pre>
+	 * try (RpcResultIterator&lt;StreamKeyItem&gt; items = listStreamItemsIterator("stream1", true, 100000, 0)) {
+	 * 	while (items.hasNext()) {
+	 * 		process(items.next());
+	 * 	}
+	 * }
+	 * </pre>
+	 *
+	 * @param streamName
+	 * @param verbose
+	 * @param count
+	 * @param start
+	 * @return the items, to be read until the end or closed
+	 * @throws MultichainException
+	 */
+	public RpcResultIterator<StreamKeyItem> listStreamItemsIterator(String streamName, boolean verbose, int count,
+			int start) throws MultichainException {
+		return executeListStreamItemsIterator(streamName, verbose, count, start);
 	}
 
 	/**
@@ -646,18 +673,9 @@ public class StreamCommand extends QueryBuilderStream {
 	 *            * @return
 	 * @throws MultichainException
 	 */
-	@SuppressWarnings("unchecked")
 	public List<StreamKeyItem> listStreamItems(String streamName, boolean verbose, int count)
 			throws MultichainException {
-		List<StreamKeyItem> streamKeyItems = new ArrayList<StreamKeyItem>();
-
-		Object objectStreamKeyItems = executeListStreamItems(streamName, verbose, count);
-		if (verifyInstance(objectStreamKeyItems, ArrayList.class)
-				&& verifyInstanceofList((ArrayList<Object>) objectStreamKeyItems, StreamKeyItem.class)) {
-			streamKeyItems = StreamFormatter.formatStreamKeyItems((ArrayList<Object>) objectStreamKeyItems);
-		}
-
-		return streamKeyItems;
+		return executeListStreamItems(streamName, verbose, count);
 	}
 
 	/**
@@ -746,6 +764,23 @@ public class StreamCommand extends QueryBuilderStream {
 
 		return stringPublish;
 	}
+
+	/**
+	 * {@link #publish(String, String, String)} with the data as bytes
+	 * 
+	 * @param streamName
+	 * @param key
+	 * @param data
+	 *            : data encoded in hexadecimal by {@link HexCodec}
+	 * @return TxId
+	 * @throws MultichainException
+	 */
+	public String publish(String streamName, String key, byte[] data) throws MultichainException {
+		if (data == null || data.length == 0) {
+			throw new MultichainException("data", "data is null or empty");
+		}
+		return publish(streamName, key, HexCodec.encode(data));
+	}
 	
 	/**
 	 * {@link #publish(String, String, String)} with control over the from-address used to
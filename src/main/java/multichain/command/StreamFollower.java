@@ -0,0 +1,417 @@
+/*
+ * Copyright (C) 2017 Worldline, Inc.
+ *
+ * MultiChainJavaAPI code distributed under the GPLv3 license, see COPYING file.
+ * https://github.com/SimplyUb/MultiChainJavaAPI/blob/master/LICENSE
+ *
+ */
+package multichain.command;
+
+import java.io.Closeable;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import multichain.command.builders.BatchResult;
+import multichain.object.Stream;
+import multichain.object.StreamKeyItem;
+
+/**
+ * Follows subscribed streams, and delivers their new items once each.
+ *
+ * Each stream has a cursor, the position of the first item not delivered in
+ * the confirmed part of the stream. A poll reads every stream from its cursor
+ * with one liststreamitems call per stream, all sent in the same
+ * {@link BatchCommand}, and pages further while a stream has more items.
+ *
+ * The items are identified by their txid and vout. An item published but not
+ * yet in a block is delivered by {@link Listener#itemReceived(String, StreamKeyItem)}
+ * as soon as the node knows it, and then only notified by
+ * {@link Listener#itemConfirmed(String, StreamKeyItem)} when a block includes it.
+ *
+ * The follower delivers at most the number of items requested with
+ * {@link #request(long)}, and stops reading while this demand is 0 ; the items
+ * not delivered stay on the node until more are requested.
+ *
+ * <pre>
+ * StreamFollower follower = new StreamFollower(multiChainCommand.newBatch(), null, listener);
+ * follower.follow("stream1");
+ * follower.follow("stream2", 0);
+ * follower.start();
+ * </pre>
+ *
+ * @author Ub - H. MARTEAU
+ * @version 4.15
+ */
+public class StreamFollower implements Closeable {
+	private static final Logger LOGGER = Logger.getLogger(StreamFollower.class.getName());
+
+	/**
+	 * Receives the items, on the thread of the follower.
+	 */
+	public interface Listener {
+		/**
+		 * @param streamName
+		 * @param item
+		 *            a new item, confirmed or not
+		 */
+		void itemReceived(String streamName, StreamKeyItem item);
+
+		/**
+		 * @param streamName
+		 * @param item
+		 *            an item received before its block, now confirmed
+		 */
+		void itemConfirmed(String streamName, StreamKeyItem item);
+	}
+
+	private final BatchCommand batchCommand;
+	private final StreamFollowerParameters followerParameters;
+	private final Listener listener;
+	private final Map<String, Long> cursors = new LinkedHashMap<String, Long>();
+	private final Map<String, Long> starts = new LinkedHashMap<String, Long>();
+	private final Map<String, Boolean> delivered;
+	private final AtomicLong demand;
+	private final Object signal = new Object();
+	private volatile long pollMillis;
+	private Thread thread = null;
+	private volatile boolean running = false;
+
+	/**
+	 * @param batchCommand
+	 *            used by the follower only
+	 * @param followerParameters
+	 *            default ones if null
+	 * @param listener
+	 */
+	public StreamFollower(BatchCommand batchCommand, StreamFollowerParameters followerParameters,
+			Listener listener) {
+		if (followerParameters == null) {
+			followerParameters = new StreamFollowerParameters();
+		}
+		final int dedupeWindow = followerParameters.getDedupeWindow();
+		this.batchCommand = batchCommand;
+		this.followerParameters = followerParameters;
+		this.listener = listener;
+		this.demand = new AtomicLong(followerParameters.getInitialDemand());
+		this.pollMillis = followerParameters.getMinPollMillis();
+		this.delivered = new LinkedHashMap<String, Boolean>() {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+				return size() > dedupeWindow;
+			}
+		};
+	}
+
+	/**
+	 * Follows a stream from its items published from now on, including the
+	 * ones not yet confirmed.
+	 *
+	 * @param streamName
+	 *            a stream the node is subscribed to
+	 */
+	public void follow(String streamName) {
+		follow(streamName, -1);
+	}
+
+	/**
+	 * @param streamName
+	 *            a stream the node is subscribed to
+	 * @param start
+	 *            position of the first item delivered, -1 for the items
+	 *            published from now on
+	 */
+	public void follow(String streamName, long start) {
+		synchronized (this) {
+			cursors.put(streamName, start);
+			starts.put(streamName, start);
+		}
+		wakeUp();
+	}
+
+	/**
+	 * @param streamName
+	 *            a stream no more read from the next poll
+	 */
+	public synchronized void unfollow(String streamName) {
+		cursors.remove(streamName);
+		starts.remove(streamName);
+	}
+
+	/**
+	 * @param streamName
+	 * @return the position of the first confirmed item not delivered, -1 if
+	 *         not known yet or not followed
+	 */
+	public synchronized long getCursor(String streamName) {
+		Long cursor = cursors.get(streamName);
+		return cursor != null ? cursor : -1;
+	}
+
+	/**
+	 * Allows n more items to be delivered.
+	 *
+	 * @param n
+	 *            positive
+	 */
+	public void request(long n) {
+		if (n <= 0) {
+			throw new IllegalArgumentException("n must be positive");
+		}
+		while (true) {
+			long current = demand.get();
+			long next = current + n < 0 ? Long.MAX_VALUE : current + n;
+			if (demand.compareAndSet(current, next)) {
+				break;
+			}
+		}
+		wakeUp();
+	}
+
+	/**
+	 * @return the number of items which can still be delivered,
+	 *         Long.MAX_VALUE if unbounded
+	 */
+	public long getDemand() {
+		return demand.get();
+	}
+
+	/**
+	 * @return the current period of the polls
+	 */
+	public long getPollMillis() {
+		return pollMillis;
+	}
+
+	/**
+	 * Starts polling the node on a daemon thread.
+	 */
+	public synchronized void start() {
+		if (thread != null) {
+			return;
+		}
+		running = true;
+		thread = new Thread("multichain-stream-follower") {
+			@Override
+			public void run() {
+				follow();
+			}
+		};
+		thread.setDaemon(true);
+		thread.start();
+	}
+
+	/**
+	 * Stops polling, after the item being delivered if any.
+	 */
+	@Override
+	public void close() {
+		Thread current;
+		synchronized (this) {
+			running = false;
+			current = thread;
+			thread = null;
+		}
+		if (current != null) {
+			current.interrupt();
+			if (current != Thread.currentThread()) {
+				try {
+					current.join();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			}
+		}
+	}
+
+	/**
+	 * Reads the new items of every stream followed once, within the demand.
+	 * Called by the thread of {@link #start()}, or directly by a caller polling
+	 * by itself.
+	 *
+	 * @return the number of items received
+	 * @throws MultichainException
+	 *             if the node fails ; the streams answered are delivered first
+	 * @throws RuntimeException
+	 *             thrown by the listener ; the cursor stays on the item it
+	 *             failed on, delivered again by the next poll
+	 */
+	public synchronized int poll() throws MultichainException {
+		initializeCursors();
+		int batchSize = followerParameters.getBatchSize();
+		Map<String, Long> offsets = new LinkedHashMap<String, Long>();
+		Map<String, Boolean> inOrder = new LinkedHashMap<String, Boolean>();
+		for (Map.Entry<String, Long> cursor : cursors.entrySet()) {
+			offsets.put(cursor.getKey(), Math.max(starts.get(cursor.getKey()),
+					cursor.getValue() - followerParameters.getOverlap()));
+			inOrder.put(cursor.getKey(), true);
+		}
+
+		int received = 0;
+		MultichainException failure = null;
+		while (!offsets.isEmpty() && demand.get() > 0) {
+			Map<String, BatchResult<List<StreamKeyItem>>> results = new LinkedHashMap<String, BatchResult<List<StreamKeyItem>>>();
+			for (Map.Entry<String, Long> offset : offsets.entrySet()) {
+				results.put(offset.getKey(), batchCommand.listStreamItems(offset.getKey(),
+						followerParameters.isVerbose(), batchSize, (int) (long) offset.getValue()));
+			}
+			try {
+				batchCommand.execute();
+			} catch (MultichainException e) {
+				// also raised by the get() of each result
+			}
+
+			Map<String, Long> nextOffsets = new LinkedHashMap<String, Long>();
+			for (Map.Entry<String, BatchResult<List<StreamKeyItem>>> result : results.entrySet()) {
+				String streamName = result.getKey();
+				List<StreamKeyItem> items;
+				try {
+					items = result.getValue().get();
+				} catch (MultichainException e) {
+					if (failure == null) {
+						failure = e;
+					}
+					continue;
+				}
+				Long cursor = cursors.get(streamName);
+				if (cursor == null) {
+					// unfollowed by the listener
+					continue;
+				}
+				long offset = offsets.get(streamName);
+				boolean confirmedSoFar = inOrder.get(streamName);
+				int index = 0;
+				try {
+					for (; index < items.size() && demand.get() > 0; index++) {
+						StreamKeyItem item = items.get(index);
+						boolean confirmed = item.getConfirmations() > 0;
+						if (deliver(streamName, item, confirmed)) {
+							received++;
+						}
+						// the confirmed items keep their position, the others move
+						confirmedSoFar = confirmedSoFar && confirmed;
+						if (confirmedSoFar && offset + index + 1 > cursor) {
+							cursor = offset + index + 1;
+						}
+					}
+				} finally {
+					// up to the last item the listener took, even if it failed
+					if (cursors.containsKey(streamName)) {
+						cursors.put(streamName, cursor);
+					}
+				}
+				if (index == batchSize) {
+					nextOffsets.put(streamName, offset + index);
+					inOrder.put(streamName, confirmedSoFar);
+				}
+			}
+			offsets = nextOffsets;
+		}
+
+		if (failure != null) {
+			throw failure;
+		}
+		adaptPoll(received);
+		return received;
+	}
+
+	/**
+	 * Marks the item delivered once the listener returned : an item the
+	 * listener failed on is delivered again by the next poll.
+	 *
+	 * @return true if the item is new
+	 */
+	private boolean deliver(String streamName, StreamKeyItem item, boolean confirmed) {
+		String id = streamName + "/" + item.getTxid() + ":" + item.getVout();
+		Boolean deliveredConfirmed = delivered.get(id);
+		if (deliveredConfirmed == null) {
+			listener.itemReceived(streamName, item);
+			delivered.put(id, confirmed);
+			consumeDemand();
+			return true;
+		}
+		if (confirmed && !deliveredConfirmed) {
+			listener.itemConfirmed(streamName, item);
+			delivered.put(id, true);
+		}
+		return false;
+	}
+
+	private void consumeDemand() {
+		while (true) {
+			long current = demand.get();
+			if (current == Long.MAX_VALUE || demand.compareAndSet(current, current - 1)) {
+				return;
+			}
+		}
+	}
+
+	/**
+	 * Places the cursors of the streams followed from now on after their
+	 * confirmed items.
+	 */
+	private void initializeCursors() throws MultichainException {
+		Map<String, BatchResult<List<Stream>>> results = new LinkedHashMap<String, BatchResult<List<Stream>>>();
+		for (Map.Entry<String, Long> cursor : cursors.entrySet()) {
+			if (cursor.getValue() < 0) {
+				results.put(cursor.getKey(), batchCommand.listStreams(cursor.getKey()));
+			}
+		}
+		if (results.isEmpty()) {
+			return;
+		}
+		batchCommand.execute();
+		for (Map.Entry<String, BatchResult<List<Stream>>> result : results.entrySet()) {
+			List<Stream> streams = result.getValue().get();
+			if (streams == null || streams.isEmpty()) {
+				throw new MultichainException("Stream", "unknown stream " + result.getKey());
+			}
+			long start = streams.get(0).getConfirmed();
+			cursors.put(result.getKey(), start);
+			starts.put(result.getKey(), start);
+		}
+	}
+
+	private void follow() {
+		while (running) {
+			try {
+				poll();
+			} catch (MultichainException e) {
+				LOGGER.log(Level.WARNING, "stream follower poll failed", e);
+				pollMillis = Math.min(followerParameters.getMaxPollMillis(), pollMillis * 2);
+			} catch (RuntimeException e) {
+				LOGGER.log(Level.SEVERE, "stream follower listener failed", e);
+				pollMillis = Math.min(followerParameters.getMaxPollMillis(), pollMillis * 2);
+			}
+			synchronized (signal) {
+				try {
+					// without demand, waits for request()
+					signal.wait(demand.get() > 0 ? pollMillis : 0);
+				} catch (InterruptedException e) {
+					return;
+				}
+			}
+		}
+	}
+
+	private void wakeUp() {
+		synchronized (signal) {
+			signal.notifyAll();
+		}
+	}
+
+	/**
+	 * The shortest period while items arrive, growing while the streams are
+	 * quiet.
+	 */
+	private void adaptPoll(int received) {
+		long period = received > 0 ? followerParameters.getMinPollMillis() : pollMillis * 3 / 2;
+		pollMillis = Math.max(followerParameters.getMinPollMillis(),
+				Math.min(followerParameters.getMaxPollMillis(), period));
+	}
+}
@@ -0,0 +1,150 @@
+/*
+ * Copyright (C) 2017 Worldline, Inc.
+ *
+ * MultiChainJavaAPI code distributed under the GPLv3 license, see COPYING file.
+ * https://github.com/SimplyUb/MultiChainJavaAPI/blob/master/LICENSE
+ *
+ */
+package multichain.command;
+
+/**
+ * Polling, batch and deduplication settings used by {@link StreamFollower}.
+ *
+ * @author Ub - H. MARTEAU
+ * @version 4.15
+ */
+public class StreamFollowerParameters {
+	boolean verbose = true;
+	long minPollMillis = 200;
+	long maxPollMillis = 10000;
+	int batchSize = 500;
+	int overlap = 20;
+	int dedupeWindow = 100000;
+	long initialDemand = Long.MAX_VALUE;
+
+	/**
+	 * Default settings
+	 */
+	public StreamFollowerParameters() {
+		super();
+	}
+
+	/**
+	 * @param minPollMillis
+	 * @param batchSize
+	 */
+	public StreamFollowerParameters(long minPollMillis, int batchSize) {
+		super();
+		this.minPollMillis = minPollMillis;
+		this.batchSize = batchSize;
+	}
+
+	/**
+	 * @return true to read the items with their publishers and block
+	 */
+	public boolean isVerbose() {
+		return verbose;
+	}
+
+	/**
+	 * @param verbose
+	 *            the verbose to set
+	 */
+	public void setVerbose(boolean verbose) {
+		this.verbose = verbose;
+	}
+
+	/**
+	 * @return the period of the polls while new items arrive
+	 */
+	public long getMinPollMillis() {
+		return minPollMillis;
+	}
+
+	/**
+	 * @param minPollMillis
+	 *            the minPollMillis to set
+	 */
+	public void setMinPollMillis(long minPollMillis) {
+		this.minPollMillis = minPollMillis;
+	}
+
+	/**
+	 * @return the longest period between two polls, reached while the streams
+	 *         are quiet or the node fails
+	 */
+	public long getMaxPollMillis() {
+		return maxPollMillis;
+	}
+
+	/**
+	 * @param maxPollMillis
+	 *            the maxPollMillis to set
+	 */
+	public void setMaxPollMillis(long maxPollMillis) {
+		this.maxPollMillis = maxPollMillis;
+	}
+
+	/**
+	 * @return the number of items of a liststreamitems call
+	 */
+	public int getBatchSize() {
+		return batchSize;
+	}
+
+	/**
+	 * @param batchSize
+	 *            the batchSize to set
+	 */
+	public void setBatchSize(int batchSize) {
+		this.batchSize = batchSize;
+	}
+
+	/**
+	 * @return the number of confirmed items read again before the cursor, to
+	 *         catch the items moved by a reorganization of the last blocks
+	 */
+	public int getOverlap() {
+		return overlap;
+	}
+
+	/**
+	 * @param overlap
+	 *            the overlap to set
+	 */
+	public void setOverlap(int overlap) {
+		this.overlap = overlap;
+	}
+
+	/**
+	 * @return the number of recent items remembered to never deliver one twice
+	 */
+	public int getDedupeWindow() {
+		return dedupeWindow;
+	}
+
+	/**
+	 * @param dedupeWindow
+	 *            the dedupeWindow to set
+	 */
+	public void setDedupeWindow(int dedupeWindow) {
+		this.dedupeWindow = dedupeWindow;
+	}
+
+	/**
+	 * @return the number of items delivered before the first
+	 *         {@link StreamFollower#request(long)}, Long.MAX_VALUE to never
+	 *         hold the items back
+	 */
+	public long getInitialDemand() {
+		return initialDemand;
+	}
+
+	/**
+	 * @param initialDemand
+	 *            the initialDemand to set
+	 */
+	public void setInitialDemand(long initialDemand) {
+		this.initialDemand = initialDemand;
+	}
+}
@@ -0,0 +1,470 @@
+/*
+ * Copyright (C) 2017 Worldline, Inc.
+ *
+ * MultiChainJavaAPI code distributed under the GPLv3 license, see COPYING file.
+ * https://github.com/SimplyUb/MultiChainJavaAPI/blob/master/LICENSE
+ *
+ */
+package multichain.command;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+import com.google.gson.Gson;
+
+import multichain.object.Stream;
+import multichain.object.StreamKeyItem;
+import multichain.object.formatters.GsonRegistry;
+
+/**
+ * Confirmed items of one stream kept in a local file, looked up by key, by
+ * publisher or by txid without calling the node.
+ *
+ * The file is a log of the items in the order of the stream, read and written
+ * through memory-mapped segments : item n of the index is item n of the
+ * stream. The lookup tables are rebuilt in memory when the file is opened.
+ *
+ * The pages of a mapped file reach the disk in any order, so each record is
+ * checked by a CRC-32 : a record cut by a crash ends the log when the file is
+ * opened again, and what follows it is cleared. Only the items written before
+ * the last {@link #force()} are sure to be kept.
+ *
+ * The index is filled by a {@link StreamFollower} it listens to, from its
+ * {@link #size()} :
+ *
+ * <pre>
+ * StreamIndex index = new StreamIndex(Paths.get("stream1.idx"), "stream1");
+ * index.resync(streamCommand, index.verify(streamCommand), 1000);
+ * StreamFollower follower = new StreamFollower(multiChainCommand.newBatch(), null, index);
+ * follower.follow("stream1", index.size());
+ * follower.start();
+ * </pre>
+ *
+ * Only the confirmed items are indexed ; the unconfirmed ones are added when
+ * the follower reports them confirmed.
+ *
+ * @author Ub - H. MARTEAU
+ * @version 4.15
+ */
+public class StreamIndex implements StreamFollower.Listener, Closeable {
+	/** marks the end of the items of a segment, the next ones are in the next segment */
+	private static final int NEXT_SEGMENT = -1;
+	/** length and CRC-32 of the record */
+	private static final int HEADER = 8;
+
+	private final Gson gson = GsonRegistry.get();
+	private final String streamName;
+	private final FileChannel channel;
+	private final int segmentSize;
+	private final List<MappedByteBuffer> segments = new ArrayList<MappedByteBuffer>();
+	private final Map<String, List<Integer>> byKey = new HashMap<String, List<Integer>>();
+	private final Map<String, List<Integer>> byPublisher = new HashMap<String, List<Integer>>();
+	private final Map<String, Integer> byId = new HashMap<String, Integer>();
+	private long[] offsets = new long[1024];
+	private int size = 0;
+	private long end = 0;
+
+	/**
+	 * {@link #StreamIndex(Path, String, int)} with segments of 16 MB
+	 *
+	 * @param file
+	 * @param streamName
+	 * @throws IOException
+	 */
+	public StreamIndex(Path file, String streamName) throws IOException {
+		this(file, streamName, 16 * 1024 * 1024);
+	}
+
+	/**
+	 * Opens or creates the index file.
+	 *
+	 * @param file
+	 * @param streamName
+	 * @param segmentSize
+	 *            size of the memory-mapped segments, larger than any item
+	 * @throws IOException
+	 */
+	public StreamIndex(Path file, String streamName, int segmentSize) throws IOException {
+		this.streamName = streamName;
+		this.segmentSize = segmentSize;
+		this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+				StandardOpenOption.WRITE);
+		load();
+	}
+
+	/**
+	 * @return the name of the stream indexed
+	 */
+	public String getStreamName() {
+		return streamName;
+	}
+
+	/**
+	 * @return the number of items indexed, which is also the position in the
+	 *         stream of the next item
+	 */
+	public synchronized int size() {
+		return size;
+	}
+
+	/**
+	 * @param position
+	 * @return the item at this position of the stream
+	 */
+	public synchronized StreamKeyItem get(int position) {
+		if (position < 0 || position >= size) {
+			throw new IndexOutOfBoundsException("position " + position + " of " + size);
+		}
+		return read(offsets[position]);
+	}
+
+	/**
+	 * @param txid
+	 * @param vout
+	 * @return the item published by this output, null if not indexed
+	 */
+	public synchronized StreamKeyItem getItem(String txid, long vout) {
+		Integer position = byId.get(txid + ":" + vout);
+		return position != null ? read(offsets[position]) : null;
+	}
+
+	/**
+	 * Local {@link StreamCommand#listStreamKeyItems(String, String)}.
+	 *
+	 * @param key
+	 * @return the items of the key, in the order of the stream
+	 */
+	public synchronized List<StreamKeyItem> getKeyItems(String key) {
+		return readAll(byKey.get(key));
+	}
+
+	/**
+	 * Local {@link StreamCommand#getLatestStreamKeyItem(String, String, boolean)}.
+	 *
+	 * @param key
+	 * @return the last item of the key, null if none
+	 */
+	public synchronized StreamKeyItem getLatestKeyItem(String key) {
+		List<Integer> positions = byKey.get(key);
+		return positions != null ? read(offsets[positions.get(positions.size() - 1)]) : null;
+	}
+
+	/**
+	 * @param publisher
+	 * @return the items of the publisher, in the order of the stream
+	 */
+	public synchronized List<StreamKeyItem> getPublisherItems(String publisher) {
+		return readAll(byPublisher.get(publisher));
+	}
+
+	/**
+	 * Adds the next confirmed item of the stream.
+	 *
+	 * @param item
+	 * @return false if the item was already indexed
+	 * @throws IOException
+	 */
+	public synchronized boolean add(StreamKeyItem item) throws IOException {
+		String id = item.getTxid() + ":" + item.getVout();
+		if (byId.containsKey(id)) {
+			return false;
+		}
+		byte[] record = gson.toJson(item).getBytes(StandardCharsets.UTF_8);
+		if (HEADER + record.length + 4 > segmentSize) {
+			throw new IOException("item " + id + " larger than the segments");
+		}
+		// the file is cleared after the end : the next record, or the next
+		// segment, starts with a length of 0
+		int inSegment = (int) (end % segmentSize);
+		if (inSegment + HEADER + record.length + 4 > segmentSize) {
+			segment(end).putInt(inSegment, NEXT_SEGMENT);
+			end += segmentSize - inSegment;
+			inSegment = 0;
+		}
+		MappedByteBuffer segment = segment(end);
+		for (int i = 0; i < record.length; i++) {
+			segment.put(inSegment + HEADER + i, record[i]);
+		}
+		segment.putInt(inSegment + 4, crc(record));
+		segment.putInt(inSegment, record.length);
+		register(item, end);
+		end += HEADER + record.length;
+		return true;
+	}
+
+	/**
+	 * Removes the items from a position of the stream to the end, before
+	 * indexing them again.
+	 *
+	 * @param position
+	 * @throws IOException
+	 */
+	public synchronized void truncate(int position) throws IOException {
+		if (position >= size) {
+			return;
+		}
+		long offset = offsets[Math.max(0, position)];
+		segment(offset).putInt((int) (offset % segmentSize), 0);
+		load();
+		force();
+	}
+
+	/**
+	 * Compares the index with the node : the items of a stream only change
+	 * from the last blocks, so the first item which differs is found by
+	 * dichotomy.
+	 *
+	 * @param streamCommand
+	 * @return the number of items of the index which are the ones of the node
+	 * @throws MultichainException
+	 */
+	public synchronized int verify(StreamCommand streamCommand) throws MultichainException {
+		List<Stream> streams = streamCommand.listStreams(streamName, true, 1);
+		if (streams == null || streams.isEmpty()) {
+			throw new MultichainException("Stream", "unknown stream " + streamName);
+		}
+		int limit = Math.min(size, streams.get(0).getConfirmed());
+		if (limit == 0 || matches(streamCommand, limit - 1)) {
+			return limit;
+		}
+		int low = 0;
+		int high = limit - 1;
+		while (low < high) {
+			int middle = (low + high) >>> 1;
+			if (matches(streamCommand, middle)) {
+				low = middle + 1;
+			} else {
+				high = middle;
+			}
+		}
+		return low;
+	}
+
+	/**
+	 * Indexes again the confirmed items of the node from a position.
+	 *
+	 * @param streamCommand
+	 * @param position
+	 *            first item read again, usually the result of
+	 *            {@link #verify(StreamCommand)}
+	 * @param pageSize
+	 *            count of each liststreamitems call
+	 * @return the number of items indexed
+	 * @throws MultichainException
+	 * @throws IOException
+	 */
+	public synchronized int resync(StreamCommand streamCommand, int position, int pageSize)
+			throws MultichainException, IOException {
+		truncate(position);
+		int added = 0;
+		while (true) {
+			List<StreamKeyItem> items = streamCommand.listStreamItems(streamName, true, pageSize, size);
+			for (StreamKeyItem item : items) {
+				if (item.getConfirmations() <= 0) {
+					force();
+					return added;
+				}
+				if (add(item)) {
+					added++;
+				}
+			}
+			if (items.size() < pageSize) {
+				force();
+				return added;
+			}
+		}
+	}
+
+	/**
+	 * Indexes the item if it is confirmed.
+	 */
+	@Override
+	public void itemReceived(String streamName, StreamKeyItem item) {
+		if (this.streamName.equals(streamName) && item.getConfirmations() > 0) {
+			addUnchecked(item);
+		}
+	}
+
+	/**
+	 * Indexes the item.
+	 */
+	@Override
+	public void itemConfirmed(String streamName, StreamKeyItem item) {
+		if (this.streamName.equals(streamName)) {
+			addUnchecked(item);
+		}
+	}
+
+	/**
+	 * Writes the segments to the disk.
+	 *
+	 * @throws IOException
+	 */
+	public synchronized void force() throws IOException {
+		for (MappedByteBuffer segment : segments) {
+			segment.force();
+		}
+	}
+
+	@Override
+	public synchronized void close() throws IOException {
+		force();
+		segments.clear();
+		channel.close();
+	}
+
+	private void addUnchecked(StreamKeyItem item) {
+		try {
+			add(item);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	private boolean matches(StreamCommand streamCommand, int position) throws MultichainException {
+		List<StreamKeyItem> items = streamCommand.listStreamItems(streamName, false, 1, position);
+		if (items.isEmpty()) {
+			return false;
+		}
+		StreamKeyItem local = read(offsets[position]);
+		return local.getTxid().equals(items.get(0).getTxid()) && local.getVout() == items.get(0).getVout();
+	}
+
+	/**
+	 * Reads the items of the file up to the first record missing or cut, and
+	 * rebuilds the lookup tables. The rest of the file is cleared : a record
+	 * written there before a crash, or before a truncation, is not read back
+	 * after the next ones.
+	 */
+	private void load() throws IOException {
+		byKey.clear();
+		byPublisher.clear();
+		byId.clear();
+		size = 0;
+		end = 0;
+		long fileSize = channel.size();
+		while (end + 4 <= fileSize) {
+			MappedByteBuffer segment = segment(end);
+			int inSegment = (int) (end % segmentSize);
+			int length = inSegment + 4 <= segmentSize ? segment.getInt(inSegment) : NEXT_SEGMENT;
+			if (length == NEXT_SEGMENT) {
+				end += segmentSize - inSegment;
+				continue;
+			}
+			if (length <= 0 || inSegment + HEADER + length > segmentSize
+					|| segment.getInt(inSegment + 4) != crc(body(segment, inSegment, length))) {
+				break;
+			}
+			register(read(end), end);
+			end += HEADER + length;
+		}
+		if (clear(end, fileSize)) {
+			force();
+		}
+	}
+
+	/**
+	 * @return true if some bytes were not 0
+	 */
+	private boolean clear(long from, long to) throws IOException {
+		boolean cleared = false;
+		long offset = from;
+		while (offset < to) {
+			MappedByteBuffer segment = segment(offset);
+			int inSegment = (int) (offset % segmentSize);
+			int last = (int) Math.min(segmentSize, inSegment + (to - offset));
+			for (int i = inSegment; i < last; i++) {
+				if (segment.get(i) != 0) {
+					segment.put(i, (byte) 0);
+					cleared = true;
+				}
+			}
+			offset += last - inSegment;
+		}
+		return cleared;
+	}
+
+	private static int crc(byte[] record) {
+		CRC32 crc = new CRC32();
+		crc.update(record, 0, record.length);
+		return (int) crc.getValue();
+	}
+
+	private static byte[] body(MappedByteBuffer segment, int inSegment, int length) {
+		byte[] record = new byte[length];
+		for (int i = 0; i < record.length; i++) {
+			record[i] = segment.get(inSegment + HEADER + i);
+		}
+		return record;
+	}
+
+	private void register(StreamKeyItem item, long offset) {
+		if (size == offsets.length) {
+			offsets = Arrays.copyOf(offsets, size * 2);
+		}
+		offsets[size] = offset;
+		byId.put(item.getTxid() + ":" + item.getVout(), size);
+		positions(byKey, item.getKey()).add(size);
+		if (item.getPublishers() != null) {
+			for (String publisher : item.getPublishers()) {
+				positions(byPublisher, publisher).add(size);
+			}
+		}
+		size++;
+	}
+
+	private static List<Integer> positions(Map<String, List<Integer>> table, String value) {
+		List<Integer> positions = table.get(value);
+		if (positions == null) {
+			positions = new ArrayList<Integer>();
+			table.put(value, positions);
+		}
+		return positions;
+	}
+
+	private StreamKeyItem read(long offset) {
+		MappedByteBuffer segment;
+		try {
+			segment = segment(offset);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		int inSegment = (int) (offset % segmentSize);
+		byte[] record = body(segment, inSegment, segment.getInt(inSegment));
+		return gson.fromJson(new String(record, StandardCharsets.UTF_8), StreamKeyItem.class);
+	}
+
+	private List<StreamKeyItem> readAll(List<Integer> positions) {
+		List<StreamKeyItem> items = new ArrayList<StreamKeyItem>();
+		if (positions != null) {
+			for (int position : positions) {
+				items.add(read(offsets[position]));
+			}
+		}
+		return items;
+	}
+
+	/**
+	 * @return the segment holding this offset, mapped and the file grown if
+	 *         needed
+	 */
+	private MappedByteBuffer segment(long offset) throws IOException {
+		int index = (int) (offset / segmentSize);
+		while (segments.size() <= index) {
+			segments.add(channel.map(FileChannel.MapMode.READ_WRITE, (long) segments.size() * segmentSize, segmentSize));
+		}
+		return segments.get(index);
+	}
+}
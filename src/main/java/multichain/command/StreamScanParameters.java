@@ -0,0 +1,99 @@
+/*
+ * Copyright (C) 2017 Worldline, Inc.
+ *
+ * MultiChainJavaAPI code distributed under the GPLv3 license, see COPYING file.
+ * https://github.com/SimplyUb/MultiChainJavaAPI/blob/master/LICENSE
+ *
+ */
+package multichain.command;
+
+/**
+ * Range and parallelism settings used by {@link StreamScanner}.
+ *
+ * @author Ub - H. MARTEAU
+ * @version 4.15
+ */
+public class StreamScanParameters {
+	int pageSize = 5000;
+	int parallelism = 8;
+	int maxRetries = 3;
+	long retryDelayMillis = 100;
+
+	/**
+	 * Default settings
+	 */
+	public StreamScanParameters() {
+		super();
+	}
+
+	/**
+	 * @param pageSize
+	 * @param parallelism
+	 */
+	public StreamScanParameters(int pageSize, int parallelism) {
+		super();
+		this.pageSize = pageSize;
+		this.parallelism = parallelism;
+	}
+
+	/**
+	 * @return the number of items of a liststreamitems call, and the smallest
+	 *         range split
+	 */
+	public int getPageSize() {
+		return pageSize;
+	}
+
+	/**
+	 * @param pageSize
+	 *            the pageSize to set
+	 */
+	public void setPageSize(int pageSize) {
+		this.pageSize = pageSize;
+	}
+
+	/**
+	 * @return the number of liststreamitems calls of a scan in flight at once
+	 */
+	public int getParallelism() {
+		return parallelism;
+	}
+
+	/**
+	 * @param parallelism
+	 *            the parallelism to set
+	 */
+	public void setParallelism(int parallelism) {
+		this.parallelism = parallelism;
+	}
+
+	/**
+	 * @return how many times a failed call is sent again
+	 */
+	public int getMaxRetries() {
+		return maxRetries;
+	}
+
+	/**
+	 * @param maxRetries
+	 *            the maxRetries to set
+	 */
+	public void setMaxRetries(int maxRetries) {
+		this.maxRetries = maxRetries;
+	}
+
+	/**
+	 * @return the wait before the first retry, doubled at each retry
+	 */
+	public long getRetryDelayMillis() {
+		return retryDelayMillis;
+	}
+
+	/**
+	 * @param retryDelayMillis
+	 *            the retryDelayMillis to set
+	 */
+	public void setRetryDelayMillis(long retryDelayMillis) {
+		this.retryDelayMillis = retryDelayMillis;
+	}
+}
@@ -0,0 +1,261 @@
+/*
+ * Copyright (C) 2017 Worldline, Inc.
+ *
+ * MultiChainJavaAPI code distributed under the GPLv3 license, see COPYING file.
+ * https://github.com/SimplyUb/MultiChainJavaAPI/blob/master/LICENSE
+ *
+ */
+package multichain.command;
+
+import java.util.List;
+import java.util.Spliterator;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import multichain.object.StreamKeyItem;
+
+/**
+ * Reads all the items of a stream with concurrent liststreamitems calls.
+ *
+ * The number of items is read first from liststreams. The range of the start
+ * offsets is then split in ranges of whole pages by a {@link Spliterator},
+ * which a parallel stream hands over to its fork-join threads : each thread
+ * reads its own range, page by page. The calls in flight are bounded by the
+ * parallelism of the parameters, whatever the number of threads.
+ *
+ * <pre>
+ * StreamScanner.Scan scan = new StreamScanner(multiChainCommand.getStreamCommand(), null).scan("stream1", true);
+ * Map&lt;String, Long&gt; countByKey = scan.stream(true)
+ * 		.collect(Collectors.groupingBy(StreamKeyItem::getKey, Collectors.counting()));
+ * </pre>
+ *
+ * The items published after the count was read are not part of the scan. The
+ * {@link CallOptions} active when the scan is prepared apply to all its calls.
+ *
+ * @author Ub - H. MARTEAU
+ * @version 4.15
+ */
+public class StreamScanner {
+	private final StreamCommand streamCommand;
+	private final StreamScanParameters scanParameters;
+
+	/**
+	 * @param streamCommand
+	 * @param scanParameters
+	 *            default ones if null
+	 */
+	public StreamScanner(StreamCommand streamCommand, StreamScanParameters scanParameters) {
+		if (scanParameters == null) {
+			scanParameters = new StreamScanParameters();
+		}
+		this.streamCommand = streamCommand;
+		this.scanParameters = scanParameters;
+	}
+
+	/**
+	 * Reads the number of items of the stream, and prepares its scan.
+	 *
+	 * @param streamName
+	 * @param verbose
+	 * @return the scan, not started
+	 * @throws MultichainException
+	 *             if the stream is unknown
+	 */
+	public Scan scan(String streamName, boolean verbose) throws MultichainException {
+		List<multichain.object.Stream> streams = streamCommand.listStreams(streamName, true, 1);
+		if (streams == null || streams.isEmpty()) {
+			throw new MultichainException("Stream", "unknown stream " + streamName);
+		}
+		return new Scan(streamName, verbose, streams.get(0).getItems());
+	}
+
+	/**
+	 * Scan of one stream, with its statistics.
+	 */
+	public class Scan {
+		private final String streamName;
+		private final boolean verbose;
+		private final long total;
+		private final Semaphore calls = new Semaphore(scanParameters.getParallelism());
+		private final AtomicLong itemsRead = new AtomicLong();
+		private final AtomicLong pagesRead = new AtomicLong();
+		private final AtomicLong retries = new AtomicLong();
+		private final CallOptions options = CallOptions.current();
+		private volatile long startNanos = 0;
+
+		Scan(String streamName, boolean verbose, long total) {
+			this.streamName = streamName;
+			this.verbose = verbose;
+			this.total = total;
+		}
+
+		/**
+		 * @return all the items, splittable in ranges of pages
+		 */
+		public Spliterator<StreamKeyItem> spliterator() {
+			return new RangeSpliterator(0, total);
+		}
+
+		/**
+		 * @param parallel
+		 *            true for a parallel stream, read by the fork-join threads
+		 * @return all the items
+		 * @throws UncheckedMultichainException
+		 *             when consumed, if a call still fails after the retries
+		 */
+		public Stream<StreamKeyItem> stream(boolean parallel) {
+			return StreamSupport.stream(spliterator(), parallel);
+		}
+
+		/**
+		 * @return the number of items of the stream when the scan was prepared
+		 */
+		public long getTotal() {
+			return total;
+		}
+
+		/**
+		 * @return the number of items read so far
+		 */
+		public long getItemsRead() {
+			return itemsRead.get();
+		}
+
+		/**
+		 * @return the number of liststreamitems calls answered
+		 */
+		public long getPagesRead() {
+			return pagesRead.get();
+		}
+
+		/**
+		 * @return the number of failed calls sent again
+		 */
+		public long getRetries() {
+			return retries.get();
+		}
+
+		/**
+		 * @return the part of the items read, between 0 and 1
+		 */
+		public double getProgress() {
+			return total > 0 ? (double) itemsRead.get() / total : 1;
+		}
+
+		/**
+		 * @return the number of items read per second since the first call
+		 */
+		public double getItemsPerSecond() {
+			long start = startNanos;
+			if (start == 0) {
+				return 0;
+			}
+			long elapsed = System.nanoTime() - start;
+			return elapsed > 0 ? itemsRead.get() * (double) TimeUnit.SECONDS.toNanos(1) / elapsed : 0;
+		}
+
+		private List<StreamKeyItem> fetch(long start, int count) {
+			if (startNanos == 0) {
+				startNanos = System.nanoTime();
+			}
+			long delay = scanParameters.getRetryDelayMillis();
+			for (int attempt = 0;; attempt++) {
+				try {
+					calls.acquire();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					throw new UncheckedMultichainException(new MultichainException("Interrupted", e.toString()));
+				}
+				try {
+					List<StreamKeyItem> items = listStreamItems(start, count);
+					pagesRead.incrementAndGet();
+					itemsRead.addAndGet(items.size());
+					return items;
+				} catch (MultichainException e) {
+					if (attempt >= scanParameters.getMaxRetries()) {
+						throw new UncheckedMultichainException(e);
+					}
+				} finally {
+					calls.release();
+				}
+				retries.incrementAndGet();
+				try {
+					Thread.sleep(delay);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					throw new UncheckedMultichainException(new MultichainException("Interrupted", e.toString()));
+				}
+				delay *= 2;
+			}
+		}
+
+		private List<StreamKeyItem> listStreamItems(long start, int count) throws MultichainException {
+			if (options == null) {
+				return streamCommand.listStreamItems(streamName, verbose, count, (int) start);
+			}
+			try (CallOptions.Scope scope = options.activate()) {
+				return streamCommand.listStreamItems(streamName, verbose, count, (int) start);
+			}
+		}
+
+		/**
+		 * Items from one start offset to another, excluded, read one page at a
+		 * time. Splits at page boundaries, in the part not read yet.
+		 */
+		private class RangeSpliterator implements Spliterator<StreamKeyItem> {
+			private long next;
+			private long to;
+			private List<StreamKeyItem> page = null;
+			private int pageIndex = 0;
+
+			RangeSpliterator(long from, long to) {
+				this.next = from;
+				this.to = to;
+			}
+
+			@Override
+			public boolean tryAdvance(Consumer<? super StreamKeyItem> action) {
+				while (page == null || pageIndex >= page.size()) {
+					if (next >= to) {
+						return false;
+					}
+					int count = (int) Math.min(scanParameters.getPageSize(), to - next);
+					page = fetch(next, count);
+					pageIndex = 0;
+					// fewer items than counted : the end of the range is skipped
+					next = page.size() < count ? to : next + count;
+				}
+				action.accept(page.get(pageIndex++));
+				return true;
+			}
+
+			@Override
+			public Spliterator<StreamKeyItem> trySplit() {
+				int pageSize = scanParameters.getPageSize();
+				boolean buffered = page != null && pageIndex < page.size();
+				long pages = (to - next) / pageSize;
+				if (buffered || pages < 2) {
+					return null;
+				}
+				long middle = next + (pages / 2) * pageSize;
+				RangeSpliterator prefix = new RangeSpliterator(next, middle);
+				next = middle;
+				return prefix;
+			}
+
+			@Override
+			public long estimateSize() {
+				return (to - next) + (page != null ? page.size() - pageIndex : 0);
+			}
+
+			@Override
+			public int characteristics() {
+				return ORDERED | NONNULL | IMMUTABLE;
+			}
+		}
+	}
+}
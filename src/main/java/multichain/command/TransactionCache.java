@@ -0,0 +1,472 @@
+/*
+ * Copyright (C) 2017 Worldline, Inc.
+ *
+ * MultiChainJavaAPI code distributed under the GPLv3 license, see COPYING file.
+ * https://github.com/SimplyUb/MultiChainJavaAPI/blob/master/LICENSE
+ *
+ */
+package multichain.command;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.regex.Pattern;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+
+import multichain.object.Block;
+import multichain.object.Transaction;
+import multichain.object.TransactionRAW;
+import multichain.object.TransactionWalletDetailed;
+import multichain.object.formatters.GsonRegistry;
+
+/**
+ * Cache of the transactions read by {@link RAWTransactionCommand} and
+ * {@link WalletTransactionCommand}, keyed by command and txid.
+ *
+ * A transaction with the given number of confirmations does not change : it
+ * stays in memory until the estimated weight of the cached transactions
+ * exceeds the maximum, the least recently read being evicted first. Evicted
+ * transactions are written to the spill directory when there is one, and read
+ * back from it on the next miss; the oldest files are deleted beyond the
+ * maximum spill size. The files are kept across restarts.
+ *
+ * Unconfirmed transactions are answered from a separate tier for a short time
+ * only, and move to the confirmed tier once read again with enough
+ * confirmations. getrawtransaction has no confirmations : its transactions are
+ * immutable and always in the confirmed tier.
+ *
+ * The cached transactions are shared between the callers and keep the
+ * confirmations, blockhash and blocktime they were read with : they must not
+ * be modified. The confirmations of a cached transaction are those of its
+ * first read ; the depth of its block is given by the tip of the chain. Given
+ * to a {@link ChainFollower} as its listener, the cache drops the transactions
+ * of the blocks leaving the chain.
+ *
+ * @author Ub - H. MARTEAU
+ * @version 4.15
+ */
+public class TransactionCache implements ChainFollower.Listener {
+	private static final Logger LOGGER = Logger.getLogger(TransactionCache.class.getName());
+	/** key, entry and object headers */
+	private static final long ENTRY_WEIGHT = 160;
+	private static final Pattern TXID = Pattern.compile("[0-9a-fA-F]{1,128}");
+	private static final String SPILL_SUFFIX = ".json";
+
+	/**
+	 * Commands answered by the cache.
+	 */
+	public enum Kind {
+		/** getrawtransaction with verbose 1 */
+		RAW_TRANSACTION("getrawtransaction", TransactionRAW.class, false),
+		/** gettransaction without watch-only addresses */
+		TRANSACTION("gettransaction", Transaction.class, true),
+		/** verbose getwallettransaction without watch-only addresses */
+		WALLET_TRANSACTION("getwallettransaction", TransactionWalletDetailed.class, true);
+
+		private final String method;
+		private final Class<?> type;
+		private final boolean confirmable;
+
+		private Kind(String method, Class<?> type, boolean confirmable) {
+			this.method = method;
+			this.type = type;
+			this.confirmable = confirmable;
+		}
+
+		/**
+		 * @return the name of the command
+		 */
+		public String getMethod() {
+			return method;
+		}
+	}
+
+	private final Gson gson = GsonRegistry.get();
+	private final TransactionCacheParameters parameters;
+	private final LinkedHashMap<String, Entry> confirmed = new LinkedHashMap<String, Entry>(256, 0.75f, true);
+	/**
+	 * in the order they were read, which is also the order they expire, the
+	 * expired ones are dropped when another one is added
+	 */
+	private final LinkedHashMap<String, Entry> unconfirmed = new LinkedHashMap<String, Entry>();
+	/** size of the spilled files, by key, the least recently read first */
+	private final LinkedHashMap<String, Long> spilled = new LinkedHashMap<String, Long>(256, 0.75f, true);
+	private long weight = 0;
+	private long unconfirmedWeight = 0;
+	private long spillBytes = 0;
+	private final long[] hits = new long[Kind.values().length];
+	private final long[] misses = new long[Kind.values().length];
+	private final long[] spillHits = new long[Kind.values().length];
+	private long promotions = 0;
+	private long evictions = 0;
+
+	/**
+	 * Cache in memory only, with the default settings.
+	 *
+	 * @param maxWeight
+	 *            estimated size in bytes of the confirmed transactions
+	 */
+	public TransactionCache(long maxWeight) {
+		this.parameters = new TransactionCacheParameters(maxWeight, null);
+	}
+
+	/**
+	 * @param parameters
+	 * @throws IOException
+	 *             if the spill directory cannot be created or listed
+	 */
+	public TransactionCache(TransactionCacheParameters parameters) throws IOException {
+		this.parameters = parameters;
+		Path directory = parameters.spillDirectory;
+		if (directory != null) {
+			Files.createDirectories(directory);
+			try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*" + SPILL_SUFFIX)) {
+				for (Path file : files) {
+					String name = file.getFileName().toString();
+					long size = Files.size(file);
+					spilled.put(name.substring(0, name.length() - SPILL_SUFFIX.length()), size);
+					spillBytes += size;
+				}
+			}
+		}
+	}
+
+	/**
+	 * @param kind
+	 * @param txid
+	 * @return the cached transaction, null if not cached
+	 */
+	public Object get(Kind kind, String txid) {
+		String key = key(kind, txid);
+		long now = System.currentTimeMillis();
+		synchronized (this) {
+			Entry entry = confirmed.get(key);
+			if (entry == null) {
+				entry = unconfirmed.get(key);
+				if (entry != null && entry.expiry <= now) {
+					// kept until read again, to count its promotion
+					entry = null;
+				}
+			}
+			if (entry != null) {
+				hits[kind.ordinal()]++;
+				return entry.value;
+			}
+			if (!spilled.containsKey(key)) {
+				misses[kind.ordinal()]++;
+				return null;
+			}
+		}
+
+		// read outside of the lock, the file may be deleted meanwhile
+		Object value = null;
+		long weight = 0;
+		try {
+			String json = new String(Files.readAllBytes(spillFile(key)), StandardCharsets.UTF_8);
+			value = gson.fromJson(json, kind.type);
+			weight = ENTRY_WEIGHT + 2L * json.length();
+		} catch (Exception e) {
+			LOGGER.log(Level.FINE, "Spilled transaction " + key + " not read", e);
+		}
+		List<Entry> evicted;
+		synchronized (this) {
+			if (value == null) {
+				Long size = spilled.remove(key);
+				if (size != null) {
+					spillBytes -= size;
+				}
+				misses[kind.ordinal()]++;
+				return null;
+			}
+			hits[kind.ordinal()]++;
+			spillHits[kind.ordinal()]++;
+			// the file is now the most recently read
+			spilled.get(key);
+			evicted = store(key, new Entry(value, weight, 0));
+		}
+		spill(evicted);
+		return value;
+	}
+
+	/**
+	 * Caches a transaction read from the node.
+	 *
+	 * @param kind
+	 * @param txid
+	 * @param value
+	 */
+	public void put(Kind kind, String txid, Object value) {
+		if (value == null || txid == null || !TXID.matcher(txid).matches()) {
+			return;
+		}
+		JsonElement tree = gson.toJsonTree(value);
+		long weight = ENTRY_WEIGHT + 2L * tree.toString().length();
+		boolean isConfirmed = !kind.confirmable || confirmations(tree) >= parameters.minConfirmations;
+		String key = key(kind, txid);
+		List<Entry> evicted = Collections.emptyList();
+		synchronized (this) {
+			Entry previous = unconfirmed.remove(key);
+			if (previous != null) {
+				unconfirmedWeight -= previous.weight;
+				if (isConfirmed) {
+					promotions++;
+				}
+			}
+			if (isConfirmed) {
+				evicted = store(key, new Entry(value, weight, 0));
+			} else {
+				long now = System.currentTimeMillis();
+				unconfirmed.put(key, new Entry(value, weight, now + parameters.unconfirmedTtlMillis));
+				unconfirmedWeight += weight;
+				Iterator<Entry> eldest = unconfirmed.values().iterator();
+				while (eldest.hasNext()) {
+					Entry next = eldest.next();
+					if (unconfirmedWeight <= parameters.maxUnconfirmedWeight && next.expiry > now) {
+						break;
+					}
+					unconfirmedWeight -= next.weight;
+					eldest.remove();
+				}
+			}
+		}
+		spill(evicted);
+	}
+
+	/**
+	 * Drops a transaction from every tier, e.g. after a reorganization.
+	 *
+	 * @param txid
+	 */
+	public void invalidate(String txid) {
+		List<Path> files = new ArrayList<Path>();
+		synchronized (this) {
+			for (Kind kind : Kind.values()) {
+				String key = key(kind, txid);
+				Entry entry = confirmed.remove(key);
+				if (entry != null) {
+					weight -= entry.weight;
+				}
+				entry = unconfirmed.remove(key);
+				if (entry != null) {
+					unconfirmedWeight -= entry.weight;
+				}
+				Long size = spilled.remove(key);
+				if (size != null) {
+					spillBytes -= size;
+					files.add(spillFile(key));
+				}
+			}
+		}
+		delete(files);
+	}
+
+	@Override
+	public void blockConnected(Block block) {
+		// the new confirmations are not applied to the cached transactions
+	}
+
+	/**
+	 * Drops the transactions of the block, back in the memory pool or in
+	 * another block.
+	 */
+	@Override
+	public void blockDisconnected(Block block) {
+		if (block.getTx() == null) {
+			return;
+		}
+		for (String txid : block.getTx()) {
+			invalidate(txid);
+		}
+	}
+
+	/**
+	 * Drops every cached transaction, in memory and on disk.
+	 */
+	public void clear() {
+		List<Path> files = new ArrayList<Path>();
+		synchronized (this) {
+			confirmed.clear();
+			unconfirmed.clear();
+			for (String key : spilled.keySet()) {
+				files.add(spillFile(key));
+			}
+			spilled.clear();
+			weight = 0;
+			unconfirmedWeight = 0;
+			spillBytes = 0;
+		}
+		delete(files);
+	}
+
+	/**
+	 * @param kind
+	 * @return the number of reads of this command answered by the cache
+	 */
+	public synchronized long getHits(Kind kind) {
+		return hits[kind.ordinal()];
+	}
+
+	/**
+	 * @param kind
+	 * @return the number of reads of this command not answered by the cache
+	 */
+	public synchronized long getMisses(Kind kind) {
+		return misses[kind.ordinal()];
+	}
+
+	/**
+	 * @param kind
+	 * @return the part of the hits of this command answered from the spill
+	 *         directory
+	 */
+	public synchronized long getSpillHits(Kind kind) {
+		return spillHits[kind.ordinal()];
+	}
+
+	/**
+	 * @param kind
+	 * @return the part of the reads of this command answered by the cache, 0
+	 *         before the first read
+	 */
+	public synchronized double getHitRatio(Kind kind) {
+		long reads = hits[kind.ordinal()] + misses[kind.ordinal()];
+		return reads > 0 ? (double) hits[kind.ordinal()] / reads : 0;
+	}
+
+	/**
+	 * @return the number of unconfirmed transactions read again once
+	 *         confirmed
+	 */
+	public synchronized long getPromotions() {
+		return promotions;
+	}
+
+	/**
+	 * @return the number of confirmed transactions evicted from memory
+	 */
+	public synchronized long getEvictions() {
+		return evictions;
+	}
+
+	/**
+	 * @return the number of transactions in memory
+	 */
+	public synchronized int size() {
+		return confirmed.size() + unconfirmed.size();
+	}
+
+	/**
+	 * @return the estimated size in bytes of the transactions in memory
+	 */
+	public synchronized long getWeight() {
+		return weight + unconfirmedWeight;
+	}
+
+	/**
+	 * @return the size of the files in the spill directory
+	 */
+	public synchronized long getSpillBytes() {
+		return spillBytes;
+	}
+
+	/**
+	 * Adds a confirmed entry, under the lock.
+	 *
+	 * @return the entries evicted, to spill
+	 */
+	private List<Entry> store(String key, Entry entry) {
+		Entry previous = confirmed.put(key, entry);
+		weight += entry.weight - (previous != null ? previous.weight : 0);
+		entry.key = key;
+		List<Entry> evicted = new ArrayList<Entry>();
+		Iterator<Entry> eldest = confirmed.values().iterator();
+		while (weight > parameters.maxWeight && eldest.hasNext()) {
+			Entry next = eldest.next();
+			eldest.remove();
+			weight -= next.weight;
+			evictions++;
+			if (parameters.spillDirectory != null && !spilled.containsKey(next.key)) {
+				evicted.add(next);
+			}
+		}
+		return evicted;
+	}
+
+	private void spill(List<Entry> evicted) {
+		for (Entry entry : evicted) {
+			Path file = spillFile(entry.key);
+			byte[] json = gson.toJson(entry.value).getBytes(StandardCharsets.UTF_8);
+			try {
+				Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+				Files.write(temporary, json);
+				Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			} catch (IOException e) {
+				LOGGER.log(Level.WARNING, "Transaction " + entry.key + " not spilled", e);
+				continue;
+			}
+			List<Path> files = new ArrayList<Path>();
+			synchronized (this) {
+				Long previous = spilled.put(entry.key, (long) json.length);
+				spillBytes += json.length - (previous != null ? previous : 0);
+				Iterator<Map.Entry<String, Long>> eldest = spilled.entrySet().iterator();
+				while (spillBytes > parameters.maxSpillBytes && eldest.hasNext()) {
+					Map.Entry<String, Long> next = eldest.next();
+					eldest.remove();
+					spillBytes -= next.getValue();
+					files.add(spillFile(next.getKey()));
+				}
+			}
+			delete(files);
+		}
+	}
+
+	private static void delete(List<Path> files) {
+		for (Path file : files) {
+			try {
+				Files.deleteIfExists(file);
+			} catch (IOException e) {
+				LOGGER.log(Level.WARNING, "Spilled transaction " + file + " not deleted", e);
+			}
+		}
+	}
+
+	private Path spillFile(String key) {
+		return parameters.spillDirectory.resolve(key + SPILL_SUFFIX);
+	}
+
+	private static String key(Kind kind, String txid) {
+		return kind.method + "-" + txid;
+	}
+
+	private static long confirmations(JsonElement tree) {
+		JsonElement confirmations = tree.isJsonObject() ? tree.getAsJsonObject().get("confirmations") : null;
+		return confirmations != null && confirmations.isJsonPrimitive() ? confirmations.getAsLong() : 0;
+	}
+
+	private static class Entry {
+		final Object value;
+		final long weight;
+		/** end of validity of an unconfirmed transaction */
+		final long expiry;
+		String key;
+
+		Entry(Object value, long weight, long expiry) {
+			this.value = value;
+			this.weight = weight;
+			this.expiry = expiry;
+		}
+	}
+}
@@ -0,0 +1,145 @@
+/*
+ * Copyright (C) 2017 Worldline, Inc.
+ *
+ * MultiChainJavaAPI code distributed under the GPLv3 license, see COPYING file.
+ * https://github.com/SimplyUb/MultiChainJavaAPI/blob/master/LICENSE
+ *
+ */
+package multichain.command;
+
+import java.nio.file.Path;
+
+/**
+ * Sizes and delays of the tiers of a {@link TransactionCache}.
+ *
+ * @author Ub - H. MARTEAU
+ * @version 4.15
+ */
+public class TransactionCacheParameters {
+	long maxWeight = 64L * 1024 * 1024;
+	long minConfirmations = 6;
+	long maxUnconfirmedWeight = 4L * 1024 * 1024;
+	long unconfirmedTtlMillis = 2000;
+	Path spillDirectory = null;
+	long maxSpillBytes = 1024L * 1024 * 1024;
+
+	/**
+	 * Default settings, without spill to disk
+	 */
+	public TransactionCacheParameters() {
+		super();
+	}
+
+	/**
+	 * @param maxWeight
+	 * @param spillDirectory
+	 */
+	public TransactionCacheParameters(long maxWeight, Path spillDirectory) {
+		super();
+		this.maxWeight = maxWeight;
+		this.spillDirectory = spillDirectory;
+	}
+
+	/**
+	 * @return the estimated size in bytes of the confirmed transactions kept
+	 *         in memory
+	 */
+	public long getMaxWeight() {
+		return maxWeight;
+	}
+
+	/**
+	 * @param maxWeight
+	 *            the maxWeight to set
+	 */
+	public void setMaxWeight(long maxWeight) {
+		this.maxWeight = maxWeight;
+	}
+
+	/**
+	 * @return the confirmations needed for a transaction to be kept until
+	 *         evicted, 6 by default
+	 */
+	public long getMinConfirmations() {
+		return minConfirmations;
+	}
+
+	/**
+	 * A transaction is kept with the confirmations, blockhash and blocktime
+	 * it was read with : below a safe depth its block may still leave the
+	 * chain, unless the cache follows the disconnected blocks as a
+	 * {@link ChainFollower.Listener}.
+	 *
+	 * @param minConfirmations
+	 *            the minConfirmations to set
+	 */
+	public void setMinConfirmations(long minConfirmations) {
+		this.minConfirmations = minConfirmations;
+	}
+
+	/**
+	 * @return the estimated size in bytes of the unconfirmed transactions kept
+	 *         in memory
+	 */
+	public long getMaxUnconfirmedWeight() {
+		return maxUnconfirmedWeight;
+	}
+
+	/**
+	 * @param maxUnconfirmedWeight
+	 *            the maxUnconfirmedWeight to set
+	 */
+	public void setMaxUnconfirmedWeight(long maxUnconfirmedWeight) {
+		this.maxUnconfirmedWeight = maxUnconfirmedWeight;
+	}
+
+	/**
+	 * @return the time an unconfirmed transaction is answered from the cache
+	 */
+	public long getUnconfirmedTtlMillis() {
+		return unconfirmedTtlMillis;
+	}
+
+	/**
+	 * An unconfirmed transaction, or one with fewer confirmations than
+	 * {@link #getMinConfirmations()}, is answered as it was read during this
+	 * time, even if a block included it meanwhile.
+	 *
+	 * @param unconfirmedTtlMillis
+	 *            the unconfirmedTtlMillis to set
+	 */
+	public void setUnconfirmedTtlMillis(long unconfirmedTtlMillis) {
+		this.unconfirmedTtlMillis = unconfirmedTtlMillis;
+	}
+
+	/**
+	 * @return the directory receiving the confirmed transactions evicted from
+	 *         memory, null to drop them
+	 */
+	public Path getSpillDirectory() {
+		return spillDirectory;
+	}
+
+	/**
+	 * @param spillDirectory
+	 *            the spillDirectory to set
+	 */
+	public void setSpillDirectory(Path spillDirectory) {
+		this.spillDirectory = spillDirectory;
+	}
+
+	/**
+	 * @return the size of the files in the spill directory
+	 */
+	public long getMaxSpillBytes() {
+		return maxSpillBytes;
+	}
+
+	/**
+	 * @param maxSpillBytes
+	 *            the maxSpillBytes to set
+	 */
+	public void setMaxSpillBytes(long maxSpillBytes) {
+		this.maxSpillBytes = maxSpillBytes;
+	}
+}
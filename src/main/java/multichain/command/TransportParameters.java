@@ -0,0 +1,201 @@
+/*
+ * Copyright (C) 2017 Worldline, Inc.
+ *
+ * MultiChainJavaAPI code distributed under the GPLv3 license, see COPYING file.
+ * https://github.com/SimplyUb/MultiChainJavaAPI/blob/master/LICENSE
+ *
+ */
+package multichain.command;
+
+/**
+ * Connection pool, timeout and concurrency limit settings used by
+ * {@link MultiChainTransport}.
+ *
+ * @author Ub - H. MARTEAU
+ * @version 4.15
+ */
+public class TransportParameters {
+	int maxTotalConnections = 50;
+	int maxConnectionsPerRoute = 20;
+	long keepAliveMillis = 30000;
+	long idleTimeoutMillis = 60000;
+	long evictionIntervalMillis = 5000;
+	int connectTimeoutMillis = 10000;
+	int connectionRequestTimeoutMillis = 10000;
+	int socketTimeoutMillis = 60000;
+	LimiterParameters heavyLimiterParameters = null;
+	LimiterParameters lightLimiterParameters = null;
+
+	/**
+	 * Default pool settings
+	 */
+	public TransportParameters() {
+		super();
+	}
+
+	/**
+	 * @param maxTotalConnections
+	 * @param maxConnectionsPerRoute
+	 */
+	public TransportParameters(int maxTotalConnections, int maxConnectionsPerRoute) {
+		super();
+		this.maxTotalConnections = maxTotalConnections;
+		this.maxConnectionsPerRoute = maxConnectionsPerRoute;
+	}
+
+	/**
+	 * @return the maximum number of pooled connections, all routes included
+	 */
+	public int getMaxTotalConnections() {
+		return maxTotalConnections;
+	}
+
+	/**
+	 * @param maxTotalConnections
+	 *            the maxTotalConnections to set
+	 */
+	public void setMaxTotalConnections(int maxTotalConnections) {
+		this.maxTotalConnections = maxTotalConnections;
+	}
+
+	/**
+	 * @return the maximum number of pooled connections to one node
+	 */
+	public int getMaxConnectionsPerRoute() {
+		return maxConnectionsPerRoute;
+	}
+
+	/**
+	 * @param maxConnectionsPerRoute
+	 *            the maxConnectionsPerRoute to set
+	 */
+	public void setMaxConnectionsPerRoute(int maxConnectionsPerRoute) {
+		this.maxConnectionsPerRoute = maxConnectionsPerRoute;
+	}
+
+	/**
+	 * @return how long a connection is kept alive when the node does not send a
+	 *         Keep-Alive header
+	 */
+	public long getKeepAliveMillis() {
+		return keepAliveMillis;
+	}
+
+	/**
+	 * @param keepAliveMillis
+	 *            the keepAliveMillis to set
+	 */
+	public void setKeepAliveMillis(long keepAliveMillis) {
+		this.keepAliveMillis = keepAliveMillis;
+	}
+
+	/**
+	 * @return how long a connection may stay unused in the pool before being
+	 *         evicted
+	 */
+	public long getIdleTimeoutMillis() {
+		return idleTimeoutMillis;
+	}
+
+	/**
+	 * @param idleTimeoutMillis
+	 *            the idleTimeoutMillis to set
+	 */
+	public void setIdleTimeoutMillis(long idleTimeoutMillis) {
+		this.idleTimeoutMillis = idleTimeoutMillis;
+	}
+
+	/**
+	 * @return the period of the idle/expired connection eviction
+	 */
+	public long getEvictionIntervalMillis() {
+		return evictionIntervalMillis;
+	}
+
+	/**
+	 * @param evictionIntervalMillis
+	 *            the evictionIntervalMillis to set
+	 */
+	public void setEvictionIntervalMillis(long evictionIntervalMillis) {
+		this.evictionIntervalMillis = evictionIntervalMillis;
+	}
+
+
+	/**
+	 * @return how long opening a connection to the node may take, 0 for no
+	 *         limit
+	 */
+	public int getConnectTimeoutMillis() {
+		return connectTimeoutMillis;
+	}
+
+	/**
+	 * @param connectTimeoutMillis
+	 *            the connectTimeoutMillis to set
+	 */
+	public void setConnectTimeoutMillis(int connectTimeoutMillis) {
+		this.connectTimeoutMillis = connectTimeoutMillis;
+	}
+
+	/**
+	 * @return how long a call may wait for a connection of the pool, 0 for no
+	 *         limit
+	 */
+	public int getConnectionRequestTimeoutMillis() {
+		return connectionRequestTimeoutMillis;
+	}
+
+	/**
+	 * @param connectionRequestTimeoutMillis
+	 *            the connectionRequestTimeoutMillis to set
+	 */
+	public void setConnectionRequestTimeoutMillis(int connectionRequestTimeoutMillis) {
+		this.connectionRequestTimeoutMillis = connectionRequestTimeoutMillis;
+	}
+
+	/**
+	 * @return how long a call may wait for data from the node, 0 for no limit
+	 */
+	public int getSocketTimeoutMillis() {
+		return socketTimeoutMillis;
+	}
+
+	/**
+	 * @param socketTimeoutMillis
+	 *            the socketTimeoutMillis to set
+	 */
+	public void setSocketTimeoutMillis(int socketTimeoutMillis) {
+		this.socketTimeoutMillis = socketTimeoutMillis;
+	}
+
+	/**
+	 * @return the limiter settings of the heavy calls, see
+	 *         {@link ConcurrencyLimiter#HEAVY_METHODS}, null for no limit
+	 */
+	public LimiterParameters getHeavyLimiterParameters() {
+		return heavyLimiterParameters;
+	}
+
+	/**
+	 * @param heavyLimiterParameters
+	 *            the heavyLimiterParameters to set
+	 */
+	public void setHeavyLimiterParameters(LimiterParameters heavyLimiterParameters) {
+		this.heavyLimiterParameters = heavyLimiterParameters;
+	}
+
+	/**
+	 * @return the limiter settings of the other calls, null for no limit
+	 */
+	public LimiterParameters getLightLimiterParameters() {
+		return lightLimiterParameters;
+	}
+
+	/**
+	 * @param lightLimiterParameters
+	 *            the lightLimiterParameters to set
+	 */
+	public void setLightLimiterParameters(LimiterParameters lightLimiterParameters) {
+		this.lightLimiterParameters = lightLimiterParameters;
+	}
+}
@@ -0,0 +1,32 @@
+/*
+ * Copyright (C) 2017 Worldline, Inc.
+ *
+ * MultiChainJavaAPI code distributed under the GPLv3 license, see COPYING file.
+ * https://github.com/SimplyUb/MultiChainJavaAPI/blob/master/LICENSE
+ *
+ */
+package multichain.command;
+
+/**
+ * A {@link MultichainException} thrown where checked exceptions cannot be,
+ * e.g. by the iterators and streams of paginated results.
+ *
+ * @author Ub - H. MARTEAU
+ * @version 4.15
+ */
+public class UncheckedMultichainException extends RuntimeException {
+
+	/**
+	 * Serial
+	 */
+	private static final long serialVersionUID = 4870216534425364920L;
+
+	public UncheckedMultichainException(MultichainException cause) {
+		super(cause);
+	}
+
+	@Override
+	public MultichainException getCause() {
+		return (MultichainException) super.getCause();
+	}
+}
@@ -0,0 +1,692 @@
+/*
+ * Copyright (C) 2017 Worldline, Inc.
+ *
+ * MultiChainJavaAPI code distributed under the GPLv3 license, see COPYING file.
+ * https://github.com/SimplyUb/MultiChainJavaAPI/blob/master/LICENSE
+ *
+ */
+package multichain.command;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import multichain.command.builders.BatchResult;
+import multichain.object.AddressBalance;
+import multichain.object.AddressBalanceAsset;
+import multichain.object.AddressBalanceCurrency;
+import multichain.object.BalanceAsset;
+import multichain.object.BalanceAssetGeneral;
+import multichain.object.Block;
+import multichain.object.TransactionRAW;
+import multichain.object.TransactionRAWDecoder;
+import multichain.object.TransactionRAWVin;
+import multichain.object.TransactionRAWVout;
+import multichain.object.UnspentOutput;
+import multichain.object.queryobjects.TxIdVout;
+
+/**
+ * The unspent outputs of some addresses, kept in memory to choose the inputs
+ * of createrawtransaction without calling the node.
+ *
+ * The outputs of an address are loaded once by listunspent, then kept current
+ * by the transactions sent through {@link Reservation#spent(String)} and by
+ * the blocks, when the tracker listens to a {@link ChainFollower}. A block
+ * leaving the chain, or an output whose assets are unknown, makes the tracker
+ * load the address again before its next selection.
+ *
+ * The outputs selected are reserved until the transaction is spent or the
+ * reservation released, so that threads building transactions at the same
+ * time never select the same ones.
+ *
+ * <pre>
+ * UnspentTracker tracker = new UnspentTracker(multiChainCommand, null, null);
+ * tracker.track(address);
+ * UnspentTracker.Reservation reservation = tracker.reserve(address, destinations);
+ * try {
+ * 	String hex = rawTransactionCommand.createRawTransaction(reservation.getInputs(), reservation.getAddressBalances());
+ * 	hex = rawTransactionCommand.signRawTransaction(hex).getHex();
+ * 	rawTransactionCommand.sendRawTransaction(hex);
+ * 	reservation.spent(hex);
+ * } finally {
+ * 	reservation.release();
+ * }
+ * </pre>
+ *
+ * Assets are identified by their name : the decoder given must know the
+ * assets sent, see {@link TransactionRAWDecoder#registerAsset(BalanceAsset)}.
+ *
+ * @author Ub - H. MARTEAU
+ * @version 4.15
+ */
+public class UnspentTracker implements ChainFollower.Listener {
+	private static final Logger LOGGER = Logger.getLogger(UnspentTracker.class.getName());
+	/** the key of the native currency among the quantities */
+	private static final String NATIVE_CURRENCY = "";
+
+	/**
+	 * An output and the reservation holding it.
+	 */
+	private static class Entry {
+		final UnspentOutput output;
+		final Map<String, BigDecimal> quantities;
+		Reservation reservedBy = null;
+		long reservedUntil = 0;
+
+		Entry(UnspentOutput output, Map<String, BigDecimal> quantities) {
+			this.output = output;
+			this.quantities = quantities;
+		}
+
+		BigDecimal quantity(String key) {
+			BigDecimal quantity = quantities.get(key);
+			return quantity != null ? quantity : BigDecimal.ZERO;
+		}
+
+		boolean isFree(long now) {
+			return reservedBy == null || reservedUntil < now;
+		}
+	}
+
+	/**
+	 * The outputs of an address, by txid:vout. Locked during each selection.
+	 */
+	private static class AddressState {
+		final Map<String, Entry> entries = new LinkedHashMap<String, Entry>();
+		volatile boolean stale = true;
+	}
+
+	/**
+	 * Inputs selected for a transaction, and the amounts to create it with.
+	 */
+	public class Reservation {
+		private final String address;
+		private final List<Entry> entries;
+		private final Map<String, Object> amounts;
+		private final Map<String, Double> change;
+		private boolean open = true;
+
+		Reservation(String address, List<Entry> entries, Map<String, Object> amounts, Map<String, Double> change) {
+			this.address = address;
+			this.entries = entries;
+			this.amounts = amounts;
+			this.change = change;
+		}
+
+		/**
+		 * @return the address paying
+		 */
+		public String getAddress() {
+			return address;
+		}
+
+		/**
+		 * @return the outputs spent
+		 */
+		public List<TxIdVout> getInputs() {
+			List<TxIdVout> inputs = new ArrayList<TxIdVout>(entries.size());
+			for (Entry entry : entries) {
+				TxIdVout input = new TxIdVout();
+				input.setTxId(entry.output.getTxid());
+				input.setvOut((int) entry.output.getVout());
+				inputs.add(input);
+			}
+			return inputs;
+		}
+
+		/**
+		 * @return the amounts by address, the change included, as expected by
+		 *         createrawtransaction
+		 */
+		public Map<String, Object> getAmounts() {
+			return amounts;
+		}
+
+		/**
+		 * @return the amounts as expected by
+		 *         {@link RAWTransactionCommand#createRawTransaction(List, List)}
+		 */
+		@SuppressWarnings("unchecked")
+		public List<AddressBalance> getAddressBalances() {
+			List<AddressBalance> addressBalances = new ArrayList<AddressBalance>();
+			for (Map.Entry<String, Object> amount : amounts.entrySet()) {
+				if (amount.getValue() instanceof Map) {
+					AddressBalanceAsset addressBalance = new AddressBalanceAsset();
+					addressBalance.setAddress(amount.getKey());
+					for (Map.Entry<String, Double> quantity : ((Map<String, Double>) amount.getValue()).entrySet()) {
+						BalanceAssetGeneral asset = new BalanceAssetGeneral();
+						asset.setName(quantity.getKey());
+						asset.setQty(quantity.getValue());
+						addressBalance.addAsset(asset);
+					}
+					addressBalances.add(addressBalance);
+				} else {
+					AddressBalanceCurrency addressBalance = new AddressBalanceCurrency();
+					addressBalance.setAddress(amount.getKey());
+					addressBalance.setCurrencyValue((Double) amount.getValue());
+					addressBalances.add(addressBalance);
+				}
+			}
+			return addressBalances;
+		}
+
+		/**
+		 * @return the change by asset name, the native currency under ""
+		 */
+		public Map<String, Double> getChange() {
+			return change;
+		}
+
+		/**
+		 * Takes the transaction into account : its inputs are removed, its
+		 * outputs to the addresses tracked added, and the reservation closed.
+		 *
+		 * @param hex
+		 *            the transaction sent
+		 * @throws MultichainException
+		 *             if the transaction cannot be decoded
+		 */
+		public void spent(String hex) throws MultichainException {
+			TransactionRAW transaction;
+			try {
+				transaction = decoder.decode(hex);
+			} catch (IllegalArgumentException e) {
+				throw new MultichainException("hex", e.getMessage());
+			}
+			apply(transaction, true);
+			release();
+		}
+
+		/**
+		 * Makes the outputs not spent selectable again. Does nothing once
+		 * already released.
+		 */
+		public void release() {
+			AddressState state = states.get(address);
+			if (state == null) {
+				return;
+			}
+			synchronized (state) {
+				if (!open) {
+					return;
+				}
+				open = false;
+				for (Entry entry : entries) {
+					// the entries are replaced when the outputs are loaded again
+					Entry current = state.entries.get(outpoint(entry.output.getTxid(), entry.output.getVout()));
+					if (current != null && current.reservedBy == this) {
+						current.reservedBy = null;
+					}
+					if (entry.reservedBy == this) {
+						entry.reservedBy = null;
+					}
+				}
+			}
+		}
+	}
+
+	private final UnspentTrackerParameters parameters;
+	private final TransactionRAWDecoder decoder;
+	private final BatchCommand batchCommand;
+	private final Map<String, AddressState> states = new ConcurrentHashMap<String, AddressState>();
+	/** outputs spent by transactions not seen in a block yet, with their txid */
+	private final Map<String, String> spentByUs = new ConcurrentHashMap<String, String>();
+	private final AtomicLong reservations = new AtomicLong();
+	private final AtomicLong loads = new AtomicLong();
+
+	/**
+	 * @param multiChainCommand
+	 *            gives the batch loading the outputs
+	 * @param parameters
+	 *            default ones if null
+	 * @param decoder
+	 *            decodes the transactions spent, one of bitcoin if null
+	 */
+	public UnspentTracker(MultiChainCommand multiChainCommand, UnspentTrackerParameters parameters,
+			TransactionRAWDecoder decoder) {
+		this.parameters = parameters != null ? parameters : new UnspentTrackerParameters();
+		this.decoder = decoder != null ? decoder : new TransactionRAWDecoder();
+		this.batchCommand = multiChainCommand.newBatch();
+	}
+
+	/**
+	 * Loads the outputs of the addresses, and keeps them current from now on.
+	 *
+	 * @param addresses
+	 * @throws MultichainException
+	 */
+	public void track(String... addresses) throws MultichainException {
+		for (String address : addresses) {
+			states.putIfAbsent(address, new AddressState());
+		}
+		load(Arrays.asList(addresses));
+	}
+
+	/**
+	 * Stops tracking an address. Its reservations are left as they are.
+	 *
+	 * @param address
+	 */
+	public void untrack(String address) {
+		states.remove(address);
+	}
+
+	/**
+	 * Loads again the addresses tracked by listunspent.
+	 *
+	 * @throws MultichainException
+	 */
+	public void refresh() throws MultichainException {
+		load(new ArrayList<String>(states.keySet()));
+	}
+
+	/**
+	 * Selects outputs of an address paying the destinations and the fee, and
+	 * reserves them.
+	 *
+	 * For each asset, then the native currency, the smallest output covering
+	 * what is missing is selected, else the largest one and so on. Everything
+	 * selected beyond the destinations goes to the change address.
+	 *
+	 * @param address
+	 *            paying, tracked
+	 * @param destinations
+	 * @return the outputs reserved
+	 * @throws MultichainException
+	 *             if the address is not tracked or has not enough free outputs
+	 */
+	public Reservation reserve(String address, List<AddressBalance> destinations) throws MultichainException {
+		AddressState state = states.get(address);
+		if (state == null) {
+			throw new MultichainException(address, "address not tracked");
+		}
+		if (state.stale) {
+			load(Collections.singletonList(address));
+		}
+
+		Map<String, Map<String, BigDecimal>> paid = new LinkedHashMap<String, Map<String, BigDecimal>>();
+		Map<String, BigDecimal> targets = new LinkedHashMap<String, BigDecimal>();
+		for (AddressBalance destination : destinations) {
+			destination.isFilled();
+			if (destination instanceof AddressBalanceAsset) {
+				for (BalanceAssetGeneral asset : ((AddressBalanceAsset) destination).getAssets()) {
+					add(paid, destination.getAddress(), asset.getName(), BigDecimal.valueOf(asset.getQty()));
+					add(targets, asset.getName(), BigDecimal.valueOf(asset.getQty()));
+				}
+			} else {
+				BigDecimal value = BigDecimal.valueOf(((Number) destination.getValue()).doubleValue());
+				add(paid, destination.getAddress(), NATIVE_CURRENCY, value);
+				add(targets, NATIVE_CURRENCY, value);
+			}
+		}
+		if (parameters.getFee() > 0) {
+			add(targets, NATIVE_CURRENCY, BigDecimal.valueOf(parameters.getFee()));
+		}
+		// the native currency last, the outputs selected for the assets may
+		// already cover it
+		BigDecimal nativeTarget = targets.remove(NATIVE_CURRENCY);
+		if (nativeTarget != null) {
+			targets.put(NATIVE_CURRENCY, nativeTarget);
+		}
+
+		String changeAddress = parameters.getChangeAddress() != null ? parameters.getChangeAddress() : address;
+		synchronized (state) {
+			long now = System.currentTimeMillis();
+			List<Entry> selected = select(address, state, targets, now);
+
+			Map<String, BigDecimal> change = new LinkedHashMap<String, BigDecimal>();
+			for (Entry entry : selected) {
+				for (Map.Entry<String, BigDecimal> quantity : entry.quantities.entrySet()) {
+					add(change, quantity.getKey(), quantity.getValue());
+				}
+			}
+			for (Map.Entry<String, BigDecimal> target : targets.entrySet()) {
+				add(change, target.getKey(), target.getValue().negate());
+			}
+			Map<String, Double> changeValues = new LinkedHashMap<String, Double>();
+			for (Map.Entry<String, BigDecimal> quantity : change.entrySet()) {
+				if (quantity.getValue().signum() > 0) {
+					changeValues.put(quantity.getKey(), quantity.getValue().doubleValue());
+					add(paid, changeAddress, quantity.getKey(), quantity.getValue());
+				}
+			}
+
+			Reservation reservation = new Reservation(address, selected, amounts(paid), changeValues);
+			for (Entry entry : selected) {
+				entry.reservedBy = reservation;
+				entry.reservedUntil = now + parameters.getReservationTimeoutMillis();
+			}
+			reservations.incrementAndGet();
+			return reservation;
+		}
+	}
+
+	/**
+	 * @param address
+	 * @return the outputs of the address known, reserved or not
+	 */
+	public List<UnspentOutput> getUnspent(String address) {
+		AddressState state = states.get(address);
+		List<UnspentOutput> outputs = new ArrayList<UnspentOutput>();
+		if (state != null) {
+			synchronized (state) {
+				for (Entry entry : state.entries.values()) {
+					outputs.add(entry.output);
+				}
+			}
+		}
+		return outputs;
+	}
+
+	/**
+	 * @param address
+	 * @return the quantities of the outputs not reserved, by asset name, the
+	 *         native currency under ""
+	 */
+	public Map<String, Double> getAvailable(String address) {
+		AddressState state = states.get(address);
+		Map<String, BigDecimal> available = new LinkedHashMap<String, BigDecimal>();
+		if (state != null) {
+			synchronized (state) {
+				long now = System.currentTimeMillis();
+				for (Entry entry : state.entries.values()) {
+					if (entry.isFree(now)) {
+						for (Map.Entry<String, BigDecimal> quantity : entry.quantities.entrySet()) {
+							add(available, quantity.getKey(), quantity.getValue());
+						}
+					}
+				}
+			}
+		}
+		Map<String, Double> values = new LinkedHashMap<String, Double>();
+		for (Map.Entry<String, BigDecimal> quantity : available.entrySet()) {
+			values.put(quantity.getKey(), quantity.getValue().doubleValue());
+		}
+		return values;
+	}
+
+	/**
+	 * @return the number of reservations made
+	 */
+	public long getReservations() {
+		return reservations.get();
+	}
+
+	/**
+	 * @return the number of listunspent calls
+	 */
+	public long getLoads() {
+		return loads.get();
+	}
+
+	@Override
+	public void blockConnected(Block block) {
+		if (block.getTx() == null || block.getTx().isEmpty()) {
+			return;
+		}
+		List<TransactionRAW> transactions = new ArrayList<TransactionRAW>();
+		try {
+			synchronized (batchCommand) {
+				List<BatchResult<TransactionRAW>> results = new ArrayList<BatchResult<TransactionRAW>>();
+				for (String txid : block.getTx()) {
+					results.add(batchCommand.getRAWTransactionWithDetail(txid));
+				}
+				batchCommand.execute();
+				for (BatchResult<TransactionRAW> result : results) {
+					transactions.add(result.get());
+				}
+			}
+		} catch (MultichainException e) {
+			LOGGER.log(Level.WARNING, "transactions of block " + block.getHash() + " not read, addresses to load again",
+					e);
+			markStale();
+			return;
+		}
+		for (TransactionRAW transaction : transactions) {
+			apply(transaction, false);
+		}
+	}
+
+	@Override
+	public void blockDisconnected(Block block) {
+		markStale();
+	}
+
+	private void markStale() {
+		for (AddressState state : states.values()) {
+			state.stale = true;
+		}
+	}
+
+	/**
+	 * Replaces the outputs of the addresses by the ones listed by the node,
+	 * keeping the reservations of the outputs still there.
+	 */
+	private void load(List<String> addresses) throws MultichainException {
+		if (addresses.isEmpty()) {
+			return;
+		}
+		List<UnspentOutput> outputs;
+		synchronized (batchCommand) {
+			BatchResult<List<UnspentOutput>> result = batchCommand.listUnspent(parameters.getMinConfirmations(),
+					addresses);
+			batchCommand.execute();
+			outputs = result.get();
+		}
+		loads.incrementAndGet();
+
+		Map<String, List<UnspentOutput>> byAddress = new LinkedHashMap<String, List<UnspentOutput>>();
+		for (String address : addresses) {
+			byAddress.put(address, new ArrayList<UnspentOutput>());
+		}
+		for (UnspentOutput output : outputs) {
+			List<UnspentOutput> outputsOfAddress = byAddress.get(output.getAddress());
+			if (outputsOfAddress != null) {
+				outputsOfAddress.add(output);
+			}
+		}
+		for (Map.Entry<String, List<UnspentOutput>> outputsOfAddress : byAddress.entrySet()) {
+			AddressState state = states.get(outputsOfAddress.getKey());
+			if (state == null) {
+				continue;
+			}
+			synchronized (state) {
+				Map<String, Entry> previous = new LinkedHashMap<String, Entry>(state.entries);
+				state.entries.clear();
+				for (UnspentOutput output : outputsOfAddress.getValue()) {
+					String outpoint = outpoint(output.getTxid(), output.getVout());
+					// listed by the node, so not spent after all
+					spentByUs.remove(outpoint);
+					Entry entry = new Entry(output, quantities(output.getAmount(), output.getAssets()));
+					Entry known = previous.get(outpoint);
+					if (known != null) {
+						entry.reservedBy = known.reservedBy;
+						entry.reservedUntil = known.reservedUntil;
+					}
+					if (entry.quantities != null) {
+						state.entries.put(outpoint, entry);
+					}
+				}
+				state.stale = false;
+			}
+		}
+	}
+
+	/**
+	 * Removes the outputs spent by a transaction and adds its outputs to the
+	 * addresses tracked.
+	 *
+	 * @param own
+	 *            true for a transaction sent by us, false for one in a block
+	 */
+	private void apply(TransactionRAW transaction, boolean own) {
+		if (transaction == null) {
+			return;
+		}
+		if (transaction.getVin() != null) {
+			for (TransactionRAWVin vin : transaction.getVin()) {
+				if (vin.getTxid() == null) {
+					continue;
+				}
+				String outpoint = outpoint(vin.getTxid(), vin.getVout());
+				if (own) {
+					spentByUs.put(outpoint, transaction.getTxid());
+				} else {
+					spentByUs.remove(outpoint);
+				}
+				for (AddressState state : states.values()) {
+					synchronized (state) {
+						state.entries.remove(outpoint);
+					}
+				}
+			}
+		}
+		if (transaction.getVout() == null) {
+			return;
+		}
+		for (TransactionRAWVout vout : transaction.getVout()) {
+			List<String> addresses = vout.getScriptPubKey() != null ? vout.getScriptPubKey().getAddresses() : null;
+			if (addresses == null || addresses.size() != 1) {
+				continue;
+			}
+			AddressState state = states.get(addresses.get(0));
+			String outpoint = outpoint(transaction.getTxid(), vout.getN());
+			if (state == null || spentByUs.containsKey(outpoint)) {
+				continue;
+			}
+			Map<String, BigDecimal> quantities = quantities(vout.getValue(), vout.getAssets());
+			synchronized (state) {
+				if (quantities == null) {
+					state.stale = true;
+				} else if (!state.entries.containsKey(outpoint)) {
+					UnspentOutput output = new UnspentOutput(transaction.getTxid(), vout.getN(), addresses.get(0),
+							vout.getValue());
+					if (vout.getAssets() != null) {
+						output.setAssets(vout.getAssets());
+					}
+					state.entries.put(outpoint, new Entry(output, quantities));
+				}
+			}
+		}
+	}
+
+	/**
+	 * Chooses the free outputs covering the targets.
+	 */
+	private List<Entry> select(String address, AddressState state, Map<String, BigDecimal> targets, long now)
+			throws MultichainException {
+		List<Entry> selected = new ArrayList<Entry>();
+		Map<String, BigDecimal> covered = new LinkedHashMap<String, BigDecimal>();
+		for (Map.Entry<String, BigDecimal> target : targets.entrySet()) {
+			final String key = target.getKey();
+			BigDecimal missing = target.getValue().subtract(covered.containsKey(key) ? covered.get(key) : BigDecimal.ZERO);
+			if (missing.signum() <= 0) {
+				continue;
+			}
+			List<Entry> candidates = new ArrayList<Entry>();
+			for (Entry entry : state.entries.values()) {
+				if (entry.isFree(now) && !selected.contains(entry) && entry.quantity(key).signum() > 0) {
+					candidates.add(entry);
+				}
+			}
+			Collections.sort(candidates, new Comparator<Entry>() {
+				@Override
+				public int compare(Entry entry1, Entry entry2) {
+					return entry2.quantity(key).compareTo(entry1.quantity(key));
+				}
+			});
+			while (missing.signum() > 0) {
+				if (candidates.isEmpty()) {
+					throw new MultichainException(address, "not enough "
+							+ (NATIVE_CURRENCY.equals(key) ? "native currency" : key) + " in the free outputs");
+				}
+				// the smallest covering what is missing, else the largest
+				int chosen = 0;
+				for (int i = candidates.size() - 1; i >= 0; i--) {
+					if (candidates.get(i).quantity(key).compareTo(missing) >= 0) {
+						chosen = i;
+						break;
+					}
+				}
+				Entry entry = candidates.remove(chosen);
+				selected.add(entry);
+				for (Map.Entry<String, BigDecimal> quantity : entry.quantities.entrySet()) {
+					add(covered, quantity.getKey(), quantity.getValue());
+				}
+				missing = missing.subtract(entry.quantity(key));
+			}
+		}
+		return selected;
+	}
+
+	/**
+	 * @return the quantities by asset name, null if an asset is not known
+	 */
+	private static Map<String, BigDecimal> quantities(double amount, List<BalanceAsset> assets) {
+		Map<String, BigDecimal> quantities = new LinkedHashMap<String, BigDecimal>();
+		if (amount > 0) {
+			quantities.put(NATIVE_CURRENCY, BigDecimal.valueOf(amount));
+		}
+		if (assets != null) {
+			for (BalanceAsset asset : assets) {
+				if (asset.getName() == null || asset.getQty() == null) {
+					return null;
+				}
+				add(quantities, asset.getName(), BigDecimal.valueOf(asset.getQty()));
+			}
+		}
+		return quantities;
+	}
+
+	/**
+	 * @return the amounts by address : the native currency alone, or the
+	 *         assets by name, the native currency among them under ""
+	 */
+	private static Map<String, Object> amounts(Map<String, Map<String, BigDecimal>> paid) {
+		Map<String, Object> amounts = new LinkedHashMap<String, Object>();
+		for (Map.Entry<String, Map<String, BigDecimal>> address : paid.entrySet()) {
+			Map<String, BigDecimal> quantities = address.getValue();
+			BigDecimal nativeCurrency = quantities.get(NATIVE_CURRENCY);
+			if (quantities.size() == 1 && nativeCurrency != null) {
+				amounts.put(address.getKey(), nativeCurrency.doubleValue());
+				continue;
+			}
+			Map<String, Double> assets = new LinkedHashMap<String, Double>();
+			for (Map.Entry<String, BigDecimal> quantity : quantities.entrySet()) {
+				if (!NATIVE_CURRENCY.equals(quantity.getKey()) || quantity.getValue().signum() > 0) {
+					assets.put(quantity.getKey(), quantity.getValue().doubleValue());
+				}
+			}
+			amounts.put(address.getKey(), assets);
+		}
+		return amounts;
+	}
+
+	private static void add(Map<String, BigDecimal> quantities, String key, BigDecimal quantity) {
+		BigDecimal previous = quantities.get(key);
+		quantities.put(key, previous != null ? previous.add(quantity) : quantity);
+	}
+
+	private static void add(Map<String, Map<String, BigDecimal>> paid, String address, String key,
+			BigDecimal quantity) {
+		Map<String, BigDecimal> quantities = paid.get(address);
+		if (quantities == null) {
+			quantities = new LinkedHashMap<String, BigDecimal>();
+			paid.put(address, quantities);
+		}
+		add(quantities, key, quantity);
+	}
+
+	private static String outpoint(String txid, long vout) {
+		return txid + ":" + vout;
+	}
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright (C) 2017 Worldline, Inc.
+ *
+ * MultiChainJavaAPI code distributed under the GPLv3 license, see COPYING file.
+ * https://github.com/SimplyUb/MultiChainJavaAPI/blob/master/LICENSE
+ *
+ */
+package multichain.command;
+
+/**
+ * Loading and coin selection settings used by {@link UnspentTracker}.
+ *
+ * @author Ub - H. MARTEAU
+ * @version 4.15
+ */
+public class UnspentTrackerParameters {
+	int minConfirmations = 0;
+	long reservationTimeoutMillis = 60000;
+	double fee = 0;
+	String changeAddress = null;
+
+	/**
+	 * Default settings : unconfirmed outputs are spent, no fee, the change goes
+	 * back to the address paying
+	 */
+	public UnspentTrackerParameters() {
+		super();
+	}
+
+	/**
+	 * @param minConfirmations
+	 * @param reservationTimeoutMillis
+	 */
+	public UnspentTrackerParameters(int minConfirmations, long reservationTimeoutMillis) {
+		super();
+		this.minConfirmations = minConfirmations;
+		this.reservationTimeoutMillis = reservationTimeoutMillis;
+	}
+
+	/**
+	 * @return the confirmations of the outputs loaded by listunspent
+	 */
+	public int getMinConfirmations() {
+		return minConfirmations;
+	}
+
+	/**
+	 * @param minConfirmations
+	 *            the minConfirmations to set
+	 */
+	public void setMinConfirmations(int minConfirmations) {
+		this.minConfirmations = minConfirmations;
+	}
+
+	/**
+	 * @return the time after which outputs reserved and neither spent nor
+	 *         released can be selected again
+	 */
+	public long getReservationTimeoutMillis() {
+		return reservationTimeoutMillis;
+	}
+
+	/**
+	 * @param reservationTimeoutMillis
+	 *            the reservationTimeoutMillis to set
+	 */
+	public void setReservationTimeoutMillis(long reservationTimeoutMillis) {
+		this.reservationTimeoutMillis = reservationTimeoutMillis;
+	}
+
+	/**
+	 * @return the native currency added to what each transaction selects
+	 */
+	public double getFee() {
+		return fee;
+	}
+
+	/**
+	 * @param fee
+	 *            the fee to set
+	 */
+	public void setFee(double fee) {
+		this.fee = fee;
+	}
+
+	/**
+	 * @return the address receiving the change, null for the address paying
+	 */
+	public String getChangeAddress() {
+		return changeAddress;
+	}
+
+	/**
+	 * @param changeAddress
+	 *            the changeAddress to set
+	 */
+	public void setChangeAddress(String changeAddress) {
+		this.changeAddress = changeAddress;
+	}
+}
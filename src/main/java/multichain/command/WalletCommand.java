@@ -6,7 +6,6 @@ import multichain.command.tools.MultichainTestParameter;
 import multichain.object.*;
 import multichain.object.formatters.TransactionFormatter;
 import multichain.object.formatters.TxOutFormatter;
-import multichain.object.formatters.WalletFormatter;
 import multichain.object.formatters.WalletTransactionFormatter;
 
 import java.util.ArrayList;
@@ -19,17 +18,21 @@ public class WalletCommand extends QueryBuilderWallet {
 		initialize(ip, port, login, password, null);
 	}
 
-	public WalletInfo getWalletInfo() throws MultichainException {
-		WalletInfo walletInfo = new WalletInfo();
+	public WalletCommand(MultiChainTransport transport) {
+		initialize(transport, null);
+	}
 
-		Object objectWalletInfo = executeGetWalletInfo();
-		walletInfo = WalletFormatter.formatWalletInfo(objectWalletInfo);
+	public WalletCommand(MultiChainCluster cluster) {
+		initialize(cluster, null);
+	}
 
-		return walletInfo;
+	public WalletInfo getWalletInfo() throws MultichainException {
+		return executeGetWalletInfo();
 	}
 
-	protected Object executeGetWalletInfo() throws MultichainException {
-		return execute(CommandEnum.GETWALLETINFO);
+	protected WalletInfo executeGetWalletInfo() throws MultichainException {
+		WalletInfo walletInfo = execute(WalletInfo.class, CommandEnum.GETWALLETINFO);
+		return walletInfo != null ? walletInfo : new WalletInfo();
 	}
 
 }
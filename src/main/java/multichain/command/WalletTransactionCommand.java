@@ -7,29 +7,68 @@
  */
 package multichain.command;
 
-import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.function.Function;
 
+import multichain.command.builders.PagedIterator;
 import multichain.command.builders.QueryBuilderWalletTransaction;
 import multichain.object.BalanceAssetGeneral;
 import multichain.object.Transaction;
 import multichain.object.TransactionWallet;
 import multichain.object.TransactionWalletDetailed;
 import multichain.object.TxOut;
-import multichain.object.formatters.TransactionFormatter;
-import multichain.object.formatters.TxOutFormatter;
-import multichain.object.formatters.WalletTransactionFormatter;
 
 /**
  * @author Ub - H. MARTEAU
  * @version 4.15
  */
 public class WalletTransactionCommand extends QueryBuilderWalletTransaction {
+	/** identifies the transactions of the pages */
+	private static final Function<TransactionWalletDetailed, String> TXID =
+			new Function<TransactionWalletDetailed, String>() {
+				@Override
+				public String apply(TransactionWalletDetailed transaction) {
+					return transaction.getTxid();
+				}
+			};
+	private volatile TransactionCache transactionCache = null;
 
 	public WalletTransactionCommand(String ip, String port, String login, String password, RuntimeParameters runtimeparameters) {
 		initialize(ip, port, login, password, runtimeparameters);
 	}
 
+	public WalletTransactionCommand(MultiChainTransport transport, RuntimeParameters runtimeparameters) {
+		initialize(transport, runtimeparameters);
+	}
+
+	public WalletTransactionCommand(MultiChainCluster cluster, RuntimeParameters runtimeparameters) {
+		initialize(cluster, runtimeparameters);
+	}
+
+	/**
+	 * Caches the transactions read without watch-only addresses by
+	 * {@link #getTransaction(String, boolean)} and the verbose
+	 * {@link #getWalletTransaction(String, boolean, boolean)}. A cached
+	 * transaction keeps the confirmations, blockhash and blocktime it was read
+	 * with, see {@link TransactionCacheParameters#setMinConfirmations(long)}.
+	 * 
+	 * @param transactionCache
+	 *            the cache, possibly shared with the
+	 *            {@link RAWTransactionCommand}, null to read every transaction
+	 *            from the node
+	 */
+	public void setTransactionCache(TransactionCache transactionCache) {
+		this.transactionCache = transactionCache;
+	}
+
+	/**
+	 * @return the transaction cache, null if none
+	 */
+	public TransactionCache getTransactionCache() {
+		return transactionCache;
+	}
+
 	/**
 	 * 
 	 * getaddresstransaction "address" "txid" ( verbose)
@@ -75,12 +114,7 @@ public class WalletTransactionCommand extends QueryBuilderWalletTransaction {
 	 * @throws MultichainException
 	 */
 	public TransactionWallet getAddressTransaction(String address, String txid, boolean verbose) throws MultichainException {
-		TransactionWallet transactionWallet = new TransactionWallet();
-
-		Object objectTransactionWallet = executeGetAddressTransaction(address, txid, verbose);
-		transactionWallet = WalletTransactionFormatter.formatTransactionWallet(objectTransactionWallet);
-
-		return transactionWallet;
+		return executeGetAddressTransaction(address, txid, verbose);
 	}
 
 	/**
@@ -127,11 +161,15 @@ public class WalletTransactionCommand extends QueryBuilderWalletTransaction {
 	 * @throws MultichainException
 	 */
 	public Transaction getTransaction(String txid, boolean includeWatchonly) throws MultichainException {
-		Transaction transaction = new Transaction();
-
-		Object objectTransaction = executeGetTransaction(txid, includeWatchonly);
-		transaction = TransactionFormatter.formatTransaction(objectTransaction);
-
+		TransactionCache cache = includeWatchonly ? null : transactionCache;
+		if (cache == null) {
+			return executeGetTransaction(txid, includeWatchonly);
+		}
+		Transaction transaction = (Transaction) cache.get(TransactionCache.Kind.TRANSACTION, txid);
+		if (transaction == null) {
+			transaction = executeGetTransaction(txid, includeWatchonly);
+			cache.put(TransactionCache.Kind.TRANSACTION, txid, transaction);
+		}
 		return transaction;
 	}
 
@@ -173,12 +211,7 @@ public class WalletTransactionCommand extends QueryBuilderWalletTransaction {
 	 * @throws MultichainException
 	 */
 	public TxOut getTxOut(String txid, int vout, boolean includemempool) throws MultichainException {
-		TxOut txOut = new TxOut();
-
-		Object objectTxOut = executeGetTxOut(txid, vout, includemempool);
-		txOut = TxOutFormatter.formatTxOut(objectTxOut);
-
-		return txOut;
+		return executeGetTxOut(txid, vout, includemempool);
 	}
 
 	/**
@@ -240,12 +273,17 @@ public class WalletTransactionCommand extends QueryBuilderWalletTransaction {
 	 * @throws MultichainException
 	 */
 	public TransactionWalletDetailed getWalletTransaction(String txid, boolean includeWatchOnly, boolean verbose) throws MultichainException {
-		TransactionWalletDetailed transactionWalletDetailed = new TransactionWalletDetailed();
-
-		Object objectTransactionWalletDetailed = executeGetWalletTransaction(txid, includeWatchOnly, verbose);
-		transactionWalletDetailed = WalletTransactionFormatter.formatTransactionWalletDetailed(objectTransactionWalletDetailed);
-
-		return transactionWalletDetailed;
+		TransactionCache cache = includeWatchOnly || !verbose ? null : transactionCache;
+		if (cache == null) {
+			return executeGetWalletTransaction(txid, includeWatchOnly, verbose);
+		}
+		TransactionWalletDetailed transaction = (TransactionWalletDetailed) cache
+				.get(TransactionCache.Kind.WALLET_TRANSACTION, txid);
+		if (transaction == null) {
+			transaction = executeGetWalletTransaction(txid, includeWatchOnly, verbose);
+			cache.put(TransactionCache.Kind.WALLET_TRANSACTION, txid, transaction);
+		}
+		return transaction;
 	}
 
 	/**
@@ -321,23 +359,37 @@ public class WalletTransactionCommand extends QueryBuilderWalletTransaction {
 	 * @return
 	 * @throws MultichainException
 	 */
-	@SuppressWarnings("unchecked")
 	public List<TransactionWalletDetailed> listAddressTransactions(String address, long count, long skip, boolean verbose) throws MultichainException {
-		List<TransactionWalletDetailed> listTransactionWallet = new ArrayList<TransactionWalletDetailed>();
-
-		Object objectTransactionWallet = executeListAddressTransactions(address, count, skip, verbose);
-		listTransactionWallet = WalletTransactionFormatter.formatListTransactionWalletDetailed((List<Object>) objectTransactionWallet);
+		return executeListAddressTransactions(TransactionWalletDetailed.class, address, count, skip, verbose);
+	}
 
-		return listTransactionWallet;
+	/**
+	 * {@link #listAddressTransactions(String, long, long, boolean)} over all the
+	 * transactions of the address, read lazily page by page
+	 * 
+	 * @param address
+	 * @param verbose
+	 * @param pageSize
+	 *            count of each call
+	 * @return the transactions, most recent first, to be read until the end
+	 *         or closed ; the pages are read by skip from the most recent
+	 *         transaction, and each one, answered oldest first by the node,
+	 *         reversed. The transactions arriving meanwhile are not returned
+	 *         and those they shift onto the next page are dropped there
+	 */
+	public PagedIterator<TransactionWalletDetailed> listAddressTransactionsPaged(final String address,
+			final boolean verbose, int pageSize) {
+		return new PagedIterator<TransactionWalletDetailed>(new PagedIterator.PageFetcher<TransactionWalletDetailed>() {
+			@Override
+			public List<TransactionWalletDetailed> fetch(long skip, int count) throws MultichainException {
+				return mostRecentFirst(
+						executeListAddressTransactions(TransactionWalletDetailed.class, address, count, skip, verbose));
+			}
+		}, 0, pageSize, true, TXID);
 	}
 
 	public List<TransactionWallet> listAddressTransactionsWithoutDetail(String address, long count, long skip, boolean verbose) throws MultichainException {
-		List<TransactionWallet> listTransactionWallet = new ArrayList<TransactionWallet>();
-
-		Object objectTransactionWallet = executeListAddressTransactions(address, count, skip, verbose);
-		listTransactionWallet = WalletTransactionFormatter.formatListTransactionWallet((List<Object>) objectTransactionWallet);
-
-		return listTransactionWallet;
+		return executeListAddressTransactions(TransactionWallet.class, address, count, skip, verbose);
 	}
 
 	/**
@@ -423,15 +475,38 @@ public class WalletTransactionCommand extends QueryBuilderWalletTransaction {
 	 * @return
 	 * @throws MultichainException
 	 */
-	@SuppressWarnings("unchecked")
 	public List<TransactionWalletDetailed> listWalletTransaction(long count, long skip, boolean includeWatchonly, boolean verbose) throws MultichainException {
+		return executeListWalletTransaction(TransactionWalletDetailed.class, count, skip, includeWatchonly, verbose);
+	}
 
-		List<TransactionWalletDetailed> listTransactionWallet = new ArrayList<TransactionWalletDetailed>();
-
-		Object objectTransactionWallet = executeListWalletTransaction(count, skip, includeWatchonly, verbose);
-		listTransactionWallet = WalletTransactionFormatter.formatListTransactionWalletDetailed((List<Object>) objectTransactionWallet);
+	/**
+	 * {@link #listWalletTransaction(long, long, boolean, boolean)} over all the
+	 * transactions of the wallet, read lazily page by page
+	 * 
+	 * @param includeWatchonly
+	 * @param verbose
+	 * @param pageSize
+	 *            count of each call
+	 * @return the transactions, most recent first, to be read until the end
+	 *         or closed ; the pages are read by skip from the most recent
+	 *         transaction, and each one, answered oldest first by the node,
+	 *         reversed. The transactions arriving meanwhile are not returned
+	 *         and those they shift onto the next page are dropped there
+	 */
+	public PagedIterator<TransactionWalletDetailed> listWalletTransactionPaged(final boolean includeWatchonly,
+			final boolean verbose, int pageSize) {
+		return new PagedIterator<TransactionWalletDetailed>(new PagedIterator.PageFetcher<TransactionWalletDetailed>() {
+			@Override
+			public List<TransactionWalletDetailed> fetch(long skip, int count) throws MultichainException {
+				return mostRecentFirst(executeListWalletTransaction(TransactionWalletDetailed.class, count, skip,
+						includeWatchonly, verbose));
+			}
+		}, 0, pageSize, true, TXID);
+	}
 
-		return listTransactionWallet;
+	private static <T> List<T> mostRecentFirst(List<T> page) {
+		Collections.reverse(page);
+		return page;
 	}
 
 	/**
@@ -480,12 +555,7 @@ public class WalletTransactionCommand extends QueryBuilderWalletTransaction {
 	 * @throws MultichainException
 	 */
 	public List<TransactionWallet> listWalletTransactionWithoutDetail(long count, long skip, boolean includeWatchonly, boolean verbose) throws MultichainException {
-		List<TransactionWallet> listTransactionWallet = new ArrayList<TransactionWallet>();
-
-		Object objectTransactionWallet = executeListWalletTransaction(count, skip, includeWatchonly, verbose);
-		listTransactionWallet = WalletTransactionFormatter.formatListTransactionWallet((List<Object>) objectTransactionWallet);
-		
-		return listTransactionWallet;
+		return executeListWalletTransaction(TransactionWallet.class, count, skip, includeWatchonly, verbose);
 	}
 
 	/**
@@ -0,0 +1,101 @@
+/*
+ * Copyright (C) 2017 Worldline, Inc.
+ *
+ * MultiChainJavaAPI code distributed under the GPLv3 license, see COPYING file.
+ * https://github.com/SimplyUb/MultiChainJavaAPI/blob/master/LICENSE
+ *
+ */
+package multichain.command.builders;
+
+import java.util.function.Function;
+
+import multichain.command.MultichainException;
+
+/**
+ * Result of one call queued in a batch. It is filled when the batch is
+ * executed, either with the formatted result or with the error returned by the
+ * node for this call only.
+ *
+ * @author Ub - H. MARTEAU
+ * @version 4.15
+ */
+public class BatchResult<T> {
+	private final String id;
+	private final String method;
+	private final Function<Object, T> formatter;
+
+	private volatile boolean done = false;
+	private volatile T value = null;
+	private volatile MultichainException error = null;
+
+	BatchResult(String id, String method, Function<Object, T> formatter) {
+		this.id = id;
+		this.method = method;
+		this.formatter = formatter;
+	}
+
+	void complete(Object result) {
+		try {
+			value = formatter.apply(result);
+		} catch (RuntimeException e) {
+			error = new MultichainException(method, "unexpected result format : " + e.toString());
+		}
+		done = true;
+	}
+
+	void fail(MultichainException exception) {
+		error = exception;
+		done = true;
+	}
+
+	/**
+	 * @return the formatted result of the call
+	 * @throws MultichainException
+	 *             if the node returned an error for this call, or if the batch has
+	 *             not been executed yet
+	 */
+	public T get() throws MultichainException {
+		if (!done) {
+			throw new MultichainException(method, "batch not executed yet");
+		}
+		if (error != null) {
+			throw error;
+		}
+		return value;
+	}
+
+	/**
+	 * @return true once the batch holding this call has been executed
+	 */
+	public boolean isDone() {
+		return done;
+	}
+
+	/**
+	 * @return true if the call failed
+	 */
+	public boolean isError() {
+		return error != null;
+	}
+
+	/**
+	 * @return the error of the call, null if none
+	 */
+	public MultichainException getError() {
+		return error;
+	}
+
+	/**
+	 * @return the JSON-RPC id of the call
+	 */
+	public String getId() {
+		return id;
+	}
+
+	/**
+	 * @return the RPC method of the call
+	 */
+	public String getMethod() {
+		return method;
+	}
+}
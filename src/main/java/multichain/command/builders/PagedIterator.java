@@ -0,0 +1,260 @@
+/*
+ * Copyright (C) 2017 Worldline, Inc.
+ *
+ * MultiChainJavaAPI code distributed under the GPLv3 license, see COPYING file.
+ * https://github.com/SimplyUb/MultiChainJavaAPI/blob/master/LICENSE
+ *
+ */
+package multichain.command.builders;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import multichain.command.CallOptions;
+import multichain.command.MultichainException;
+import multichain.command.UncheckedMultichainException;
+
+/**
+ * Items of a list* command read page by page with count and start (or skip),
+ * while the consumer goes through them.
+ *
+ * Only the current page and the next one are held in memory : the next page
+ * is fetched in the background while the current one is consumed, so a full
+ * scan runs in constant memory without waiting for the node between pages. A
+ * page shorter than the page size ends the iteration.
+ *
+ * <pre>
+ * try (PagedIterator&lt;StreamKeyItem&gt; items = streamCommand.listStreamItemsPaged("stream1", true, 1000)) {
+ * 	items.stream().filter(...).forEach(...);
+ * }
+ * </pre>
+ *
+ * The {@link CallOptions} active when the iterator is created apply to all its
+ * calls.
+ *
+ * Skipping is not stable if the list changes during the iteration. For the
+ * lists starting with the most recent items, a new item shifts the next pages
+ * by one : given a key, the items of a page already read on the previous page
+ * are dropped, as long as fewer than a page of items arrive between two
+ * calls.
+ *
+ * @author Ub - H. MARTEAU
+ * @version 4.15
+ */
+public class PagedIterator<T> implements Iterator<T>, Closeable {
+
+	/**
+	 * One call of the list command.
+	 */
+	public interface PageFetcher<T> {
+		/**
+		 * @param start
+		 *            index of the first item, or number of items to skip
+		 * @param count
+		 *            number of items
+		 * @return the items, fewer than count at the end
+		 * @throws MultichainException
+		 */
+		List<T> fetch(long start, int count) throws MultichainException;
+	}
+
+	private static final ExecutorService PREFETCH = Executors.newCachedThreadPool(new ThreadFactory() {
+		@Override
+		public Thread newThread(Runnable runnable) {
+			Thread thread = new Thread(runnable, "multichain-page-prefetch");
+			thread.setDaemon(true);
+			return thread;
+		}
+	});
+
+	private final PageFetcher<T> fetcher;
+	private final int pageSize;
+	private final boolean prefetch;
+	private final CallOptions options;
+	private final Function<? super T, ?> key;
+	private Set<Object> previousKeys = Collections.emptySet();
+	private long nextStart;
+	private Iterator<T> page = null;
+	private CompletableFuture<List<T>> nextPage = null;
+	private boolean lastPage = false;
+	private boolean closed = false;
+
+	/**
+	 * @param fetcher
+	 * @param start
+	 *            index of the first item, or number of items to skip
+	 * @param pageSize
+	 *            count of each call
+	 * @param prefetch
+	 *            true to fetch the next page while the current one is consumed
+	 */
+	public PagedIterator(PageFetcher<T> fetcher, long start, int pageSize, boolean prefetch) {
+		this(fetcher, start, pageSize, prefetch, null);
+	}
+
+	/**
+	 * @param fetcher
+	 * @param start
+	 *            index of the first item, or number of items to skip
+	 * @param pageSize
+	 *            count of each call
+	 * @param prefetch
+	 *            true to fetch the next page while the current one is consumed
+	 * @param key
+	 *            identifies an item, to drop the ones shifted from the
+	 *            previous page ; null to keep every item
+	 */
+	public PagedIterator(PageFetcher<T> fetcher, long start, int pageSize, boolean prefetch,
+			Function<? super T, ?> key) {
+		if (pageSize <= 0) {
+			throw new IllegalArgumentException("pageSize must be positive");
+		}
+		this.fetcher = fetcher;
+		this.nextStart = start;
+		this.pageSize = pageSize;
+		this.prefetch = prefetch;
+		this.options = CallOptions.current();
+		this.key = key;
+	}
+
+	/**
+	 * @throws UncheckedMultichainException
+	 *             if a page cannot be read
+	 */
+	@Override
+	public boolean hasNext() {
+		while (page == null || !page.hasNext()) {
+			if (lastPage || closed) {
+				return false;
+			}
+			List<T> items = takeNextPage();
+			if (items.size() < pageSize) {
+				lastPage = true;
+			} else if (prefetch) {
+				nextPage = fetchAsync(nextStart);
+			}
+			page = unseen(items).iterator();
+		}
+		return true;
+	}
+
+	/**
+	 * @throws UncheckedMultichainException
+	 *             if a page cannot be read
+	 */
+	@Override
+	public T next() {
+		if (!hasNext()) {
+			throw new NoSuchElementException();
+		}
+		return page.next();
+	}
+
+	/**
+	 * @return the remaining items, split in batches for parallel streams
+	 */
+	public Spliterator<T> spliterator() {
+		return Spliterators.spliteratorUnknownSize(this, Spliterator.ORDERED | Spliterator.NONNULL);
+	}
+
+	/**
+	 * @return the remaining items as a sequential stream, which closes the
+	 *         iterator when closed
+	 */
+	public Stream<T> stream() {
+		return StreamSupport.stream(spliterator(), false).onClose(new Runnable() {
+			@Override
+			public void run() {
+				close();
+			}
+		});
+	}
+
+	/**
+	 * Stops the iteration. A page being prefetched is dropped.
+	 */
+	@Override
+	public void close() {
+		closed = true;
+		page = null;
+		if (nextPage != null) {
+			nextPage.cancel(false);
+			nextPage = null;
+		}
+	}
+
+	private List<T> takeNextPage() {
+		CompletableFuture<List<T>> pending = nextPage;
+		nextPage = null;
+		List<T> items;
+		try {
+			items = pending != null ? pending.join() : fetch(nextStart);
+		} catch (CompletionException e) {
+			if (e.getCause() instanceof UncheckedMultichainException) {
+				throw (UncheckedMultichainException) e.getCause();
+			}
+			throw e;
+		}
+		nextStart += items.size();
+		return items;
+	}
+
+	/**
+	 * @return the items not on the previous page
+	 */
+	private List<T> unseen(List<T> items) {
+		if (key == null) {
+			return items;
+		}
+		Set<Object> keys = new HashSet<Object>();
+		List<T> unseen = new ArrayList<T>(items.size());
+		for (T item : items) {
+			Object itemKey = key.apply(item);
+			if (!previousKeys.contains(itemKey)) {
+				unseen.add(item);
+			}
+			keys.add(itemKey);
+		}
+		previousKeys = keys;
+		return unseen;
+	}
+
+	private CompletableFuture<List<T>> fetchAsync(final long start) {
+		return CompletableFuture.supplyAsync(new Supplier<List<T>>() {
+			@Override
+			public List<T> get() {
+				if (options == null) {
+					return fetch(start);
+				}
+				try (CallOptions.Scope scope = options.activate()) {
+					return fetch(start);
+				}
+			}
+		}, PREFETCH);
+	}
+
+	private List<T> fetch(long start) {
+		try {
+			return fetcher.fetch(start, pageSize);
+		} catch (MultichainException e) {
+			throw new UncheckedMultichainException(e);
+		}
+	}
+}
@@ -13,6 +13,10 @@ import java.util.List;
 
 import multichain.command.MultichainException;
 import multichain.command.tools.MultichainTestParameter;
+import multichain.object.Address;
+import multichain.object.BalanceAssetGeneral;
+import multichain.object.KeyPairs;
+import multichain.object.MultiBalance;
 
 /**
  * @author Ub - H. MARTEAU
@@ -36,9 +40,9 @@ public class QueryBuilderAddress extends QueryBuilderCommon {
 	 * @return
 	 * @throws MultichainException
 	 */
-	protected Object executeCreateKeyPairs(int numberOfPairs) throws MultichainException {
+	protected List<KeyPairs> executeCreateKeyPairs(int numberOfPairs) throws MultichainException {
 		MultichainTestParameter.valueIsPositive("number of pairs", numberOfPairs);
-		return execute(CommandEnum.CREATEKEYPAIRS, numberOfPairs);
+		return executeList(KeyPairs.class, CommandEnum.CREATEKEYPAIRS, numberOfPairs);
 	}
 
 	/**
@@ -125,9 +129,9 @@ public class QueryBuilderAddress extends QueryBuilderCommon {
 	 *         wallet
 	 * @throws MultichainException
 	 */
-	protected Object executeGetAddressBalances(String address) throws MultichainException {
+	protected List<BalanceAssetGeneral> executeGetAddressBalances(String address) throws MultichainException {
 		MultichainTestParameter.isNotNullOrEmpty("address", address);
-		return execute(CommandEnum.GETADDRESSBALANCES, address);
+		return executeList(BalanceAssetGeneral.class, CommandEnum.GETADDRESSBALANCES, address);
 	}
 
 	/**
@@ -151,6 +155,17 @@ public class QueryBuilderAddress extends QueryBuilderCommon {
 		return execute(CommandEnum.GETADDRESSES, verbose);
 	}
 
+	/**
+	 * {@link #executeGetAddresses(boolean)} with verbose, decoded straight into
+	 * Address
+	 *
+	 * @return the addresses in this node’s wallet, with their details
+	 * @throws MultichainException
+	 */
+	protected List<Address> executeGetAddressesList() throws MultichainException {
+		return executeList(Address.class, CommandEnum.GETADDRESSES, true);
+	}
+
 	/**
 	 * Returns a list of balances of all addresses in this node’s wallet
 	 * 
@@ -172,14 +187,14 @@ public class QueryBuilderAddress extends QueryBuilderCommon {
 	 * 
 	 * @return Balances
 	 */
-	protected Object executeGetMultiBalances(String[] addresses, String[] assets) throws MultichainException {
+	protected MultiBalance executeGetMultiBalances(String[] addresses, String[] assets) throws MultichainException {
 		MultichainTestParameter.isNotNullOrEmpty("addresses", addresses);
 		MultichainTestParameter.arrayNotContainNullOrEmptyValues("addresses", addresses);
 		MultichainTestParameter.isNotNullOrEmpty("assets", assets);
 		MultichainTestParameter.arrayNotContainNullOrEmptyValues("assets", assets);
 
 		List<String> addressesList = new ArrayList<>(Arrays.asList(addresses));
-		return execute(CommandEnum.GETMULTIBALANCES, addressesList, formatJson(assets));
+		return executeMultiBalance(CommandEnum.GETMULTIBALANCES, addressesList, formatJson(assets));
 	}
 
 	/**
@@ -203,20 +218,25 @@ public class QueryBuilderAddress extends QueryBuilderCommon {
 	 * 
 	 * @return Balances
 	 */
-	protected Object executeGetMultiBalances(String[] addresses) throws MultichainException {
+	protected MultiBalance executeGetMultiBalances(String[] addresses) throws MultichainException {
 		MultichainTestParameter.isNotNullOrEmpty("addresses", addresses);
 		MultichainTestParameter.arrayNotContainNullOrEmptyValues("addresses", addresses);
 
 		List<String> addressesList = new ArrayList<>(Arrays.asList(addresses));
-		return execute(CommandEnum.GETMULTIBALANCES, addressesList);
+		return executeMultiBalance(CommandEnum.GETMULTIBALANCES, addressesList);
+	}
+
+	protected MultiBalance executeGetMultiBalances(String address) throws MultichainException {
+		return executeMultiBalance(CommandEnum.GETMULTIBALANCES, address);
 	}
 
-	protected Object executeGetMultiBalances(String address) throws MultichainException {
-		return execute(CommandEnum.GETMULTIBALANCES, address);
+	protected MultiBalance executeGetMultiBalances() throws MultichainException {
+		return executeMultiBalance(CommandEnum.GETMULTIBALANCES);
 	}
 
-	protected Object executeGetMultiBalances() throws MultichainException {
-		return execute(CommandEnum.GETMULTIBALANCES);
+	private MultiBalance executeMultiBalance(CommandEnum command, Object... parameters) throws MultichainException {
+		MultiBalance multiBalance = execute(MultiBalance.class, command, parameters);
+		return multiBalance != null ? multiBalance : new MultiBalance();
 	}
 
 	/**
@@ -318,9 +338,10 @@ public class QueryBuilderAddress extends QueryBuilderCommon {
 	 * @return information on address
 	 * @throws MultichainException
 	 */
-	protected Object executeValidateAddress(String address) throws MultichainException, MultichainException {
+	protected Address executeValidateAddress(String address) throws MultichainException, MultichainException {
 		MultichainTestParameter.isNotNullOrEmpty("address", address);
-		return execute(CommandEnum.VALIDATEADDRESS, address);
+		Address validAddress = execute(Address.class, CommandEnum.VALIDATEADDRESS, address);
+		return validAddress != null ? validAddress : new Address();
 	}
 
 }
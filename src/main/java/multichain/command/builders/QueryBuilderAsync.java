@@ -0,0 +1,169 @@
+/*
+ * Copyright (C) 2017 Worldline, Inc.
+ *
+ * MultiChainJavaAPI code distributed under the GPLv3 license, see COPYING file.
+ * https://github.com/SimplyUb/MultiChainJavaAPI/blob/master/LICENSE
+ *
+ */
+package multichain.command.builders;
+
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Future;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+import org.apache.http.HttpResponse;
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.concurrent.FutureCallback;
+import org.apache.http.entity.StringEntity;
+import org.apache.http.util.EntityUtils;
+
+import multichain.command.CallOptions;
+import multichain.command.MultichainException;
+
+/**
+ * Sends calls without blocking the caller, on the non-blocking client of the
+ * transport. Many calls can be in flight at once without one thread per call.
+ *
+ * The futures are completed by the I/O threads of the client : long work
+ * chained on them should use the *Async methods of {@link CompletableFuture}.
+ *
+ * @author Ub - H. MARTEAU
+ * @version 4.15
+ */
+public class QueryBuilderAsync extends QueryBuilderCommon {
+
+	/**
+	 * Sends a call.
+	 * 
+	 * @param formatter
+	 *            converts the raw result of the call, usually one of the
+	 *            formatters of multichain.object.formatters
+	 * @param command
+	 * @param parameters
+	 * @return the future result, completed exceptionally with a
+	 *         {@link MultichainException} on error, a
+	 *         {@link multichain.command.MultichainTimeoutException} once the
+	 *         {@link CallOptions} active when sent expire. Cancelling it aborts
+	 *         the HTTP request.
+	 */
+	protected <T> CompletableFuture<T> executeAsync(final Function<Object, T> formatter, CommandEnum command,
+			Object... parameters) {
+		final CompletableFuture<T> result = new CompletableFuture<T>();
+		if (getTransport() == null) {
+			result.completeExceptionally(new MultichainException("Initialization Problem",
+					"MultiChainCommand not initialized, please specify ip, port, user and pwd !"));
+			return result;
+		}
+
+		final Map<String, Object> call = prepareCall(command, parameters);
+		final String id = (String) call.get("id");
+		StringEntity rpcEntity;
+		try {
+			rpcEntity = new StringEntity(formatJson(call));
+		} catch (UnsupportedEncodingException e) {
+			result.completeExceptionally(new MultichainException(null, e.toString()));
+			return result;
+		}
+
+		final CallOptions options = CallOptions.current();
+		final Future<?>[] sent = new Future<?>[1];
+		FutureCallback<HttpResponse> callback = new FutureCallback<HttpResponse>() {
+			@Override
+			public void completed(HttpResponse response) {
+				detach();
+				try {
+					String rpcAnswer = EntityUtils.toString(response.getEntity());
+					result.complete(formatter.apply(parseAnswer(rpcAnswer, id)));
+				} catch (MultichainException e) {
+					result.completeExceptionally(e);
+				} catch (IOException e) {
+					result.completeExceptionally(CallOptions.toMultichainException(e, options));
+				} catch (RuntimeException e) {
+					result.completeExceptionally(new MultichainException(null, e.toString()));
+				}
+			}
+
+			@Override
+			public void failed(Exception e) {
+				detach();
+				result.completeExceptionally(CallOptions.toMultichainException(e, options));
+			}
+
+			@Override
+			public void cancelled() {
+				detach();
+				if (options != null && (options.isExpired() || options.isCancelled())) {
+					result.completeExceptionally(CallOptions.toMultichainException(new CancellationException(), options));
+				} else {
+					result.cancel(false);
+				}
+			}
+
+			private void detach() {
+				if (options != null) {
+					synchronized (sent) {
+						if (sent[0] != null) {
+							options.detach(sent[0]);
+						}
+					}
+				}
+			}
+		};
+
+		final Future<HttpResponse> request;
+		try {
+			if (getCluster() != null) {
+				request = getCluster().executeAsync(rpcEntity, callback, (String) call.get("method"));
+			} else {
+				HttpPost httppost = getTransport().createPost();
+				httppost.setEntity(rpcEntity);
+				request = getTransport().executeAsync(httppost, callback, (String) call.get("method"));
+			}
+			if (options != null) {
+				synchronized (sent) {
+					sent[0] = request;
+					options.attach(request);
+				}
+			}
+		} catch (MultichainException e) {
+			result.completeExceptionally(e);
+			return result;
+		}
+
+		result.whenComplete(new BiConsumer<T, Throwable>() {
+			@Override
+			public void accept(T value, Throwable throwable) {
+				if (throwable instanceof CancellationException) {
+					request.cancel(true);
+				}
+			}
+		});
+		return result;
+	}
+
+	/**
+	 * @param e
+	 *            the reason, usually a parameter refused before sending
+	 * @return a future already completed exceptionally with e
+	 */
+	protected static <T> CompletableFuture<T> failed(MultichainException e) {
+		CompletableFuture<T> result = new CompletableFuture<T>();
+		result.completeExceptionally(e);
+		return result;
+	}
+
+	/**
+	 * @param permissions
+	 *            combination of the flags of {@link QueryBuilderGrant}
+	 * @return the permissions as expected by grant, revoke and listpermissions
+	 */
+	protected static String formatPermissions(int permissions) {
+		return QueryBuilderGrant.formatPermissionsList(permissions);
+	}
+
+}
@@ -7,7 +7,10 @@
  */
 package multichain.command.builders;
 
+import java.util.List;
+
 import multichain.command.MultichainException;
+import multichain.object.BalanceAssetGeneral;
 
 /**
  * @author Ub - H. MARTEAU
@@ -34,8 +37,8 @@ public class QueryBuilderBalance extends QueryBuilderCommon {
 	 * @return a list of all the asset balances in this node’s wallet
 	 * @throws MultichainException
 	 */
-	protected Object executeGetTotalBalances() throws MultichainException {
-		return execute(CommandEnum.GETTOTALBALANCES);
+	protected List<BalanceAssetGeneral> executeGetTotalBalances() throws MultichainException {
+		return executeList(BalanceAssetGeneral.class, CommandEnum.GETTOTALBALANCES);
 	}
 
 	/**
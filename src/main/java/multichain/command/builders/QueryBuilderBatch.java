@@ -0,0 +1,146 @@
+/*
+ * Copyright (C) 2017 Worldline, Inc.
+ *
+ * MultiChainJavaAPI code distributed under the GPLv3 license, see COPYING file.
+ * https://github.com/SimplyUb/MultiChainJavaAPI/blob/master/LICENSE
+ *
+ */
+package multichain.command.builders;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+import multichain.command.MultichainException;
+import multichain.object.MultiChainRPCAnswer;
+
+/**
+ * Queues calls and sends them as JSON-RPC arrays, one HTTP round trip for up to
+ * {@link #getMaxBatchSize()} calls.
+ *
+ * @author Ub - H. MARTEAU
+ * @version 4.15
+ */
+public class QueryBuilderBatch extends QueryBuilderCommon {
+	private final List<Map<String, Object>> queuedCalls = new ArrayList<Map<String, Object>>();
+	private final List<BatchResult<?>> queuedResults = new ArrayList<BatchResult<?>>();
+	private int maxBatchSize = 1000;
+
+	/**
+	 * Adds a call to the batch.
+	 * 
+	 * @param formatter
+	 *            converts the raw result of the call, usually one of the
+	 *            formatters of multichain.object.formatters
+	 * @param command
+	 * @param parameters
+	 * @return the result, filled by {@link #executeQueued()}
+	 */
+	protected <T> BatchResult<T> queue(Function<Object, T> formatter, CommandEnum command, Object... parameters) {
+		Map<String, Object> call = prepareCall(command, parameters);
+		BatchResult<T> result = new BatchResult<T>((String) call.get("id"), (String) call.get("method"), formatter);
+		synchronized (queuedCalls) {
+			queuedCalls.add(call);
+			queuedResults.add(result);
+		}
+		return result;
+	}
+
+	/**
+	 * Sends every queued call and fills their results. The queue is emptied, so
+	 * the batch can be reused.
+	 * 
+	 * @return the number of calls sent
+	 * @throws MultichainException
+	 *             if a whole HTTP request failed ; the results of its calls are
+	 *             failed with the same exception
+	 */
+	protected int executeQueued() throws MultichainException {
+		List<Map<String, Object>> calls;
+		List<BatchResult<?>> results;
+		synchronized (queuedCalls) {
+			calls = new ArrayList<Map<String, Object>>(queuedCalls);
+			results = new ArrayList<BatchResult<?>>(queuedResults);
+			queuedCalls.clear();
+			queuedResults.clear();
+		}
+
+		MultichainException firstException = null;
+		for (int start = 0; start < calls.size(); start += maxBatchSize) {
+			int end = Math.min(start + maxBatchSize, calls.size());
+			try {
+				Map<String, MultiChainRPCAnswer> answers = executeBatch(calls.subList(start, end));
+				for (BatchResult<?> result : results.subList(start, end)) {
+					MultiChainRPCAnswer answer = answers.get(result.getId());
+					if (answer == null) {
+						result.fail(new MultichainException("id :" + result.getId(), "no answer in batch"));
+					} else {
+						try {
+							result.complete(getResult(answer));
+						} catch (MultichainException e) {
+							result.fail(e);
+						}
+					}
+				}
+			} catch (MultichainException e) {
+				for (BatchResult<?> result : results.subList(start, end)) {
+					result.fail(e);
+				}
+				if (firstException == null) {
+					firstException = e;
+				}
+			}
+		}
+
+		if (firstException != null) {
+			throw firstException;
+		}
+		return calls.size();
+	}
+
+	/**
+	 * Drops the queued calls without sending them ; their results are failed.
+	 * 
+	 * @return the number of calls dropped
+	 */
+	public int clearQueued() {
+		List<BatchResult<?>> results;
+		synchronized (queuedCalls) {
+			results = new ArrayList<BatchResult<?>>(queuedResults);
+			queuedCalls.clear();
+			queuedResults.clear();
+		}
+		for (BatchResult<?> result : results) {
+			result.fail(new MultichainException("id :" + result.getId(), "dropped before being sent"));
+		}
+		return results.size();
+	}
+
+	/**
+	 * @return the number of calls waiting to be sent
+	 */
+	public int getQueuedCount() {
+		synchronized (queuedCalls) {
+			return queuedCalls.size();
+		}
+	}
+
+	/**
+	 * @return the maximum number of calls sent in one HTTP request
+	 */
+	public int getMaxBatchSize() {
+		return maxBatchSize;
+	}
+
+	/**
+	 * @param maxBatchSize
+	 *            the maxBatchSize to set, positive
+	 */
+	public void setMaxBatchSize(int maxBatchSize) {
+		if (maxBatchSize <= 0) {
+			throw new IllegalArgumentException("maxBatchSize must be positive");
+		}
+		this.maxBatchSize = maxBatchSize;
+	}
+}
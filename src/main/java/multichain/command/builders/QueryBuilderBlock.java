@@ -7,7 +7,11 @@
  */
 package multichain.command.builders;
 
+import java.util.List;
+
 import multichain.command.MultichainException;
+import multichain.command.tools.MultichainTestParameter;
+import multichain.object.Block;
 
 /**
  * @author Ub - H. MARTEAU
@@ -75,6 +79,19 @@ public class QueryBuilderBlock extends QueryBuilderCommon {
 		return execute(CommandEnum.GETBLOCK, hash, verbose);
 	}
 
+	/**
+	 * {@link #executeGetBlock(String, boolean)} with verbose, decoded straight
+	 * into a Block
+	 * 
+	 * @param hashOrHeight
+	 * @return the block, empty if the node returned null
+	 * @throws MultichainException
+	 */
+	protected Block executeGetBlockDetail(String hashOrHeight) throws MultichainException {
+		Block block = execute(Block.class, CommandEnum.GETBLOCK, hashOrHeight, true);
+		return block != null ? block : new Block();
+	}
+
         /****
          * return blockList object for block identified by string with form like 12-13
          * @param blockidentifiers
@@ -82,9 +99,25 @@ public class QueryBuilderBlock extends QueryBuilderCommon {
          * @return Object
          * @throws MultichainException 
          */
-        protected Object executeListBlocks(String blockidentifiers,boolean verbose) throws MultichainException{
-            return execute(CommandEnum.LISTBLOCKS,blockidentifiers,verbose);
+        protected List<Block> executeListBlocks(String blockidentifiers,boolean verbose) throws MultichainException{
+            return executeList(Block.class,CommandEnum.LISTBLOCKS,blockidentifiers,verbose);
         }
+
+	/**
+	 * {@link #executeListBlocks(String, boolean)} with blocks decoded while the
+	 * answer is read
+	 *
+	 * @param blockidentifiers
+	 * @param verbose
+	 * @return the blocks, to be read until the end or closed
+	 * @throws MultichainException
+	 */
+	protected RpcResultIterator<Block> executeListBlocksIterator(String blockidentifiers, boolean verbose)
+			throws MultichainException {
+		MultichainTestParameter.isNotNullOrEmpty("blockidentifiers", blockidentifiers);
+
+		return executeStreaming(Block.class, CommandEnum.LISTBLOCKS, blockidentifiers, verbose);
+	}
 	/**
 	 * getblock "hash/height" ( verbose )
 	 * 
@@ -161,7 +194,7 @@ public class QueryBuilderBlock extends QueryBuilderCommon {
 	 * @throws MultichainException
 	 */
 	protected Object executeGetBlockHash(long index) throws MultichainException {
-		return execute(CommandEnum.GETBESTBLOCKHASH, index);
+		return execute(CommandEnum.GETBLOCKHASH, index);
 	}
 
 }
@@ -8,7 +8,9 @@
 package multichain.command.builders;
 
 import java.io.IOException;
+import java.io.InputStreamReader;
 import java.io.UnsupportedEncodingException;
+import java.lang.reflect.Type;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -16,24 +18,25 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
 import org.apache.http.HttpEntity;
-import org.apache.http.auth.AuthScope;
-import org.apache.http.auth.UsernamePasswordCredentials;
 import org.apache.http.client.ClientProtocolException;
-import org.apache.http.client.CredentialsProvider;
 import org.apache.http.client.methods.CloseableHttpResponse;
 import org.apache.http.client.methods.HttpPost;
 import org.apache.http.entity.StringEntity;
-import org.apache.http.impl.client.BasicCredentialsProvider;
-import org.apache.http.impl.client.CloseableHttpClient;
-import org.apache.http.impl.client.HttpClientBuilder;
 import org.apache.http.util.EntityUtils;
 
 import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
 import com.google.gson.internal.LinkedTreeMap;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
 
+import multichain.command.CallOptions;
+import multichain.command.MultiChainCluster;
+import multichain.command.MultiChainTransport;
 import multichain.command.MultichainException;
 import multichain.command.RuntimeParameters;
 import multichain.object.MultiChainRPCAnswer;
@@ -45,8 +48,10 @@ import multichain.object.formatters.GsonFormatters;
  */
 abstract class QueryBuilderCommon extends GsonFormatters {
 
-	private CloseableHttpClient httpclient = null;
-	private HttpPost httppost = null;
+	private static final Logger LOGGER = Logger.getLogger(QueryBuilderCommon.class.getName());
+
+	private MultiChainTransport transport = null;
+	private MultiChainCluster cluster = null;
 	private RuntimeParameters queryParameters = null;
 
 	protected enum CommandEnum {
@@ -82,6 +87,7 @@ abstract class QueryBuilderCommon extends GsonFormatters {
 								GETMULTIBALANCES,
 								GETNEWADDRESS,
 								GETRAWCHANGEADDRESS,
+								GETRAWMEMPOOL,
 								GETPEERINFO,
 								GETRAWTRANSACTION,
 								GETSTREAMITEM,
@@ -148,18 +154,51 @@ abstract class QueryBuilderCommon extends GsonFormatters {
 	}
 
 	protected void initialize(String ip, String port, String login, String password, RuntimeParameters queryParameter) {
-		httppost = new HttpPost("http://" + ip + ":" + port);
+		initialize(new MultiChainTransport(ip, port, login, password), queryParameter);
+	}
 
-		CredentialsProvider provider = new BasicCredentialsProvider();
-		UsernamePasswordCredentials credentials = new UsernamePasswordCredentials(login, password);
-		provider.setCredentials(AuthScope.ANY, credentials);
+	/**
+	 * Initialize the command on a transport which can be shared with other
+	 * commands.
+	 * 
+	 * @param transport
+	 * @param queryParameter
+	 */
+	protected void initialize(MultiChainTransport transport, RuntimeParameters queryParameter) {
+		this.transport = transport;
 		queryParameters = queryParameter;
+	}
 
-		httpclient = HttpClientBuilder.create().setDefaultCredentialsProvider(provider).build();
+	/**
+	 * Initialize the command on several nodes, see {@link MultiChainCluster}.
+	 * 
+	 * @param cluster
+	 * @param queryParameter
+	 */
+	protected void initialize(MultiChainCluster cluster, RuntimeParameters queryParameter) {
+		this.cluster = cluster;
+		this.transport = cluster.getWriteTransport();
+		queryParameters = queryParameter;
+	}
 
+	/**
+	 * @return the transport used by the command, the one of the write node on
+	 *         a cluster
+	 */
+	public MultiChainTransport getTransport() {
+		return transport;
+	}
+
+	/**
+	 * @return the cluster used by the command, null on a single node
+	 */
+	public MultiChainCluster getCluster() {
+		return cluster;
 	}
 	
 	/**
+	 * The command may be shared by several threads : each call works on its own
+	 * request object.
 	 *
 	 * @param command
 	 * @param parameters
@@ -174,20 +213,20 @@ abstract class QueryBuilderCommon extends GsonFormatters {
 	 */
 	protected Object execute(CommandEnum command, Object... parameters) throws MultichainException {
 
-		if (httpclient != null && httppost != null) {
+		if (transport != null) {
 			try {
 				// Generate Mapping of calling arguments
 				Map<String, Object> entityValues = prepareMap(this.queryParameters, command, parameters);
-				// Generate the entity and initialize request
+				// Generate the entity
 				StringEntity rpcEntity = prepareRpcEntity(entityValues);
-				httppost.setEntity(rpcEntity);
 
 				// Execute the request and get the answer
-				return executeRequest();
+				return parseAnswer(sendRequest(rpcEntity, (String) entityValues.get("method")),
+						(String) entityValues.get("id"));
 
 			} catch (IOException e) {
-				e.printStackTrace();
-				throw new MultichainException(null, e.toString());
+				LOGGER.log(Level.FINE, "call failed", e);
+				throw CallOptions.toMultichainException(e, CallOptions.current());
 			}
 		} else {
 			throw new MultichainException("Initialization Problem",
@@ -198,25 +237,183 @@ abstract class QueryBuilderCommon extends GsonFormatters {
 	
 
 
+	/**
+	 * {@link #execute(CommandEnum, Object...)} with the result decoded straight
+	 * into resultType while the answer is read : no intermediate maps, no String
+	 * copy of the answer.
+	 *
+	 * @param resultType
+	 *            type of the result, e.g. new TypeToken&lt;List&lt;Block&gt;&gt;() {}
+	 * @param command
+	 * @param parameters
+	 * @return the result, null if the node returned null
+	 * @throws MultichainException
+	 */
+	protected <T> T execute(TypeToken<T> resultType, CommandEnum command, Object... parameters)
+			throws MultichainException {
+		if (transport == null) {
+			throw new MultichainException("Initialization Problem",
+					"MultiChainCommand not initialized, please specify ip, port, user and pwd !");
+		}
+
+		CloseableHttpResponse response = null;
+		try {
+			Map<String, Object> entityValues = prepareMap(this.queryParameters, command, parameters);
+			response = send(prepareRpcEntity(entityValues), (String) entityValues.get("method"));
+
+			HttpEntity entity = response.getEntity();
+			T result = readAnswer(
+					new JsonReader(new InputStreamReader(entity.getContent(), StandardCharsets.UTF_8)),
+					resultType.getType(), (String) entityValues.get("id"));
+			EntityUtils.consume(entity);
+			return result;
+		} catch (IOException e) {
+			LOGGER.log(Level.FINE, "call failed", e);
+			throw CallOptions.toMultichainException(e, CallOptions.current());
+		} catch (RuntimeException e) {
+			throw new MultichainException(null, e.toString());
+		} finally {
+			if (response != null) {
+				try {
+					response.close();
+				} catch (IOException e) {
+					// the connection is discarded
+				}
+			}
+		}
+	}
+
+	/**
+	 * {@link #execute(TypeToken, CommandEnum, Object...)} for a class
+	 *
+	 * @param resultClass
+	 * @param command
+	 * @param parameters
+	 * @return the result, null if the node returned null
+	 * @throws MultichainException
+	 */
+	protected <T> T execute(Class<T> resultClass, CommandEnum command, Object... parameters)
+			throws MultichainException {
+		return execute(TypeToken.get(resultClass), command, parameters);
+	}
+
+	/**
+	 * {@link #execute(TypeToken, CommandEnum, Object...)} for an array result
+	 *
+	 * @param itemClass
+	 * @param command
+	 * @param parameters
+	 * @return the items, empty if the node returned null
+	 * @throws MultichainException
+	 */
+	@SuppressWarnings("unchecked")
+	protected <T> List<T> executeList(Class<T> itemClass, CommandEnum command, Object... parameters)
+			throws MultichainException {
+		return orEmpty((List<T>) execute(TypeToken.getParameterized(List.class, itemClass), command, parameters));
+	}
+
+	/**
+	 * @param list
+	 * @return the list, or an empty list if the node returned null
+	 */
+	protected static <T> List<T> orEmpty(List<T> list) {
+		return list != null ? list : new ArrayList<T>();
+	}
+
+	private <T> T readAnswer(JsonReader reader, Type resultType, String id) throws IOException, MultichainException {
+		T result = null;
+		MultiChainRPCAnswer multiChainRPCAnswer = null;
+
+		reader.beginObject();
+		while (reader.hasNext()) {
+			String name = reader.nextName();
+			if (multiChainRPCAnswer == null) {
+				multiChainRPCAnswer = new MultiChainRPCAnswer();
+			}
+			if (reader.peek() == JsonToken.NULL) {
+				reader.nextNull();
+			} else if ("result".equals(name)) {
+				result = GSON.fromJson(reader, resultType);
+			} else if ("error".equals(name)) {
+				multiChainRPCAnswer.setError(GSON.<LinkedTreeMap<String, Object>> fromJson(reader, LinkedTreeMap.class));
+			} else if ("id".equals(name)) {
+				String answerId = reader.nextString();
+				if (!answerId.equals(id)) {
+					throw new MultichainException("id :" + answerId, "answer does not match request id " + id);
+				}
+			} else {
+				reader.skipValue();
+			}
+		}
+		reader.endObject();
+
+		// Raises the error of the answer, if any
+		getResult(multiChainRPCAnswer);
+		return result;
+	}
+
 	protected StringEntity prepareRpcEntity(Map<String, Object> entityValues) throws UnsupportedEncodingException {
 		return new StringEntity(formatJson(entityValues));
 	}
 
-	private Object executeRequest() throws IOException, ClientProtocolException, MultichainException {
-		CloseableHttpResponse response = httpclient.execute(httppost);
+	/**
+	 * @param rpcAnswer
+	 *            the body of the node answer
+	 * @param id
+	 *            the id of the request
+	 * @return the result of the answer
+	 * @throws MultichainException
+	 *             if the answer holds an error or does not match the request
+	 */
+	protected Object parseAnswer(String rpcAnswer, String id) throws MultichainException {
+		final Gson gson = GSON;
+		final MultiChainRPCAnswer multiChainRPCAnswer = gson.fromJson(rpcAnswer, MultiChainRPCAnswer.class);
+
+		if (multiChainRPCAnswer != null && multiChainRPCAnswer.getId() != null
+				&& !multiChainRPCAnswer.getId().equals(id)) {
+			throw new MultichainException("id :" + multiChainRPCAnswer.getId(),
+					"answer does not match request id " + id);
+		}
+		return getResult(multiChainRPCAnswer);
+	}
+
+	/**
+	 * Sends the request to the node, or to the node of the cluster chosen for
+	 * its methods.
+	 */
+	private CloseableHttpResponse send(HttpEntity rpcEntity, String... methods)
+			throws IOException, ClientProtocolException, MultichainException {
+		if (cluster != null) {
+			return cluster.execute(rpcEntity, methods);
+		}
+		HttpPost httppost = transport.createPost();
+		httppost.setEntity(rpcEntity);
+		return transport.execute(httppost, methods);
+	}
+
+	private String sendRequest(HttpEntity rpcEntity, String... methods)
+			throws IOException, ClientProtocolException, MultichainException {
+		CloseableHttpResponse response = send(rpcEntity, methods);
 //		int statusCode = response.getStatusLine().getStatusCode();
 //		if (statusCode >= 400) {
 //			EntityUtils.consume(response.getEntity());
 //			throw new MultichainException("code :" + statusCode, "message : " + response.getStatusLine().getReasonPhrase());
 //		}
-		HttpEntity entity = response.getEntity();
-
-		String rpcAnswer = EntityUtils.toString(entity);
-		response.close();
-
-		final Gson gson = new GsonBuilder().create();
-		final MultiChainRPCAnswer multiChainRPCAnswer = gson.fromJson(rpcAnswer, MultiChainRPCAnswer.class);
+		try {
+			HttpEntity entity = response.getEntity();
+			return EntityUtils.toString(entity);
+		} finally {
+			response.close();
+		}
+	}
 
+	/**
+	 * @param multiChainRPCAnswer
+	 * @return the result of the answer
+	 * @throws MultichainException
+	 *             if the answer holds an error
+	 */
+	protected Object getResult(MultiChainRPCAnswer multiChainRPCAnswer) throws MultichainException {
 		if (multiChainRPCAnswer != null && multiChainRPCAnswer.getError() == null) {
 			return multiChainRPCAnswer.getResult();
 		} else if (multiChainRPCAnswer != null && multiChainRPCAnswer.getError() != null) {
@@ -227,6 +424,127 @@ abstract class QueryBuilderCommon extends GsonFormatters {
 		}
 	}
 
+	/**
+	 * @param command
+	 * @param parameters
+	 * @return the mapping of one call, to be sent with
+	 *         {@link #executeBatch(List)}
+	 */
+	protected Map<String, Object> prepareCall(CommandEnum command, Object... parameters) {
+		return prepareMap(this.queryParameters, command, parameters);
+	}
+
+	/**
+	 * Sends several calls in one HTTP request, as a JSON-RPC array.
+	 * 
+	 * An error on one call does not fail the batch : it is carried by the answer
+	 * of this call, see {@link #getResult(MultiChainRPCAnswer)}.
+	 * 
+	 * @param calls
+	 *            mappings built by {@link #prepareCall(CommandEnum, Object...)}
+	 * @return the answers by request id
+	 * @throws MultichainException
+	 *             if the whole batch fails
+	 */
+	protected Map<String, MultiChainRPCAnswer> executeBatch(List<Map<String, Object>> calls)
+			throws MultichainException {
+		if (transport == null) {
+			throw new MultichainException("Initialization Problem",
+					"MultiChainCommand not initialized, please specify ip, port, user and pwd !");
+		}
+
+		String rpcAnswer;
+		try {
+			String[] methods = new String[calls.size()];
+			for (int i = 0; i < methods.length; i++) {
+				methods[i] = (String) calls.get(i).get("method");
+			}
+			rpcAnswer = sendRequest(new StringEntity(formatJson(calls)), methods);
+		} catch (IOException e) {
+			LOGGER.log(Level.FINE, "call failed", e);
+			throw CallOptions.toMultichainException(e, CallOptions.current());
+		}
+
+		final Gson gson = GSON;
+		if (!rpcAnswer.trim().startsWith("[")) {
+			// The node refused the whole batch
+			getResult(gson.fromJson(rpcAnswer, MultiChainRPCAnswer.class));
+			throw new MultichainException(null, "General RPC Exceution Technical Error");
+		}
+
+		final MultiChainRPCAnswer[] multiChainRPCAnswers = gson.fromJson(rpcAnswer, MultiChainRPCAnswer[].class);
+		Map<String, MultiChainRPCAnswer> answers = new HashMap<String, MultiChainRPCAnswer>();
+		for (MultiChainRPCAnswer multiChainRPCAnswer : multiChainRPCAnswers) {
+			if (multiChainRPCAnswer != null && multiChainRPCAnswer.getId() != null) {
+				answers.put(multiChainRPCAnswer.getId(), multiChainRPCAnswer);
+			}
+		}
+		return answers;
+	}
+
+	/**
+	 * Sends a call whose result is an array, and decodes the items of the array
+	 * while they are read from the connection, without buffering the answer.
+	 * 
+	 * The error of the answer, if any, is raised before the first item. The
+	 * request has its own connection, so the id of the answer is not checked.
+	 * 
+	 * @param itemClass
+	 *            class the items are decoded into
+	 * @param command
+	 * @param parameters
+	 * @return the items, to be read until the end or closed
+	 * @throws MultichainException
+	 *             if the call fails or its result is not an array
+	 */
+	protected <T> RpcResultIterator<T> executeStreaming(Class<T> itemClass, CommandEnum command, Object... parameters)
+			throws MultichainException {
+		if (transport == null) {
+			throw new MultichainException("Initialization Problem",
+					"MultiChainCommand not initialized, please specify ip, port, user and pwd !");
+		}
+
+		CloseableHttpResponse response = null;
+		boolean streaming = false;
+		try {
+			Map<String, Object> entityValues = prepareMap(this.queryParameters, command, parameters);
+			response = send(prepareRpcEntity(entityValues), (String) entityValues.get("method"));
+
+			final Gson gson = GSON;
+			JsonReader reader = new JsonReader(
+					new InputStreamReader(response.getEntity().getContent(), StandardCharsets.UTF_8));
+			reader.beginObject();
+			while (reader.hasNext()) {
+				String name = reader.nextName();
+				if ("result".equals(name) && reader.peek() == JsonToken.BEGIN_ARRAY) {
+					reader.beginArray();
+					streaming = true;
+					return new RpcResultIterator<T>(reader, response, gson, itemClass);
+				} else if ("error".equals(name) && reader.peek() != JsonToken.NULL) {
+					MultiChainRPCAnswer multiChainRPCAnswer = new MultiChainRPCAnswer();
+					multiChainRPCAnswer.setError(gson.<LinkedTreeMap<String, Object>> fromJson(reader, LinkedTreeMap.class));
+					getResult(multiChainRPCAnswer);
+				} else {
+					reader.skipValue();
+				}
+			}
+			throw new MultichainException(null, "General RPC Exceution Technical Error");
+		} catch (IOException e) {
+			LOGGER.log(Level.FINE, "call failed", e);
+			throw CallOptions.toMultichainException(e, CallOptions.current());
+		} catch (RuntimeException e) {
+			throw new MultichainException(null, e.toString());
+		} finally {
+			if (response != null && !streaming) {
+				try {
+					response.close();
+				} catch (IOException e) {
+					// the connection is discarded
+				}
+			}
+		}
+	}
+
 	private Map<String, Object> prepareMap(RuntimeParameters queryparameter, CommandEnum command, Object... parameters) {
 		Map<String, Object> entityValues = new HashMap<String, Object>();
 		entityValues.put("id", UUID.randomUUID().toString());
@@ -7,8 +7,11 @@
  */
 package multichain.command.builders;
 
+import java.util.List;
+
 import multichain.command.MultichainException;
 import multichain.command.tools.MultichainTestParameter;
+import multichain.object.Permission;
 
 /**
  * @author Ub - H. MARTEAU & Jagrut KOSTI
@@ -37,7 +40,7 @@ public class QueryBuilderGrant extends QueryBuilderCommon {
 	private static String ADMIN_STR = "admin";
 	private static String CREATE_STR = "create";
 
-	private static String formatPermissionsList(int permissions) {
+	static String formatPermissionsList(int permissions) {
 		String permissionsFormated = "";
 
 		if ((permissions & CONNECT) > 0) {
@@ -232,18 +235,19 @@ public class QueryBuilderGrant extends QueryBuilderCommon {
 	 * @return a list of all permissions currently granted to addresses.
 	 * @throws MultichainException
 	 */
-	protected Object executeListPermissions(int permissions, String address, boolean verbose)
+	protected List<Permission> executeListPermissions(int permissions, String address, boolean verbose)
 			throws MultichainException {
 		String permissionsFormated = formatPermissionsList(permissions);
 		System.out.println("*************************" + permissionsFormated);
-		Object listPermissions = null;
+		List<Permission> listPermissions = null;
 
 		if (permissionsFormated == null || "".equals(permissionsFormated)) {
-			listPermissions = execute(CommandEnum.LISTPERMISSIONS, "all");
+			listPermissions = executeList(Permission.class, CommandEnum.LISTPERMISSIONS, "all");
 		} else if (address == null || "".equals(address)) {
-			listPermissions = execute(CommandEnum.LISTPERMISSIONS, permissionsFormated);
+			listPermissions = executeList(Permission.class, CommandEnum.LISTPERMISSIONS, permissionsFormated);
 		} else {
-			listPermissions = execute(CommandEnum.LISTPERMISSIONS, permissionsFormated, address, verbose);
+			listPermissions = executeList(Permission.class, CommandEnum.LISTPERMISSIONS, permissionsFormated, address,
+					verbose);
 		}
 
 		return listPermissions;
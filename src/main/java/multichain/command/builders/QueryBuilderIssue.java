@@ -12,6 +12,7 @@ import java.util.Map;
 
 import multichain.command.MultichainException;
 import multichain.command.tools.MultichainTestParameter;
+import multichain.object.BalanceAsset;
 import multichain.object.formatters.CustomParamFormatter;
 import multichain.object.queryobjects.AssetParams;
 import multichain.object.queryobjects.CustomParamString;
@@ -44,8 +45,8 @@ public class QueryBuilderIssue extends QueryBuilderCommon {
 	 * @throws MultichainException
 	 * 
 	 */
-	protected Object executeGetAssetBalances() throws MultichainException {
-		return execute(CommandEnum.GETASSETBALANCES);
+	protected List<BalanceAsset> executeGetAssetBalances() throws MultichainException {
+		return executeList(BalanceAsset.class, CommandEnum.GETASSETBALANCES);
 	}
 
 	/**
@@ -381,14 +382,28 @@ public class QueryBuilderIssue extends QueryBuilderCommon {
 	 *         asset name, ref or issuance txid
 	 * @throws MultichainException
 	 */
-	protected Object executeListAssets(String asset, boolean verbose) throws MultichainException {
+	protected List<BalanceAsset> executeListAssets(String asset, boolean verbose) throws MultichainException {
 		if (asset != null && !"".equals(asset)) {
-			return execute(CommandEnum.LISTASSETS, asset, verbose);
+			return executeList(BalanceAsset.class, CommandEnum.LISTASSETS, asset, verbose);
 		} else {
-			return execute(CommandEnum.LISTASSETS);
+			return executeList(BalanceAsset.class, CommandEnum.LISTASSETS);
 		}
 	}
 
+	/**
+	 * listassets "*" verbose count start
+	 * 
+	 * @param verbose
+	 * @param count
+	 * @param start
+	 * @return the assets from start, decoded straight from the answer
+	 * @throws MultichainException
+	 */
+	protected List<BalanceAsset> executeListAssets(boolean verbose, int count, long start)
+			throws MultichainException {
+		return executeList(BalanceAsset.class, CommandEnum.LISTASSETS, "*", verbose, count, start);
+	}
+
 	/**
 	 * Sends assets to address, returning the txid.
 	 * 
@@ -16,6 +16,7 @@ import com.google.gson.*;
 import multichain.command.MultichainException;
 import multichain.command.tools.MultichainTestParameter;
 import multichain.object.AddressBalance;
+import multichain.object.TransactionRAW;
 import multichain.object.queryobjects.RawParam;
 import multichain.object.queryobjects.TxIdVout;
 
@@ -349,9 +350,10 @@ public class QueryBuilderRAWTransaction extends QueryBuilderCommon {
      * @return
      * @throws MultichainException
      */
-    protected Object executeDecodeRawTransaction(String hex) throws MultichainException {
+    protected TransactionRAW executeDecodeRawTransaction(String hex) throws MultichainException {
         MultichainTestParameter.isNotNullOrEmpty("hex", hex);
-        return execute(CommandEnum.DECODERAWTRANSACTION, hex);
+        TransactionRAW transactionRAW = execute(TransactionRAW.class, CommandEnum.DECODERAWTRANSACTION, hex);
+        return transactionRAW != null ? transactionRAW : new TransactionRAW();
     }
 
     /**
@@ -439,6 +441,19 @@ public class QueryBuilderRAWTransaction extends QueryBuilderCommon {
         return execute(CommandEnum.GETRAWTRANSACTION, txid, verbose);
     }
 
+    /**
+     * {@link #executeGetRawTransaction(String, int)} in verbose mode, decoded
+     * straight into TransactionRAW
+     *
+     * @param txid
+     * @return
+     * @throws MultichainException
+     */
+    protected TransactionRAW executeGetRawTransactionDetail(String txid) throws MultichainException {
+        TransactionRAW transactionRAW = execute(TransactionRAW.class, CommandEnum.GETRAWTRANSACTION, txid, 1);
+        return transactionRAW != null ? transactionRAW : new TransactionRAW();
+    }
+
     /**
      * sendrawtransaction "hexstring" ( allowhighfees )
      * <p>
@@ -7,14 +7,20 @@
  */
 package multichain.command.builders;
 
+import java.util.List;
+
 import multichain.command.MultichainException;
 import multichain.command.tools.MultichainTestParameter;
+import multichain.object.Stream;
+import multichain.object.StreamKey;
+import multichain.object.StreamKeyItem;
 
 /**
  * @author Ub - H. MARTEAU & Jagrut KOSTI
  * @version 4.13
  */
 public class QueryBuilderStream extends QueryBuilderCommon {
+
 	/**
 	 * create stream "stream-name" open ( custom-fields )
 	 * 
@@ -89,14 +95,14 @@ public class QueryBuilderStream extends QueryBuilderCommon {
 	 * @return
 	 * @throws MultichainException
 	 */
-	protected Object executeListStreams(String streamName, boolean verbose, int count, int start)
+	protected List<Stream> executeListStreams(String streamName, boolean verbose, int count, int start)
 			throws MultichainException {
 		if (streamName == null || streamName.isEmpty()) {
 			streamName = "*";
 		}
 		MultichainTestParameter.valueIsPositive("count", count);
 
-		return execute(CommandEnum.LISTSTREAMS, streamName, verbose, count, start);
+		return executeList(Stream.class, CommandEnum.LISTSTREAMS, streamName, verbose, count, start);
 	}
 
 	/**
@@ -109,13 +115,14 @@ public class QueryBuilderStream extends QueryBuilderCommon {
 	 * @return
 	 * @throws MultichainException
 	 */
-	protected Object executeListStreams(String streamName, boolean verbose, int count) throws MultichainException {
+	protected List<Stream> executeListStreams(String streamName, boolean verbose, int count)
+			throws MultichainException {
 		if (streamName == null || streamName.isEmpty()) {
 			streamName = "*";
 		}
 		MultichainTestParameter.valueIsPositive("count", count);
 
-		return execute(CommandEnum.LISTSTREAMS, streamName, verbose, count);
+		return executeList(Stream.class, CommandEnum.LISTSTREAMS, streamName, verbose, count);
 
 	}
 
@@ -147,13 +154,13 @@ public class QueryBuilderStream extends QueryBuilderCommon {
 	 * @return
 	 * @throws MultichainException
 	 */
-	protected Object executeListStreamKeys(String streamName, String key, boolean verbose, int count, int start)
-			throws MultichainException {
+	protected List<StreamKey> executeListStreamKeys(String streamName, String key, boolean verbose, int count,
+			int start) throws MultichainException {
 		MultichainTestParameter.isNotNullOrEmpty("streamName", streamName);
 		MultichainTestParameter.isNotNullOrEmpty("key", key);
 		MultichainTestParameter.valueIsPositive("count", count);
 
-		return execute(CommandEnum.LISTSTREAMKEYS, streamName, key, verbose, count, start);
+		return executeList(StreamKey.class, CommandEnum.LISTSTREAMKEYS, streamName, key, verbose, count, start);
 	}
 
 	/**
@@ -168,13 +175,13 @@ public class QueryBuilderStream extends QueryBuilderCommon {
 	 * @return
 	 * @throws MultichainException
 	 */
-	protected Object executeListStreamKeys(String streamName, String key, boolean verbose, int count)
+	protected List<StreamKey> executeListStreamKeys(String streamName, String key, boolean verbose, int count)
 			throws MultichainException {
 		MultichainTestParameter.isNotNullOrEmpty("streamName", streamName);
 		MultichainTestParameter.isNotNullOrEmpty("key", key);
 		MultichainTestParameter.valueIsPositive("count", count);
 
-		return execute(CommandEnum.LISTSTREAMKEYS, streamName, key, verbose, count);
+		return executeList(StreamKey.class, CommandEnum.LISTSTREAMKEYS, streamName, key, verbose, count);
 	}
 
 	/**
@@ -203,13 +210,36 @@ public class QueryBuilderStream extends QueryBuilderCommon {
 	 * @return
 	 * @throws MultichainException
 	 */
-	protected Object executeListStreamKeyItems(String streamName, String key, boolean verbose, int count, int start)
-			throws MultichainException {
+	protected List<StreamKeyItem> executeListStreamKeyItems(String streamName, String key, boolean verbose,
+			int count, int start) throws MultichainException {
 		MultichainTestParameter.isNotNullOrEmpty("streamName", streamName);
 		MultichainTestParameter.isNotNullOrEmpty("key", key);
 		MultichainTestParameter.valueIsPositive("count", count);
 
-		return execute(CommandEnum.LISTSTREAMKEYITEMS, streamName, key, verbose, count, start);
+		return executeList(StreamKeyItem.class, CommandEnum.LISTSTREAMKEYITEMS, streamName, key, verbose, count,
+				start);
+	}
+
+	/**
+	 * {@link #executeListStreamKeyItems(String, String, boolean, int, int)} with
+	 * items decoded while the answer is read
+	 *
+	 * @param streamName
+	 * @param key
+	 * @param verbose
+	 * @param count
+	 * @param start
+	 * @return the items, to be read until the end or closed
+	 * @throws MultichainException
+	 */
+	protected RpcResultIterator<StreamKeyItem> executeListStreamKeyItemsIterator(String streamName, String key,
+			boolean verbose, int count, int start) throws MultichainException {
+		MultichainTestParameter.isNotNullOrEmpty("streamName", streamName);
+		MultichainTestParameter.isNotNullOrEmpty("key", key);
+		MultichainTestParameter.valueIsPositive("count", count);
+
+		return executeStreaming(StreamKeyItem.class, CommandEnum.LISTSTREAMKEYITEMS, streamName, key, verbose, count,
+				start);
 	}
 
 	/**
@@ -238,13 +268,13 @@ public class QueryBuilderStream extends QueryBuilderCommon {
 	 * @return
 	 * @throws MultichainException
 	 */
-	protected Object executeListStreamKeyItems(String streamName, String key, boolean verbose, int count)
+	protected List<StreamKeyItem> executeListStreamKeyItems(String streamName, String key, boolean verbose, int count)
 			throws MultichainException {
 		MultichainTestParameter.isNotNullOrEmpty("streamName", streamName);
 		MultichainTestParameter.isNotNullOrEmpty("key", key);
 		MultichainTestParameter.valueIsPositive("count", count);
 
-		return execute(CommandEnum.LISTSTREAMKEYITEMS, streamName, key, verbose, count);
+		return executeList(StreamKeyItem.class, CommandEnum.LISTSTREAMKEYITEMS, streamName, key, verbose, count);
 	}
 
 	/**
@@ -271,12 +301,31 @@ public class QueryBuilderStream extends QueryBuilderCommon {
 	 * @return
 	 * @throws MultichainException
 	 */
-	protected Object executeListStreamItems(String streamName, boolean verbose, int count, int start)
+	protected List<StreamKeyItem> executeListStreamItems(String streamName, boolean verbose, int count, int start)
 			throws MultichainException {
 		MultichainTestParameter.isNotNullOrEmpty("streamName", streamName);
 		MultichainTestParameter.valueIsPositive("count", count);
 
-		return execute(CommandEnum.LISTSTREAMITEMS, streamName, verbose, count, start);
+		return executeList(StreamKeyItem.class, CommandEnum.LISTSTREAMITEMS, streamName, verbose, count, start);
+	}
+
+	/**
+	 * {@link #executeListStreamItems(String, boolean, int, int)} with items
+	 * decoded while the answer is read
+	 *
+	 * @param streamName
+	 * @param verbose
+	 * @param count
+	 * @param start
+	 * @return the items, to be read until the end or closed
+	 * @throws MultichainException
+	 */
+	protected RpcResultIterator<StreamKeyItem> executeListStreamItemsIterator(String streamName, boolean verbose,
+			int count, int start) throws MultichainException {
+		MultichainTestParameter.isNotNullOrEmpty("streamName", streamName);
+		MultichainTestParameter.valueIsPositive("count", count);
+
+		return executeStreaming(StreamKeyItem.class, CommandEnum.LISTSTREAMITEMS, streamName, verbose, count, start);
 	}
 
 	/**
@@ -302,12 +351,12 @@ public class QueryBuilderStream extends QueryBuilderCommon {
 	 * @return
 	 * @throws MultichainException
 	 */
-	protected Object executeListStreamItems(String streamName, boolean verbose, int count)
+	protected List<StreamKeyItem> executeListStreamItems(String streamName, boolean verbose, int count)
 			throws MultichainException {
 		MultichainTestParameter.isNotNullOrEmpty("streamName", streamName);
 		MultichainTestParameter.valueIsPositive("count", count);
 
-		return execute(CommandEnum.LISTSTREAMITEMS, streamName, verbose, count);
+		return executeList(StreamKeyItem.class, CommandEnum.LISTSTREAMITEMS, streamName, verbose, count);
 	}
 
 	/**
@@ -425,9 +474,9 @@ public class QueryBuilderStream extends QueryBuilderCommon {
          * @param localordering 
          * @return Object
          */
-        protected Object executeListStreamItems(String streamname,boolean verbose,int count,int start,boolean localordering) throws MultichainException{
+        protected List<StreamKeyItem> executeListStreamItems(String streamname,boolean verbose,int count,int start,boolean localordering) throws MultichainException{
             MultichainTestParameter.isNotNullOrEmpty("streamname", streamname);
-            return execute(CommandEnum.LISTSTREAMITEMS,streamname,verbose,count,start,localordering);
+            return executeList(StreamKeyItem.class,CommandEnum.LISTSTREAMITEMS,streamname,verbose,count,start,localordering);
         }
         /****
          * 
@@ -436,9 +485,9 @@ public class QueryBuilderStream extends QueryBuilderCommon {
          * @param verbose
          * @return 
          */
-        protected Object executeGetstreamitem(String streamname,String txid,boolean verbose) throws MultichainException{
+        protected StreamKeyItem executeGetstreamitem(String streamname,String txid,boolean verbose) throws MultichainException{
             MultichainTestParameter.isNotNullOrEmpty("streamname", streamname);
             MultichainTestParameter.isNotNullOrEmpty("txid", txid);
-            return execute(CommandEnum.GETSTREAMITEM,streamname,txid,verbose);
+            return execute(StreamKeyItem.class,CommandEnum.GETSTREAMITEM,streamname,txid,verbose);
         }
 }
\ No newline at end of file
@@ -4,6 +4,7 @@ import com.google.gson.*;
 import multichain.command.MultichainException;
 import multichain.command.tools.MultichainTestParameter;
 import multichain.object.BalanceAssetBase;
+import multichain.object.formatters.GsonRegistry;
 import multichain.object.formatters.HexFormatter;
 import org.apache.http.entity.StringEntity;
 
@@ -603,11 +604,15 @@ public class QueryBuilderWallet extends QueryBuilderCommon {
 		return execute(CommandEnum.SENDWITHDATAFROM, fromAddress, toAddress, simpleEntry, HexFormatter.toHex(metadata));
 	}
 
+	/**
+	 * Writes the requests with {@link SimpleEntryAdapter}, built once
+	 */
+	private static final Gson ENTITY_GSON = GsonRegistry.newBuilder()
+			.registerTypeAdapter(SimpleEntry.class, new SimpleEntryAdapter()).create();
+
 	@Override
 	protected StringEntity prepareRpcEntity(Map<String, Object> entityValues) throws UnsupportedEncodingException {
-		final GsonBuilder builder = new GsonBuilder();
-		builder.registerTypeAdapter(SimpleEntry.class, new SimpleEntryAdapter());
-		return new StringEntity(formatJsonWithCustomBuilder(entityValues, builder));
+		return new StringEntity(ENTITY_GSON.toJson(entityValues));
 	}
 
 	public static class SimpleEntryAdapter implements JsonSerializer<SimpleEntry> {
@@ -16,7 +16,7 @@ import java.util.Map;
 
 import org.apache.http.entity.StringEntity;
 
-import com.google.gson.GsonBuilder;
+import com.google.gson.Gson;
 import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
 import com.google.gson.JsonSerializationContext;
@@ -25,6 +25,11 @@ import com.google.gson.JsonSerializer;
 import multichain.command.MultichainException;
 import multichain.command.tools.MultichainTestParameter;
 import multichain.object.BalanceAssetGeneral;
+import multichain.object.Transaction;
+import multichain.object.TransactionWallet;
+import multichain.object.TransactionWalletDetailed;
+import multichain.object.TxOut;
+import multichain.object.formatters.GsonRegistry;
 import multichain.object.formatters.HexFormatter;
 
 /**
@@ -76,10 +81,11 @@ public class QueryBuilderWalletTransaction extends QueryBuilderCommon {
 	 * @return
 	 * @throws MultichainException
 	 */
-	protected Object executeGetAddressTransaction(String address, String txid, boolean verbose) throws MultichainException {
+	protected TransactionWallet executeGetAddressTransaction(String address, String txid, boolean verbose) throws MultichainException {
 		MultichainTestParameter.isNotNullOrEmpty("address", address);
 		MultichainTestParameter.isNotNullOrEmpty("txid", txid);
-		return execute(CommandEnum.GETADDRESSTRANSACTION, address, txid, verbose);
+		TransactionWallet transactionWallet = execute(TransactionWallet.class, CommandEnum.GETADDRESSTRANSACTION, address, txid, verbose);
+		return transactionWallet != null ? transactionWallet : new TransactionWallet();
 	}
 
 	/**
@@ -112,9 +118,10 @@ public class QueryBuilderWalletTransaction extends QueryBuilderCommon {
 	 * @return
 	 * @throws MultichainException
 	 */
-	protected Object executeGetTransaction(String txid, boolean includeWatchonly) throws MultichainException {
+	protected Transaction executeGetTransaction(String txid, boolean includeWatchonly) throws MultichainException {
 		MultichainTestParameter.isNotNullOrEmpty("txid", txid);
-		return execute(CommandEnum.GETTRANSACTION, txid, includeWatchonly);
+		Transaction transaction = execute(Transaction.class, CommandEnum.GETTRANSACTION, txid, includeWatchonly);
+		return transaction != null ? transaction : new Transaction();
 	}
 
 	/**
@@ -143,10 +150,11 @@ public class QueryBuilderWalletTransaction extends QueryBuilderCommon {
 	 * @return
 	 * @throws MultichainException
 	 */
-	protected Object executeGetTxOut(String txid, int vout, boolean includemempool) throws MultichainException {
+	protected TxOut executeGetTxOut(String txid, int vout, boolean includemempool) throws MultichainException {
 		MultichainTestParameter.isNotNullOrEmpty("txid", txid);
 		MultichainTestParameter.valueIsNotNegative("vout", vout);
-		return execute(CommandEnum.GETTXOUT, txid, vout, includemempool);
+		TxOut txOut = execute(TxOut.class, CommandEnum.GETTXOUT, txid, vout, includemempool);
+		return txOut != null ? txOut : new TxOut();
 	}
 
 	/**
@@ -195,8 +203,10 @@ public class QueryBuilderWalletTransaction extends QueryBuilderCommon {
 	 * @return
 	 * @throws MultichainException
 	 */
-	protected Object executeGetWalletTransaction(String txid, boolean includeWatchOnly, boolean verbose) throws MultichainException {
-		return execute(CommandEnum.GETWALLETTRANSACTION, txid, includeWatchOnly, verbose);
+	protected TransactionWalletDetailed executeGetWalletTransaction(String txid, boolean includeWatchOnly, boolean verbose) throws MultichainException {
+		TransactionWalletDetailed transactionWalletDetailed = execute(TransactionWalletDetailed.class,
+				CommandEnum.GETWALLETTRANSACTION, txid, includeWatchOnly, verbose);
+		return transactionWalletDetailed != null ? transactionWalletDetailed : new TransactionWalletDetailed();
 
 	}
 
@@ -242,6 +252,8 @@ public class QueryBuilderWalletTransaction extends QueryBuilderCommon {
 	 * address in this node’s wallet, including how they affected that address’s
 	 * balance.
 	 * 
+	 * @param transactionClass
+	 *            TransactionWallet or TransactionWalletDetailed
 	 * @param address
 	 * @param count
 	 * @param skip
@@ -249,11 +261,12 @@ public class QueryBuilderWalletTransaction extends QueryBuilderCommon {
 	 * @return
 	 * @throws MultichainException
 	 */
-	protected Object executeListAddressTransactions(String address, long count, long skip, boolean verbose) throws MultichainException {
+	protected <T> List<T> executeListAddressTransactions(Class<T> transactionClass, String address, long count,
+			long skip, boolean verbose) throws MultichainException {
 		MultichainTestParameter.isNotNullOrEmpty("address", address);
 		MultichainTestParameter.valueIsPositive("count", count);
 		MultichainTestParameter.valueIsNotNegative("skip", skip);
-		return execute(CommandEnum.LISTADDRESSTRANSACTIONS, address, count, skip, verbose);
+		return executeList(transactionClass, CommandEnum.LISTADDRESSTRANSACTIONS, address, count, skip, verbose);
 	}
 
 	/**
@@ -298,13 +311,17 @@ public class QueryBuilderWalletTransaction extends QueryBuilderCommon {
 	 * Lists information about the 10 most recent transactions in this node’s
 	 * wallet, including how they affected the node’s total balance.
 	 * 
+	 * @param transactionClass
+	 *            TransactionWallet or TransactionWalletDetailed
 	 * @return
 	 * @throws MultichainException
 	 */
-	protected Object executeListWalletTransaction(long count, long skip, boolean includeWatchonly, boolean verbose) throws MultichainException {
+	protected <T> List<T> executeListWalletTransaction(Class<T> transactionClass, long count, long skip,
+			boolean includeWatchonly, boolean verbose) throws MultichainException {
 		MultichainTestParameter.valueIsPositive("count", count);
 		MultichainTestParameter.valueIsNotNegative("skip", skip);
-		return execute(CommandEnum.LISTWALLETTRANSACTIONS, count, skip, includeWatchonly, verbose);
+		return executeList(transactionClass, CommandEnum.LISTWALLETTRANSACTIONS, count, skip, includeWatchonly,
+				verbose);
 	}
 
 	/**
@@ -620,11 +637,15 @@ public class QueryBuilderWalletTransaction extends QueryBuilderCommon {
 		return execute(CommandEnum.SENDWITHDATAFROM, fromAddress, toAddress, simpleEntry, HexFormatter.toHex(metadata));
 	}
 
+	/**
+	 * Writes the requests with {@link SimpleEntryAdapter}, built once
+	 */
+	private static final Gson ENTITY_GSON = GsonRegistry.newBuilder()
+			.registerTypeAdapter(SimpleEntry.class, new SimpleEntryAdapter()).create();
+
 	@Override
 	protected StringEntity prepareRpcEntity(Map<String, Object> entityValues) throws UnsupportedEncodingException {
-		final GsonBuilder builder = new GsonBuilder();
-		builder.registerTypeAdapter(SimpleEntry.class, new SimpleEntryAdapter());
-		return new StringEntity(formatJsonWithCustomBuilder(entityValues, builder));
+		return new StringEntity(ENTITY_GSON.toJson(entityValues));
 	}
 
 	public static class SimpleEntryAdapter implements JsonSerializer<SimpleEntry> {
@@ -0,0 +1,142 @@
+/*
+ * Copyright (C) 2017 Worldline, Inc.
+ *
+ * MultiChainJavaAPI code distributed under the GPLv3 license, see COPYING file.
+ * https://github.com/SimplyUb/MultiChainJavaAPI/blob/master/LICENSE
+ *
+ */
+package multichain.command.builders;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.util.EntityUtils;
+
+import com.google.gson.Gson;
+import com.google.gson.stream.JsonReader;
+
+/**
+ * Items of an array result, decoded one at a time while the answer of the node
+ * is read from the connection. Only the current item is held in memory, so the
+ * size of the result does not matter.
+ *
+ * The iterator holds an HTTP connection : it must be read until the end or
+ * closed.
+ *
+ * <pre>
+ * try (RpcResultIterator&lt;StreamKeyItem&gt; items = streamCommand.listStreamItemsIterator("stream1", true, 100000, 0)) {
+ * 	while (items.hasNext()) {
+ * 		StreamKeyItem item = items.next();
+ * 	}
+ * }
+ * </pre>
+ *
+ * @author Ub - H. MARTEAU
+ * @version 4.15
+ */
+public class RpcResultIterator<T> implements Iterator<T>, Closeable {
+	private final JsonReader reader;
+	private final CloseableHttpResponse response;
+	private final Gson gson;
+	private final Class<T> itemClass;
+	private boolean closed = false;
+
+	RpcResultIterator(JsonReader reader, CloseableHttpResponse response, Gson gson, Class<T> itemClass) {
+		this.reader = reader;
+		this.response = response;
+		this.gson = gson;
+		this.itemClass = itemClass;
+	}
+
+	/**
+	 * @throws UncheckedIOException
+	 *             if the connection fails while reading
+	 */
+	@Override
+	public boolean hasNext() {
+		if (closed) {
+			return false;
+		}
+		try {
+			if (reader.hasNext()) {
+				return true;
+			}
+			// End of the result : the rest of the answer is read so that the
+			// connection can go back to the pool
+			reader.endArray();
+			while (reader.hasNext()) {
+				reader.nextName();
+				reader.skipValue();
+			}
+			reader.endObject();
+			EntityUtils.consume(response.getEntity());
+		} catch (IOException e) {
+			closeQuietly();
+			throw new UncheckedIOException(e);
+		}
+		closeQuietly();
+		return false;
+	}
+
+	/**
+	 * @throws UncheckedIOException
+	 *             if the connection fails while reading
+	 * @throws com.google.gson.JsonParseException
+	 *             if the item does not match the expected class
+	 */
+	@Override
+	public T next() {
+		if (!hasNext()) {
+			throw new NoSuchElementException();
+		}
+		try {
+			return gson.fromJson(reader, itemClass);
+		} catch (RuntimeException e) {
+			closeQuietly();
+			throw e;
+		}
+	}
+
+	/**
+	 * @return the remaining items as a sequential stream, which closes the
+	 *         iterator when closed
+	 */
+	public Stream<T> stream() {
+		return StreamSupport
+				.stream(Spliterators.spliteratorUnknownSize(this, Spliterator.ORDERED | Spliterator.NONNULL), false)
+				.onClose(new Runnable() {
+					@Override
+					public void run() {
+						closeQuietly();
+					}
+				});
+	}
+
+	/**
+	 * Releases the connection. If the items were not all read, the rest of the
+	 * answer is discarded with the connection.
+	 */
+	@Override
+	public void close() throws IOException {
+		if (!closed) {
+			closed = true;
+			response.close();
+		}
+	}
+
+	private void closeQuietly() {
+		try {
+			close();
+		} catch (IOException e) {
+			// nothing more to release
+		}
+	}
+}
@@ -30,6 +30,17 @@ public class AddressBalanceAsset implements AddressBalance {
 	public void isFilled() throws MultichainException {
 		MultichainTestParameter.isNotNullOrEmpty("address", address);
 		for (BalanceAssetGeneral asset : assets) {
+			isFilled(asset);
+		}
+	}
+
+	/**
+	 * The native currency can be sent beside the assets, under an empty name.
+	 */
+	private static void isFilled(BalanceAssetGeneral asset) throws MultichainException {
+		if ("".equals(asset.getName())) {
+			MultichainTestParameter.valueIsPositive("qty", asset.getQty());
+		} else {
 			asset.isFilled();
 		}
 	}
@@ -37,7 +48,7 @@ public class AddressBalanceAsset implements AddressBalance {
 	public Map<String, Double> getValue() throws MultichainException {
 		Map<String, Double> mapAssets = new HashMap<String, Double>();
 		for (BalanceAssetGeneral asset : assets) {
-			asset.isFilled();
+			isFilled(asset);
 			mapAssets.put(asset.getName(), new Double(asset.getQty()));
 		}
 		return mapAssets;
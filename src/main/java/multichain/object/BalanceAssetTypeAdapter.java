@@ -0,0 +1,100 @@
+/*
+ * Copyright (C) 2017 Worldline, Inc.
+ *
+ * MultiChainJavaAPI code distributed under the GPLv3 license, see COPYING file.
+ * https://github.com/SimplyUb/MultiChainJavaAPI/blob/master/LICENSE
+ *
+ */
+package multichain.object;
+
+import java.io.IOException;
+
+import com.google.gson.Gson;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+
+/**
+ * Reads and writes {@link BalanceAsset} without reflection, nested objects go
+ * through the adapters of the Gson instance.
+ *
+ * @author Ub - H. MARTEAU
+ * @version 4.15
+ */
+class BalanceAssetTypeAdapter extends DomainTypeAdapter<BalanceAsset> {
+	private final TypeAdapter<Object> detailsAdapter;
+
+	BalanceAssetTypeAdapter(Gson gson) {
+		detailsAdapter = gson.getAdapter(Object.class);
+	}
+
+	@Override
+	BalanceAsset newInstance() {
+		return new BalanceAsset();
+	}
+
+	@Override
+	boolean readField(JsonReader in, String name, BalanceAsset value) throws IOException {
+		switch (name) {
+		case "name":
+			value.name = readString(in);
+			return true;
+		case "issuetxid":
+			value.issuetxid = readString(in);
+			return true;
+		case "assetref":
+			value.assetref = readString(in);
+			return true;
+		case "multiple":
+			value.multiple = readLong(in);
+			return true;
+		case "units":
+			value.units = readDouble(in);
+			return true;
+		case "open":
+			value.open = readBoolean(in);
+			return true;
+		case "details":
+			value.details = detailsAdapter.read(in);
+			return true;
+		case "qty":
+			value.qty = readDouble(in);
+			return true;
+		case "raw":
+			value.raw = readLong(in);
+			return true;
+		case "issueqty":
+			value.issueqty = readDouble(in);
+			return true;
+		case "issueraw":
+			value.issueraw = readLong(in);
+			return true;
+		case "subscribed":
+			value.subscribed = readBoolean(in);
+			return true;
+		case "type":
+			value.type = readString(in);
+			return true;
+		default:
+			return false;
+		}
+	}
+
+	@Override
+	void writeFields(JsonWriter out, BalanceAsset value) throws IOException {
+		writeString(out, "name", value.name);
+		writeString(out, "issuetxid", value.issuetxid);
+		writeString(out, "assetref", value.assetref);
+		writeNumber(out, "multiple", value.multiple);
+		writeNumber(out, "units", value.units);
+		writeBoolean(out, "open", value.open);
+		out.name("details");
+		detailsAdapter.write(out, value.details);
+		writeNumber(out, "qty", value.qty);
+		writeNumber(out, "raw", value.raw);
+		writeNumber(out, "issueqty", value.issueqty);
+		writeNumber(out, "issueraw", value.issueraw);
+		writeBoolean(out, "subscribed", value.subscribed);
+		writeString(out, "type", value.type);
+	}
+}
@@ -64,10 +64,11 @@ public class Block {
 		this.miner = miner;
 	}
 	/**
-	 * @return the confirmations
+	 * @return the confirmations, -1 if the block is not in the active chain or
+	 *         the confirmations were not given
 	 */
 	public long getConfirmations() {
-		return confirmations;
+		return confirmations != null ? confirmations : -1;
 	}
 	/**
 	 * @param confirmations the confirmations to set
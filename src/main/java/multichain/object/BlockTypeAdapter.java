@@ -0,0 +1,99 @@
+/*
+ * Copyright (C) 2017 Worldline, Inc.
+ *
+ * MultiChainJavaAPI code distributed under the GPLv3 license, see COPYING file.
+ * https://github.com/SimplyUb/MultiChainJavaAPI/blob/master/LICENSE
+ *
+ */
+package multichain.object;
+
+import java.io.IOException;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+
+/**
+ * Reads and writes {@link Block} without reflection.
+ *
+ * @author Ub - H. MARTEAU
+ * @version 4.15
+ */
+class BlockTypeAdapter extends DomainTypeAdapter<Block> {
+
+	@Override
+	Block newInstance() {
+		return new Block();
+	}
+
+	@Override
+	boolean readField(JsonReader in, String name, Block value) throws IOException {
+		switch (name) {
+		case "hash":
+			value.hash = readString(in);
+			return true;
+		case "miner":
+			value.miner = readString(in);
+			return true;
+		case "confirmations":
+			value.confirmations = readLong(in);
+			return true;
+		case "size":
+			value.size = readLong(in);
+			return true;
+		case "height":
+			value.height = readLong(in);
+			return true;
+		case "version":
+			value.version = readLong(in);
+			return true;
+		case "merkleroot":
+			value.merkleroot = readString(in);
+			return true;
+		case "tx":
+			value.tx = readStrings(in);
+			return true;
+		case "time":
+			value.time = readLong(in);
+			return true;
+		case "nonce":
+			value.nonce = readLong(in);
+			return true;
+		case "bits":
+			value.bits = readString(in);
+			return true;
+		case "difficulty":
+			value.difficulty = readDouble(in);
+			return true;
+		case "chainwork":
+			value.chainwork = readString(in);
+			return true;
+		case "previousblockhash":
+			value.previousblockhash = readString(in);
+			return true;
+		case "nextblockhash":
+			value.nextblockhash = readString(in);
+			return true;
+		default:
+			return false;
+		}
+	}
+
+	@Override
+	void writeFields(JsonWriter out, Block value) throws IOException {
+		writeString(out, "hash", value.hash);
+		writeString(out, "miner", value.miner);
+		writeNumber(out, "confirmations", value.confirmations);
+		writeNumber(out, "size", value.size);
+		writeNumber(out, "height", value.height);
+		writeNumber(out, "version", value.version);
+		writeString(out, "merkleroot", value.merkleroot);
+		writeStrings(out, "tx", value.tx);
+		writeNumber(out, "time", value.time);
+		writeNumber(out, "nonce", value.nonce);
+		writeString(out, "bits", value.bits);
+		writeNumber(out, "difficulty", value.difficulty);
+		writeString(out, "chainwork", value.chainwork);
+		writeString(out, "previousblockhash", value.previousblockhash);
+		writeString(out, "nextblockhash", value.nextblockhash);
+	}
+}
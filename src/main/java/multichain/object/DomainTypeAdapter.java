@@ -0,0 +1,146 @@
+/*
+ * Copyright (C) 2017 Worldline, Inc.
+ *
+ * MultiChainJavaAPI code distributed under the GPLv3 license, see COPYING file.
+ * https://github.com/SimplyUb/MultiChainJavaAPI/blob/master/LICENSE
+ *
+ */
+package multichain.object;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.internal.bind.TypeAdapters;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+/**
+ * Base of the hand-written adapters of the objects : fields are read and
+ * written by name, without reflection.
+ *
+ * Reads like the reflective adapter of Gson : unknown names are skipped,
+ * values missing from the answer keep the default of the constructor.
+ *
+ * @author Ub - H. MARTEAU
+ * @version 4.15
+ */
+abstract class DomainTypeAdapter<T> extends TypeAdapter<T> {
+
+	/**
+	 * @return a new object, as built by its default constructor
+	 */
+	abstract T newInstance();
+
+	/**
+	 * Reads the value of field name into value.
+	 *
+	 * @return false if the name is not a field of the object
+	 */
+	abstract boolean readField(JsonReader in, String name, T value) throws IOException;
+
+	/**
+	 * Writes the fields of value, in their declaration order.
+	 */
+	abstract void writeFields(JsonWriter out, T value) throws IOException;
+
+	@Override
+	public T read(JsonReader in) throws IOException {
+		if (in.peek() == JsonToken.NULL) {
+			in.nextNull();
+			return null;
+		}
+		T value = newInstance();
+		in.beginObject();
+		while (in.hasNext()) {
+			if (!readField(in, in.nextName(), value)) {
+				in.skipValue();
+			}
+		}
+		in.endObject();
+		return value;
+	}
+
+	@Override
+	public void write(JsonWriter out, T value) throws IOException {
+		if (value == null) {
+			out.nullValue();
+			return;
+		}
+		out.beginObject();
+		writeFields(out, value);
+		out.endObject();
+	}
+
+	static String readString(JsonReader in) throws IOException {
+		return TypeAdapters.STRING.read(in);
+	}
+
+	static Long readLong(JsonReader in) throws IOException {
+		Number value = TypeAdapters.LONG.read(in);
+		return value != null ? Long.valueOf(value.longValue()) : null;
+	}
+
+	static Integer readInteger(JsonReader in) throws IOException {
+		Number value = TypeAdapters.INTEGER.read(in);
+		return value != null ? Integer.valueOf(value.intValue()) : null;
+	}
+
+	static Double readDouble(JsonReader in) throws IOException {
+		if (in.peek() == JsonToken.NULL) {
+			in.nextNull();
+			return null;
+		}
+		return Double.valueOf(in.nextDouble());
+	}
+
+	static Boolean readBoolean(JsonReader in) throws IOException {
+		return TypeAdapters.BOOLEAN.read(in);
+	}
+
+	static List<String> readStrings(JsonReader in) throws IOException {
+		if (in.peek() == JsonToken.NULL) {
+			in.nextNull();
+			return null;
+		}
+		List<String> values = new ArrayList<String>();
+		in.beginArray();
+		while (in.hasNext()) {
+			values.add(readString(in));
+		}
+		in.endArray();
+		return values;
+	}
+
+	static void writeString(JsonWriter out, String name, String value) throws IOException {
+		out.name(name).value(value);
+	}
+
+	static void writeNumber(JsonWriter out, String name, Number value) throws IOException {
+		out.name(name).value(value);
+	}
+
+	static void writeBoolean(JsonWriter out, String name, Boolean value) throws IOException {
+		out.name(name);
+		if (value == null) {
+			out.nullValue();
+		} else {
+			out.value(value.booleanValue());
+		}
+	}
+
+	static void writeStrings(JsonWriter out, String name, List<String> values) throws IOException {
+		out.name(name);
+		if (values == null) {
+			out.nullValue();
+			return;
+		}
+		out.beginArray();
+		for (String value : values) {
+			out.value(value);
+		}
+		out.endArray();
+	}
+}
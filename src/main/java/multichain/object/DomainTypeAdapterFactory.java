@@ -0,0 +1,53 @@
+/*
+ * Copyright (C) 2017 Worldline, Inc.
+ *
+ * MultiChainJavaAPI code distributed under the GPLv3 license, see COPYING file.
+ * https://github.com/SimplyUb/MultiChainJavaAPI/blob/master/LICENSE
+ *
+ */
+package multichain.object;
+
+import com.google.gson.Gson;
+import com.google.gson.TypeAdapter;
+import com.google.gson.TypeAdapterFactory;
+import com.google.gson.reflect.TypeToken;
+
+/**
+ * Reflection-free adapters of the objects decoded the most often :
+ * {@link StreamKeyItem}, {@link Block}, {@link TransactionRAW},
+ * {@link TransactionWalletDetailed}, {@link BalanceAsset}, {@link Permission}
+ * and {@link TxOut}. The other objects keep the reflective adapter of Gson.
+ *
+ * @author Ub - H. MARTEAU
+ * @version 4.15
+ */
+public class DomainTypeAdapterFactory implements TypeAdapterFactory {
+
+	@SuppressWarnings("unchecked")
+	@Override
+	public <T> TypeAdapter<T> create(Gson gson, TypeToken<T> type) {
+		Class<? super T> rawType = type.getRawType();
+		if (rawType == StreamKeyItem.class) {
+			return (TypeAdapter<T>) new StreamKeyItemTypeAdapter();
+		}
+		if (rawType == Block.class) {
+			return (TypeAdapter<T>) new BlockTypeAdapter();
+		}
+		if (rawType == Permission.class) {
+			return (TypeAdapter<T>) new PermissionTypeAdapter();
+		}
+		if (rawType == BalanceAsset.class) {
+			return (TypeAdapter<T>) new BalanceAssetTypeAdapter(gson);
+		}
+		if (rawType == TxOut.class) {
+			return (TypeAdapter<T>) new TxOutTypeAdapter(gson);
+		}
+		if (rawType == TransactionRAW.class) {
+			return (TypeAdapter<T>) new TransactionRAWTypeAdapter(gson);
+		}
+		if (rawType == TransactionWalletDetailed.class) {
+			return (TypeAdapter<T>) new TransactionWalletDetailedTypeAdapter(gson);
+		}
+		return null;
+	}
+}
@@ -0,0 +1,70 @@
+/*
+ * Copyright (C) 2017 Worldline, Inc.
+ *
+ * MultiChainJavaAPI code distributed under the GPLv3 license, see COPYING file.
+ * https://github.com/SimplyUb/MultiChainJavaAPI/blob/master/LICENSE
+ *
+ */
+package multichain.object;
+
+/**
+ * The memory pool of the node, as given by getmempoolinfo.
+ *
+ * @author Ub - H. MARTEAU
+ * @version 4.15
+ */
+public class MempoolInfo {
+
+	long size;
+	long bytes;
+
+	public MempoolInfo() {
+		super();
+	}
+
+	/**
+	 * @param size
+	 * @param bytes
+	 */
+	public MempoolInfo(long size, long bytes) {
+		super();
+		this.size = size;
+		this.bytes = bytes;
+	}
+
+	/* (non-Javadoc)
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString() {
+		return "MempoolInfo [size=" + size + ", bytes=" + bytes + "]";
+	}
+
+	/**
+	 * @return the number of transactions
+	 */
+	public long getSize() {
+		return size;
+	}
+
+	/**
+	 * @param size the size to set
+	 */
+	public void setSize(long size) {
+		this.size = size;
+	}
+
+	/**
+	 * @return the sum of the sizes of the transactions
+	 */
+	public long getBytes() {
+		return bytes;
+	}
+
+	/**
+	 * @param bytes the bytes to set
+	 */
+	public void setBytes(long bytes) {
+		this.bytes = bytes;
+	}
+}
@@ -0,0 +1,55 @@
+/*
+ * Copyright (C) 2017 Worldline, Inc.
+ *
+ * MultiChainJavaAPI code distributed under the GPLv3 license, see COPYING file.
+ * https://github.com/SimplyUb/MultiChainJavaAPI/blob/master/LICENSE
+ *
+ */
+package multichain.object;
+
+import java.io.IOException;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+
+/**
+ * Reads and writes {@link Permission} without reflection.
+ *
+ * @author Ub - H. MARTEAU
+ * @version 4.15
+ */
+class PermissionTypeAdapter extends DomainTypeAdapter<Permission> {
+
+	@Override
+	Permission newInstance() {
+		return new Permission();
+	}
+
+	@Override
+	boolean readField(JsonReader in, String name, Permission value) throws IOException {
+		switch (name) {
+		case "address":
+			value.address = readString(in);
+			return true;
+		case "type":
+			value.type = readString(in);
+			return true;
+		case "startblock":
+			value.startblock = readLong(in);
+			return true;
+		case "endblock":
+			value.endblock = readLong(in);
+			return true;
+		default:
+			return false;
+		}
+	}
+
+	@Override
+	void writeFields(JsonWriter out, Permission value) throws IOException {
+		writeString(out, "address", value.address);
+		writeString(out, "type", value.type);
+		writeNumber(out, "startblock", value.startblock);
+		writeNumber(out, "endblock", value.endblock);
+	}
+}
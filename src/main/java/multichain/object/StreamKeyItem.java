@@ -9,6 +9,8 @@ package multichain.object;
 
 import java.util.List;
 
+import multichain.object.formatters.HexCodec;
+
 /**
  * @author Ub - H. MARTEAU
  * @version 4.14
@@ -85,6 +87,23 @@ public class StreamKeyItem {
 		this.data = data;
 	}
 
+	/**
+	 * @return the data decoded, null if none
+	 * @throws IllegalArgumentException
+	 *             if the data is not hexadecimal
+	 */
+	public byte[] getDataBytes() {
+		return data != null ? HexCodec.decode(data) : null;
+	}
+
+	/**
+	 * @param dataBytes
+	 *            the data to set, encoded in hexadecimal
+	 */
+	public void setDataBytes(byte[] dataBytes) {
+		this.data = dataBytes != null ? HexCodec.encode(dataBytes) : null;
+	}
+
 	/**
 	 * @return the confirmations
 	 */
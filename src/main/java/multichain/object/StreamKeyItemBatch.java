@@ -0,0 +1,488 @@
+/*
+ * Copyright (C) 2017 Worldline, Inc.
+ *
+ * MultiChainJavaAPI code distributed under the GPLv3 license, see COPYING file.
+ * https://github.com/SimplyUb/MultiChainJavaAPI/blob/master/LICENSE
+ *
+ */
+package multichain.object;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import multichain.object.formatters.HexCodec;
+
+/**
+ * Many {@link StreamKeyItem} stored by column, for large scans.
+ *
+ * The txids are kept as 32 bytes, the data as bytes in one array, and the
+ * keys, publishers and block hashes as codes in dictionaries. The fields are
+ * read by row through the accessors, without creating an object per item.
+ *
+ * The conversion from and to {@link StreamKeyItem} is lossless : null fields
+ * stay null, and a txid or a data which is not lowercase hexadecimal is kept
+ * as it is.
+ *
+ * <pre>
+ * StreamKeyItemBatch batch = StreamKeyItemBatch.of(streamCommand.listStreamItems("stream1", true, 100000, 0));
+ * for (int row = 0; row &lt; batch.size(); row++) {
+ * 	process(batch.getKey(row), batch.getDataBytes(row));
+ * }
+ * </pre>
+ *
+ * @author Ub - H. MARTEAU
+ * @version 4.15
+ */
+public class StreamKeyItemBatch {
+	private static final int TXID_BYTES = 32;
+
+	/**
+	 * Distinct values of a column, each one stored once.
+	 */
+	private static class Dictionary {
+		final List<String> values = new ArrayList<String>();
+		final Map<String, Integer> codes = new HashMap<String, Integer>();
+
+		int encode(String value) {
+			if (value == null) {
+				return -1;
+			}
+			Integer code = codes.get(value);
+			if (code == null) {
+				code = values.size();
+				values.add(value);
+				codes.put(value, code);
+			}
+			return code;
+		}
+
+		String decode(int code) {
+			return code < 0 ? null : values.get(code);
+		}
+
+		long heapBytes() {
+			long bytes = 64 + values.size() * 48L;
+			for (String value : values) {
+				bytes += 40 + 2L * value.length();
+			}
+			return bytes;
+		}
+	}
+
+	/**
+	 * Nullable numbers of a column.
+	 */
+	private static class LongColumn {
+		long[] values;
+		final BitSet nulls = new BitSet();
+
+		LongColumn(int capacity) {
+			values = new long[capacity];
+		}
+
+		void set(int row, Long value) {
+			if (row == values.length) {
+				values = Arrays.copyOf(values, Math.max(16, row * 2));
+			}
+			if (value == null) {
+				nulls.set(row);
+			} else {
+				values[row] = value;
+			}
+		}
+
+		Long get(int row) {
+			return nulls.get(row) ? null : values[row];
+		}
+	}
+
+	private int size = 0;
+	private byte[] txids;
+	private final Map<Integer, String> otherTxids = new HashMap<Integer, String>();
+	private final LongColumn vouts;
+	private final Dictionary keys = new Dictionary();
+	private int[] keyCodes;
+	private final Dictionary publishers = new Dictionary();
+	private int[] publisherCodes;
+	private int[] publisherOffsets;
+	private final BitSet nullPublishers = new BitSet();
+	private byte[] data;
+	private int[] dataOffsets;
+	private final Map<Integer, String> otherData = new HashMap<Integer, String>();
+	private final LongColumn confirmations;
+	private final Dictionary blockhashes = new Dictionary();
+	private int[] blockhashCodes;
+	private final LongColumn blockindexes;
+	private final LongColumn blocktimes;
+	private final BitSet validValues = new BitSet();
+	private final BitSet nullValids = new BitSet();
+	private final LongColumn times;
+	private final LongColumn timesReceived;
+
+	/**
+	 * An empty batch.
+	 */
+	public StreamKeyItemBatch() {
+		this(16);
+	}
+
+	/**
+	 * @param capacity
+	 *            expected number of items
+	 */
+	public StreamKeyItemBatch(int capacity) {
+		capacity = Math.max(1, capacity);
+		txids = new byte[capacity * TXID_BYTES];
+		vouts = new LongColumn(capacity);
+		keyCodes = new int[capacity];
+		publisherCodes = new int[capacity];
+		publisherOffsets = new int[capacity + 1];
+		data = new byte[capacity * 16];
+		dataOffsets = new int[capacity + 1];
+		confirmations = new LongColumn(capacity);
+		blockhashCodes = new int[capacity];
+		blockindexes = new LongColumn(capacity);
+		blocktimes = new LongColumn(capacity);
+		times = new LongColumn(capacity);
+		timesReceived = new LongColumn(capacity);
+	}
+
+	/**
+	 * @param items
+	 * @return the items stored by column
+	 */
+	public static StreamKeyItemBatch of(List<StreamKeyItem> items) {
+		StreamKeyItemBatch batch = new StreamKeyItemBatch(items.size());
+		for (StreamKeyItem item : items) {
+			batch.add(item);
+		}
+		return batch;
+	}
+
+	/**
+	 * Appends an item.
+	 *
+	 * @param item
+	 */
+	public void add(StreamKeyItem item) {
+		int row = size;
+		grow(row + 1);
+
+		if (item.txid != null && item.txid.length() == TXID_BYTES * 2 && HexCodec.isLowerCaseHex(item.txid)) {
+			HexCodec.decode(item.txid, 0, item.txid.length(), txids, row * TXID_BYTES);
+		} else {
+			otherTxids.put(row, item.txid);
+		}
+		vouts.set(row, item.vout);
+		keyCodes[row] = keys.encode(item.key);
+
+		int publisherStart = publisherOffsets[row];
+		if (item.publishers == null) {
+			nullPublishers.set(row);
+			publisherOffsets[row + 1] = publisherStart;
+		} else {
+			if (publisherStart + item.publishers.size() > publisherCodes.length) {
+				publisherCodes = Arrays.copyOf(publisherCodes,
+						Math.max(publisherCodes.length * 2, publisherStart + item.publishers.size()));
+			}
+			for (int i = 0; i < item.publishers.size(); i++) {
+				publisherCodes[publisherStart + i] = publishers.encode(item.publishers.get(i));
+			}
+			publisherOffsets[row + 1] = publisherStart + item.publishers.size();
+		}
+
+		int dataStart = dataOffsets[row];
+		if (HexCodec.isLowerCaseHex(item.data)) {
+			int length = item.data.length() / 2;
+			if (dataStart + length > data.length) {
+				data = Arrays.copyOf(data, Math.max(data.length * 2, dataStart + length));
+			}
+			HexCodec.decode(item.data, 0, item.data.length(), data, dataStart);
+			dataOffsets[row + 1] = dataStart + length;
+		} else {
+			otherData.put(row, item.data);
+			dataOffsets[row + 1] = dataStart;
+		}
+
+		confirmations.set(row, item.confirmations);
+		blockhashCodes[row] = blockhashes.encode(item.blockhash);
+		blockindexes.set(row, item.blockindex);
+		blocktimes.set(row, item.blocktime);
+		if (item.valid == null) {
+			nullValids.set(row);
+		} else if (item.valid) {
+			validValues.set(row);
+		}
+		times.set(row, item.time);
+		timesReceived.set(row, item.timereceived);
+		size++;
+	}
+
+	/**
+	 * @return the number of items
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * @param row
+	 * @return the item rebuilt from the columns
+	 */
+	public StreamKeyItem get(int row) {
+		checkRow(row);
+		StreamKeyItem item = new StreamKeyItem();
+		item.publishers = getPublishers(row);
+		item.key = getKey(row);
+		item.data = getData(row);
+		item.confirmations = getConfirmations(row);
+		item.blockhash = getBlockhash(row);
+		item.blockindex = getBlockindex(row);
+		item.blocktime = getBlocktime(row);
+		item.txid = getTxid(row);
+		item.vout = getVout(row);
+		item.valid = getValid(row);
+		item.time = getTime(row);
+		item.timereceived = getTimereceived(row);
+		return item;
+	}
+
+	/**
+	 * @return all the items rebuilt from the columns
+	 */
+	public List<StreamKeyItem> toList() {
+		List<StreamKeyItem> items = new ArrayList<StreamKeyItem>(size);
+		for (int row = 0; row < size; row++) {
+			items.add(get(row));
+		}
+		return items;
+	}
+
+	/**
+	 * @param row
+	 * @return the txid
+	 */
+	public String getTxid(int row) {
+		checkRow(row);
+		if (otherTxids.containsKey(row)) {
+			return otherTxids.get(row);
+		}
+		return HexCodec.encode(txids, row * TXID_BYTES, TXID_BYTES);
+	}
+
+	/**
+	 * @param row
+	 * @param destination
+	 *            receives the 32 bytes of the txid
+	 * @param offset
+	 * @return false if the txid is not 32 bytes of hexadecimal, nothing copied
+	 */
+	public boolean copyTxid(int row, byte[] destination, int offset) {
+		checkRow(row);
+		if (otherTxids.containsKey(row)) {
+			return false;
+		}
+		System.arraycopy(txids, row * TXID_BYTES, destination, offset, TXID_BYTES);
+		return true;
+	}
+
+	/**
+	 * @param row
+	 * @return the vout, null if unknown
+	 */
+	public Long getVout(int row) {
+		checkRow(row);
+		return vouts.get(row);
+	}
+
+	/**
+	 * @param row
+	 * @return the key
+	 */
+	public String getKey(int row) {
+		checkRow(row);
+		return keys.decode(keyCodes[row]);
+	}
+
+	/**
+	 * @param row
+	 * @return the code of the key in {@link #getKeyDictionary()}, -1 if null
+	 */
+	public int getKeyCode(int row) {
+		checkRow(row);
+		return keyCodes[row];
+	}
+
+	/**
+	 * @return the distinct keys, by code
+	 */
+	public List<String> getKeyDictionary() {
+		return Collections.unmodifiableList(keys.values);
+	}
+
+	/**
+	 * @param row
+	 * @return the publishers, null if unknown
+	 */
+	public List<String> getPublishers(int row) {
+		checkRow(row);
+		if (nullPublishers.get(row)) {
+			return null;
+		}
+		List<String> rowPublishers = new ArrayList<String>(publisherOffsets[row + 1] - publisherOffsets[row]);
+		for (int i = publisherOffsets[row]; i < publisherOffsets[row + 1]; i++) {
+			rowPublishers.add(publishers.decode(publisherCodes[i]));
+		}
+		return rowPublishers;
+	}
+
+	/**
+	 * @param row
+	 * @return the data in hexadecimal, or as received if it was not
+	 */
+	public String getData(int row) {
+		checkRow(row);
+		if (otherData.containsKey(row)) {
+			return otherData.get(row);
+		}
+		return HexCodec.encode(data, dataOffsets[row], dataOffsets[row + 1] - dataOffsets[row]);
+	}
+
+	/**
+	 * @param row
+	 * @return the number of bytes of the data, 0 if it was not hexadecimal
+	 */
+	public int getDataLength(int row) {
+		checkRow(row);
+		return dataOffsets[row + 1] - dataOffsets[row];
+	}
+
+	/**
+	 * @param row
+	 * @return a copy of the bytes of the data, null if it was not hexadecimal
+	 */
+	public byte[] getDataBytes(int row) {
+		checkRow(row);
+		if (otherData.containsKey(row)) {
+			return null;
+		}
+		return Arrays.copyOfRange(data, dataOffsets[row], dataOffsets[row + 1]);
+	}
+
+	/**
+	 * @param row
+	 * @param destination
+	 *            receives the {@link #getDataLength(int)} bytes of the data
+	 * @param offset
+	 * @return the number of bytes copied
+	 */
+	public int copyData(int row, byte[] destination, int offset) {
+		int length = getDataLength(row);
+		System.arraycopy(data, dataOffsets[row], destination, offset, length);
+		return length;
+	}
+
+	/**
+	 * @param row
+	 * @return the confirmations, null if unknown
+	 */
+	public Long getConfirmations(int row) {
+		checkRow(row);
+		return confirmations.get(row);
+	}
+
+	/**
+	 * @param row
+	 * @return the hash of the block, null if unconfirmed
+	 */
+	public String getBlockhash(int row) {
+		checkRow(row);
+		return blockhashes.decode(blockhashCodes[row]);
+	}
+
+	/**
+	 * @param row
+	 * @return the index in the block, null if unknown
+	 */
+	public Long getBlockindex(int row) {
+		checkRow(row);
+		return blockindexes.get(row);
+	}
+
+	/**
+	 * @param row
+	 * @return the time of the block, null if unknown
+	 */
+	public Long getBlocktime(int row) {
+		checkRow(row);
+		return blocktimes.get(row);
+	}
+
+	/**
+	 * @param row
+	 * @return the validity, null if unknown
+	 */
+	public Boolean getValid(int row) {
+		checkRow(row);
+		return nullValids.get(row) ? null : validValues.get(row);
+	}
+
+	/**
+	 * @param row
+	 * @return the time, null if unknown
+	 */
+	public Long getTime(int row) {
+		checkRow(row);
+		return times.get(row);
+	}
+
+	/**
+	 * @param row
+	 * @return the time received, null if unknown
+	 */
+	public Long getTimereceived(int row) {
+		checkRow(row);
+		return timesReceived.get(row);
+	}
+
+	/**
+	 * @return an estimate of the memory used by the batch, in bytes
+	 */
+	public long estimateHeapBytes() {
+		long bytes = txids.length + data.length + 4L * (keyCodes.length + publisherCodes.length
+				+ publisherOffsets.length + dataOffsets.length + blockhashCodes.length);
+		bytes += 8L * (vouts.values.length + confirmations.values.length + blockindexes.values.length
+				+ blocktimes.values.length + times.values.length + timesReceived.values.length);
+		bytes += keys.heapBytes() + publishers.heapBytes() + blockhashes.heapBytes();
+		for (String value : otherTxids.values()) {
+			bytes += 48 + (value != null ? 40 + 2L * value.length() : 0);
+		}
+		for (String value : otherData.values()) {
+			bytes += 48 + (value != null ? 40 + 2L * value.length() : 0);
+		}
+		return bytes;
+	}
+
+	private void checkRow(int row) {
+		if (row < 0 || row >= size) {
+			throw new IndexOutOfBoundsException("row " + row + " of " + size);
+		}
+	}
+
+	private void grow(int rows) {
+		if (rows <= keyCodes.length) {
+			return;
+		}
+		int capacity = Math.max(rows, keyCodes.length * 2);
+		txids = Arrays.copyOf(txids, capacity * TXID_BYTES);
+		keyCodes = Arrays.copyOf(keyCodes, capacity);
+		publisherOffsets = Arrays.copyOf(publisherOffsets, capacity + 1);
+		dataOffsets = Arrays.copyOf(dataOffsets, capacity + 1);
+		blockhashCodes = Arrays.copyOf(blockhashCodes, capacity);
+	}
+}
@@ -0,0 +1,87 @@
+/*
+ * Copyright (C) 2017 Worldline, Inc.
+ *
+ * MultiChainJavaAPI code distributed under the GPLv3 license, see COPYING file.
+ * https://github.com/SimplyUb/MultiChainJavaAPI/blob/master/LICENSE
+ *
+ */
+package multichain.object;
+
+import java.io.IOException;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+
+/**
+ * Reads and writes {@link StreamKeyItem} without reflection.
+ *
+ * @author Ub - H. MARTEAU
+ * @version 4.15
+ */
+class StreamKeyItemTypeAdapter extends DomainTypeAdapter<StreamKeyItem> {
+
+	@Override
+	StreamKeyItem newInstance() {
+		return new StreamKeyItem();
+	}
+
+	@Override
+	boolean readField(JsonReader in, String name, StreamKeyItem value) throws IOException {
+		switch (name) {
+		case "publishers":
+			value.publishers = readStrings(in);
+			return true;
+		case "key":
+			value.key = readString(in);
+			return true;
+		case "data":
+			value.data = readString(in);
+			return true;
+		case "confirmations":
+			value.confirmations = readLong(in);
+			return true;
+		case "blockhash":
+			value.blockhash = readString(in);
+			return true;
+		case "blockindex":
+			value.blockindex = readLong(in);
+			return true;
+		case "blocktime":
+			value.blocktime = readLong(in);
+			return true;
+		case "txid":
+			value.txid = readString(in);
+			return true;
+		case "vout":
+			value.vout = readLong(in);
+			return true;
+		case "valid":
+			value.valid = readBoolean(in);
+			return true;
+		case "time":
+			value.time = readLong(in);
+			return true;
+		case "timereceived":
+			value.timereceived = readLong(in);
+			return true;
+		default:
+			return false;
+		}
+	}
+
+	@Override
+	void writeFields(JsonWriter out, StreamKeyItem value) throws IOException {
+		writeStrings(out, "publishers", value.publishers);
+		writeString(out, "key", value.key);
+		writeString(out, "data", value.data);
+		writeNumber(out, "confirmations", value.confirmations);
+		writeString(out, "blockhash", value.blockhash);
+		writeNumber(out, "blockindex", value.blockindex);
+		writeNumber(out, "blocktime", value.blocktime);
+		writeString(out, "txid", value.txid);
+		writeNumber(out, "vout", value.vout);
+		writeBoolean(out, "valid", value.valid);
+		writeNumber(out, "time", value.time);
+		writeNumber(out, "timereceived", value.timereceived);
+	}
+}
@@ -0,0 +1,581 @@
+/*
+ * Copyright (C) 2017 Worldline, Inc.
+ *
+ * MultiChainJavaAPI code distributed under the GPLv3 license, see COPYING file.
+ * https://github.com/SimplyUb/MultiChainJavaAPI/blob/master/LICENSE
+ *
+ */
+package multichain.object;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import multichain.object.formatters.Base58;
+import multichain.object.formatters.HexCodec;
+import multichain.object.formatters.Ripemd160;
+
+/**
+ * Decodes raw transactions into {@link TransactionRAW} locally, with the same
+ * content as the decoderawtransaction of the node, without any call.
+ *
+ * Addresses depend on the address-pubkeyhash-version,
+ * address-scripthash-version and address-checksum-value of the chain, and
+ * amounts on its native-currency-multiple, as given by getblockchainparams.
+ * The default constructor uses the values of bitcoin.
+ *
+ * Assets and streams are referenced in the scripts by the first bytes of the
+ * txid which created them. The assets and streams registered in the decoder
+ * get their name and reference, the others only this part of their txid :
+ * the issuetxid of an unknown asset holds its 32 first digits, and the items
+ * of an unknown stream have no name.
+ *
+ * Decoders are thread safe.
+ *
+ * <pre>
+ * TransactionRAWDecoder decoder = new TransactionRAWDecoder("00d7fa1a", "05f44c4e", "8ac7c2a9", 100000000);
+ * for (Stream stream : streamCommand.listStreams()) {
+ * 	decoder.registerStream(stream);
+ * }
+ * TransactionRAW transaction = decoder.decode(bytes);
+ * </pre>
+ *
+ * @author Ub - H. MARTEAU
+ * @version 4.15
+ */
+public final class TransactionRAWDecoder {
+	/** prefixes of the data dropped in the scripts, "spk" and a type */
+	private static final int PREFIX_ASSET_QUANTITIES = 0x73706b71; // spkq
+	private static final int PREFIX_PERMISSIONS = 0x73706b70; // spkp
+	private static final int PREFIX_ENTITY = 0x73706b65; // spke
+	private static final int PREFIX_KEY = 0x73706b6b; // spkk
+
+	private static final int SHORT_TXID_SIZE = 16;
+	/** short txid of the asset and raw quantity */
+	private static final int ASSET_QUANTITY_SIZE = SHORT_TXID_SIZE + 8;
+
+	private static final String[] PERMISSION_TYPES = { "connect", "send", "receive", "write", "issue", "create", null,
+			null, "mine", null, null, null, "admin", "activate" };
+
+	private static final int OP_PUSHDATA1 = 0x4c;
+	private static final int OP_PUSHDATA2 = 0x4d;
+	private static final int OP_PUSHDATA4 = 0x4e;
+	private static final int OP_1 = 0x51;
+	private static final int OP_RETURN = 0x6a;
+	private static final int OP_DROP = 0x75;
+	private static final int OP_DUP = 0x76;
+	private static final int OP_EQUAL = 0x87;
+	private static final int OP_EQUALVERIFY = 0x88;
+	private static final int OP_HASH160 = 0xa9;
+	private static final int OP_CHECKSIG = 0xac;
+	private static final int OP_CHECKMULTISIG = 0xae;
+
+	private static final String[] OPCODE_NAMES = new String[256];
+
+	static {
+		Arrays.fill(OPCODE_NAMES, "OP_UNKNOWN");
+		String[] names = { "OP_PUSHDATA1", "OP_PUSHDATA2", "OP_PUSHDATA4", "-1", "OP_RESERVED" };
+		System.arraycopy(names, 0, OPCODE_NAMES, OP_PUSHDATA1, names.length);
+		for (int i = 1; i <= 16; i++) {
+			OPCODE_NAMES[OP_1 + i - 1] = String.valueOf(i);
+		}
+		names = new String[] { "OP_NOP", "OP_VER", "OP_IF", "OP_NOTIF", "OP_VERIF", "OP_VERNOTIF", "OP_ELSE",
+				"OP_ENDIF", "OP_VERIFY", "OP_RETURN", "OP_TOALTSTACK", "OP_FROMALTSTACK", "OP_2DROP", "OP_2DUP",
+				"OP_3DUP", "OP_2OVER", "OP_2ROT", "OP_2SWAP", "OP_IFDUP", "OP_DEPTH", "OP_DROP", "OP_DUP", "OP_NIP",
+				"OP_OVER", "OP_PICK", "OP_ROLL", "OP_ROT", "OP_SWAP", "OP_TUCK", "OP_CAT", "OP_SUBSTR", "OP_LEFT",
+				"OP_RIGHT", "OP_SIZE", "OP_INVERT", "OP_AND", "OP_OR", "OP_XOR", "OP_EQUAL", "OP_EQUALVERIFY",
+				"OP_RESERVED1", "OP_RESERVED2", "OP_1ADD", "OP_1SUB", "OP_2MUL", "OP_2DIV", "OP_NEGATE", "OP_ABS",
+				"OP_NOT", "OP_0NOTEQUAL", "OP_ADD", "OP_SUB", "OP_MUL", "OP_DIV", "OP_MOD", "OP_LSHIFT", "OP_RSHIFT",
+				"OP_BOOLAND", "OP_BOOLOR", "OP_NUMEQUAL", "OP_NUMEQUALVERIFY", "OP_NUMNOTEQUAL", "OP_LESSTHAN",
+				"OP_GREATERTHAN", "OP_LESSTHANOREQUAL", "OP_GREATERTHANOREQUAL", "OP_MIN", "OP_MAX", "OP_WITHIN",
+				"OP_RIPEMD160", "OP_SHA1", "OP_SHA256", "OP_HASH160", "OP_HASH256", "OP_CODESEPARATOR",
+				"OP_CHECKSIG", "OP_CHECKSIGVERIFY", "OP_CHECKMULTISIG", "OP_CHECKMULTISIGVERIFY" };
+		System.arraycopy(names, 0, OPCODE_NAMES, 0x61, names.length);
+		for (int i = 1; i <= 10; i++) {
+			OPCODE_NAMES[0xaf + i] = "OP_NOP" + i;
+		}
+		OPCODE_NAMES[0xff] = "OP_INVALIDOPCODE";
+	}
+
+	private final byte[] pubkeyHashVersion;
+	private final byte[] scriptHashVersion;
+	private final byte[] checksumValue;
+	private final long nativeCurrencyMultiple;
+	/** registered assets and streams, by the hexadecimal of their short txid */
+	private final Map<String, BalanceAsset> assets = new ConcurrentHashMap<String, BalanceAsset>();
+	private final Map<String, Stream> streams = new ConcurrentHashMap<String, Stream>();
+
+	/**
+	 * Decoder with the parameters of bitcoin.
+	 */
+	public TransactionRAWDecoder() {
+		this("00", "05", "00000000", 100000000);
+	}
+
+	/**
+	 * @param addressPubkeyhashVersion
+	 *            address-pubkeyhash-version of the chain, in hexadecimal
+	 * @param addressScripthashVersion
+	 *            address-scripthash-version of the chain, in hexadecimal
+	 * @param addressChecksumValue
+	 *            address-checksum-value of the chain, in hexadecimal
+	 * @param nativeCurrencyMultiple
+	 *            native-currency-multiple of the chain
+	 */
+	public TransactionRAWDecoder(String addressPubkeyhashVersion, String addressScripthashVersion,
+			String addressChecksumValue, long nativeCurrencyMultiple) {
+		this.pubkeyHashVersion = HexCodec.decode(addressPubkeyhashVersion);
+		this.scriptHashVersion = HexCodec.decode(addressScripthashVersion);
+		this.checksumValue = HexCodec.decode(addressChecksumValue);
+		this.nativeCurrencyMultiple = nativeCurrencyMultiple;
+		if (checksumValue.length != 4) {
+			throw new IllegalArgumentException("address checksum value of 4 bytes expected : " + addressChecksumValue);
+		}
+	}
+
+	/**
+	 * Names the quantities of this asset in the outputs.
+	 *
+	 * @param asset
+	 *            with at least its issuetxid, usually from listassets
+	 */
+	public void registerAsset(BalanceAsset asset) {
+		assets.put(asset.issuetxid.substring(0, SHORT_TXID_SIZE * 2), asset);
+	}
+
+	/**
+	 * Names the items of this stream in the outputs.
+	 *
+	 * @param stream
+	 *            with at least its createtxid, usually from liststreams
+	 */
+	public void registerStream(Stream stream) {
+		streams.put(stream.createtxid.substring(0, SHORT_TXID_SIZE * 2), stream);
+	}
+
+	/**
+	 * @param hex
+	 *            the transaction in hexadecimal
+	 * @return the transaction
+	 * @throws IllegalArgumentException
+	 *             if the value is not a transaction
+	 */
+	public TransactionRAW decode(String hex) {
+		return decode(HexCodec.decode(hex));
+	}
+
+	/**
+	 * @param bytes
+	 *            the transaction
+	 * @return the transaction
+	 * @throws IllegalArgumentException
+	 *             if the bytes are not a transaction
+	 */
+	public TransactionRAW decode(byte[] bytes) {
+		return decode(ByteBuffer.wrap(bytes));
+	}
+
+	/**
+	 * @param bytes
+	 *            the transaction from the position to the limit, the position
+	 *            is moved to the limit
+	 * @return the transaction
+	 * @throws IllegalArgumentException
+	 *             if the bytes are not a transaction
+	 */
+	public TransactionRAW decode(ByteBuffer bytes) {
+		ByteBuffer in = bytes.slice().order(ByteOrder.LITTLE_ENDIAN);
+		TransactionRAW transaction = new TransactionRAW();
+		List<String> publishers = new ArrayList<String>();
+		try {
+			transaction.version = in.getInt();
+			long inputs = readCompactSize(in);
+			for (long i = 0; i < inputs; i++) {
+				transaction.vin.add(readInput(in, publishers));
+			}
+			long outputs = readCompactSize(in);
+			for (long n = 0; n < outputs; n++) {
+				transaction.vout.add(readOutput(in, n, publishers, transaction.data));
+			}
+			transaction.locktime = in.getInt() & 0xffffffffL;
+		} catch (BufferUnderflowException e) {
+			throw new IllegalArgumentException("transaction truncated at byte " + in.position());
+		}
+		if (in.hasRemaining()) {
+			throw new IllegalArgumentException(in.remaining() + " bytes after the transaction");
+		}
+		in.flip();
+		transaction.txid = reversedHex(doubleSha256(in));
+		bytes.position(bytes.limit());
+		return transaction;
+	}
+
+	private TransactionRAWVin readInput(ByteBuffer in, List<String> publishers) {
+		TransactionRAWVin input = new TransactionRAWVin();
+		byte[] txid = readBytes(in, 32);
+		long vout = in.getInt() & 0xffffffffL;
+		byte[] script = readBytes(in, readLength(in));
+		input.sequence = in.getInt() & 0xffffffffL;
+		if (vout == 0xffffffffL && isZero(txid)) {
+			input.coinbase = HexCodec.encode(script);
+			return input;
+		}
+		input.txid = reversedHex(txid);
+		input.vout = vout;
+		List<ScriptElement> elements = parseScript(script);
+		input.scriptSig.asm = asm(elements);
+		input.scriptSig.hex = HexCodec.encode(script);
+		// the signer of a pay to public key hash input publishes the items
+		if (elements.size() == 2 && elements.get(0).data != null && isPublicKey(elements.get(1).data)) {
+			String publisher = address(pubkeyHashVersion, Ripemd160.hash160(elements.get(1).data));
+			if (!publishers.contains(publisher)) {
+				publishers.add(publisher);
+			}
+		}
+		return input;
+	}
+
+	private TransactionRAWVout readOutput(ByteBuffer in, long n, List<String> publishers, List<String> data) {
+		TransactionRAWVout output = new TransactionRAWVout();
+		output.n = n;
+		output.value = (double) in.getLong() / nativeCurrencyMultiple;
+		byte[] script = readBytes(in, readLength(in));
+		List<ScriptElement> elements = parseScript(script);
+		output.scriptPubKey.asm = asm(elements);
+		output.scriptPubKey.hex = HexCodec.encode(script);
+
+		// the data dropped by the script are the extensions of multichain, the
+		// rest is a standard script
+		List<byte[]> extensions = new ArrayList<byte[]>();
+		List<ScriptElement> standard = new ArrayList<ScriptElement>();
+		for (int i = 0; i < elements.size(); i++) {
+			ScriptElement element = elements.get(i);
+			if (element.data != null && element.data.length > 0 && i + 1 < elements.size()
+					&& elements.get(i + 1).opcode == OP_DROP) {
+				extensions.add(element.data);
+				i++;
+			} else {
+				standard.add(element);
+			}
+		}
+		solve(standard, output.scriptPubKey);
+
+		Item item = null;
+		for (byte[] extension : extensions) {
+			int prefix = extension.length >= 4 ? ByteBuffer.wrap(extension).getInt() : 0;
+			if (prefix == PREFIX_ASSET_QUANTITIES) {
+				readAssetQuantities(extension, output.assets);
+			} else if (prefix == PREFIX_PERMISSIONS) {
+				readPermissions(extension, output.scriptPubKey.addresses, output.permissions);
+			} else if (prefix == PREFIX_ENTITY && extension.length == 4 + SHORT_TXID_SIZE) {
+				item = new Item();
+				item.type = "stream";
+				Stream stream = streams.get(reversedHex(Arrays.copyOfRange(extension, 4, extension.length)));
+				if (stream != null) {
+					item.name = stream.name;
+					item.streamref = stream.streamref;
+				}
+				item.publishers.addAll(publishers);
+			} else if (prefix == PREFIX_KEY && item != null && item.key == null) {
+				item.key = new String(extension, 4, extension.length - 4, StandardCharsets.UTF_8);
+			}
+		}
+
+		if ("nulldata".equals(output.scriptPubKey.type)) {
+			StringBuilder payload = new StringBuilder();
+			for (int i = 1; i < standard.size(); i++) {
+				payload.append(HexCodec.encode(standard.get(i).data));
+			}
+			if (item != null) {
+				item.data = payload.toString();
+				output.items.add(item);
+			} else if (payload.length() > 0) {
+				data.add(payload.toString());
+			}
+		}
+		return output;
+	}
+
+	/**
+	 * Raw quantities of the assets, after the prefix : for each asset its
+	 * short txid and the quantity on 8 bytes.
+	 */
+	private void readAssetQuantities(byte[] extension, List<BalanceAsset> quantities) {
+		ByteBuffer in = ByteBuffer.wrap(extension, 4, extension.length - 4).order(ByteOrder.LITTLE_ENDIAN);
+		while (in.remaining() >= ASSET_QUANTITY_SIZE) {
+			byte[] shortTxid = readBytes(in, SHORT_TXID_SIZE);
+			BalanceAsset quantity = new BalanceAsset();
+			quantity.raw = in.getLong();
+			quantity.type = "transfer";
+			BalanceAsset asset = assets.get(reversedHex(shortTxid));
+			if (asset != null) {
+				quantity.name = asset.name;
+				quantity.issuetxid = asset.issuetxid;
+				quantity.assetref = asset.assetref;
+				if (asset.multiple != null && asset.multiple > 0) {
+					quantity.qty = (double) quantity.raw / asset.multiple;
+				}
+			} else {
+				quantity.issuetxid = reversedHex(shortTxid);
+			}
+			quantities.add(quantity);
+		}
+	}
+
+	/**
+	 * Permissions granted to the addresses of the output, after the prefix :
+	 * the types on 4 bytes, then optionally the start and end blocks.
+	 */
+	private static void readPermissions(byte[] extension, List<String> addresses, List<Permission> permissions) {
+		ByteBuffer in = ByteBuffer.wrap(extension, 4, extension.length - 4).order(ByteOrder.LITTLE_ENDIAN);
+		if (in.remaining() < 4) {
+			return;
+		}
+		int types = in.getInt();
+		long startblock = 0;
+		long endblock = 0xffffffffL;
+		if (in.remaining() >= 8) {
+			startblock = in.getInt() & 0xffffffffL;
+			endblock = in.getInt() & 0xffffffffL;
+		}
+		for (String address : addresses) {
+			for (int bit = 0; bit < PERMISSION_TYPES.length; bit++) {
+				if ((types & (1 << bit)) != 0 && PERMISSION_TYPES[bit] != null) {
+					Permission permission = new Permission();
+					permission.address = address;
+					permission.type = PERMISSION_TYPES[bit];
+					permission.startblock = startblock;
+					permission.endblock = endblock;
+					permissions.add(permission);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Type, required signatures and addresses of the standard scripts.
+	 */
+	private void solve(List<ScriptElement> script, ScriptPubKey scriptPubKey) {
+		int size = script.size();
+		if (size == 2 && isPublicKey(script.get(0).data) && script.get(1).opcode == OP_CHECKSIG) {
+			scriptPubKey.type = "pubkey";
+			scriptPubKey.reqSigs = 1L;
+			scriptPubKey.addresses.add(address(pubkeyHashVersion, Ripemd160.hash160(script.get(0).data)));
+		} else if (size == 5 && script.get(0).opcode == OP_DUP && script.get(1).opcode == OP_HASH160
+				&& isHash160(script.get(2).data) && script.get(3).opcode == OP_EQUALVERIFY
+				&& script.get(4).opcode == OP_CHECKSIG) {
+			scriptPubKey.type = "pubkeyhash";
+			scriptPubKey.reqSigs = 1L;
+			scriptPubKey.addresses.add(address(pubkeyHashVersion, script.get(2).data));
+		} else if (size == 3 && script.get(0).opcode == OP_HASH160 && isHash160(script.get(1).data)
+				&& script.get(2).opcode == OP_EQUAL) {
+			scriptPubKey.type = "scripthash";
+			scriptPubKey.reqSigs = 1L;
+			scriptPubKey.addresses.add(address(scriptHashVersion, script.get(1).data));
+		} else if (size >= 1 && script.get(0).opcode == OP_RETURN && onlyPushes(script, 1)) {
+			scriptPubKey.type = "nulldata";
+		} else if (isMultisig(script)) {
+			scriptPubKey.type = "multisig";
+			scriptPubKey.reqSigs = (long) (script.get(0).opcode - OP_1 + 1);
+			for (int i = 1; i < size - 2; i++) {
+				scriptPubKey.addresses.add(address(pubkeyHashVersion, Ripemd160.hash160(script.get(i).data)));
+			}
+		} else {
+			scriptPubKey.type = "nonstandard";
+		}
+	}
+
+	private static boolean isMultisig(List<ScriptElement> script) {
+		int size = script.size();
+		if (size < 4 || script.get(size - 1).opcode != OP_CHECKMULTISIG) {
+			return false;
+		}
+		int required = script.get(0).opcode - OP_1 + 1;
+		int keys = script.get(size - 2).opcode - OP_1 + 1;
+		if (required < 1 || required > 16 || keys < required || keys > 16 || keys != size - 3) {
+			return false;
+		}
+		for (int i = 1; i < size - 2; i++) {
+			if (!isPublicKey(script.get(i).data)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Base58 of the hash with the version bytes spread in it, and the checksum
+	 * mixed with the checksum value of the chain.
+	 */
+	private String address(byte[] version, byte[] hash) {
+		byte[] extended = new byte[version.length + hash.length + 4];
+		int spacing = hash.length / version.length;
+		int position = 0;
+		for (int i = 0, h = 0; i < version.length || h < hash.length;) {
+			if (i < version.length && h == i * spacing) {
+				extended[position++] = version[i++];
+			} else {
+				extended[position++] = hash[h++];
+			}
+		}
+		byte[] checksum = doubleSha256(ByteBuffer.wrap(extended, 0, position));
+		for (int i = 0; i < 4; i++) {
+			extended[position + i] = (byte) (checksum[i] ^ checksumValue[i]);
+		}
+		return Base58.encode(extended);
+	}
+
+	private static List<ScriptElement> parseScript(byte[] script) {
+		List<ScriptElement> elements = new ArrayList<ScriptElement>();
+		ByteBuffer in = ByteBuffer.wrap(script).order(ByteOrder.LITTLE_ENDIAN);
+		try {
+			while (in.hasRemaining()) {
+				int opcode = in.get() & 0xff;
+				byte[] data = null;
+				if (opcode <= OP_PUSHDATA4) {
+					long length = opcode < OP_PUSHDATA1 ? opcode
+							: opcode == OP_PUSHDATA1 ? in.get() & 0xff
+									: opcode == OP_PUSHDATA2 ? in.getShort() & 0xffff : in.getInt() & 0xffffffffL;
+					if (length > in.remaining()) {
+						throw new BufferUnderflowException();
+					}
+					data = readBytes(in, (int) length);
+				}
+				elements.add(new ScriptElement(opcode, data));
+			}
+		} catch (BufferUnderflowException e) {
+			elements.add(ScriptElement.ERROR);
+		}
+		return elements;
+	}
+
+	/**
+	 * Short pushes as numbers, longer ones in hexadecimal, opcodes by name.
+	 */
+	private static String asm(List<ScriptElement> elements) {
+		StringBuilder asm = new StringBuilder();
+		for (ScriptElement element : elements) {
+			if (asm.length() > 0) {
+				asm.append(' ');
+			}
+			if (element == ScriptElement.ERROR) {
+				asm.append("[error]");
+			} else if (element.data == null) {
+				asm.append(OPCODE_NAMES[element.opcode]);
+			} else if (element.data.length <= 4) {
+				asm.append(scriptNumber(element.data));
+			} else {
+				asm.append(HexCodec.encode(element.data));
+			}
+		}
+		return asm.toString();
+	}
+
+	/** little endian, the sign in the highest bit */
+	private static long scriptNumber(byte[] data) {
+		if (data.length == 0) {
+			return 0;
+		}
+		long value = 0;
+		for (int i = 0; i < data.length; i++) {
+			value |= (long) (data[i] & 0xff) << (8 * i);
+		}
+		long sign = 0x80L << (8 * (data.length - 1));
+		return (value & sign) != 0 ? -(value & ~sign) : value;
+	}
+
+	private static boolean onlyPushes(List<ScriptElement> script, int from) {
+		for (int i = from; i < script.size(); i++) {
+			if (script.get(i).data == null) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static boolean isPublicKey(byte[] data) {
+		return data != null && ((data.length == 33 && (data[0] == 2 || data[0] == 3))
+				|| (data.length == 65 && data[0] == 4));
+	}
+
+	private static boolean isHash160(byte[] data) {
+		return data != null && data.length == 20;
+	}
+
+	private static boolean isZero(byte[] bytes) {
+		for (byte b : bytes) {
+			if (b != 0) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static long readCompactSize(ByteBuffer in) {
+		int first = in.get() & 0xff;
+		if (first < 0xfd) {
+			return first;
+		} else if (first == 0xfd) {
+			return in.getShort() & 0xffff;
+		} else if (first == 0xfe) {
+			return in.getInt() & 0xffffffffL;
+		}
+		return in.getLong();
+	}
+
+	private static int readLength(ByteBuffer in) {
+		long length = readCompactSize(in);
+		if (length < 0 || length > in.remaining()) {
+			throw new BufferUnderflowException();
+		}
+		return (int) length;
+	}
+
+	private static byte[] readBytes(ByteBuffer in, int length) {
+		byte[] bytes = new byte[length];
+		in.get(bytes);
+		return bytes;
+	}
+
+	private static String reversedHex(byte[] bytes) {
+		byte[] reversed = new byte[bytes.length];
+		for (int i = 0; i < bytes.length; i++) {
+			reversed[i] = bytes[bytes.length - 1 - i];
+		}
+		return HexCodec.encode(reversed);
+	}
+
+	private static byte[] doubleSha256(ByteBuffer bytes) {
+		try {
+			MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
+			sha256.update(bytes);
+			return sha256.digest(sha256.digest());
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/**
+	 * An opcode, with its data for the pushes.
+	 */
+	private static class ScriptElement {
+		/** the rest of the script could not be parsed */
+		static final ScriptElement ERROR = new ScriptElement(-1, null);
+
+		final int opcode;
+		final byte[] data;
+
+		ScriptElement(int opcode, byte[] data) {
+			this.opcode = opcode;
+			this.data = data;
+		}
+	}
+}
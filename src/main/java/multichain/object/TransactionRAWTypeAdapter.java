@@ -0,0 +1,86 @@
+/*
+ * Copyright (C) 2017 Worldline, Inc.
+ *
+ * MultiChainJavaAPI code distributed under the GPLv3 license, see COPYING file.
+ * https://github.com/SimplyUb/MultiChainJavaAPI/blob/master/LICENSE
+ *
+ */
+package multichain.object;
+
+import java.io.IOException;
+import java.util.List;
+
+import com.google.gson.Gson;
+import com.google.gson.TypeAdapter;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+
+/**
+ * Reads and writes {@link TransactionRAW} without reflection, nested objects go
+ * through the adapters of the Gson instance.
+ *
+ * @author Ub - H. MARTEAU
+ * @version 4.15
+ */
+class TransactionRAWTypeAdapter extends DomainTypeAdapter<TransactionRAW> {
+	private final TypeAdapter<List<TransactionRAWVin>> vinAdapter;
+	private final TypeAdapter<List<TransactionRAWVout>> voutAdapter;
+	private final TypeAdapter<AssetWalletTransaction> issueAdapter;
+
+	TransactionRAWTypeAdapter(Gson gson) {
+		vinAdapter = gson.getAdapter(new TypeToken<List<TransactionRAWVin>>() {
+		});
+		voutAdapter = gson.getAdapter(new TypeToken<List<TransactionRAWVout>>() {
+		});
+		issueAdapter = gson.getAdapter(AssetWalletTransaction.class);
+	}
+
+	@Override
+	TransactionRAW newInstance() {
+		return new TransactionRAW();
+	}
+
+	@Override
+	boolean readField(JsonReader in, String name, TransactionRAW value) throws IOException {
+		switch (name) {
+		case "txid":
+			value.txid = readString(in);
+			return true;
+		case "version":
+			value.version = readInteger(in);
+			return true;
+		case "locktime":
+			value.locktime = readLong(in);
+			return true;
+		case "vin":
+			value.vin = vinAdapter.read(in);
+			return true;
+		case "vout":
+			value.vout = voutAdapter.read(in);
+			return true;
+		case "issue":
+			value.issue = issueAdapter.read(in);
+			return true;
+		case "data":
+			value.data = readStrings(in);
+			return true;
+		default:
+			return false;
+		}
+	}
+
+	@Override
+	void writeFields(JsonWriter out, TransactionRAW value) throws IOException {
+		writeString(out, "txid", value.txid);
+		writeNumber(out, "version", value.version);
+		writeNumber(out, "locktime", value.locktime);
+		out.name("vin");
+		vinAdapter.write(out, value.vin);
+		out.name("vout");
+		voutAdapter.write(out, value.vout);
+		out.name("issue");
+		issueAdapter.write(out, value.issue);
+		writeStrings(out, "data", value.data);
+	}
+}
@@ -0,0 +1,141 @@
+/*
+ * Copyright (C) 2017 Worldline, Inc.
+ *
+ * MultiChainJavaAPI code distributed under the GPLv3 license, see COPYING file.
+ * https://github.com/SimplyUb/MultiChainJavaAPI/blob/master/LICENSE
+ *
+ */
+package multichain.object;
+
+import java.io.IOException;
+import java.util.List;
+
+import com.google.gson.Gson;
+import com.google.gson.TypeAdapter;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+
+/**
+ * Reads and writes {@link TransactionWalletDetailed} without reflection, nested objects go
+ * through the adapters of the Gson instance.
+ *
+ * @author Ub - H. MARTEAU
+ * @version 4.15
+ */
+class TransactionWalletDetailedTypeAdapter extends DomainTypeAdapter<TransactionWalletDetailed> {
+	private final TypeAdapter<BalanceWalletTransaction> balanceAdapter;
+	private final TypeAdapter<List<PermissionDetailed>> permissionsAdapter;
+	private final TypeAdapter<AssetWalletTransaction> issueAdapter;
+	private final TypeAdapter<List<Item>> itemsAdapter;
+	private final TypeAdapter<List<TransactionWalletVin>> vinAdapter;
+	private final TypeAdapter<List<TransactionWalletVout>> voutAdapter;
+
+	TransactionWalletDetailedTypeAdapter(Gson gson) {
+		balanceAdapter = gson.getAdapter(BalanceWalletTransaction.class);
+		permissionsAdapter = gson.getAdapter(new TypeToken<List<PermissionDetailed>>() {
+		});
+		issueAdapter = gson.getAdapter(AssetWalletTransaction.class);
+		itemsAdapter = gson.getAdapter(new TypeToken<List<Item>>() {
+		});
+		vinAdapter = gson.getAdapter(new TypeToken<List<TransactionWalletVin>>() {
+		});
+		voutAdapter = gson.getAdapter(new TypeToken<List<TransactionWalletVout>>() {
+		});
+	}
+
+	@Override
+	TransactionWalletDetailed newInstance() {
+		return new TransactionWalletDetailed();
+	}
+
+	@Override
+	boolean readField(JsonReader in, String name, TransactionWalletDetailed value) throws IOException {
+		switch (name) {
+		case "balance":
+			value.balance = balanceAdapter.read(in);
+			return true;
+		case "myaddresses":
+			value.myaddresses = readStrings(in);
+			return true;
+		case "addresses":
+			value.addresses = readStrings(in);
+			return true;
+		case "permissions":
+			value.permissions = permissionsAdapter.read(in);
+			return true;
+		case "issue":
+			value.issue = issueAdapter.read(in);
+			return true;
+		case "items":
+			value.items = itemsAdapter.read(in);
+			return true;
+		case "data":
+			value.data = readStrings(in);
+			return true;
+		case "confirmations":
+			value.confirmations = readLong(in);
+			return true;
+		case "blockhash":
+			value.blockhash = readString(in);
+			return true;
+		case "blockindex":
+			value.blockindex = readLong(in);
+			return true;
+		case "blocktime":
+			value.blocktime = readLong(in);
+			return true;
+		case "txid":
+			value.txid = readString(in);
+			return true;
+		case "valid":
+			value.valid = readBoolean(in);
+			return true;
+		case "time":
+			value.time = readLong(in);
+			return true;
+		case "timereceived":
+			value.timereceived = readLong(in);
+			return true;
+		case "vin":
+			value.vin = vinAdapter.read(in);
+			return true;
+		case "vout":
+			value.vout = voutAdapter.read(in);
+			return true;
+		case "hex":
+			value.hex = readString(in);
+			return true;
+		default:
+			return false;
+		}
+	}
+
+	@Override
+	void writeFields(JsonWriter out, TransactionWalletDetailed value) throws IOException {
+		out.name("balance");
+		balanceAdapter.write(out, value.balance);
+		writeStrings(out, "myaddresses", value.myaddresses);
+		writeStrings(out, "addresses", value.addresses);
+		out.name("permissions");
+		permissionsAdapter.write(out, value.permissions);
+		out.name("issue");
+		issueAdapter.write(out, value.issue);
+		out.name("items");
+		itemsAdapter.write(out, value.items);
+		writeStrings(out, "data", value.data);
+		writeNumber(out, "confirmations", value.confirmations);
+		writeString(out, "blockhash", value.blockhash);
+		writeNumber(out, "blockindex", value.blockindex);
+		writeNumber(out, "blocktime", value.blocktime);
+		writeString(out, "txid", value.txid);
+		writeBoolean(out, "valid", value.valid);
+		writeNumber(out, "time", value.time);
+		writeNumber(out, "timereceived", value.timereceived);
+		out.name("vin");
+		vinAdapter.write(out, value.vin);
+		out.name("vout");
+		voutAdapter.write(out, value.vout);
+		writeString(out, "hex", value.hex);
+	}
+}
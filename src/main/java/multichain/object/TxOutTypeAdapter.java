@@ -0,0 +1,82 @@
+/*
+ * Copyright (C) 2017 Worldline, Inc.
+ *
+ * MultiChainJavaAPI code distributed under the GPLv3 license, see COPYING file.
+ * https://github.com/SimplyUb/MultiChainJavaAPI/blob/master/LICENSE
+ *
+ */
+package multichain.object;
+
+import java.io.IOException;
+import java.util.List;
+
+import com.google.gson.Gson;
+import com.google.gson.TypeAdapter;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+
+/**
+ * Reads and writes {@link TxOut} without reflection, nested objects go
+ * through the adapters of the Gson instance.
+ *
+ * @author Ub - H. MARTEAU
+ * @version 4.15
+ */
+class TxOutTypeAdapter extends DomainTypeAdapter<TxOut> {
+	private final TypeAdapter<ScriptPubKey> scriptPubKeyAdapter;
+	private final TypeAdapter<List<BalanceAsset>> assetsAdapter;
+
+	TxOutTypeAdapter(Gson gson) {
+		scriptPubKeyAdapter = gson.getAdapter(ScriptPubKey.class);
+		assetsAdapter = gson.getAdapter(new TypeToken<List<BalanceAsset>>() {
+		});
+	}
+
+	@Override
+	TxOut newInstance() {
+		return new TxOut();
+	}
+
+	@Override
+	boolean readField(JsonReader in, String name, TxOut value) throws IOException {
+		switch (name) {
+		case "bestblock":
+			value.bestblock = readString(in);
+			return true;
+		case "confirmations":
+			value.confirmations = readLong(in);
+			return true;
+		case "value":
+			value.value = readDouble(in);
+			return true;
+		case "scriptPubKey":
+			value.scriptPubKey = scriptPubKeyAdapter.read(in);
+			return true;
+		case "version":
+			value.version = readLong(in);
+			return true;
+		case "coinbase":
+			value.coinbase = readBoolean(in);
+			return true;
+		case "assets":
+			value.assets = assetsAdapter.read(in);
+			return true;
+		default:
+			return false;
+		}
+	}
+
+	@Override
+	void writeFields(JsonWriter out, TxOut value) throws IOException {
+		writeString(out, "bestblock", value.bestblock);
+		writeNumber(out, "confirmations", value.confirmations);
+		writeNumber(out, "value", value.value);
+		out.name("scriptPubKey");
+		scriptPubKeyAdapter.write(out, value.scriptPubKey);
+		writeNumber(out, "version", value.version);
+		writeBoolean(out, "coinbase", value.coinbase);
+		out.name("assets");
+		assetsAdapter.write(out, value.assets);
+	}
+}
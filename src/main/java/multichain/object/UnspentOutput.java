@@ -0,0 +1,144 @@
+/*
+ * Copyright (C) 2017 Worldline, Inc.
+ *
+ * MultiChainJavaAPI code distributed under the GPLv3 license, see COPYING file.
+ * https://github.com/SimplyUb/MultiChainJavaAPI/blob/master/LICENSE
+ *
+ */
+package multichain.object;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * An unspent output, as listed by listunspent.
+ *
+ * @author Ub - H. MARTEAU
+ * @version 4.15
+ */
+public class UnspentOutput {
+
+	String txid = null;
+	Long vout = null;
+	String address = null;
+	Double amount = null;
+	Long confirmations = null;
+	List<BalanceAsset> assets;
+
+	public UnspentOutput() {
+		super();
+		assets = new ArrayList<BalanceAsset>();
+	}
+
+	/**
+	 * @param txid
+	 * @param vout
+	 * @param address
+	 * @param amount
+	 *            in native currency
+	 */
+	public UnspentOutput(String txid, long vout, String address, double amount) {
+		this();
+		this.txid = txid;
+		this.vout = vout;
+		this.address = address;
+		this.amount = amount;
+	}
+
+	/* (non-Javadoc)
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString() {
+		return "UnspentOutput [txid=" + txid + ", vout=" + vout + ", address=" + address + ", amount=" + amount
+				+ ", confirmations=" + confirmations + ", assets=" + assets + "]";
+	}
+
+	/**
+	 * @return the txid
+	 */
+	public String getTxid() {
+		return txid;
+	}
+
+	/**
+	 * @param txid the txid to set
+	 */
+	public void setTxid(String txid) {
+		this.txid = txid;
+	}
+
+	/**
+	 * @return the vout
+	 */
+	public long getVout() {
+		return vout;
+	}
+
+	/**
+	 * @param vout the vout to set
+	 */
+	public void setVout(long vout) {
+		this.vout = vout;
+	}
+
+	/**
+	 * @return the address
+	 */
+	public String getAddress() {
+		return address;
+	}
+
+	/**
+	 * @param address the address to set
+	 */
+	public void setAddress(String address) {
+		this.address = address;
+	}
+
+	/**
+	 * @return the amount in native currency, 0 if none
+	 */
+	public double getAmount() {
+		return amount != null ? amount : 0;
+	}
+
+	/**
+	 * @param amount the amount to set
+	 */
+	public void setAmount(double amount) {
+		this.amount = amount;
+	}
+
+	/**
+	 * @return the confirmations, 0 if not given
+	 */
+	public long getConfirmations() {
+		return confirmations != null ? confirmations : 0;
+	}
+
+	/**
+	 * @param confirmations the confirmations to set
+	 */
+	public void setConfirmations(long confirmations) {
+		this.confirmations = confirmations;
+	}
+
+	/**
+	 * @return the assets
+	 */
+	public List<BalanceAsset> getAssets() {
+		return assets;
+	}
+
+	/**
+	 * @param assets the assets to set
+	 */
+	public void setAssets(List<BalanceAsset> assets) {
+		this.assets = assets;
+	}
+
+	public void addAsset(BalanceAsset asset) {
+		this.assets.add(asset);
+	}
+}
@@ -10,8 +10,6 @@ package multichain.object.formatters;
 import java.util.ArrayList;
 import java.util.List;
 
-import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
 import com.google.gson.internal.LinkedTreeMap;
 
 import multichain.object.Address;
@@ -26,11 +24,7 @@ public class AddressFormatter {
 		Address address = new Address();
 
 		if (objectAddress != null && LinkedTreeMap.class.isInstance(objectAddress)) {
-			GsonBuilder builder = new GsonBuilder();
-			Gson gson = builder.create();
-
-			String jsonValue = gson.toJson(objectAddress);
-			address = gson.fromJson(jsonValue, Address.class);
+			address = GsonFormatters.formatObject(objectAddress, Address.class);
 		}
 
 		return address;
@@ -52,11 +46,7 @@ public class AddressFormatter {
 		KeyPairs keyPairs = new KeyPairs();
 
 		if (objectKeyPair != null && LinkedTreeMap.class.isInstance(objectKeyPair)) {
-			GsonBuilder builder = new GsonBuilder();
-			Gson gson = builder.create();
-
-			String jsonValue = gson.toJson(objectKeyPair);
-			keyPairs = gson.fromJson(jsonValue, KeyPairs.class);
+			keyPairs = GsonFormatters.formatObject(objectKeyPair, KeyPairs.class);
 		}
 
 		return keyPairs;
@@ -10,8 +10,6 @@ package multichain.object.formatters;
 import java.util.ArrayList;
 import java.util.List;
 
-import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
 import com.google.gson.internal.LinkedTreeMap;
 
 import multichain.object.BalanceAsset;
@@ -27,11 +25,7 @@ public class BalanceFormatter {
 		BalanceAssetGeneral balanceAsset = new BalanceAssetGeneral();
 
 		if (objectBalanceAsset != null && LinkedTreeMap.class.isInstance(objectBalanceAsset)) {
-			GsonBuilder builder = new GsonBuilder();
-			Gson gson = builder.create();
-
-			String jsonValue = gson.toJson(objectBalanceAsset);
-			balanceAsset = gson.fromJson(jsonValue, BalanceAssetGeneral.class);
+			balanceAsset = GsonFormatters.formatObject(objectBalanceAsset, BalanceAssetGeneral.class);
 		}
 
 		return balanceAsset;
@@ -53,11 +47,7 @@ public class BalanceFormatter {
 		BalanceAsset balanceAsset = new BalanceAsset();
 
 		if (objectBalanceAsset != null && LinkedTreeMap.class.isInstance(objectBalanceAsset)) {
-			GsonBuilder builder = new GsonBuilder();
-			Gson gson = builder.create();
-
-			String jsonValue = gson.toJson(objectBalanceAsset);
-			balanceAsset = gson.fromJson(jsonValue, BalanceAsset.class);
+			balanceAsset = GsonFormatters.formatObject(objectBalanceAsset, BalanceAsset.class);
 		}
 
 		return balanceAsset;
@@ -79,11 +69,7 @@ public class BalanceFormatter {
 		MultiBalance multiBalance = new MultiBalance();
 
 		if (objectMultiBalance != null && LinkedTreeMap.class.isInstance(objectMultiBalance)) {
-			GsonBuilder builder = new GsonBuilder();
-			Gson gson = builder.create();
-
-			String jsonValue = gson.toJson(objectMultiBalance);
-			multiBalance = gson.fromJson(jsonValue, MultiBalance.class);
+			multiBalance = GsonFormatters.formatObject(objectMultiBalance, MultiBalance.class);
 		}
 
 		return multiBalance;
@@ -0,0 +1,95 @@
+/*
+ * Copyright (C) 2017 Worldline, Inc.
+ *
+ * MultiChainJavaAPI code distributed under the GPLv3 license, see COPYING file.
+ * https://github.com/SimplyUb/MultiChainJavaAPI/blob/master/LICENSE
+ *
+ */
+package multichain.object.formatters;
+
+import java.util.Arrays;
+
+/**
+ * Base58 encoding of addresses, with the alphabet of the node.
+ *
+ * @author Ub - H. MARTEAU
+ * @version 4.15
+ */
+public final class Base58 {
+	private static final char[] ALPHABET = "123456789ABCDEFGHJKLMNPQRSTUVWXYZabcdefghijkmnopqrstuvwxyz".toCharArray();
+	/** value of each ASCII character, -1 if not in the alphabet */
+	private static final byte[] VALUES = new byte[128];
+
+	static {
+		Arrays.fill(VALUES, (byte) -1);
+		for (int i = 0; i < ALPHABET.length; i++) {
+			VALUES[ALPHABET[i]] = (byte) i;
+		}
+	}
+
+	private Base58() {
+	}
+
+	/**
+	 * @param bytes
+	 * @return the bytes in Base58, a leading '1' for each leading zero byte
+	 */
+	public static String encode(byte[] bytes) {
+		int zeros = 0;
+		while (zeros < bytes.length && bytes[zeros] == 0) {
+			zeros++;
+		}
+		// base 256 to base 58, on a copy divided in place
+		byte[] input = Arrays.copyOf(bytes, bytes.length);
+		char[] encoded = new char[bytes.length * 2];
+		int output = encoded.length;
+		for (int start = zeros; start < input.length;) {
+			int remainder = 0;
+			for (int i = start; i < input.length; i++) {
+				int digit = remainder * 256 + (input[i] & 0xff);
+				input[i] = (byte) (digit / 58);
+				remainder = digit % 58;
+			}
+			encoded[--output] = ALPHABET[remainder];
+			while (start < input.length && input[start] == 0) {
+				start++;
+			}
+		}
+		for (int i = 0; i < zeros; i++) {
+			encoded[--output] = ALPHABET[0];
+		}
+		return new String(encoded, output, encoded.length - output);
+	}
+
+	/**
+	 * @param value
+	 * @return the bytes
+	 * @throws IllegalArgumentException
+	 *             if a character is not in the alphabet
+	 */
+	public static byte[] decode(CharSequence value) {
+		int zeros = 0;
+		while (zeros < value.length() && value.charAt(zeros) == ALPHABET[0]) {
+			zeros++;
+		}
+		byte[] decoded = new byte[value.length()];
+		int output = decoded.length;
+		for (int i = zeros; i < value.length(); i++) {
+			char c = value.charAt(i);
+			int carry = c < VALUES.length ? VALUES[c] : -1;
+			if (carry < 0) {
+				throw new IllegalArgumentException("not a base58 character at " + i + " : " + c);
+			}
+			int j = decoded.length;
+			for (; j > output || carry != 0; j--) {
+				carry += 58 * (decoded[j - 1] & 0xff);
+				decoded[j - 1] = (byte) carry;
+				carry >>>= 8;
+			}
+			output = j;
+		}
+		byte[] bytes = new byte[zeros + decoded.length - output];
+		System.arraycopy(decoded, output, bytes, zeros, decoded.length - output);
+		return bytes;
+	}
+}
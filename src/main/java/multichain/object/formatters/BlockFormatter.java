@@ -10,7 +10,6 @@ package multichain.object.formatters;
 import multichain.object.Block;
 
 import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
 import com.google.gson.internal.LinkedTreeMap;
 
 /**
@@ -19,7 +18,7 @@ import com.google.gson.internal.LinkedTreeMap;
  */
 public class BlockFormatter {
 	public final static long formatBlockCount(String stringBlockCount) {
-		final Gson gson = new GsonBuilder().create();
+		final Gson gson = GsonRegistry.get();
 
 		final Long blockCount = gson.fromJson(stringBlockCount, Long.class);
 
@@ -30,11 +29,7 @@ public class BlockFormatter {
 		Block block = new Block();
 
 		if (objectBlock != null && LinkedTreeMap.class.isInstance(objectBlock)) {
-			GsonBuilder builder = new GsonBuilder();
-			Gson gson = builder.create();
-
-			String jsonValue = gson.toJson(objectBlock);
-			block = gson.fromJson(jsonValue, Block.class);
+			block = GsonFormatters.formatObject(objectBlock, Block.class);
 		}
 
 		return block;
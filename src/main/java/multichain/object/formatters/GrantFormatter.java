@@ -12,8 +12,6 @@ import java.util.List;
 
 import multichain.object.Permission;
 
-import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
 import com.google.gson.internal.LinkedTreeMap;
 
 /**
@@ -25,11 +23,7 @@ public class GrantFormatter {
 		Permission permission = new Permission();
 
 		if (objectPermission != null && LinkedTreeMap.class.isInstance(objectPermission)) {
-			GsonBuilder builder = new GsonBuilder();
-			Gson gson = builder.create();
-
-			String jsonValue = gson.toJson(objectPermission);
-			permission = gson.fromJson(jsonValue, Permission.class);
+			permission = GsonFormatters.formatObject(objectPermission, Permission.class);
 		}
 
 		return permission;
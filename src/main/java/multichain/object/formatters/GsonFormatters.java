@@ -18,26 +18,35 @@ import com.google.gson.JsonElement;
  * @version 2.1
  */
 public class GsonFormatters {
-	protected static String formatJson(String[] values) {
-		final GsonBuilder builder = new GsonBuilder();
-		final Gson gson = builder.create();
+	/**
+	 * Shared instance, see {@link GsonRegistry}
+	 */
+	protected static final Gson GSON = GsonRegistry.get();
 
-		return gson.toJson(values);
+	protected static String formatJson(String[] values) {
+		return GSON.toJson(values);
 	}
 
 	protected static String formatJson(List<Object> values) {
-		final GsonBuilder builder = new GsonBuilder();
-		final Gson gson = builder.create();
-
-		return gson.toJson(values);
+		return GSON.toJson(values);
 	}
 
 	protected static String formatJson(Object value) {
-		final GsonBuilder builder = new GsonBuilder();
-		final Gson gson = builder.create();
-		return gson.toJson(value);
+		return GSON.toJson(value);
 	}
 	
+	/**
+	 * Converts a value already parsed by Gson (LinkedTreeMap, List...) to type
+	 * through a JSON tree, without writing and parsing it again as a String.
+	 * 
+	 * @param value
+	 * @param type
+	 * @return the converted value
+	 */
+	protected static <T> T formatObject(Object value, Class<T> type) {
+		return GSON.fromJson(GSON.toJsonTree(value), type);
+	}
+
 	protected static String formatJsonWithCustomBuilder(Object value, GsonBuilder builder) {
 		return builder.create().toJson(value);
 	}
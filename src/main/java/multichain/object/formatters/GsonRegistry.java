@@ -0,0 +1,47 @@
+/*
+ * Copyright (C) 2017 Worldline, Inc.
+ *
+ * MultiChainJavaAPI code distributed under the GPLv3 license, see COPYING file.
+ * https://github.com/SimplyUb/MultiChainJavaAPI/blob/master/LICENSE
+ *
+ */
+package multichain.object.formatters;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+
+import multichain.object.DomainTypeAdapterFactory;
+
+/**
+ * Gson instances of the API.
+ *
+ * Gson is thread safe and caches the adapter of each type it meets : the
+ * instances are built once and shared, never per call.
+ *
+ * @author Ub - H. MARTEAU
+ * @version 4.15
+ */
+public final class GsonRegistry {
+	private static final Gson GSON = newBuilder().create();
+
+	private GsonRegistry() {
+	}
+
+	/**
+	 * @return the shared instance, with the adapters of the objects
+	 */
+	public static Gson get() {
+		return GSON;
+	}
+
+	/**
+	 * Starts a builder with the adapters of the objects, for an instance
+	 * needing more adapters. The built instance is to be kept, not rebuilt per
+	 * call.
+	 *
+	 * @return a new builder
+	 */
+	public static GsonBuilder newBuilder() {
+		return new GsonBuilder().registerTypeAdapterFactory(new DomainTypeAdapterFactory());
+	}
+}
@@ -0,0 +1,239 @@
+/*
+ * Copyright (C) 2017 Worldline, Inc.
+ *
+ * MultiChainJavaAPI code distributed under the GPLv3 license, see COPYING file.
+ * https://github.com/SimplyUb/MultiChainJavaAPI/blob/master/LICENSE
+ *
+ */
+package multichain.object.formatters;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Hexadecimal encoding and decoding through lookup tables, between bytes and
+ * characters without intermediate copies.
+ *
+ * Encoding writes lowercase digits, as the node does. Decoding accepts both
+ * cases, and raises an {@link IllegalArgumentException} at the first
+ * character which is not a digit, or on an odd number of digits. Payloads
+ * received in chunks are decoded with a {@link Decoder}.
+ *
+ * @author Ub - H. MARTEAU
+ * @version 4.15
+ */
+public final class HexCodec {
+	private static final char[] DIGITS = "0123456789abcdef".toCharArray();
+	/** value of each ASCII character, -1 if not a digit */
+	private static final byte[] VALUES = new byte[128];
+
+	static {
+		for (int c = 0; c < VALUES.length; c++) {
+			VALUES[c] = (byte) Character.digit(c, 16);
+		}
+	}
+
+	private HexCodec() {
+	}
+
+	/**
+	 * @param bytes
+	 * @return the bytes in lowercase hexadecimal
+	 */
+	public static String encode(byte[] bytes) {
+		return encode(bytes, 0, bytes.length);
+	}
+
+	/**
+	 * @param bytes
+	 * @param offset
+	 * @param length
+	 * @return the bytes in lowercase hexadecimal
+	 */
+	public static String encode(byte[] bytes, int offset, int length) {
+		char[] hex = new char[length * 2];
+		encode(bytes, offset, length, hex, 0);
+		return new String(hex);
+	}
+
+	/**
+	 * @param bytes
+	 *            read from its position to its limit, the position is moved
+	 * @return the bytes in lowercase hexadecimal
+	 */
+	public static String encode(ByteBuffer bytes) {
+		char[] hex = new char[bytes.remaining() * 2];
+		int i = 0;
+		while (bytes.hasRemaining()) {
+			int b = bytes.get() & 0xff;
+			hex[i++] = DIGITS[b >>> 4];
+			hex[i++] = DIGITS[b & 0x0f];
+		}
+		return new String(hex);
+	}
+
+	/**
+	 * @param bytes
+	 * @param offset
+	 * @param length
+	 * @param destination
+	 *            receives 2 * length characters
+	 * @param destinationOffset
+	 */
+	public static void encode(byte[] bytes, int offset, int length, char[] destination, int destinationOffset) {
+		for (int i = 0; i < length; i++) {
+			int b = bytes[offset + i] & 0xff;
+			destination[destinationOffset++] = DIGITS[b >>> 4];
+			destination[destinationOffset++] = DIGITS[b & 0x0f];
+		}
+	}
+
+	/**
+	 * @param hex
+	 * @return the bytes
+	 * @throws IllegalArgumentException
+	 *             if the value is not hexadecimal
+	 */
+	public static byte[] decode(CharSequence hex) {
+		if (hex.length() % 2 != 0) {
+			throw new IllegalArgumentException("odd number of hexadecimal digits : " + hex.length());
+		}
+		byte[] bytes = new byte[hex.length() / 2];
+		decode(hex, 0, hex.length(), bytes, 0);
+		return bytes;
+	}
+
+	/**
+	 * @param hex
+	 * @param start
+	 *            index of the first character
+	 * @param end
+	 *            index after the last character, start plus an even number
+	 * @param destination
+	 *            receives (end - start) / 2 bytes
+	 * @param destinationOffset
+	 * @return the number of bytes written
+	 * @throws IllegalArgumentException
+	 *             if the characters are not hexadecimal
+	 */
+	public static int decode(CharSequence hex, int start, int end, byte[] destination, int destinationOffset) {
+		if ((end - start) % 2 != 0) {
+			throw new IllegalArgumentException("odd number of hexadecimal digits : " + (end - start));
+		}
+		for (int i = start; i < end; i += 2) {
+			destination[destinationOffset++] = (byte) ((value(hex, i) << 4) | value(hex, i + 1));
+		}
+		return (end - start) / 2;
+	}
+
+	/**
+	 * @param hex
+	 * @param destination
+	 *            receives the bytes from its position, which is moved
+	 * @return the number of bytes written
+	 * @throws IllegalArgumentException
+	 *             if the value is not hexadecimal
+	 */
+	public static int decode(CharSequence hex, ByteBuffer destination) {
+		if (hex.length() % 2 != 0) {
+			throw new IllegalArgumentException("odd number of hexadecimal digits : " + hex.length());
+		}
+		for (int i = 0; i < hex.length(); i += 2) {
+			destination.put((byte) ((value(hex, i) << 4) | value(hex, i + 1)));
+		}
+		return hex.length() / 2;
+	}
+
+	/**
+	 * @param hex
+	 * @return true if the value is lowercase hexadecimal, as encoded by this
+	 *         codec
+	 */
+	public static boolean isLowerCaseHex(CharSequence hex) {
+		if (hex == null || hex.length() % 2 != 0) {
+			return false;
+		}
+		for (int i = 0; i < hex.length(); i++) {
+			char c = hex.charAt(i);
+			if ((c < '0' || c > '9') && (c < 'a' || c > 'f')) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static int value(CharSequence hex, int index) {
+		char c = hex.charAt(index);
+		int value = c < VALUES.length ? VALUES[c] : -1;
+		if (value < 0) {
+			throw new IllegalArgumentException("not an hexadecimal digit at " + index + " : " + c);
+		}
+		return value;
+	}
+
+	/**
+	 * Decodes a payload received in chunks of any length.
+	 *
+	 * <pre>
+	 * HexCodec.Decoder decoder = new HexCodec.Decoder();
+	 * while ((read = reader.read(chars)) &gt; 0) {
+	 * 	int length = decoder.decode(CharBuffer.wrap(chars, 0, read), bytes, 0);
+	 * 	out.write(bytes, 0, length);
+	 * }
+	 * decoder.finish();
+	 * </pre>
+	 */
+	public static class Decoder {
+		private int pending = -1;
+		private long position = 0;
+
+		/**
+		 * @param chunk
+		 *            next characters of the payload
+		 * @param destination
+		 *            receives up to (chunk.length() + 1) / 2 bytes
+		 * @param destinationOffset
+		 * @return the number of bytes written
+		 * @throws IllegalArgumentException
+		 *             if a character is not hexadecimal
+		 */
+		public int decode(CharSequence chunk, byte[] destination, int destinationOffset) {
+			int written = 0;
+			int i = 0;
+			try {
+				if (pending >= 0 && chunk.length() > 0) {
+					destination[destinationOffset + written++] = (byte) ((pending << 4) | value(chunk, 0));
+					pending = -1;
+					i = 1;
+				}
+				int pairsEnd = i + ((chunk.length() - i) & ~1);
+				for (; i < pairsEnd; i += 2) {
+					destination[destinationOffset + written++] = (byte) ((value(chunk, i) << 4)
+							| value(chunk, i + 1));
+				}
+				if (i < chunk.length()) {
+					pending = value(chunk, i);
+				}
+			} catch (IllegalArgumentException e) {
+				throw new IllegalArgumentException("not an hexadecimal digit in the payload after "
+						+ (position + i) + " characters", e);
+			}
+			position += chunk.length();
+			return written;
+		}
+
+		/**
+		 * Checks the payload is complete, and resets the decoder.
+		 *
+		 * @throws IllegalArgumentException
+		 *             on an odd number of digits
+		 */
+		public void finish() {
+			boolean odd = pending >= 0;
+			pending = -1;
+			position = 0;
+			if (odd) {
+				throw new IllegalArgumentException("odd number of hexadecimal digits");
+			}
+		}
+	}
+}
@@ -1,27 +1,24 @@
 package multichain.object.formatters;
 
-import java.io.UnsupportedEncodingException;
-
-import org.apache.commons.codec.DecoderException;
-import org.apache.commons.codec.binary.Hex;
+import java.nio.charset.StandardCharsets;
 
+/**
+ * Text payloads in hexadecimal, see {@link HexCodec} for bytes.
+ */
 public class HexFormatter {
 
-	private static final String CHARSET = "UTF-8";
-
 	public static String toHex(String asciiValue) {
-		try {
-			return Hex.encodeHexString(asciiValue.getBytes(CHARSET));
-		} catch (UnsupportedEncodingException e) {
-			return null;
-		}
+		return HexCodec.encode(asciiValue.getBytes(StandardCharsets.UTF_8));
 	}
 
+	/**
+	 * @param hexValue
+	 * @return the UTF-8 text, null if the value is not hexadecimal
+	 */
 	public static String fromHex(String hexValue) {
 		try {
-			final byte[] bytes = Hex.decodeHex(hexValue.toCharArray());
-			return new String(bytes, CHARSET);
-		} catch (DecoderException | UnsupportedEncodingException e) {
+			return new String(HexCodec.decode(hexValue), StandardCharsets.UTF_8);
+		} catch (IllegalArgumentException e) {
 			return null;
 		}
 	}
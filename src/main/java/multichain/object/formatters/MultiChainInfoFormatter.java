@@ -7,10 +7,11 @@
  */
 package multichain.object.formatters;
 
+import multichain.object.MempoolInfo;
 import multichain.object.MultiChainInfo;
 
 import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
+import com.google.gson.internal.LinkedTreeMap;
 
 /**
  * @author Ub - H. MARTEAU
@@ -20,11 +21,21 @@ public class MultiChainInfoFormatter {
 
 	public final static MultiChainInfo formatMultiChainInfo(
 			String stringMultiChainInfo) {
-		final Gson gson = new GsonBuilder().create();
+		final Gson gson = GsonRegistry.get();
 		final MultiChainInfo multiChainInfo = gson.fromJson(
 				stringMultiChainInfo, MultiChainInfo.class);
 
 		return multiChainInfo;
 	}
 
+	public final static MempoolInfo formatMempoolInfo(Object objectMempoolInfo) {
+		MempoolInfo mempoolInfo = new MempoolInfo();
+
+		if (objectMempoolInfo != null && LinkedTreeMap.class.isInstance(objectMempoolInfo)) {
+			mempoolInfo = GsonFormatters.formatObject(objectMempoolInfo, MempoolInfo.class);
+		}
+
+		return mempoolInfo;
+	}
+
 }
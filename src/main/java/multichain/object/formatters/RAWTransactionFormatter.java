@@ -10,8 +10,6 @@ package multichain.object.formatters;
 import multichain.object.SignedTransactionRAW;
 import multichain.object.TransactionRAW;
 
-import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
 import com.google.gson.internal.LinkedTreeMap;
 
 /**
@@ -23,11 +21,7 @@ public class RAWTransactionFormatter {
 		TransactionRAW transactionRAW = new TransactionRAW();
 
 		if (objectTransactionRAW != null && LinkedTreeMap.class.isInstance(objectTransactionRAW)) {
-			GsonBuilder builder = new GsonBuilder();
-			Gson gson = builder.create();
-
-			String jsonValue = gson.toJson(objectTransactionRAW);
-			transactionRAW = gson.fromJson(jsonValue, TransactionRAW.class);
+			transactionRAW = GsonFormatters.formatObject(objectTransactionRAW, TransactionRAW.class);
 		}
 
 		return transactionRAW;
@@ -37,11 +31,7 @@ public class RAWTransactionFormatter {
 		SignedTransactionRAW signedTransactionRAW = new SignedTransactionRAW();
 
 		if (objectSignedTransactionRAW != null && LinkedTreeMap.class.isInstance(objectSignedTransactionRAW)) {
-			GsonBuilder builder = new GsonBuilder();
-			Gson gson = builder.create();
-
-			String jsonValue = gson.toJson(objectSignedTransactionRAW);
-			signedTransactionRAW = gson.fromJson(jsonValue, SignedTransactionRAW.class);
+			signedTransactionRAW = GsonFormatters.formatObject(objectSignedTransactionRAW, SignedTransactionRAW.class);
 		}
 
 		return signedTransactionRAW;
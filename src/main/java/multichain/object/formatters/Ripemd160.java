@@ -0,0 +1,121 @@
+/*
+ * Copyright (C) 2017 Worldline, Inc.
+ *
+ * MultiChainJavaAPI code distributed under the GPLv3 license, see COPYING file.
+ * https://github.com/SimplyUb/MultiChainJavaAPI/blob/master/LICENSE
+ *
+ */
+package multichain.object.formatters;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * RIPEMD-160 digest, which the JDK does not provide, used with SHA-256 to hash
+ * public keys into addresses.
+ *
+ * @author Ub - H. MARTEAU
+ * @version 4.15
+ */
+public final class Ripemd160 {
+	private static final int[] R = { 0, 1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14, 15, 7, 4, 13, 1, 10, 6, 15, 3,
+			12, 0, 9, 5, 2, 14, 11, 8, 3, 10, 14, 4, 9, 15, 8, 1, 2, 7, 0, 6, 13, 11, 5, 12, 1, 9, 11, 10, 0, 8, 12, 4,
+			13, 3, 7, 15, 14, 5, 6, 2, 4, 0, 5, 9, 7, 12, 2, 10, 14, 1, 3, 8, 11, 6, 15, 13 };
+	private static final int[] RP = { 5, 14, 7, 0, 9, 2, 11, 4, 13, 6, 15, 8, 1, 10, 3, 12, 6, 11, 3, 7, 0, 13, 5, 10,
+			14, 15, 8, 12, 4, 9, 1, 2, 15, 5, 1, 3, 7, 14, 6, 9, 11, 8, 12, 2, 10, 0, 4, 13, 8, 6, 4, 1, 3, 11, 15, 0, 5,
+			12, 2, 13, 9, 7, 10, 14, 12, 15, 10, 4, 1, 5, 8, 7, 6, 2, 13, 14, 0, 3, 9, 11 };
+	private static final int[] S = { 11, 14, 15, 12, 5, 8, 7, 9, 11, 13, 14, 15, 6, 7, 9, 8, 7, 6, 8, 13, 11, 9, 7, 15,
+			7, 12, 15, 9, 11, 7, 13, 12, 11, 13, 6, 7, 14, 9, 13, 15, 14, 8, 13, 6, 5, 12, 7, 5, 11, 12, 14, 15, 14, 15,
+			9, 8, 9, 14, 5, 6, 8, 6, 5, 12, 9, 15, 5, 11, 6, 8, 13, 12, 5, 12, 13, 14, 11, 8, 5, 6 };
+	private static final int[] SP = { 8, 9, 9, 11, 13, 15, 15, 5, 7, 7, 8, 11, 14, 14, 12, 6, 9, 13, 15, 7, 12, 8, 9,
+			11, 7, 7, 12, 7, 6, 15, 13, 11, 9, 7, 15, 11, 8, 6, 6, 14, 12, 13, 5, 14, 13, 13, 7, 5, 15, 5, 8, 11, 14, 14,
+			6, 14, 6, 9, 12, 9, 12, 5, 15, 8, 8, 5, 12, 9, 12, 5, 14, 6, 8, 13, 6, 5, 15, 13, 11, 11 };
+	private static final int[] K = { 0x00000000, 0x5a827999, 0x6ed9eba1, 0x8f1bbcdc, 0xa953fd4e };
+	private static final int[] KP = { 0x50a28be6, 0x5c4dd124, 0x6d703ef3, 0x7a6d76e9, 0x00000000 };
+
+	private Ripemd160() {
+	}
+
+	/**
+	 * @param bytes
+	 * @return the 20 bytes of the RIPEMD-160 digest
+	 */
+	public static byte[] digest(byte[] bytes) {
+		int[] h = { 0x67452301, 0xefcdab89, 0x98badcfe, 0x10325476, 0xc3d2e1f0 };
+		// padding, then the length in bits, little endian
+		int blocks = (bytes.length + 8) / 64 + 1;
+		byte[] padded = new byte[blocks * 64];
+		System.arraycopy(bytes, 0, padded, 0, bytes.length);
+		padded[bytes.length] = (byte) 0x80;
+		long bits = (long) bytes.length * 8;
+		for (int i = 0; i < 8; i++) {
+			padded[padded.length - 8 + i] = (byte) (bits >>> (8 * i));
+		}
+
+		int[] x = new int[16];
+		for (int block = 0; block < blocks; block++) {
+			for (int i = 0; i < 16; i++) {
+				int offset = block * 64 + i * 4;
+				x[i] = (padded[offset] & 0xff) | (padded[offset + 1] & 0xff) << 8 | (padded[offset + 2] & 0xff) << 16
+						| (padded[offset + 3] & 0xff) << 24;
+			}
+			int a = h[0], b = h[1], c = h[2], d = h[3], e = h[4];
+			int ap = a, bp = b, cp = c, dp = d, ep = e;
+			for (int j = 0; j < 80; j++) {
+				int round = j / 16;
+				int t = Integer.rotateLeft(a + f(round, b, c, d) + x[R[j]] + K[round], S[j]) + e;
+				a = e;
+				e = d;
+				d = Integer.rotateLeft(c, 10);
+				c = b;
+				b = t;
+				t = Integer.rotateLeft(ap + f(4 - round, bp, cp, dp) + x[RP[j]] + KP[round], SP[j]) + ep;
+				ap = ep;
+				ep = dp;
+				dp = Integer.rotateLeft(cp, 10);
+				cp = bp;
+				bp = t;
+			}
+			int t = h[1] + c + dp;
+			h[1] = h[2] + d + ep;
+			h[2] = h[3] + e + ap;
+			h[3] = h[4] + a + bp;
+			h[4] = h[0] + b + cp;
+			h[0] = t;
+		}
+
+		byte[] digest = new byte[20];
+		for (int i = 0; i < 20; i++) {
+			digest[i] = (byte) (h[i / 4] >>> (8 * (i % 4)));
+		}
+		return digest;
+	}
+
+	/**
+	 * @param bytes
+	 * @return RIPEMD-160 of the SHA-256 of the bytes, as used for public keys
+	 *         and scripts
+	 */
+	public static byte[] hash160(byte[] bytes) {
+		try {
+			return digest(MessageDigest.getInstance("SHA-256").digest(bytes));
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	private static int f(int round, int x, int y, int z) {
+		switch (round) {
+		case 0:
+			return x ^ y ^ z;
+		case 1:
+			return (x & y) | (~x & z);
+		case 2:
+			return (x | ~y) ^ z;
+		case 3:
+			return (x & z) | (y & ~z);
+		default:
+			return x ^ (y | ~z);
+		}
+	}
+}
@@ -14,8 +14,6 @@ import multichain.object.Stream;
 import multichain.object.StreamKey;
 import multichain.object.StreamKeyItem;
 
-import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
 import com.google.gson.internal.LinkedTreeMap;
 
 /**
@@ -27,11 +25,7 @@ public class StreamFormatter {
 		Stream stream = new Stream();
 
 		if (objectStream != null && LinkedTreeMap.class.isInstance(objectStream)) {
-			GsonBuilder builder = new GsonBuilder();
-			Gson gson = builder.create();
-
-			String jsonValue = gson.toJson(objectStream);
-			stream = gson.fromJson(jsonValue, Stream.class);
+			stream = GsonFormatters.formatObject(objectStream, Stream.class);
 		}
 
 		return stream;
@@ -53,11 +47,7 @@ public class StreamFormatter {
 		StreamKey streamKey = new StreamKey();
 
 		if (objectStreamKey != null && LinkedTreeMap.class.isInstance(objectStreamKey)) {
-			GsonBuilder builder = new GsonBuilder();
-			Gson gson = builder.create();
-
-			String jsonValue = gson.toJson(objectStreamKey);
-			streamKey = gson.fromJson(jsonValue, StreamKey.class);
+			streamKey = GsonFormatters.formatObject(objectStreamKey, StreamKey.class);
 		}
 
 		return streamKey;
@@ -79,11 +69,7 @@ public class StreamFormatter {
 		StreamKeyItem streamKeyItem = new StreamKeyItem();
 
 		if (objectStreamKeyItem != null && LinkedTreeMap.class.isInstance(objectStreamKeyItem)) {
-			GsonBuilder builder = new GsonBuilder();
-			Gson gson = builder.create();
-
-			String jsonValue = gson.toJson(objectStreamKeyItem);
-			streamKeyItem = gson.fromJson(jsonValue, StreamKeyItem.class);
+			streamKeyItem = GsonFormatters.formatObject(objectStreamKeyItem, StreamKeyItem.class);
 		}
 
 		return streamKeyItem;
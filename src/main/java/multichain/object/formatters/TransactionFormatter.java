@@ -9,8 +9,6 @@ package multichain.object.formatters;
 
 import multichain.object.Transaction;
 
-import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
 import com.google.gson.internal.LinkedTreeMap;
 
 /**
@@ -23,11 +21,7 @@ public class TransactionFormatter {
 		Transaction transaction = new Transaction();
 
 		if (objectTransaction != null && LinkedTreeMap.class.isInstance(objectTransaction)) {
-			GsonBuilder builder = new GsonBuilder();
-			Gson gson = builder.create();
-
-			String jsonValue = gson.toJson(objectTransaction);
-			transaction = gson.fromJson(jsonValue, Transaction.class);
+			transaction = GsonFormatters.formatObject(objectTransaction, Transaction.class);
 		}
 
 		return transaction;
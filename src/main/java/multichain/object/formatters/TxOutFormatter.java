@@ -7,10 +7,12 @@
  */
 package multichain.object.formatters;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import multichain.object.TxOut;
+import multichain.object.UnspentOutput;
 
-import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
 import com.google.gson.internal.LinkedTreeMap;
 
 /**
@@ -22,14 +24,32 @@ public class TxOutFormatter {
 		TxOut txOut = new TxOut();
 
 		if (objectTxOut != null && LinkedTreeMap.class.isInstance(objectTxOut)) {
-			GsonBuilder builder = new GsonBuilder();
-			Gson gson = builder.create();
-
-			String jsonValue = gson.toJson(objectTxOut);
-			txOut = gson.fromJson(jsonValue, TxOut.class);
+			txOut = GsonFormatters.formatObject(objectTxOut, TxOut.class);
 		}
 
 		return txOut;
 	}
 
+	public final static UnspentOutput formatUnspentOutput(Object objectUnspentOutput) {
+		UnspentOutput unspentOutput = new UnspentOutput();
+
+		if (objectUnspentOutput != null && LinkedTreeMap.class.isInstance(objectUnspentOutput)) {
+			unspentOutput = GsonFormatters.formatObject(objectUnspentOutput, UnspentOutput.class);
+		}
+
+		return unspentOutput;
+	}
+
+	public final static List<UnspentOutput> formatUnspentOutputs(List<Object> objectUnspentOutputs) {
+		List<UnspentOutput> unspentOutputs = new ArrayList<UnspentOutput>();
+
+		if (objectUnspentOutputs != null) {
+			for (Object objectUnspentOutput : objectUnspentOutputs) {
+				unspentOutputs.add(formatUnspentOutput(objectUnspentOutput));
+			}
+		}
+
+		return unspentOutputs;
+	}
+
 }
@@ -1,7 +1,5 @@
 package multichain.object.formatters;
 
-import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
 import com.google.gson.internal.LinkedTreeMap;
 import multichain.object.TransactionWallet;
 import multichain.object.TransactionWalletDetailed;
@@ -15,11 +13,7 @@ public class WalletFormatter {
 		WalletInfo walletInfo = new WalletInfo();
 
 		if (objectWalletInfo != null && LinkedTreeMap.class.isInstance(objectWalletInfo)) {
-			GsonBuilder builder = new GsonBuilder();
-			Gson gson = builder.create();
-
-			String jsonValue = gson.toJson(objectWalletInfo);
-			walletInfo = gson.fromJson(jsonValue, WalletInfo.class);
+			walletInfo = GsonFormatters.formatObject(objectWalletInfo, WalletInfo.class);
 		}
 
 		return walletInfo;
@@ -10,8 +10,6 @@ package multichain.object.formatters;
 import java.util.ArrayList;
 import java.util.List;
 
-import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
 import com.google.gson.internal.LinkedTreeMap;
 
 import multichain.object.TransactionWallet;
@@ -38,11 +36,7 @@ public class WalletTransactionFormatter {
 		TransactionWallet transactionWallet = new TransactionWallet();
 
 		if (objectWalletTransaction != null && LinkedTreeMap.class.isInstance(objectWalletTransaction)) {
-			GsonBuilder builder = new GsonBuilder();
-			Gson gson = builder.create();
-
-			String jsonValue = gson.toJson(objectWalletTransaction);
-			transactionWallet = gson.fromJson(jsonValue, TransactionWallet.class);
+			transactionWallet = GsonFormatters.formatObject(objectWalletTransaction, TransactionWallet.class);
 		}
 
 		return transactionWallet;
@@ -64,11 +58,7 @@ public class WalletTransactionFormatter {
 		TransactionWalletDetailed transactionWalletDetailed = new TransactionWalletDetailed();
 
 		if (objectWalletTransactionDetailed != null && LinkedTreeMap.class.isInstance(objectWalletTransactionDetailed)) {
-			GsonBuilder builder = new GsonBuilder();
-			Gson gson = builder.create();
-
-			String jsonValue = gson.toJson(objectWalletTransactionDetailed);
-			transactionWalletDetailed = gson.fromJson(jsonValue, TransactionWalletDetailed.class);
+			transactionWalletDetailed = GsonFormatters.formatObject(objectWalletTransactionDetailed, TransactionWalletDetailed.class);
 		}
 
 		return transactionWalletDetailed;
@@ -0,0 +1,104 @@
+/*
+ * Copyright (C) 2017 Worldline, Inc.
+ *
+ * MultiChainJavaAPI code distributed under the GPLv3 license, see COPYING file.
+ * https://github.com/SimplyUb/MultiChainJavaAPI/blob/master/LICENSE
+ *
+ */
+package multichain.object.queryobjects;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A transaction to create, sign and send : either paid by a from-address,
+ * whose unspent outputs are chosen by the node as createrawsendfrom does, or
+ * spending the given inputs as createrawtransaction does.
+ *
+ * The amounts are by address, in native currency or as a map of asset
+ * quantities, as expected by the node. The data are metadata in hexadecimal
+ * or stream items.
+ *
+ * @author Ub - H. MARTEAU
+ * @version 4.15
+ */
+public class RawTransactionIntent {
+	String fromAddress = null;
+	List<TxIdVout> inputs = null;
+	Map<String, Object> amounts;
+	List<Object> data;
+
+	/**
+	 * @param fromAddress
+	 *            paying the amounts and the fees
+	 * @param amounts
+	 *            by address
+	 */
+	public RawTransactionIntent(String fromAddress, Map<String, Object> amounts) {
+		super();
+		this.fromAddress = fromAddress;
+		this.amounts = amounts != null ? amounts : new LinkedHashMap<String, Object>();
+		this.data = new ArrayList<Object>();
+	}
+
+	/**
+	 * @param inputs
+	 *            the outputs spent
+	 * @param amounts
+	 *            by address
+	 */
+	public RawTransactionIntent(List<TxIdVout> inputs, Map<String, Object> amounts) {
+		super();
+		this.inputs = inputs;
+		this.amounts = amounts != null ? amounts : new LinkedHashMap<String, Object>();
+		this.data = new ArrayList<Object>();
+	}
+
+	/**
+	 * @return true if the from-address or the inputs are set
+	 */
+	public boolean isFilled() {
+		if (fromAddress != null) {
+			return !"".equals(fromAddress);
+		}
+		return inputs != null && !inputs.isEmpty();
+	}
+
+	/**
+	 * @return the fromAddress, null when spending the inputs
+	 */
+	public String getFromAddress() {
+		return fromAddress;
+	}
+
+	/**
+	 * @return the inputs, null when paid by the from-address
+	 */
+	public List<TxIdVout> getInputs() {
+		return inputs;
+	}
+
+	/**
+	 * @return the amounts
+	 */
+	public Map<String, Object> getAmounts() {
+		return amounts;
+	}
+
+	/**
+	 * @return the data
+	 */
+	public List<Object> getData() {
+		return data;
+	}
+
+	/**
+	 * @param data
+	 *            the data to set
+	 */
+	public void setData(List<Object> data) {
+		this.data = data;
+	}
+}
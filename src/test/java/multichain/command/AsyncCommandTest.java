@@ -0,0 +1,135 @@
+/*
+ * Copyright (C) 2017 Worldline, Inc.
+ *
+ * MultiChainJavaAPI code distributed under the GPLv3 license, see COPYING file.
+ * https://github.com/SimplyUb/MultiChainJavaAPI/blob/master/LICENSE
+ *
+ */
+package multichain.command;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.gson.JsonArray;
+
+import multichain.object.StreamKeyItem;
+
+/**
+ * Asynchronous calls against {@link StubMultiChainServer}.
+ *
+ * @author Ub - H. MARTEAU
+ * @version 4.15
+ */
+public class AsyncCommandTest {
+	private static final int CALLS = 2000;
+
+	private final CountDownLatch release = new CountDownLatch(1);
+	private StubMultiChainServer server;
+	private MultiChainCommand multiChainCommand;
+
+	@Before
+	public void setUp() throws Exception {
+		server = new StubMultiChainServer(new StubMultiChainServer.Responder() {
+			@Override
+			public Object answer(String method, JsonArray params) throws StubMultiChainServer.StubError {
+				if ("getblockcount".equals(method)) {
+					return 1234;
+				}
+				try {
+					release.await(10, TimeUnit.SECONDS);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+				String txid = params.get(1).getAsString();
+				if (txid.startsWith("bad")) {
+					throw new StubMultiChainServer.StubError(-708, "Item with this txid not found");
+				}
+				Map<String, Object> item = new LinkedHashMap<String, Object>();
+				item.put("key", "key-" + txid);
+				item.put("txid", txid);
+				item.put("vout", 0);
+				return item;
+			}
+		});
+		multiChainCommand = new MultiChainCommand("127.0.0.1", server.getPort(), TestConst.MULTICHAIN_SERVER_LOGIN,
+				TestConst.MULTICHAIN_SERVER_PWD);
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		release.countDown();
+		multiChainCommand.close();
+		server.stop();
+	}
+
+	@Test
+	public void testManyCallsInFlightWithoutThreadPerCall() throws Exception {
+		assertEquals(Long.valueOf(1234), multiChainCommand.async().getBlockCount().get(10, TimeUnit.SECONDS));
+		int threadsBefore = Thread.activeCount();
+
+		List<CompletableFuture<StreamKeyItem>> items = new ArrayList<CompletableFuture<StreamKeyItem>>();
+		for (int i = 0; i < CALLS; i++) {
+			items.add(multiChainCommand.async().getStreamItem("stream1", "tx" + i, true));
+		}
+		// The node holds every answer : all the calls are pending at once
+		assertFalse(items.get(0).isDone());
+		assertTrue(Thread.activeCount() - threadsBefore < 64);
+
+		release.countDown();
+		CompletableFuture.allOf(items.toArray(new CompletableFuture[0])).get(60, TimeUnit.SECONDS);
+		for (int i = 0; i < CALLS; i++) {
+			assertEquals("tx" + i, items.get(i).get().getTxid());
+		}
+	}
+
+	@Test
+	public void testErrorCompletesExceptionally() throws Exception {
+		release.countDown();
+		CompletableFuture<StreamKeyItem> item = multiChainCommand.async().getStreamItem("stream1", "bad1", true);
+		try {
+			item.get(10, TimeUnit.SECONDS);
+			fail("error expected");
+		} catch (ExecutionException e) {
+			assertTrue(e.getCause() instanceof MultichainException);
+			assertTrue(e.getCause().toString().contains("-708"));
+		}
+	}
+
+	@Test
+	public void testBadParameterFailsWithoutCall() throws Exception {
+		int requests = server.getHttpRequests();
+		CompletableFuture<StreamKeyItem> item = multiChainCommand.async().getStreamItem("", "tx1", true);
+		assertTrue(item.isCompletedExceptionally());
+		try {
+			item.get();
+			fail("error expected");
+		} catch (ExecutionException e) {
+			assertEquals("streamName", ((MultichainException) e.getCause()).getObject());
+		}
+		assertEquals(requests, server.getHttpRequests());
+	}
+
+	@Test
+	public void testCancel() throws Exception {
+		CompletableFuture<StreamKeyItem> item = multiChainCommand.async().getStreamItem("stream1", "tx1", true);
+		assertTrue(item.cancel(true));
+		assertTrue(item.isCancelled());
+		release.countDown();
+		assertEquals(Long.valueOf(1234), multiChainCommand.async().getBlockCount().get(10, TimeUnit.SECONDS));
+	}
+}
@@ -0,0 +1,125 @@
+/*
+ * Copyright (C) 2017 Worldline, Inc.
+ *
+ * MultiChainJavaAPI code distributed under the GPLv3 license, see COPYING file.
+ * https://github.com/SimplyUb/MultiChainJavaAPI/blob/master/LICENSE
+ *
+ */
+package multichain.command;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.gson.JsonArray;
+
+import multichain.command.builders.BatchResult;
+import multichain.object.StreamKeyItem;
+
+/**
+ * Batch calls against {@link StubMultiChainServer}.
+ *
+ * @author Ub - H. MARTEAU
+ * @version 4.15
+ */
+public class BatchCommandTest {
+	private StubMultiChainServer server;
+	private MultiChainCommand multiChainCommand;
+
+	@Before
+	public void setUp() throws Exception {
+		server = new StubMultiChainServer(new StubMultiChainServer.Responder() {
+			@Override
+			public Object answer(String method, JsonArray params) throws StubMultiChainServer.StubError {
+				if ("getblockcount".equals(method)) {
+					return 1234;
+				}
+				String txid = params.get(1).getAsString();
+				if (txid.startsWith("bad")) {
+					throw new StubMultiChainServer.StubError(-708, "Item with this txid not found");
+				}
+				Map<String, Object> item = new LinkedHashMap<String, Object>();
+				item.put("key", "key-" + txid);
+				item.put("txid", txid);
+				item.put("vout", 0);
+				return item;
+			}
+		});
+		multiChainCommand = new MultiChainCommand("127.0.0.1", server.getPort(), TestConst.MULTICHAIN_SERVER_LOGIN,
+				TestConst.MULTICHAIN_SERVER_PWD);
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		multiChainCommand.close();
+		server.stop();
+	}
+
+	@Test
+	public void testBatchIsOneRoundTripWithPerEntryErrors() throws Exception {
+		BatchCommand batch = multiChainCommand.newBatch();
+		List<BatchResult<StreamKeyItem>> items = new ArrayList<BatchResult<StreamKeyItem>>();
+		for (int i = 0; i < 50; i++) {
+			items.add(batch.getStreamItem("stream1", (i == 7 ? "bad" : "tx") + i, true));
+		}
+		BatchResult<Long> blockCount = batch.getBlockCount();
+		assertFalse(blockCount.isDone());
+
+		assertEquals(51, batch.execute());
+		assertEquals(1, server.getHttpRequests());
+		assertEquals(0, batch.getQueuedCount());
+
+		assertEquals(Long.valueOf(1234), blockCount.get());
+		for (int i = 0; i < 50; i++) {
+			BatchResult<StreamKeyItem> item = items.get(i);
+			assertTrue(item.isDone());
+			if (i == 7) {
+				assertTrue(item.isError());
+				try {
+					item.get();
+					fail("error expected");
+				} catch (MultichainException e) {
+					assertTrue(e.getReason().contains("not found"));
+				}
+			} else {
+				assertEquals("tx" + i, item.get().getTxid());
+				assertEquals("key-tx" + i, item.get().getKey());
+			}
+		}
+	}
+
+	@Test
+	public void testBatchIsSplitByMaxBatchSize() throws Exception {
+		BatchCommand batch = multiChainCommand.newBatch();
+		batch.setMaxBatchSize(10);
+		for (int i = 0; i < 25; i++) {
+			batch.getStreamItem("stream1", "tx" + i, true);
+		}
+		batch.execute();
+		assertEquals(3, server.getHttpRequests());
+	}
+
+	@Test
+	public void testMaxBatchSizeMustBePositive() throws Exception {
+		BatchCommand batch = multiChainCommand.newBatch();
+		for (int maxBatchSize : new int[] { 0, -1 }) {
+			try {
+				batch.setMaxBatchSize(maxBatchSize);
+				fail("maxBatchSize " + maxBatchSize);
+			} catch (IllegalArgumentException e) {
+				assertTrue(e.getMessage().contains("maxBatchSize"));
+			}
+		}
+		assertTrue(batch.getMaxBatchSize() > 0);
+	}
+}
@@ -0,0 +1,165 @@
+/*
+ * Copyright (C) 2017 Worldline, Inc.
+ *
+ * MultiChainJavaAPI code distributed under the GPLv3 license, see COPYING file.
+ * https://github.com/SimplyUb/MultiChainJavaAPI/blob/master/LICENSE
+ *
+ */
+package multichain.command;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import com.google.gson.JsonArray;
+
+import multichain.object.Block;
+
+/**
+ * {@link BlockCache} alone and behind {@link BlockCommand}.
+ *
+ * @author Ub - H. MARTEAU
+ * @version 4.15
+ */
+public class BlockCacheTest {
+
+	private static Block block(long height, String hash, String previous, long confirmations) {
+		Block block = new Block();
+		block.setHeight(height);
+		block.setHash(hash);
+		block.setPreviousblockhash(previous);
+		block.setConfirmations(confirmations);
+		block.setTx(new ArrayList<String>(Arrays.asList("tx-" + hash)));
+		return block;
+	}
+
+	@Test
+	public void testHitsByHashAndHeight() {
+		BlockCache cache = new BlockCache(1 << 20, 6);
+		cache.put(block(10, "h10", "h9", 10));
+
+		assertEquals("h10", cache.get("h10").getHash());
+		assertEquals("h10", cache.get(10).getHash());
+		assertNull(cache.get(11));
+		assertEquals(2, cache.getHits());
+		assertEquals(1, cache.getMisses());
+	}
+
+	@Test
+	public void testShallowBlocksAreNotCached() {
+		BlockCache cache = new BlockCache(1 << 20, 6);
+		cache.put(block(10, "h10", "h9", 5));
+		assertNull(cache.get("h10"));
+		assertEquals(0, cache.size());
+	}
+
+	@Test
+	public void testEvictsLeastRecentlyRead() {
+		BlockCache cache = new BlockCache(3 * 624, 1);
+		cache.put(block(1, "h1", "h0", 10));
+		cache.put(block(2, "h2", "h1", 10));
+		cache.put(block(3, "h3", "h2", 10));
+		cache.get("h1");
+		cache.put(block(4, "h4", "h3", 10));
+
+		assertEquals(3, cache.size());
+		assertEquals(1, cache.getEvictions());
+		assertNull(cache.get("h2"));
+		assertNull(cache.get(2));
+		assertEquals("h1", cache.get(1).getHash());
+	}
+
+	@Test
+	public void testReorgDropsTheBlocksAbove() {
+		BlockCache cache = new BlockCache(1 << 20, 1);
+		cache.put(block(1, "h1", "h0", 10));
+		cache.put(block(2, "h2", "h1", 10));
+		cache.put(block(3, "h3", "h2", 10));
+
+		// a new block 3 on another block 2
+		cache.put(block(3, "h3b", "h2b", 10));
+
+		assertEquals("h1", cache.get(1).getHash());
+		assertNull(cache.get("h2"));
+		assertNull(cache.get("h3"));
+		assertEquals("h3b", cache.get(3).getHash());
+	}
+
+	@Test
+	public void testStaleBlocksContradictNothing() {
+		BlockCache cache = new BlockCache(1 << 20, 1);
+		cache.put(block(1, "h1", "h0", 10));
+		cache.put(block(2, "h2", "h1", 10));
+
+		// a block 2 of a stale fork, read by hash
+		cache.put(block(2, "h2b", "h1", -1));
+		// confirmations not given
+		Block unknown = new Block();
+		unknown.setHash("h2c");
+		cache.put(unknown);
+
+		assertEquals("h2", cache.get(2).getHash());
+		assertNull(cache.get("h2b"));
+		assertNull(cache.get("h2c"));
+	}
+
+	@Test
+	public void testBlockCommandReadsTheNodeOnce() throws Exception {
+		final AtomicInteger getBlocks = new AtomicInteger();
+		StubMultiChainServer server = new StubMultiChainServer(new StubMultiChainServer.Responder() {
+			@Override
+			public Object answer(String method, JsonArray params) throws StubMultiChainServer.StubError {
+				getBlocks.incrementAndGet();
+				String hashOrHeight = params.get(0).getAsString();
+				long height = hashOrHeight.startsWith("h") ? Long.parseLong(hashOrHeight.substring(1))
+						: Long.parseLong(hashOrHeight);
+				Map<String, Object> block = new LinkedHashMap<String, Object>();
+				block.put("hash", "h" + height);
+				block.put("height", height);
+				block.put("confirmations", 100 - height);
+				block.put("previousblockhash", "h" + (height - 1));
+				block.put("tx", Arrays.asList("tx" + height));
+				return block;
+			}
+		});
+		MultiChainCommand multiChainCommand = new MultiChainCommand("127.0.0.1", server.getPort(),
+				TestConst.MULTICHAIN_SERVER_LOGIN, TestConst.MULTICHAIN_SERVER_PWD);
+		try {
+			BlockCommand blockCommand = multiChainCommand.getBlockCommand();
+			blockCommand.setBlockCache(new BlockCache(1 << 20, 6));
+
+			Block first = blockCommand.getBlock(50);
+			for (int i = 0; i < 100; i++) {
+				assertSame(first, blockCommand.getBlock(50));
+				assertSame(first, blockCommand.getBlock("h50"));
+			}
+			assertEquals(1, getBlocks.get());
+
+			// 2 confirmations only : read every time
+			blockCommand.getBlock(98);
+			blockCommand.getBlock(98);
+			assertEquals(3, getBlocks.get());
+			assertTrue(blockCommand.getBlockCache().getHits() >= 200);
+
+			try {
+				blockCommand.getBlock((String) null, true);
+				fail("null hash");
+			} catch (MultichainException e) {
+				assertEquals("blockHash", e.getObject());
+			}
+		} finally {
+			multiChainCommand.close();
+			server.stop();
+		}
+	}
+}
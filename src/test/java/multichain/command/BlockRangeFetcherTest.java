@@ -0,0 +1,197 @@
+/*
+ * Copyright (C) 2017 Worldline, Inc.
+ *
+ * MultiChainJavaAPI code distributed under the GPLv3 license, see COPYING file.
+ * https://github.com/SimplyUb/MultiChainJavaAPI/blob/master/LICENSE
+ *
+ */
+package multichain.command;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.gson.JsonArray;
+
+import multichain.object.Block;
+
+/**
+ * Ordered delivery and retries of {@link BlockRangeFetcher} against a
+ * {@link StubMultiChainServer} answering the chunks out of order.
+ *
+ * @author Ub - H. MARTEAU
+ * @version 4.15
+ */
+public class BlockRangeFetcherTest {
+
+	private final Random random = new Random(42);
+	private final AtomicInteger calls = new AtomicInteger();
+	private final AtomicInteger running = new AtomicInteger();
+	private final AtomicInteger maxRunning = new AtomicInteger();
+	private volatile int failuresLeft = 0;
+	private volatile int shortAnswersLeft = 0;
+	private StubMultiChainServer server;
+	private MultiChainCommand multiChainCommand;
+
+	@Before
+	public void setUp() throws Exception {
+		server = new StubMultiChainServer(new StubMultiChainServer.Responder() {
+			@Override
+			public Object answer(String method, JsonArray params) throws StubMultiChainServer.StubError {
+				calls.incrementAndGet();
+				int now = running.incrementAndGet();
+				while (now > maxRunning.get()) {
+					maxRunning.compareAndSet(maxRunning.get(), now);
+				}
+				try {
+					synchronized (random) {
+						if (failuresLeft > 0) {
+							failuresLeft--;
+							throw new StubMultiChainServer.StubError(-1, "busy");
+						}
+					}
+					String[] range = params.get(0).getAsString().split("-");
+					long from = Long.parseLong(range[0]);
+					long to = Long.parseLong(range[1]);
+					int delay;
+					synchronized (random) {
+						delay = random.nextInt(15);
+					}
+					Thread.sleep(delay);
+					synchronized (random) {
+						if (shortAnswersLeft > 0) {
+							// a node behind the range
+							shortAnswersLeft--;
+							to--;
+						}
+					}
+					List<Object> blocks = new ArrayList<Object>();
+					for (long height = from; height <= to; height++) {
+						Map<String, Object> block = new LinkedHashMap<String, Object>();
+						block.put("hash", "h" + height);
+						block.put("height", height);
+						blocks.add(block);
+					}
+					return blocks;
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					return null;
+				} finally {
+					running.decrementAndGet();
+				}
+			}
+		}, 16);
+		multiChainCommand = new MultiChainCommand("127.0.0.1", server.getPort(), TestConst.MULTICHAIN_SERVER_LOGIN,
+				TestConst.MULTICHAIN_SERVER_PWD);
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		multiChainCommand.close();
+		server.stop();
+	}
+
+	@Test
+	public void testBlocksInHeightOrder() throws Exception {
+		BlockRangeParameters rangeParameters = new BlockRangeParameters(50, 6);
+		rangeParameters.setInitialChunkSize(20);
+		rangeParameters.setMinChunkSize(10);
+		rangeParameters.setTargetChunkMillis(50);
+		final List<Long> heights = new ArrayList<Long>();
+		BlockRangeFetcher fetcher = new BlockRangeFetcher(multiChainCommand.getBlockCommand(), rangeParameters,
+				true);
+
+		long count = fetcher.fetch(3, 5002, new Consumer<Block>() {
+			@Override
+			public void accept(Block block) {
+				heights.add(block.getHeight());
+			}
+		});
+
+		assertEquals(5000, count);
+		for (int i = 0; i < heights.size(); i++) {
+			assertEquals(3 + i, heights.get(i).longValue());
+		}
+		assertTrue(calls.get() >= 100);
+		assertTrue(maxRunning.get() > 1);
+		assertTrue(maxRunning.get() <= 6);
+	}
+
+	@Test
+	public void testFailedChunksAreRetried() throws Exception {
+		failuresLeft = 2;
+		final AtomicInteger count = new AtomicInteger();
+		BlockRangeParameters rangeParameters = new BlockRangeParameters(10, 4);
+		rangeParameters.setInitialChunkSize(10);
+
+		new BlockRangeFetcher(multiChainCommand.getBlockCommand(), rangeParameters, true).fetch(0, 99,
+				new Consumer<Block>() {
+					@Override
+					public void accept(Block block) {
+						assertEquals(count.getAndIncrement(), block.getHeight());
+					}
+				});
+		assertEquals(100, count.get());
+	}
+
+	@Test
+	public void testIncompleteChunksAreRetried() throws Exception {
+		shortAnswersLeft = 2;
+		final AtomicInteger count = new AtomicInteger();
+		BlockRangeParameters rangeParameters = new BlockRangeParameters(10, 4);
+		rangeParameters.setInitialChunkSize(10);
+
+		new BlockRangeFetcher(multiChainCommand.getBlockCommand(), rangeParameters, true).fetch(0, 99,
+				new Consumer<Block>() {
+					@Override
+					public void accept(Block block) {
+						assertEquals(count.getAndIncrement(), block.getHeight());
+					}
+				});
+		assertEquals(100, count.get());
+
+		shortAnswersLeft = 100;
+		try {
+			new BlockRangeFetcher(multiChainCommand.getBlockCommand(), new BlockRangeParameters(10, 1), true)
+					.fetch(0, 9, new Consumer<Block>() {
+						@Override
+						public void accept(Block block) {
+							fail("no block expected");
+						}
+					});
+			fail("failure expected");
+		} catch (MultichainException e) {
+			assertEquals("listblocks 0-9", e.getObject());
+		}
+	}
+
+	@Test
+	public void testFailsAfterTheRetries() throws Exception {
+		failuresLeft = 100;
+		BlockRangeParameters rangeParameters = new BlockRangeParameters(10, 1);
+		try {
+			new BlockRangeFetcher(multiChainCommand.getBlockCommand(), rangeParameters, true).fetch(0, 9,
+					new Consumer<Block>() {
+						@Override
+						public void accept(Block block) {
+							fail("no block expected");
+						}
+					});
+			fail("failure expected");
+		} catch (MultichainException e) {
+			assertTrue(e.toString().contains("busy"));
+		}
+	}
+}
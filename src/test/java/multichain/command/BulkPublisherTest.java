@@ -0,0 +1,185 @@
+/*
+ * Copyright (C) 2017 Worldline, Inc.
+ *
+ * MultiChainJavaAPI code distributed under the GPLv3 license, see COPYING file.
+ * https://github.com/SimplyUb/MultiChainJavaAPI/blob/master/LICENSE
+ *
+ */
+package multichain.command;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.gson.JsonArray;
+
+/**
+ * Bulk publishing against a {@link StubMultiChainServer}.
+ *
+ * @author Ub - H. MARTEAU
+ * @version 4.15
+ */
+public class BulkPublisherTest {
+	private final AtomicInteger rawTransactions = new AtomicInteger();
+	private final List<Integer> itemsPerTransaction = Collections.synchronizedList(new ArrayList<Integer>());
+	private StubMultiChainServer server;
+	private MultiChainCommand multiChainCommand;
+
+	@Before
+	public void setUp() throws Exception {
+		server = new StubMultiChainServer(new StubMultiChainServer.Responder() {
+			@Override
+			public Object answer(String method, JsonArray params) throws StubMultiChainServer.StubError {
+				if ("createrawsendfrom".equals(method)) {
+					assertEquals("send", params.get(3).getAsString());
+					JsonArray data = params.get(2).getAsJsonArray();
+					itemsPerTransaction.add(data.size());
+					assertEquals("stream1", data.get(0).getAsJsonObject().get("for").getAsString());
+					return "raw" + rawTransactions.getAndIncrement();
+				}
+				String dataHex = params.get(2).getAsString();
+				if (dataHex.startsWith("bad")) {
+					throw new StubMultiChainServer.StubError(-8, "data should be hexadecimal");
+				}
+				return "tx-" + dataHex;
+			}
+		});
+		multiChainCommand = new MultiChainCommand("127.0.0.1", server.getPort(), TestConst.MULTICHAIN_SERVER_LOGIN,
+				TestConst.MULTICHAIN_SERVER_PWD);
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		multiChainCommand.close();
+		server.stop();
+	}
+
+	@Test
+	public void testManyProducersWithPartialFailures() throws Exception {
+		final BulkPublisher publisher = new BulkPublisher(multiChainCommand.newBatch(), null);
+		final List<List<CompletableFuture<String>>> futures = new ArrayList<List<CompletableFuture<String>>>();
+		List<Thread> producers = new ArrayList<Thread>();
+		for (int p = 0; p < 8; p++) {
+			final int producer = p;
+			final List<CompletableFuture<String>> producerFutures = new ArrayList<CompletableFuture<String>>();
+			futures.add(producerFutures);
+			producers.add(new Thread() {
+				@Override
+				public void run() {
+					for (int i = 0; i < 500; i++) {
+						String dataHex = (i == 100 ? "bad" : "") + String.format("%02x%04x", producer, i);
+						producerFutures.add(publisher.publish("stream1", "key" + i, dataHex));
+					}
+				}
+			});
+		}
+		for (Thread producer : producers) {
+			producer.start();
+		}
+		for (Thread producer : producers) {
+			producer.join();
+		}
+		publisher.close();
+
+		for (int p = 0; p < 8; p++) {
+			for (int i = 0; i < 500; i++) {
+				CompletableFuture<String> txid = futures.get(p).get(i);
+				assertTrue(txid.isDone());
+				if (i == 100) {
+					try {
+						txid.get();
+						fail("failure expected");
+					} catch (ExecutionException e) {
+						assertTrue(e.getCause().toString().contains("hexadecimal"));
+					}
+				} else {
+					assertEquals("tx-" + String.format("%02x%04x", p, i), txid.get());
+				}
+			}
+		}
+		assertEquals(3992, publisher.getPublished());
+		assertEquals(8, publisher.getFailed());
+		assertEquals(0, publisher.getQueueDepth());
+		assertTrue(publisher.getIngestRate() > 0);
+
+		long batches = 0;
+		for (long count : publisher.getBatchSizeHistogram()) {
+			batches += count;
+		}
+		assertEquals(server.getHttpRequests(), batches);
+		assertTrue("coalesced in " + batches + " requests", batches < 400);
+
+		assertTrue(publisher.publish("stream1", "key", "00").isCompletedExceptionally());
+	}
+
+	@Test
+	public void testItemsPackedInRawTransactions() throws Exception {
+		BulkPublishParameters publishParameters = new BulkPublishParameters("1AddressFrom", 10);
+		publishParameters.setLingerMillis(50);
+		BulkPublisher publisher = new BulkPublisher(multiChainCommand.newBatch(), publishParameters);
+		List<CompletableFuture<String>> futures = new ArrayList<CompletableFuture<String>>();
+		for (int i = 0; i < 25; i++) {
+			futures.add(publisher.publish("stream1", "key" + i, String.format("%04x", i)));
+		}
+		publisher.close();
+
+		assertEquals(1, server.getHttpRequests());
+		assertEquals(3, rawTransactions.get());
+		assertEquals(25, publisher.getPublished());
+		assertEquals("[10, 10, 5]", itemsPerTransaction.toString());
+		assertEquals(futures.get(0).get(), futures.get(9).get());
+		assertEquals(futures.get(20).get(), futures.get(24).get());
+		assertTrue(!futures.get(0).get().equals(futures.get(10).get()));
+	}
+
+	@Test
+	public void testFullQueueRejectsItems() throws Exception {
+		BulkPublishParameters publishParameters = new BulkPublishParameters();
+		publishParameters.setMaxQueueLength(10);
+		publishParameters.setLingerMillis(200);
+		BulkPublisher publisher = new BulkPublisher(multiChainCommand.newBatch(), publishParameters);
+		List<CompletableFuture<String>> futures = new ArrayList<CompletableFuture<String>>();
+		for (int i = 0; i < 15; i++) {
+			futures.add(publisher.publish("stream1", "key", String.format("%04x", i)));
+		}
+		assertEquals(5, publisher.getRejected());
+		assertTrue(futures.get(14).isCompletedExceptionally());
+		publisher.close();
+		assertEquals(10, publisher.getPublished());
+	}
+
+	@Test
+	public void testParametersAreChecked() {
+		BulkPublishParameters parameters = new BulkPublishParameters();
+		try {
+			parameters.setMaxBatchSize(0);
+			fail("maxBatchSize 0");
+		} catch (IllegalArgumentException e) {
+			assertEquals(500, parameters.getMaxBatchSize());
+		}
+		try {
+			parameters.setLingerMillis(-1);
+			fail("lingerMillis -1");
+		} catch (IllegalArgumentException e) {
+			assertEquals(5, parameters.getLingerMillis());
+		}
+		try {
+			parameters.setMaxQueueLength(0);
+			fail("maxQueueLength 0");
+		} catch (IllegalArgumentException e) {
+			assertEquals(100000, parameters.getMaxQueueLength());
+		}
+		parameters.setLingerMillis(0);
+	}
+}
@@ -0,0 +1,186 @@
+/*
+ * Copyright (C) 2017 Worldline, Inc.
+ *
+ * MultiChainJavaAPI code distributed under the GPLv3 license, see COPYING file.
+ * https://github.com/SimplyUb/MultiChainJavaAPI/blob/master/LICENSE
+ *
+ */
+package multichain.command;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.gson.JsonArray;
+
+/**
+ * Deadlines, timeouts and cancellation against a {@link StubMultiChainServer}
+ * which holds its answers.
+ *
+ * @author Ub - H. MARTEAU
+ * @version 4.15
+ */
+public class CallOptionsTest {
+
+	private final CountDownLatch release = new CountDownLatch(1);
+	private final AtomicInteger calls = new AtomicInteger();
+	private StubMultiChainServer server;
+	private MultiChainCommand multiChainCommand;
+
+	@Before
+	public void setUp() throws Exception {
+		server = new StubMultiChainServer(new StubMultiChainServer.Responder() {
+			@Override
+			public Object answer(String method, JsonArray params) throws StubMultiChainServer.StubError {
+				calls.incrementAndGet();
+				try {
+					release.await(10, TimeUnit.SECONDS);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+				return 1234;
+			}
+		}, 4);
+		multiChainCommand = new MultiChainCommand("127.0.0.1", server.getPort(), TestConst.MULTICHAIN_SERVER_LOGIN,
+				TestConst.MULTICHAIN_SERVER_PWD);
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		release.countDown();
+		multiChainCommand.close();
+		server.stop();
+	}
+
+	@Test
+	public void testDeadline() throws Exception {
+		long start = System.nanoTime();
+		try (CallOptions.Scope scope = CallOptions.timeout(200, TimeUnit.MILLISECONDS).activate()) {
+			multiChainCommand.getBlockCommand().getBlockCount();
+			fail("timeout expected");
+		} catch (MultichainTimeoutException e) {
+			assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 5000);
+		}
+		assertEquals(null, CallOptions.current());
+	}
+
+	@Test
+	public void testCancelFromAnotherThread() throws Exception {
+		final CallOptions options = new CallOptions();
+		new Thread() {
+			@Override
+			public void run() {
+				try {
+					Thread.sleep(200);
+				} catch (InterruptedException e) {
+					// cancel now
+				}
+				options.cancel();
+			}
+		}.start();
+
+		long start = System.nanoTime();
+		try (CallOptions.Scope scope = options.activate()) {
+			multiChainCommand.getBlockCommand().getBlockCount();
+			fail("cancel expected");
+		} catch (MultichainException e) {
+			assertFalse(e instanceof MultichainTimeoutException);
+			assertEquals("Cancelled", e.getObject());
+			assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 5000);
+		}
+	}
+
+	@Test
+	public void testExpiredBeforeTheCall() throws Exception {
+		try (CallOptions.Scope scope = CallOptions.timeout(0, TimeUnit.MILLISECONDS).activate()) {
+			multiChainCommand.getBlockCommand().getBlockCount();
+			fail("timeout expected");
+		} catch (MultichainTimeoutException e) {
+			assertEquals(0, calls.get());
+		}
+	}
+
+	@Test
+	public void testTransportSocketTimeout() throws Exception {
+		TransportParameters transportParameters = new TransportParameters();
+		transportParameters.setSocketTimeoutMillis(200);
+		MultiChainCommand impatient = new MultiChainCommand("127.0.0.1", server.getPort(),
+				TestConst.MULTICHAIN_SERVER_LOGIN, TestConst.MULTICHAIN_SERVER_PWD, null, transportParameters);
+		try {
+			impatient.getBlockCommand().getBlockCount();
+			fail("timeout expected");
+		} catch (MultichainTimeoutException e) {
+			assertEquals("Timeout", e.getObject());
+		} finally {
+			impatient.close();
+		}
+	}
+
+	@Test
+	public void testDeadlineCoversTheBody() throws Exception {
+		// headers at once, then one byte of the body every 50 ms : no read
+		// ever times out
+		final ServerSocket serverSocket = new ServerSocket(0, 1, InetAddress.getByName("127.0.0.1"));
+		Thread node = new Thread() {
+			@Override
+			public void run() {
+				try (Socket socket = serverSocket.accept()) {
+					OutputStream out = socket.getOutputStream();
+					out.write(("HTTP/1.1 200 OK\r\nContent-Type: application/json\r\nContent-Length: 1000\r\n\r\n"
+							+ "{\"result\":").getBytes(StandardCharsets.UTF_8));
+					for (int i = 0; i < 200; i++) {
+						out.flush();
+						Thread.sleep(50);
+						out.write(' ');
+					}
+				} catch (Exception e) {
+					// the client aborted
+				}
+			}
+		};
+		node.setDaemon(true);
+		node.start();
+		MultiChainCommand slow = new MultiChainCommand("127.0.0.1", String.valueOf(serverSocket.getLocalPort()),
+				TestConst.MULTICHAIN_SERVER_LOGIN, TestConst.MULTICHAIN_SERVER_PWD);
+		long start = System.nanoTime();
+		try (CallOptions.Scope scope = CallOptions.timeout(300, TimeUnit.MILLISECONDS).activate()) {
+			slow.getBlockCommand().getBlockCount();
+			fail("timeout expected");
+		} catch (MultichainTimeoutException e) {
+			assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 5000);
+		} finally {
+			slow.close();
+			serverSocket.close();
+		}
+	}
+
+	@Test
+	public void testAsyncDeadline() throws Exception {
+		CompletableFuture<Long> count;
+		try (CallOptions.Scope scope = CallOptions.timeout(200, TimeUnit.MILLISECONDS).activate()) {
+			count = multiChainCommand.async().getBlockCount();
+		}
+		try {
+			count.get(5, TimeUnit.SECONDS);
+			fail("timeout expected");
+		} catch (ExecutionException e) {
+			assertTrue(e.getCause() instanceof MultichainTimeoutException);
+		}
+	}
+}
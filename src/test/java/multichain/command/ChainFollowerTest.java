@@ -0,0 +1,248 @@
+/*
+ * Copyright (C) 2017 Worldline, Inc.
+ *
+ * MultiChainJavaAPI code distributed under the GPLv3 license, see COPYING file.
+ * https://github.com/SimplyUb/MultiChainJavaAPI/blob/master/LICENSE
+ *
+ */
+package multichain.command;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.gson.JsonArray;
+
+import multichain.object.Block;
+
+/**
+ * New blocks, reorganizations and restarts of {@link ChainFollower} against a
+ * {@link StubMultiChainServer} holding a chain which can fork.
+ *
+ * @author Ub - H. MARTEAU
+ * @version 4.15
+ */
+public class ChainFollowerTest {
+
+	/**
+	 * Active chain as a list of hashes, and every block ever mined.
+	 */
+	private static class ChainResponder implements StubMultiChainServer.Responder {
+		final List<String> chain = new ArrayList<String>();
+		final Map<String, Map<String, Object>> blocks = new HashMap<String, Map<String, Object>>();
+
+		synchronized void mine(String hash) {
+			Map<String, Object> block = new LinkedHashMap<String, Object>();
+			block.put("hash", hash);
+			block.put("height", chain.size());
+			block.put("time", 1000 + 15 * chain.size());
+			if (!chain.isEmpty()) {
+				block.put("previousblockhash", chain.get(chain.size() - 1));
+			}
+			blocks.put(hash, block);
+			chain.add(hash);
+		}
+
+		synchronized void fork(int height) {
+			while (chain.size() > height) {
+				chain.remove(chain.size() - 1);
+			}
+		}
+
+		@Override
+		public synchronized Object answer(String method, JsonArray params) throws StubMultiChainServer.StubError {
+			if ("getblockcount".equals(method)) {
+				return chain.size() - 1;
+			}
+			if ("getblockhash".equals(method)) {
+				return chain.get(params.get(0).getAsInt());
+			}
+			if ("getblock".equals(method)) {
+				return blocks.get(params.get(0).getAsString());
+			}
+			// listblocks "from-to"
+			String[] range = params.get(0).getAsString().split("-");
+			List<Object> answer = new ArrayList<Object>();
+			for (int height = Integer.parseInt(range[0]); height <= Integer.parseInt(range[1]); height++) {
+				answer.add(blocks.get(chain.get(height)));
+			}
+			return answer;
+		}
+	}
+
+	/**
+	 * Records the events as "+hash" and "-hash".
+	 */
+	private static class RecordingListener implements ChainFollower.Listener {
+		final List<String> events = new ArrayList<String>();
+
+		@Override
+		public void blockConnected(Block block) {
+			events.add("+" + block.getHash());
+		}
+
+		@Override
+		public void blockDisconnected(Block block) {
+			events.add("-" + block.getHash());
+		}
+	}
+
+	private final ChainResponder responder = new ChainResponder();
+	private StubMultiChainServer server;
+	private MultiChainCommand multiChainCommand;
+	private File checkpointFile;
+
+	@Before
+	public void setUp() throws Exception {
+		for (int i = 0; i < 10; i++) {
+			responder.mine("a" + i);
+		}
+		server = new StubMultiChainServer(responder, 4);
+		multiChainCommand = new MultiChainCommand("127.0.0.1", server.getPort(), TestConst.MULTICHAIN_SERVER_LOGIN,
+				TestConst.MULTICHAIN_SERVER_PWD);
+		checkpointFile = File.createTempFile("chain-follower", ".checkpoint");
+		checkpointFile.delete();
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		multiChainCommand.close();
+		server.stop();
+		checkpointFile.delete();
+	}
+
+	private ChainFollower follower(RecordingListener listener) {
+		ChainFollowerParameters followerParameters = new ChainFollowerParameters();
+		followerParameters.setMinBatchSize(3);
+		return new ChainFollower(multiChainCommand.getBlockCommand(), followerParameters,
+				new FileCheckpointStore(checkpointFile.toPath()), listener);
+	}
+
+	@Test
+	public void testNewBlocksInOrder() throws Exception {
+		RecordingListener listener = new RecordingListener();
+		ChainFollower follower = follower(listener);
+
+		assertEquals(10, follower.poll());
+		assertEquals(0, follower.poll());
+		responder.mine("a10");
+		responder.mine("a11");
+		assertEquals(2, follower.poll());
+
+		assertEquals(12, listener.events.size());
+		for (int i = 0; i < 12; i++) {
+			assertEquals("+a" + i, listener.events.get(i));
+		}
+		assertEquals(11, follower.getCheckpoint().getHeight());
+		assertEquals("a11", follower.getCheckpoint().getHash());
+	}
+
+	@Test
+	public void testReorganization() throws Exception {
+		RecordingListener listener = new RecordingListener();
+		ChainFollower follower = follower(listener);
+		follower.poll();
+		listener.events.clear();
+
+		responder.fork(8);
+		responder.mine("b8");
+		responder.mine("b9");
+		responder.mine("b10");
+		assertEquals(3, follower.poll());
+
+		assertEquals("[-a9, -a8, +b8, +b9, +b10]", listener.events.toString());
+	}
+
+	@Test
+	public void testResumesFromTheCheckpoint() throws Exception {
+		follower(new RecordingListener()).poll();
+
+		// the chain forks while the follower is stopped
+		responder.fork(9);
+		responder.mine("b9");
+		responder.mine("b10");
+
+		RecordingListener listener = new RecordingListener();
+		ChainFollower restarted = follower(listener);
+		assertEquals(2, restarted.poll());
+		assertEquals("[-a9, +b9, +b10]", listener.events.toString());
+	}
+
+	@Test
+	public void testFollowsFromItsThread() throws Exception {
+		RecordingListener listener = new RecordingListener();
+		ChainFollowerParameters followerParameters = new ChainFollowerParameters(-1);
+		followerParameters.setMinPollMillis(10);
+		followerParameters.setMaxPollMillis(50);
+		ChainFollower follower = new ChainFollower(multiChainCommand.getBlockCommand(), followerParameters, null,
+				listener);
+		follower.start();
+		try {
+			Thread.sleep(100);
+			responder.mine("a10");
+			long deadline = System.currentTimeMillis() + 5000;
+			while (System.currentTimeMillis() < deadline) {
+				synchronized (follower) {
+					if (!listener.events.isEmpty()) {
+						break;
+					}
+				}
+				Thread.sleep(10);
+			}
+		} finally {
+			follower.close();
+		}
+		assertEquals("[+a10]", listener.events.toString());
+		assertTrue(follower.getPollMillis() <= 50);
+	}
+
+	@Test
+	public void testListenerFailureIsNotHiddenBySave() throws Exception {
+		final IllegalStateException failure = new IllegalStateException("listener");
+		final List<ChainFollower.Checkpoint> saved = new ArrayList<ChainFollower.Checkpoint>();
+		ChainFollower follower = new ChainFollower(multiChainCommand.getBlockCommand(), new ChainFollowerParameters(),
+				new ChainFollower.CheckpointStore() {
+					@Override
+					public ChainFollower.Checkpoint load() {
+						return null;
+					}
+
+					@Override
+					public void save(ChainFollower.Checkpoint checkpoint) throws IOException {
+						saved.add(checkpoint);
+						throw new IOException("disk full");
+					}
+				}, new RecordingListener() {
+					@Override
+					public void blockConnected(Block block) {
+						if ("a5".equals(block.getHash())) {
+							throw failure;
+						}
+						super.blockConnected(block);
+					}
+				});
+		try {
+			follower.poll();
+			fail("listener failure");
+		} catch (IllegalStateException e) {
+			assertSame(failure, e);
+			assertEquals(1, e.getSuppressed().length);
+			assertTrue(e.getSuppressed()[0].getCause() instanceof IOException);
+		}
+		assertEquals(1, saved.size());
+		assertEquals("a4", saved.get(0).getHash());
+	}
+}
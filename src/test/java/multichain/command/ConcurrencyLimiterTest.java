@@ -0,0 +1,242 @@
+/*
+ * Copyright (C) 2017 Worldline, Inc.
+ *
+ * MultiChainJavaAPI code distributed under the GPLv3 license, see COPYING file.
+ * https://github.com/SimplyUb/MultiChainJavaAPI/blob/master/LICENSE
+ *
+ */
+package multichain.command;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.gson.JsonArray;
+
+/**
+ * AIMD limit and queue of {@link ConcurrencyLimiter}, alone and in front of a
+ * {@link StubMultiChainServer}.
+ *
+ * @author Ub - H. MARTEAU
+ * @version 4.15
+ */
+public class ConcurrencyLimiterTest {
+
+	private final AtomicInteger running = new AtomicInteger();
+	private final AtomicInteger maxRunning = new AtomicInteger();
+	private StubMultiChainServer server;
+	private MultiChainCommand multiChainCommand;
+
+	@Before
+	public void setUp() throws Exception {
+		server = new StubMultiChainServer(new StubMultiChainServer.Responder() {
+			@Override
+			public Object answer(String method, JsonArray params) throws StubMultiChainServer.StubError {
+				int now = running.incrementAndGet();
+				while (now > maxRunning.get()) {
+					maxRunning.compareAndSet(maxRunning.get(), now);
+				}
+				try {
+					Thread.sleep(20);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				} finally {
+					running.decrementAndGet();
+				}
+				return 1234;
+			}
+		}, 16);
+		LimiterParameters light = new LimiterParameters(2, 5000);
+		light.setInitialLimit(2);
+		TransportParameters transportParameters = new TransportParameters();
+		transportParameters.setLightLimiterParameters(light);
+		multiChainCommand = new MultiChainCommand("127.0.0.1", server.getPort(), TestConst.MULTICHAIN_SERVER_LOGIN,
+				TestConst.MULTICHAIN_SERVER_PWD, null, transportParameters);
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		multiChainCommand.close();
+		server.stop();
+	}
+
+	@Test
+	public void testLimitsCallsInFlight() throws Exception {
+		ExecutorService executor = Executors.newFixedThreadPool(8);
+		List<Future<Long>> counts = new ArrayList<Future<Long>>();
+		for (int i = 0; i < 40; i++) {
+			counts.add(executor.submit(new Callable<Long>() {
+				@Override
+				public Long call() throws Exception {
+					return multiChainCommand.getBlockCommand().getBlockCount();
+				}
+			}));
+		}
+		for (Future<Long> count : counts) {
+			assertEquals(Long.valueOf(1234), count.get(30, TimeUnit.SECONDS));
+		}
+		executor.shutdown();
+
+		assertTrue(maxRunning.get() <= 2);
+		ConcurrencyLimiter limiter = multiChainCommand.getTransport().getLightLimiter();
+		assertEquals(0, limiter.getInFlight());
+		assertEquals(0, limiter.getQueueDepth());
+		assertEquals(null, multiChainCommand.getTransport().getHeavyLimiter());
+	}
+
+	@Test
+	public void testAsyncCallsWaitForTheLimit() throws Exception {
+		List<CompletableFuture<Long>> counts = new ArrayList<CompletableFuture<Long>>();
+		for (int i = 0; i < 20; i++) {
+			counts.add(multiChainCommand.async().getBlockCount());
+		}
+		CompletableFuture.allOf(counts.toArray(new CompletableFuture[0])).get(30, TimeUnit.SECONDS);
+		for (CompletableFuture<Long> count : counts) {
+			assertEquals(Long.valueOf(1234), count.get());
+		}
+		assertTrue(maxRunning.get() <= 2);
+	}
+
+	@Test
+	public void testIncreaseAndBackoff() throws Exception {
+		LimiterParameters limiterParameters = new LimiterParameters(8, 10000);
+		limiterParameters.setInitialLimit(2);
+		limiterParameters.setBackoffRatio(0.5);
+		ConcurrencyLimiter limiter = new ConcurrencyLimiter("test", limiterParameters);
+
+		// answers in time while the limit is used : +1 per limit of answers
+		for (int i = 0; i < 20; i++) {
+			ConcurrencyLimiter.Permit first = limiter.acquire(null);
+			ConcurrencyLimiter.Permit second = limiter.acquire(null);
+			first.release(false);
+			second.release(false);
+		}
+		assertTrue(limiter.getLimit() > 2);
+		int grown = limiter.getLimit();
+
+		limiter.acquire(null).release(true);
+		assertEquals(Math.max(1, (int) (grown * 0.5)), limiter.getLimit());
+	}
+
+	@Test
+	public void testQueueFullAndQueueWait() throws Exception {
+		LimiterParameters limiterParameters = new LimiterParameters(1, 10000);
+		limiterParameters.setInitialLimit(1);
+		limiterParameters.setMaxQueueLength(1);
+		limiterParameters.setMaxQueueWaitMillis(100);
+		ConcurrencyLimiter limiter = new ConcurrencyLimiter("test", limiterParameters);
+
+		ConcurrencyLimiter.Permit permit = limiter.acquire(null);
+		final List<ConcurrencyLimiter.Permit> granted = new ArrayList<ConcurrencyLimiter.Permit>();
+		ConcurrencyLimiter.Waiter waiter = limiter.acquireAsync(new ConcurrencyLimiter.Grant() {
+			@Override
+			public void granted(ConcurrencyLimiter.Permit permit) {
+				granted.add(permit);
+			}
+
+			@Override
+			public void timedOut(MultichainTimeoutException exception) {
+				fail("cancelled before the queue wait");
+			}
+		});
+		assertEquals(1, limiter.getQueueDepth());
+		try {
+			limiter.acquire(null);
+			fail("rejection expected");
+		} catch (MultichainException e) {
+			assertFalse(e instanceof MultichainTimeoutException);
+			assertEquals(1, limiter.getRejected());
+		}
+
+		assertTrue(waiter.cancel());
+		try {
+			limiter.acquire(null);
+			fail("timeout expected");
+		} catch (MultichainTimeoutException e) {
+			assertEquals(0, limiter.getQueueDepth());
+		}
+
+		permit.release(false);
+		assertTrue(granted.isEmpty());
+		assertEquals(0, limiter.getInFlight());
+	}
+
+	@Test
+	public void testQueueWaitOfAsyncCalls() throws Exception {
+		LimiterParameters limiterParameters = new LimiterParameters(1, 10000);
+		limiterParameters.setInitialLimit(1);
+		limiterParameters.setMaxQueueWaitMillis(50);
+		ConcurrencyLimiter limiter = new ConcurrencyLimiter("test", limiterParameters);
+
+		ConcurrencyLimiter.Permit permit = limiter.acquire(null);
+		final CompletableFuture<Object> outcome = new CompletableFuture<Object>();
+		limiter.acquireAsync(new ConcurrencyLimiter.Grant() {
+			@Override
+			public void granted(ConcurrencyLimiter.Permit permit) {
+				outcome.complete(permit);
+			}
+
+			@Override
+			public void timedOut(MultichainTimeoutException exception) {
+				outcome.complete(exception);
+			}
+		});
+		assertTrue(outcome.get(10, TimeUnit.SECONDS) instanceof MultichainTimeoutException);
+		assertEquals(0, limiter.getQueueDepth());
+
+		// the deadline of the call is shorter than the queue wait
+		try {
+			limiter.acquireAsync(new ConcurrencyLimiter.Grant() {
+				@Override
+				public void granted(ConcurrencyLimiter.Permit permit) {
+					fail("limit reached");
+				}
+
+				@Override
+				public void timedOut(MultichainTimeoutException exception) {
+					fail("no time left to queue");
+				}
+			}, CallOptions.timeout(0, TimeUnit.MILLISECONDS));
+			fail("timeout expected");
+		} catch (MultichainTimeoutException e) {
+			assertEquals(0, limiter.getQueueDepth());
+		}
+
+		permit.release(false);
+		assertEquals(0, limiter.getInFlight());
+	}
+
+	@Test
+	public void testInterruptIsNotATimeout() throws Exception {
+		LimiterParameters limiterParameters = new LimiterParameters(1, 10000);
+		limiterParameters.setInitialLimit(1);
+		ConcurrencyLimiter limiter = new ConcurrencyLimiter("test", limiterParameters);
+
+		ConcurrencyLimiter.Permit permit = limiter.acquire(null);
+		Thread.currentThread().interrupt();
+		try {
+			limiter.acquire(null);
+			fail("interrupt expected");
+		} catch (MultichainException e) {
+			assertFalse(e instanceof MultichainTimeoutException);
+			assertTrue(Thread.interrupted());
+			assertEquals(0, limiter.getQueueDepth());
+		}
+		permit.release(false);
+	}
+}
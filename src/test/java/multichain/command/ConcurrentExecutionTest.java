@@ -0,0 +1,91 @@
+/*
+ * Copyright (C) 2017 Worldline, Inc.
+ *
+ * MultiChainJavaAPI code distributed under the GPLv3 license, see COPYING file.
+ * https://github.com/SimplyUb/MultiChainJavaAPI/blob/master/LICENSE
+ *
+ */
+package multichain.command;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.gson.JsonArray;
+
+/**
+ * Many threads sharing one StreamCommand must each get the answer to their own
+ * request. Runs against {@link StubMultiChainServer}, no node needed.
+ *
+ * @author Ub - H. MARTEAU
+ * @version 4.15
+ */
+public class ConcurrentExecutionTest {
+	private static final int THREADS = 96;
+	private static final int CALLS_PER_THREAD = 100;
+
+	private StubMultiChainServer server;
+	private MultiChainCommand multiChainCommand;
+
+	@Before
+	public void setUp() throws Exception {
+		// create "stream" name open : the stub answers the stream name
+		server = new StubMultiChainServer(new StubMultiChainServer.Responder() {
+			@Override
+			public Object answer(String method, JsonArray params) {
+				return params.get(1).getAsString();
+			}
+		}, 32);
+		multiChainCommand = new MultiChainCommand("127.0.0.1", server.getPort(), TestConst.MULTICHAIN_SERVER_LOGIN,
+				TestConst.MULTICHAIN_SERVER_PWD, null, new TransportParameters(THREADS, THREADS));
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		multiChainCommand.close();
+		server.stop();
+	}
+
+	@Test
+	public void testNoCrossTalkBetweenThreads() throws Exception {
+		final StreamCommand streamCommand = multiChainCommand.getStreamCommand();
+		ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+		List<Future<Integer>> results = new ArrayList<Future<Integer>>();
+
+		for (int t = 0; t < THREADS; t++) {
+			final int thread = t;
+			results.add(pool.submit(new Callable<Integer>() {
+				@Override
+				public Integer call() throws Exception {
+					int mismatches = 0;
+					for (int i = 0; i < CALLS_PER_THREAD; i++) {
+						String expected = "stream-" + thread + "-" + i;
+						if (!expected.equals(streamCommand.create(expected, true))) {
+							mismatches++;
+						}
+					}
+					return mismatches;
+				}
+			}));
+		}
+
+		int mismatches = 0;
+		for (Future<Integer> result : results) {
+			mismatches += result.get();
+		}
+		pool.shutdown();
+
+		assertEquals(0, mismatches);
+		assertTrue(server.getHttpRequests() >= THREADS * CALLS_PER_THREAD);
+	}
+}
@@ -0,0 +1,127 @@
+/*
+ * Copyright (C) 2017 Worldline, Inc.
+ *
+ * MultiChainJavaAPI code distributed under the GPLv3 license, see COPYING file.
+ * https://github.com/SimplyUb/MultiChainJavaAPI/blob/master/LICENSE
+ *
+ */
+package multichain.command;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import com.google.gson.JsonArray;
+
+import multichain.object.TransactionRAW;
+
+/**
+ * {@link MempoolWatcher} against a stub node.
+ *
+ * @author Ub - H. MARTEAU
+ * @version 4.15
+ */
+public class MempoolWatcherTest {
+	/**
+	 * 60 bytes : one input spending output 0 of the transaction numbered,
+	 * one empty output.
+	 */
+	private static String hex(int i) {
+		return "01000000" + "01" + String.format("%064x", i) + "00000000" + "00" + "ffffffff" + "01"
+				+ "0000000000000000" + "00" + "00000000";
+	}
+
+	@Test
+	public void testEmitsTheDifferences() throws Exception {
+		final List<String> pool = new CopyOnWriteArrayList<String>(Arrays.asList("t1", "t2"));
+		final AtomicInteger reads = new AtomicInteger();
+		StubMultiChainServer server = new StubMultiChainServer(new StubMultiChainServer.Responder() {
+			@Override
+			public Object answer(String method, JsonArray params) throws StubMultiChainServer.StubError {
+				if ("getmempoolinfo".equals(method)) {
+					Map<String, Object> info = new LinkedHashMap<String, Object>();
+					info.put("size", pool.size());
+					info.put("bytes", pool.size() * 60);
+					return info;
+				}
+				if ("getrawmempool".equals(method)) {
+					return new ArrayList<String>(pool);
+				}
+				if ("getrawtransaction".equals(method)) {
+					reads.incrementAndGet();
+					String txid = params.get(0).getAsString();
+					if ("t4".equals(txid)) {
+						throw new StubMultiChainServer.StubError(-5, "No information available about transaction");
+					}
+					return hex(Integer.parseInt(txid.substring(1)));
+				}
+				throw new StubMultiChainServer.StubError(-32601, "Method not found");
+			}
+		});
+		MultiChainCommand multiChainCommand = new MultiChainCommand("127.0.0.1", server.getPort(),
+				TestConst.MULTICHAIN_SERVER_LOGIN, TestConst.MULTICHAIN_SERVER_PWD);
+		final List<Map<String, TransactionRAW>> added = new CopyOnWriteArrayList<Map<String, TransactionRAW>>();
+		final List<List<String>> removed = new CopyOnWriteArrayList<List<String>>();
+		MempoolWatcherParameters parameters = new MempoolWatcherParameters(3, 0);
+		parameters.setSizeBounds(new long[] { 100, 1000 });
+		MempoolWatcher watcher = new MempoolWatcher(multiChainCommand, parameters, null,
+				new MempoolWatcher.Listener() {
+					@Override
+					public void transactionsAdded(Map<String, TransactionRAW> transactions) {
+						added.add(transactions);
+					}
+
+					@Override
+					public void transactionsRemoved(List<String> txids) {
+						removed.add(txids);
+					}
+				});
+		try {
+			assertEquals(2, watcher.poll());
+			assertEquals(Arrays.asList("t1", "t2"), new ArrayList<String>(added.get(0).keySet()));
+			assertEquals(String.format("01%062x", 0), added.get(0).get("t1").getVin().get(0).getTxid());
+			assertEquals(2, server.getHttpRequests());
+			assertFalse(watcher.isCongested());
+
+			// unchanged : one request, the period grows
+			long period = watcher.getPollMillis();
+			assertEquals(0, watcher.poll());
+			assertTrue(watcher.getPollMillis() > period);
+			assertEquals(3, server.getHttpRequests());
+
+			pool.remove("t1");
+			pool.add("t3");
+			pool.add("t4");
+			assertEquals(3, watcher.poll());
+			assertEquals(Arrays.asList("t1"), removed.get(0));
+			assertEquals(Arrays.asList("t3", "t4"), new ArrayList<String>(added.get(1).keySet()));
+			assertNull(added.get(1).get("t4"));
+			assertEquals(4, reads.get());
+			assertEquals(3, watcher.getSize());
+			assertEquals(180, watcher.getBytes());
+			assertTrue(watcher.isCongested());
+			assertEquals(parameters.getMinPollMillis(), watcher.getPollMillis());
+
+			assertArrayEquals(new long[] { 2, 0, 0 }, watcher.getSizeHistogram());
+			long[] ages = watcher.getAgeHistogram();
+			assertEquals(3, ages[0]);
+			assertEquals(6, ages.length);
+		} finally {
+			watcher.close();
+			multiChainCommand.close();
+			server.stop();
+		}
+	}
+}
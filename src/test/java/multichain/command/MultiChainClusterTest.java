@@ -0,0 +1,196 @@
+/*
+ * Copyright (C) 2017 Worldline, Inc.
+ *
+ * MultiChainJavaAPI code distributed under the GPLv3 license, see COPYING file.
+ * https://github.com/SimplyUb/MultiChainJavaAPI/blob/master/LICENSE
+ *
+ */
+package multichain.command;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.gson.JsonArray;
+
+/**
+ * Routing and failover of {@link MultiChainCluster} over three
+ * {@link StubMultiChainServer}.
+ *
+ * @author Ub - H. MARTEAU
+ * @version 4.15
+ */
+public class MultiChainClusterTest {
+
+	/**
+	 * Counts the reads and writes received by one node.
+	 */
+	private static class NodeResponder implements StubMultiChainServer.Responder {
+		final AtomicInteger reads = new AtomicInteger();
+		final AtomicInteger writes = new AtomicInteger();
+		volatile long blockCount = 100;
+		volatile boolean warmingUp = false;
+
+		@Override
+		public Object answer(String method, JsonArray params) throws StubMultiChainServer.StubError {
+			if (warmingUp) {
+				throw new StubMultiChainServer.StubError(-28, "Loading block index...");
+			}
+			if ("getblockcount".equals(method)) {
+				return blockCount;
+			}
+			if ("publish".equals(method) || "sendrawtransaction".equals(method)) {
+				writes.incrementAndGet();
+				return "txid";
+			}
+			reads.incrementAndGet();
+			if ("unknown".equals(params.get(0).getAsString())) {
+				throw new StubMultiChainServer.StubError(-703, "Stream with this name not found");
+			}
+			return new ArrayList<Object>();
+		}
+	}
+
+	private final List<NodeResponder> responders = new ArrayList<NodeResponder>();
+	private final List<StubMultiChainServer> servers = new ArrayList<StubMultiChainServer>();
+	private MultiChainCluster cluster;
+	private MultiChainCommand multiChainCommand;
+
+	@Before
+	public void setUp() throws Exception {
+		List<MultiChainTransport> transports = new ArrayList<MultiChainTransport>();
+		for (int i = 0; i < 3; i++) {
+			NodeResponder responder = new NodeResponder();
+			StubMultiChainServer server = new StubMultiChainServer(responder, 4);
+			responders.add(responder);
+			servers.add(server);
+			transports.add(new MultiChainTransport("127.0.0.1", server.getPort(), TestConst.MULTICHAIN_SERVER_LOGIN,
+					TestConst.MULTICHAIN_SERVER_PWD));
+		}
+		ClusterParameters clusterParameters = new ClusterParameters(1);
+		clusterParameters.setProbeIntervalMillis(60000);
+		cluster = new MultiChainCluster(transports, clusterParameters);
+		multiChainCommand = new MultiChainCommand(cluster, null);
+		cluster.probe();
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		multiChainCommand.close();
+		for (StubMultiChainServer server : servers) {
+			server.stop();
+		}
+	}
+
+	@Test
+	public void testReadsAreSpreadAndWritesPinned() throws Exception {
+		for (int i = 0; i < 60; i++) {
+			multiChainCommand.getStreamCommand().listStreamItems("stream1", true, 10, 0);
+			multiChainCommand.getStreamCommand().publish("stream1", "key", "0a0b");
+		}
+
+		for (NodeResponder responder : responders) {
+			assertTrue(responder.reads.get() > 0);
+		}
+		assertEquals(0, responders.get(0).writes.get());
+		assertEquals(60, responders.get(1).writes.get());
+		assertEquals(0, responders.get(2).writes.get());
+	}
+
+	@Test
+	public void testLaggingNodeGetsNoRead() throws Exception {
+		responders.get(2).blockCount = 90;
+		cluster.probe();
+
+		for (int i = 0; i < 30; i++) {
+			multiChainCommand.getStreamCommand().listStreamItems("stream1", true, 10, 0);
+		}
+
+		assertEquals(0, responders.get(2).reads.get());
+		assertEquals(30, responders.get(0).reads.get() + responders.get(1).reads.get());
+	}
+
+	@Test
+	public void testFailover() throws Exception {
+		servers.get(0).stop();
+		servers.get(1).stop();
+
+		for (int i = 0; i < 10; i++) {
+			multiChainCommand.getStreamCommand().listStreamItems("stream1", true, 10, 0);
+		}
+		assertEquals(10, responders.get(2).reads.get());
+
+		// the write node refuses the connection : the raw transaction goes to
+		// the next node, the wallet call fails
+		assertEquals("txid", multiChainCommand.getRawTransactionCommand().sendRawTransaction("0a0b"));
+		assertEquals(1, responders.get(2).writes.get());
+		try {
+			multiChainCommand.getStreamCommand().publish("stream1", "key", "0a0b");
+			fail("write node down");
+		} catch (MultichainException e) {
+			assertEquals(1, responders.get(2).writes.get());
+		}
+
+		cluster.probe();
+		assertFalse(cluster.getNodes().get(0).isHealthy());
+		assertFalse(cluster.getNodes().get(1).isHealthy());
+		assertTrue(cluster.getNodes().get(2).isHealthy());
+	}
+
+	@Test
+	public void testWarmingUpNodesAreSkipped() throws Exception {
+		responders.get(0).warmingUp = true;
+		responders.get(1).warmingUp = true;
+
+		for (int i = 0; i < 10; i++) {
+			multiChainCommand.getStreamCommand().listStreamItems("stream1", true, 10, 0);
+		}
+		assertEquals(10, responders.get(2).reads.get());
+
+		// the write node did not run the call : the raw transaction goes to the
+		// next node, the wallet call fails
+		assertEquals("txid", multiChainCommand.getRawTransactionCommand().sendRawTransaction("0a0b"));
+		assertEquals(1, responders.get(2).writes.get());
+		try {
+			multiChainCommand.getStreamCommand().publish("stream1", "key", "0a0b");
+			fail("write node down");
+		} catch (MultichainException e) {
+			assertEquals(1, responders.get(2).writes.get());
+		}
+		assertFalse(cluster.getNodes().get(0).isHealthy());
+		assertFalse(cluster.getNodes().get(1).isHealthy());
+
+		// an RPC error is an answer, not a node failure
+		try {
+			multiChainCommand.getStreamCommand().listStreamItems("unknown", true, 10, 0);
+			fail("error expected");
+		} catch (MultichainException e) {
+			assertTrue(e.getMessage().contains("Stream with this name not found"));
+		}
+		assertTrue(cluster.getNodes().get(2).isHealthy());
+		for (MultiChainCluster.Node node : cluster.getNodes()) {
+			assertEquals(0, node.getOutstandingRequests());
+		}
+	}
+
+	@Test
+	public void testWalletCallsAreWrites() {
+		assertTrue(MultiChainCluster.isRead("getblock", "liststreamitems", "getrawtransaction", "listpermissions"));
+		assertFalse(MultiChainCluster.isRead("getblock", "publish"));
+		assertFalse(MultiChainCluster.isRead("getaddresses"));
+		assertFalse(MultiChainCluster.isRead("grant"));
+		assertFalse(MultiChainCluster.isRead("sendrawtransaction"));
+		assertTrue(MultiChainCluster.isWalletIndependent("sendrawtransaction", "getblock"));
+		assertFalse(MultiChainCluster.isWalletIndependent("sendrawtransaction", "signrawtransaction"));
+		assertFalse(MultiChainCluster.isWalletIndependent("publish"));
+	}
+}
@@ -0,0 +1,178 @@
+/*
+ * Copyright (C) 2017 Worldline, Inc.
+ *
+ * MultiChainJavaAPI code distributed under the GPLv3 license, see COPYING file.
+ * https://github.com/SimplyUb/MultiChainJavaAPI/blob/master/LICENSE
+ *
+ */
+package multichain.command;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.gson.JsonArray;
+
+import multichain.command.builders.PagedIterator;
+import multichain.object.StreamKeyItem;
+import multichain.object.TransactionWalletDetailed;
+
+/**
+ * Lazy paging of the list* commands against a {@link StubMultiChainServer}
+ * holding a stream of {@link #ITEMS} items.
+ *
+ * @author Ub - H. MARTEAU
+ * @version 4.15
+ */
+public class PagedIteratorTest {
+	private static final int ITEMS = 10500;
+
+	private final AtomicInteger calls = new AtomicInteger();
+	private volatile int failAtStart = -1;
+	private StubMultiChainServer server;
+	private MultiChainCommand multiChainCommand;
+
+	@Before
+	public void setUp() throws Exception {
+		server = new StubMultiChainServer(new StubMultiChainServer.Responder() {
+			@Override
+			public Object answer(String method, JsonArray params) throws StubMultiChainServer.StubError {
+				calls.incrementAndGet();
+				int count = params.get(2).getAsInt();
+				int start = params.get(3).getAsInt();
+				if (start == failAtStart) {
+					throw new StubMultiChainServer.StubError(-1, "node failure");
+				}
+				List<Object> items = new ArrayList<Object>();
+				for (int i = start; i < Math.min(ITEMS, start + count); i++) {
+					Map<String, Object> item = new LinkedHashMap<String, Object>();
+					item.put("key", "key" + i);
+					item.put("txid", "tx" + i);
+					items.add(item);
+				}
+				return items;
+			}
+		}, 4);
+		multiChainCommand = new MultiChainCommand("127.0.0.1", server.getPort(), TestConst.MULTICHAIN_SERVER_LOGIN,
+				TestConst.MULTICHAIN_SERVER_PWD);
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		multiChainCommand.close();
+		server.stop();
+	}
+
+	@Test
+	public void testAllItemsInOrder() throws Exception {
+		int index = 0;
+		try (PagedIterator<StreamKeyItem> items = multiChainCommand.getStreamCommand().listStreamItemsPaged("stream1",
+				true, 1000)) {
+			while (items.hasNext()) {
+				assertEquals("tx" + index, items.next().getTxid());
+				index++;
+			}
+		}
+		assertEquals(ITEMS, index);
+		assertEquals(11, calls.get());
+	}
+
+	@Test
+	public void testNextPageIsPrefetched() throws Exception {
+		PagedIterator<StreamKeyItem> items = multiChainCommand.getStreamCommand().listStreamItemsPaged("stream1", true,
+				1000);
+		assertEquals(0, calls.get());
+		items.next();
+		long deadline = System.currentTimeMillis() + 5000;
+		while (calls.get() < 2 && System.currentTimeMillis() < deadline) {
+			Thread.sleep(5);
+		}
+		assertEquals(2, calls.get());
+		items.close();
+		assertFalse(items.hasNext());
+	}
+
+	@Test
+	public void testStream() throws Exception {
+		PagedIterator<StreamKeyItem> items = multiChainCommand.getStreamCommand().listStreamItemsPaged("stream1", true,
+				700);
+		try (Stream<StreamKeyItem> stream = items.stream()) {
+			assertEquals(ITEMS, stream.count());
+		}
+		assertFalse(items.hasNext());
+		assertEquals(16, calls.get());
+	}
+
+	@Test
+	public void testFailureOfAPage() throws Exception {
+		failAtStart = 2000;
+		int read = 0;
+		try (PagedIterator<StreamKeyItem> items = multiChainCommand.getStreamCommand().listStreamItemsPaged("stream1",
+				true, 1000)) {
+			while (items.hasNext()) {
+				items.next();
+				read++;
+			}
+			fail("failure expected");
+		} catch (UncheckedMultichainException e) {
+			assertTrue(e.getCause().toString().contains("node failure"));
+		}
+		assertEquals(2000, read);
+	}
+
+	@Test
+	public void testNewTransactionsDoNotRepeatOthers() throws Exception {
+		final List<String> wallet = new ArrayList<String>();
+		for (int i = 0; i < 25; i++) {
+			wallet.add("t" + i);
+		}
+		StubMultiChainServer walletServer = new StubMultiChainServer(new StubMultiChainServer.Responder() {
+			@Override
+			public synchronized Object answer(String method, JsonArray params) throws StubMultiChainServer.StubError {
+				assertEquals("listwallettransactions", method);
+				int count = params.get(0).getAsInt();
+				int skip = params.get(1).getAsInt();
+				List<Object> transactions = new ArrayList<Object>();
+				for (int i = skip; i < Math.min(wallet.size(), skip + count); i++) {
+					transactions.add(Collections.singletonMap("txid", wallet.get(i)));
+				}
+				// the node answers each page oldest first
+				Collections.reverse(transactions);
+				// two transactions arrive before the next page
+				wallet.add(0, "n" + wallet.size());
+				wallet.add(0, "n" + wallet.size());
+				return transactions;
+			}
+		});
+		MultiChainCommand walletCommand = new MultiChainCommand("127.0.0.1", walletServer.getPort(),
+				TestConst.MULTICHAIN_SERVER_LOGIN, TestConst.MULTICHAIN_SERVER_PWD);
+		List<String> txids = new ArrayList<String>();
+		try (PagedIterator<TransactionWalletDetailed> transactions = walletCommand.getWalletTransactionCommand()
+				.listWalletTransactionPaged(false, false, 10)) {
+			while (transactions.hasNext()) {
+				txids.add(transactions.next().getTxid());
+			}
+		} finally {
+			walletCommand.close();
+			walletServer.stop();
+		}
+		List<String> expected = new ArrayList<String>();
+		for (int i = 0; i < 25; i++) {
+			expected.add("t" + i);
+		}
+		assertEquals(expected, txids);
+	}
+}
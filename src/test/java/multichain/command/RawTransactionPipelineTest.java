@@ -0,0 +1,247 @@
+/*
+ * Copyright (C) 2017 Worldline, Inc.
+ *
+ * MultiChainJavaAPI code distributed under the GPLv3 license, see COPYING file.
+ * https://github.com/SimplyUb/MultiChainJavaAPI/blob/master/LICENSE
+ *
+ */
+package multichain.command;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import com.google.gson.JsonArray;
+
+import multichain.object.formatters.HexCodec;
+import multichain.object.queryobjects.RawTransactionIntent;
+
+/**
+ * {@link RawTransactionPipeline} against a stub node.
+ *
+ * @author Ub - H. MARTEAU
+ * @version 4.15
+ */
+public class RawTransactionPipelineTest {
+	/**
+	 * One input spending output 0 of the transaction numbered by the address,
+	 * one empty output.
+	 */
+	private static String unsignedHex(String address) {
+		return "01000000" + "01" + String.format("%064x", Integer.parseInt(address.substring(5))) + "00000000"
+				+ "00" + "ffffffff" + "01" + "0000000000000000" + "00" + "00000000";
+	}
+
+	private static String txid(String hex) throws Exception {
+		MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
+		byte[] hash = sha256.digest(sha256.digest(HexCodec.decode(hex)));
+		byte[] reversed = new byte[hash.length];
+		for (int i = 0; i < hash.length; i++) {
+			reversed[i] = hash[hash.length - 1 - i];
+		}
+		return HexCodec.encode(reversed);
+	}
+
+	/**
+	 * Creates, signs and sends, letting the send of some transactions fail.
+	 */
+	private static class Node implements StubMultiChainServer.Responder {
+		final Map<String, List<Integer>> sendErrors = new LinkedHashMap<String, List<Integer>>();
+		final AtomicInteger creates = new AtomicInteger();
+		final AtomicInteger sends = new AtomicInteger();
+		final List<String> unlocked = Collections.synchronizedList(new ArrayList<String>());
+		/** creations run whose answer is lost */
+		final AtomicInteger lostCreates = new AtomicInteger();
+		/** unsigned transactions signed into an unreadable hex */
+		final List<String> badSignatures = new ArrayList<String>();
+
+		@Override
+		public Object answer(String method, JsonArray params) throws StubMultiChainServer.StubError {
+			if ("createrawsendfrom".equals(method)) {
+				creates.incrementAndGet();
+				assertEquals("lock", params.get(3).getAsString());
+				if (lostCreates.getAndDecrement() > 0) {
+					// the connection is closed without answer
+					throw new IllegalStateException("answer lost");
+				}
+				return unsignedHex(params.get(0).getAsString());
+			}
+			if ("signrawtransaction".equals(method)) {
+				Map<String, Object> signed = new LinkedHashMap<String, Object>();
+				String hex = params.get(0).getAsString();
+				signed.put("hex", badSignatures.contains(hex) ? "0" : hex);
+				signed.put("complete", true);
+				return signed;
+			}
+			if ("sendrawtransaction".equals(method)) {
+				sends.incrementAndGet();
+				String hex = params.get(0).getAsString();
+				synchronized (sendErrors) {
+					List<Integer> errors = sendErrors.get(hex);
+					if (errors != null && !errors.isEmpty()) {
+						throw new StubMultiChainServer.StubError(errors.remove(0), "refused");
+					}
+				}
+				try {
+					return txid(hex);
+				} catch (Exception e) {
+					throw new IllegalStateException(e);
+				}
+			}
+			if ("lockunspent".equals(method)) {
+				assertTrue(params.get(0).getAsBoolean());
+				unlocked.add(params.get(1).getAsJsonArray().get(0).getAsJsonObject().get("txid").getAsString());
+				return true;
+			}
+			throw new StubMultiChainServer.StubError(-32601, "Method not found");
+		}
+	}
+
+	private static RawTransactionIntent intent(int i) {
+		Map<String, Object> amounts = new LinkedHashMap<String, Object>();
+		amounts.put("1HrciBAMdcPbSfDoXDyDpDUnb44Dg8sH4WfVyP", 1.5);
+		return new RawTransactionIntent("from-" + i, amounts);
+	}
+
+	@Test
+	public void testStepsAreBatched() throws Exception {
+		Node node = new Node();
+		StubMultiChainServer server = new StubMultiChainServer(node);
+		MultiChainCommand multiChainCommand = new MultiChainCommand("127.0.0.1", server.getPort(),
+				TestConst.MULTICHAIN_SERVER_LOGIN, TestConst.MULTICHAIN_SERVER_PWD);
+		RawTransactionPipelineParameters parameters = new RawTransactionPipelineParameters(20, 3);
+		parameters.setLingerMillis(20);
+		RawTransactionPipeline pipeline = new RawTransactionPipeline(multiChainCommand, parameters);
+		try {
+			List<RawTransactionIntent> intents = new ArrayList<RawTransactionIntent>();
+			for (int i = 0; i < 60; i++) {
+				intents.add(intent(i));
+			}
+			List<CompletableFuture<String>> txids = pipeline.submitAll(intents);
+			for (int i = 0; i < 60; i++) {
+				assertEquals(txid(unsignedHex("from-" + i)), txids.get(i).get(10, TimeUnit.SECONDS));
+			}
+			assertEquals(60, pipeline.getSent());
+			assertEquals(60, node.creates.get());
+			assertTrue(server.getHttpRequests() < 60);
+
+			CompletableFuture<String> missing = pipeline.submit(new RawTransactionIntent("", null));
+			assertTrue(missing.isCompletedExceptionally());
+		} finally {
+			pipeline.close();
+			multiChainCommand.close();
+			server.stop();
+		}
+	}
+
+	@Test
+	public void testSendIsRetriedWithTheSameTransaction() throws Exception {
+		Node node = new Node();
+		// warming up, then the first send was accepted after all
+		node.sendErrors.put(unsignedHex("from-1"), new ArrayList<Integer>(Arrays.asList(-28, -27)));
+		// refused
+		node.sendErrors.put(unsignedHex("from-2"), new ArrayList<Integer>(Arrays.asList(-26)));
+		StubMultiChainServer server = new StubMultiChainServer(node);
+		MultiChainCommand multiChainCommand = new MultiChainCommand("127.0.0.1", server.getPort(),
+				TestConst.MULTICHAIN_SERVER_LOGIN, TestConst.MULTICHAIN_SERVER_PWD);
+		RawTransactionPipelineParameters parameters = new RawTransactionPipelineParameters();
+		parameters.setRetryDelayMillis(10);
+		RawTransactionPipeline pipeline = new RawTransactionPipeline(multiChainCommand, parameters);
+		try {
+			CompletableFuture<String> retried = pipeline.submit(intent(1));
+			assertEquals(txid(unsignedHex("from-1")), retried.get(10, TimeUnit.SECONDS));
+			assertEquals(1, node.creates.get());
+			assertEquals(2, node.sends.get());
+			assertEquals(1, pipeline.getRetries());
+
+			CompletableFuture<String> refused = pipeline.submit(intent(2));
+			try {
+				refused.get(10, TimeUnit.SECONDS);
+				fail("refused transaction");
+			} catch (ExecutionException e) {
+				assertTrue(((MultichainException) e.getCause()).getObject().startsWith("code :-26"));
+			}
+			assertEquals(Collections.singletonList(String.format("02%062x", 0)), node.unlocked);
+			assertEquals(1, pipeline.getFailed());
+		} finally {
+			pipeline.close();
+			multiChainCommand.close();
+			server.stop();
+		}
+	}
+
+	@Test
+	public void testBatchFailureSparesTheJobsMovedOn() throws Exception {
+		Node node = new Node();
+		node.badSignatures.add(unsignedHex("from-2"));
+		StubMultiChainServer server = new StubMultiChainServer(node);
+		MultiChainCommand multiChainCommand = new MultiChainCommand("127.0.0.1", server.getPort(),
+				TestConst.MULTICHAIN_SERVER_LOGIN, TestConst.MULTICHAIN_SERVER_PWD);
+		RawTransactionPipelineParameters parameters = new RawTransactionPipelineParameters();
+		parameters.setLingerMillis(50);
+		RawTransactionPipeline pipeline = new RawTransactionPipeline(multiChainCommand, parameters);
+		try {
+			// signed in the same batch : the first one goes on to the send
+			// before the second one breaks the batch
+			List<CompletableFuture<String>> txids = pipeline.submitAll(Arrays.asList(intent(1), intent(2)));
+			assertEquals(txid(unsignedHex("from-1")), txids.get(0).get(10, TimeUnit.SECONDS));
+			try {
+				txids.get(1).get(10, TimeUnit.SECONDS);
+				fail("unreadable signature");
+			} catch (ExecutionException e) {
+				assertTrue(e.getCause() instanceof MultichainException);
+			}
+			assertEquals(1, pipeline.getSent());
+			assertEquals(1, pipeline.getFailed());
+			// each job done once : the count reaches 0, not below
+			pipeline.close();
+			assertEquals(0, pipeline.getPending());
+		} finally {
+			pipeline.close();
+			multiChainCommand.close();
+			server.stop();
+		}
+	}
+
+	@Test
+	public void testLockingCreateIsNotRetriedOnceSent() throws Exception {
+		Node node = new Node();
+		node.lostCreates.set(1);
+		StubMultiChainServer server = new StubMultiChainServer(node);
+		MultiChainCommand multiChainCommand = new MultiChainCommand("127.0.0.1", server.getPort(),
+				TestConst.MULTICHAIN_SERVER_LOGIN, TestConst.MULTICHAIN_SERVER_PWD);
+		RawTransactionPipelineParameters parameters = new RawTransactionPipelineParameters();
+		parameters.setRetryDelayMillis(10);
+		RawTransactionPipeline pipeline = new RawTransactionPipeline(multiChainCommand, parameters);
+		try {
+			CompletableFuture<String> lost = pipeline.submit(intent(1));
+			try {
+				lost.get(10, TimeUnit.SECONDS);
+				fail("answer lost");
+			} catch (ExecutionException e) {
+				assertTrue(e.getCause() instanceof MultichainException);
+			}
+			assertEquals(1, node.creates.get());
+			assertEquals(0, pipeline.getRetries());
+			assertEquals(0, node.sends.get());
+		} finally {
+			pipeline.close();
+			multiChainCommand.close();
+			server.stop();
+		}
+	}
+}
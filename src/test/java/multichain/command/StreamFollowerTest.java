@@ -0,0 +1,266 @@
+/*
+ * Copyright (C) 2017 Worldline, Inc.
+ *
+ * MultiChainJavaAPI code distributed under the GPLv3 license, see COPYING file.
+ * https://github.com/SimplyUb/MultiChainJavaAPI/blob/master/LICENSE
+ *
+ */
+package multichain.command;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.gson.JsonArray;
+
+import multichain.object.StreamKeyItem;
+
+/**
+ * Following streams of a {@link StubMultiChainServer} whose items are
+ * published, then confirmed in blocks.
+ *
+ * @author Ub - H. MARTEAU
+ * @version 4.15
+ */
+public class StreamFollowerTest {
+	/** confirmed items of each stream, then the unconfirmed ones */
+	private final Map<String, List<String>> confirmedItems = new LinkedHashMap<String, List<String>>();
+	private final Map<String, List<String>> unconfirmedItems = new LinkedHashMap<String, List<String>>();
+	private final List<String> received = Collections.synchronizedList(new ArrayList<String>());
+	private final List<String> confirmed = Collections.synchronizedList(new ArrayList<String>());
+	private StubMultiChainServer server;
+	private MultiChainCommand multiChainCommand;
+
+	@Before
+	public void setUp() throws Exception {
+		server = new StubMultiChainServer(new StubMultiChainServer.Responder() {
+			@Override
+			public Object answer(String method, JsonArray params) throws StubMultiChainServer.StubError {
+				synchronized (confirmedItems) {
+					String streamName = params.get(0).getAsString();
+					List<String> blockItems = confirmedItems.get(streamName);
+					if (blockItems == null) {
+						throw new StubMultiChainServer.StubError(-708, "Stream with this name not found");
+					}
+					List<String> mempoolItems = unconfirmedItems.get(streamName);
+					if ("liststreams".equals(method)) {
+						Map<String, Object> stream = new LinkedHashMap<String, Object>();
+						stream.put("name", streamName);
+						stream.put("items", blockItems.size() + mempoolItems.size());
+						stream.put("confirmed", blockItems.size());
+						return Collections.singletonList(stream);
+					}
+					int count = params.get(2).getAsInt();
+					int start = params.get(3).getAsInt();
+					List<Object> items = new ArrayList<Object>();
+					int size = blockItems.size() + mempoolItems.size();
+					for (int i = start; i < Math.min(size, start + count); i++) {
+						boolean inBlock = i < blockItems.size();
+						Map<String, Object> item = new LinkedHashMap<String, Object>();
+						item.put("key", "key");
+						item.put("txid", inBlock ? blockItems.get(i) : mempoolItems.get(i - blockItems.size()));
+						item.put("vout", 0);
+						item.put("confirmations", inBlock ? 1 : 0);
+						items.add(item);
+					}
+					return items;
+				}
+			}
+		});
+		multiChainCommand = new MultiChainCommand("127.0.0.1", server.getPort(), TestConst.MULTICHAIN_SERVER_LOGIN,
+				TestConst.MULTICHAIN_SERVER_PWD);
+		for (String streamName : new String[] { "stream1", "stream2" }) {
+			confirmedItems.put(streamName, new ArrayList<String>());
+			unconfirmedItems.put(streamName, new ArrayList<String>());
+			for (int i = 0; i < 3; i++) {
+				confirmedItems.get(streamName).add(streamName + "-old" + i);
+			}
+		}
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		multiChainCommand.close();
+		server.stop();
+	}
+
+	private StreamFollower newFollower(StreamFollowerParameters followerParameters) {
+		return new StreamFollower(multiChainCommand.newBatch(), followerParameters, new StreamFollower.Listener() {
+			@Override
+			public void itemReceived(String streamName, StreamKeyItem item) {
+				received.add(item.getTxid());
+			}
+
+			@Override
+			public void itemConfirmed(String streamName, StreamKeyItem item) {
+				confirmed.add(item.getTxid());
+			}
+		});
+	}
+
+	private void publish(String streamName, String txid) {
+		synchronized (confirmedItems) {
+			unconfirmedItems.get(streamName).add(txid);
+		}
+	}
+
+	/**
+	 * Confirms the txids in this order, before the other unconfirmed items.
+	 */
+	private void mine(String streamName, String... txids) {
+		synchronized (confirmedItems) {
+			for (String txid : txids) {
+				unconfirmedItems.get(streamName).remove(txid);
+				confirmedItems.get(streamName).add(txid);
+			}
+		}
+	}
+
+	@Test
+	public void testNewItemsOfAllStreamsInOneRequest() throws Exception {
+		StreamFollower follower = newFollower(null);
+		follower.follow("stream1");
+		follower.follow("stream2");
+		assertEquals(0, follower.poll());
+		assertEquals(3, follower.getCursor("stream1"));
+
+		publish("stream1", "a");
+		publish("stream2", "b");
+		mine("stream2", "b");
+		long requests = server.getHttpRequests();
+		assertEquals(2, follower.poll());
+		assertEquals(1, server.getHttpRequests() - requests);
+		assertEquals(2, received.size());
+		assertTrue(received.contains("a"));
+		assertTrue(received.contains("b"));
+		assertEquals(3, follower.getCursor("stream1"));
+		assertEquals(4, follower.getCursor("stream2"));
+
+		assertEquals(0, follower.poll());
+		assertEquals(2, received.size());
+	}
+
+	@Test
+	public void testConfirmedItemIsNotDeliveredTwice() throws Exception {
+		StreamFollower follower = newFollower(null);
+		follower.follow("stream1");
+		publish("stream1", "a");
+		assertEquals(1, follower.poll());
+
+		// "b" was only seen by the node when mined, before "a"
+		mine("stream1", "b", "a");
+		publish("stream1", "c");
+		assertEquals(2, follower.poll());
+		assertEquals(Arrays.asList("a", "b", "c"), received);
+		assertEquals(Arrays.asList("a"), confirmed);
+		assertEquals(5, follower.getCursor("stream1"));
+
+		mine("stream1", "c");
+		assertEquals(0, follower.poll());
+		assertEquals(Arrays.asList("a", "c"), confirmed);
+		assertEquals(3, received.size());
+	}
+
+	@Test
+	public void testDemandAndPaging() throws Exception {
+		for (int i = 0; i < 1200; i++) {
+			confirmedItems.get("stream1").add("tx" + i);
+		}
+		StreamFollowerParameters followerParameters = new StreamFollowerParameters(200, 500);
+		followerParameters.setInitialDemand(0);
+		StreamFollower follower = newFollower(followerParameters);
+		follower.follow("stream1", 3);
+
+		long requests = server.getHttpRequests();
+		assertEquals(0, follower.poll());
+		assertEquals(0, server.getHttpRequests() - requests);
+
+		follower.request(700);
+		assertEquals(700, follower.poll());
+		assertEquals(703, follower.getCursor("stream1"));
+		assertEquals(0, follower.getDemand());
+		assertEquals("tx699", received.get(699));
+
+		follower.request(1000);
+		assertEquals(500, follower.poll());
+		assertEquals(500, follower.getDemand());
+		assertEquals(1203, follower.getCursor("stream1"));
+		assertEquals("tx1199", received.get(1199));
+	}
+
+	@Test
+	public void testItemIsNotLostWhenTheListenerFails() throws Exception {
+		final List<String> failOn = new ArrayList<String>(Arrays.asList("tx1"));
+		for (int i = 0; i < 3; i++) {
+			confirmedItems.get("stream1").add("tx" + i);
+		}
+		StreamFollowerParameters followerParameters = new StreamFollowerParameters();
+		followerParameters.setInitialDemand(10);
+		StreamFollower follower = new StreamFollower(multiChainCommand.newBatch(), followerParameters,
+				new StreamFollower.Listener() {
+					@Override
+					public void itemReceived(String streamName, StreamKeyItem item) {
+						if (failOn.remove(item.getTxid())) {
+							throw new IllegalStateException("listener");
+						}
+						received.add(item.getTxid());
+					}
+
+					@Override
+					public void itemConfirmed(String streamName, StreamKeyItem item) {
+					}
+				});
+		follower.follow("stream1", 3);
+		try {
+			follower.poll();
+			fail("listener failure");
+		} catch (IllegalStateException e) {
+			assertEquals("listener", e.getMessage());
+		}
+		assertEquals(Arrays.asList("tx0"), received);
+		assertEquals(4, follower.getCursor("stream1"));
+		assertEquals(9, follower.getDemand());
+
+		assertEquals(2, follower.poll());
+		assertEquals(Arrays.asList("tx0", "tx1", "tx2"), received);
+		assertEquals(6, follower.getCursor("stream1"));
+		assertEquals(7, follower.getDemand());
+	}
+
+	@Test
+	public void testBackgroundFollowing() throws Exception {
+		final CountDownLatch latch = new CountDownLatch(1);
+		StreamFollower follower = new StreamFollower(multiChainCommand.newBatch(), new StreamFollowerParameters(10, 100),
+				new StreamFollower.Listener() {
+					@Override
+					public void itemReceived(String streamName, StreamKeyItem item) {
+						latch.countDown();
+					}
+
+					@Override
+					public void itemConfirmed(String streamName, StreamKeyItem item) {
+					}
+				});
+		follower.follow("stream1");
+		follower.start();
+		try {
+			publish("stream1", "a");
+			assertTrue(latch.await(5, TimeUnit.SECONDS));
+		} finally {
+			follower.close();
+		}
+	}
+}
@@ -0,0 +1,225 @@
+/*
+ * Copyright (C) 2017 Worldline, Inc.
+ *
+ * MultiChainJavaAPI code distributed under the GPLv3 license, see COPYING file.
+ * https://github.com/SimplyUb/MultiChainJavaAPI/blob/master/LICENSE
+ *
+ */
+package multichain.command;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.google.gson.JsonArray;
+
+import multichain.object.StreamKeyItem;
+
+/**
+ * Local index of a stream, filled from a {@link StubMultiChainServer}.
+ *
+ * @author Ub - H. MARTEAU
+ * @version 4.15
+ */
+public class StreamIndexTest {
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	/** txids of the confirmed items of the node */
+	private final List<String> nodeItems = Collections.synchronizedList(new ArrayList<String>());
+	private StubMultiChainServer server;
+	private MultiChainCommand multiChainCommand;
+	private Path file;
+
+	@Before
+	public void setUp() throws Exception {
+		server = new StubMultiChainServer(new StubMultiChainServer.Responder() {
+			@Override
+			public Object answer(String method, JsonArray params) throws StubMultiChainServer.StubError {
+				synchronized (nodeItems) {
+					if ("liststreams".equals(method)) {
+						Map<String, Object> stream = new LinkedHashMap<String, Object>();
+						stream.put("name", "stream1");
+						stream.put("items", nodeItems.size());
+						stream.put("confirmed", nodeItems.size());
+						return Collections.singletonList(stream);
+					}
+					int count = params.get(2).getAsInt();
+					int start = params.get(3).getAsInt();
+					List<Object> items = new ArrayList<Object>();
+					for (int i = start; i < Math.min(nodeItems.size(), start + count); i++) {
+						items.add(item(nodeItems.get(i), i));
+					}
+					return items;
+				}
+			}
+		});
+		multiChainCommand = new MultiChainCommand("127.0.0.1", server.getPort(), TestConst.MULTICHAIN_SERVER_LOGIN,
+				TestConst.MULTICHAIN_SERVER_PWD);
+		file = folder.newFile("stream1.idx").toPath();
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		multiChainCommand.close();
+		server.stop();
+	}
+
+	private static Map<String, Object> item(String txid, int position) {
+		Map<String, Object> item = new LinkedHashMap<String, Object>();
+		item.put("publishers", Arrays.asList("publisher" + (position % 3)));
+		item.put("key", "key" + (position % 10));
+		item.put("data", String.format("%08x", position));
+		item.put("confirmations", 1);
+		item.put("txid", txid);
+		item.put("vout", 0);
+		return item;
+	}
+
+	private static StreamKeyItem streamKeyItem(String txid, int position) {
+		StreamKeyItem streamKeyItem = new StreamKeyItem();
+		streamKeyItem.setPublishers(Arrays.asList("publisher" + (position % 3)));
+		streamKeyItem.setKey("key" + (position % 10));
+		streamKeyItem.setData(String.format("%08x", position));
+		streamKeyItem.setConfirmations(1);
+		streamKeyItem.setTxid(txid);
+		streamKeyItem.setVout(0);
+		return streamKeyItem;
+	}
+
+	@Test
+	public void testLookupsAcrossSegmentsAndReopening() throws Exception {
+		StreamIndex index = new StreamIndex(file, "stream1", 1024);
+		for (int i = 0; i < 100; i++) {
+			assertTrue(index.add(streamKeyItem("tx" + i, i)));
+		}
+		assertFalse(index.add(streamKeyItem("tx5", 5)));
+		index.close();
+
+		index = new StreamIndex(file, "stream1", 1024);
+		try {
+			assertEquals(100, index.size());
+			assertEquals("tx42", index.get(42).getTxid());
+			assertEquals(String.format("%08x", 42), index.getItem("tx42", 0).getData());
+			assertNull(index.getItem("tx42", 1));
+
+			List<StreamKeyItem> keyItems = index.getKeyItems("key7");
+			assertEquals(10, keyItems.size());
+			assertEquals("tx7", keyItems.get(0).getTxid());
+			assertEquals("tx97", index.getLatestKeyItem("key7").getTxid());
+			assertNull(index.getLatestKeyItem("unknown"));
+			assertEquals(34, index.getPublisherItems("publisher0").size());
+
+			index.truncate(60);
+			assertEquals(60, index.size());
+			assertEquals("tx57", index.getLatestKeyItem("key7").getTxid());
+			assertTrue(index.add(streamKeyItem("other60", 60)));
+		} finally {
+			index.close();
+		}
+
+		index = new StreamIndex(file, "stream1", 1024);
+		try {
+			assertEquals(61, index.size());
+			assertEquals("other60", index.get(60).getTxid());
+		} finally {
+			index.close();
+		}
+	}
+
+	@Test
+	public void testRecordCutByACrashEndsTheLog() throws Exception {
+		StreamIndex index = new StreamIndex(file, "stream1", 1024);
+		for (int i = 0; i < 10; i++) {
+			index.add(streamKeyItem("tx" + i, i));
+		}
+		index.close();
+
+		// a page of item 5 did not reach the disk
+		byte[] content = Files.readAllBytes(file);
+		String text = new String(content, StandardCharsets.ISO_8859_1);
+		content[text.indexOf("\"tx5\"") + 2] = 0;
+		Files.write(file, content);
+
+		index = new StreamIndex(file, "stream1", 1024);
+		try {
+			assertEquals(5, index.size());
+			assertTrue(index.add(streamKeyItem("ty5", 5)));
+		} finally {
+			index.close();
+		}
+		index = new StreamIndex(file, "stream1", 1024);
+		try {
+			// the items after the cut one, at the same offsets, are not read back
+			assertEquals(6, index.size());
+			assertEquals("ty5", index.get(5).getTxid());
+			assertNull(index.getItem("tx6", 0));
+		} finally {
+			index.close();
+		}
+	}
+
+	@Test
+	public void testVerifyAndResyncAfterReorganization() throws Exception {
+		for (int i = 0; i < 50; i++) {
+			nodeItems.add("tx" + i);
+		}
+		StreamIndex index = new StreamIndex(file, "stream1", 4096);
+		try {
+			StreamCommand streamCommand = multiChainCommand.getStreamCommand();
+			assertEquals(0, index.verify(streamCommand));
+			assertEquals(50, index.resync(streamCommand, 0, 7));
+			assertEquals(50, index.verify(streamCommand));
+
+			// the last blocks are replaced
+			for (int i = 30; i < 50; i++) {
+				nodeItems.set(i, "fork" + i);
+			}
+			nodeItems.add("fork50");
+			assertEquals(30, index.verify(streamCommand));
+			assertEquals(21, index.resync(streamCommand, 30, 7));
+			assertEquals(51, index.verify(streamCommand));
+			assertEquals("fork49", index.get(49).getTxid());
+			assertEquals(6, index.getKeyItems("key0").size());
+		} finally {
+			index.close();
+		}
+	}
+
+	@Test
+	public void testFilledByTheFollower() throws Exception {
+		for (int i = 0; i < 20; i++) {
+			nodeItems.add("tx" + i);
+		}
+		StreamIndex index = new StreamIndex(file, "stream1");
+		try {
+			StreamFollower follower = new StreamFollower(multiChainCommand.newBatch(), null, index);
+			follower.follow("stream1", index.size());
+			assertEquals(20, follower.poll());
+			nodeItems.add("tx20");
+			assertEquals(1, follower.poll());
+			assertEquals(21, index.size());
+			assertEquals("tx20", index.getLatestKeyItem("key0").getTxid());
+			assertEquals(21, index.verify(multiChainCommand.getStreamCommand()));
+		} finally {
+			index.close();
+		}
+	}
+}
@@ -0,0 +1,150 @@
+/*
+ * Copyright (C) 2017 Worldline, Inc.
+ *
+ * MultiChainJavaAPI code distributed under the GPLv3 license, see COPYING file.
+ * https://github.com/SimplyUb/MultiChainJavaAPI/blob/master/LICENSE
+ *
+ */
+package multichain.command;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.gson.JsonArray;
+
+import multichain.object.StreamKeyItem;
+
+/**
+ * Parallel scans of {@link StreamScanner} against a {@link StubMultiChainServer}
+ * holding a stream of {@link #ITEMS} items.
+ *
+ * @author Ub - H. MARTEAU
+ * @version 4.15
+ */
+public class StreamScannerTest {
+	private static final int ITEMS = 20350;
+
+	private final AtomicInteger running = new AtomicInteger();
+	private final AtomicInteger maxRunning = new AtomicInteger();
+	private final AtomicInteger failuresLeft = new AtomicInteger();
+	private StubMultiChainServer server;
+	private MultiChainCommand multiChainCommand;
+
+	@Before
+	public void setUp() throws Exception {
+		server = new StubMultiChainServer(new StubMultiChainServer.Responder() {
+			@Override
+			public Object answer(String method, JsonArray params) throws StubMultiChainServer.StubError {
+				if ("liststreams".equals(method)) {
+					Map<String, Object> stream = new LinkedHashMap<String, Object>();
+					stream.put("name", "stream1");
+					stream.put("items", ITEMS);
+					List<Object> streams = new ArrayList<Object>();
+					streams.add(stream);
+					return streams;
+				}
+				int now = running.incrementAndGet();
+				while (now > maxRunning.get()) {
+					maxRunning.compareAndSet(maxRunning.get(), now);
+				}
+				try {
+					if (failuresLeft.getAndDecrement() > 0) {
+						throw new StubMultiChainServer.StubError(-1, "node busy");
+					}
+					Thread.sleep(5);
+					int count = params.get(2).getAsInt();
+					int start = params.get(3).getAsInt();
+					List<Object> items = new ArrayList<Object>();
+					for (int i = start; i < Math.min(ITEMS, start + count); i++) {
+						Map<String, Object> item = new LinkedHashMap<String, Object>();
+						item.put("key", "key" + (i % 10));
+						item.put("txid", "tx" + i);
+						items.add(item);
+					}
+					return items;
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					return null;
+				} finally {
+					running.decrementAndGet();
+				}
+			}
+		}, 16);
+		multiChainCommand = new MultiChainCommand("127.0.0.1", server.getPort(), TestConst.MULTICHAIN_SERVER_LOGIN,
+				TestConst.MULTICHAIN_SERVER_PWD);
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		multiChainCommand.close();
+		server.stop();
+	}
+
+	@Test
+	public void testParallelScan() throws Exception {
+		final StreamScanner.Scan scan = new StreamScanner(multiChainCommand.getStreamCommand(),
+				new StreamScanParameters(500, 4)).scan("stream1", true);
+		assertEquals(ITEMS, scan.getTotal());
+
+		final Set<String> txids = ConcurrentHashMap.newKeySet();
+		ForkJoinPool pool = new ForkJoinPool(8);
+		try {
+			pool.submit(new Callable<Void>() {
+				@Override
+				public Void call() {
+					scan.stream(true).forEach(new Consumer<StreamKeyItem>() {
+						@Override
+						public void accept(StreamKeyItem item) {
+							txids.add(item.getTxid());
+						}
+					});
+					return null;
+				}
+			}).get();
+		} finally {
+			pool.shutdown();
+		}
+
+		assertEquals(ITEMS, txids.size());
+		assertEquals(ITEMS, scan.getItemsRead());
+		assertEquals(41, scan.getPagesRead());
+		assertEquals(1.0, scan.getProgress(), 0);
+		assertTrue(scan.getItemsPerSecond() > 0);
+		assertTrue(maxRunning.get() > 1);
+		assertTrue(maxRunning.get() <= 4);
+	}
+
+	@Test
+	public void testSequentialScanInOrderWithRetries() throws Exception {
+		failuresLeft.set(2);
+		StreamScanParameters scanParameters = new StreamScanParameters(1000, 2);
+		scanParameters.setRetryDelayMillis(1);
+		StreamScanner.Scan scan = new StreamScanner(multiChainCommand.getStreamCommand(), scanParameters)
+				.scan("stream1", false);
+
+		final AtomicInteger index = new AtomicInteger();
+		scan.stream(false).forEach(new Consumer<StreamKeyItem>() {
+			@Override
+			public void accept(StreamKeyItem item) {
+				assertEquals("tx" + index.getAndIncrement(), item.getTxid());
+			}
+		});
+		assertEquals(ITEMS, index.get());
+		assertEquals(2, scan.getRetries());
+	}
+}
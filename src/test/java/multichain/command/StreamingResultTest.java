@@ -0,0 +1,131 @@
+/*
+ * Copyright (C) 2017 Worldline, Inc.
+ *
+ * MultiChainJavaAPI code distributed under the GPLv3 license, see COPYING file.
+ * https://github.com/SimplyUb/MultiChainJavaAPI/blob/master/LICENSE
+ *
+ */
+package multichain.command;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.gson.JsonArray;
+
+import multichain.command.builders.RpcResultIterator;
+import multichain.object.StreamKeyItem;
+
+/**
+ * Streaming decode of array results against {@link StubMultiChainServer}.
+ *
+ * @author Ub - H. MARTEAU
+ * @version 4.15
+ */
+public class StreamingResultTest {
+	private StubMultiChainServer server;
+	private MultiChainCommand multiChainCommand;
+
+	@Before
+	public void setUp() throws Exception {
+		server = new StubMultiChainServer(new StubMultiChainServer.Responder() {
+			@Override
+			public Object answer(String method, JsonArray params) throws StubMultiChainServer.StubError {
+				if ("getblockcount".equals(method)) {
+					return 1234;
+				}
+				String streamName = params.get(0).getAsString();
+				if (!"stream1".equals(streamName)) {
+					throw new StubMultiChainServer.StubError(-703, "Stream with this name not found");
+				}
+				int count = params.get(2).getAsInt();
+				int start = params.get(3).getAsInt();
+				List<Object> items = new ArrayList<Object>();
+				for (int i = start; i < start + count; i++) {
+					Map<String, Object> item = new LinkedHashMap<String, Object>();
+					item.put("key", "key-" + i);
+					item.put("data", "0a0b0c");
+					item.put("txid", "tx" + i);
+					item.put("vout", 0);
+					items.add(item);
+				}
+				return items;
+			}
+		});
+		multiChainCommand = new MultiChainCommand("127.0.0.1", server.getPort(), TestConst.MULTICHAIN_SERVER_LOGIN,
+				TestConst.MULTICHAIN_SERVER_PWD);
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		multiChainCommand.close();
+		server.stop();
+	}
+
+	@Test
+	public void testItemsAreDecodedInOrder() throws Exception {
+		RpcResultIterator<StreamKeyItem> items = multiChainCommand.getStreamCommand()
+				.listStreamItemsIterator("stream1", true, 20000, 0);
+		int count = 0;
+		while (items.hasNext()) {
+			StreamKeyItem item = items.next();
+			assertEquals("tx" + count, item.getTxid());
+			assertEquals("key-" + count, item.getKey());
+			count++;
+		}
+		assertEquals(20000, count);
+		assertFalse(items.hasNext());
+
+		// The answer was read to the end : the connection went back to the pool
+		assertEquals(1, multiChainCommand.getTransport().getConnectionManager().getTotalStats().getAvailable());
+		assertEquals(1234, multiChainCommand.getBlockCommand().getBlockCount());
+	}
+
+	@Test
+	public void testStream() throws Exception {
+		RpcResultIterator<StreamKeyItem> items = multiChainCommand.getStreamCommand()
+				.listStreamItemsIterator("stream1", false, 1000, 500);
+		try {
+			assertEquals(1000, items.stream().filter(new Predicate<StreamKeyItem>() {
+				@Override
+				public boolean test(StreamKeyItem item) {
+					return item.getTxid().startsWith("tx");
+				}
+			}).count());
+		} finally {
+			items.close();
+		}
+	}
+
+	@Test
+	public void testErrorIsRaisedBeforeItems() throws Exception {
+		try {
+			multiChainCommand.getStreamCommand().listStreamItemsIterator("unknown", true, 10, 0);
+			fail("error expected");
+		} catch (MultichainException e) {
+			assertTrue(e.toString().contains("-703"));
+		}
+		assertEquals(1234, multiChainCommand.getBlockCommand().getBlockCount());
+	}
+
+	@Test
+	public void testCloseBeforeTheEnd() throws Exception {
+		RpcResultIterator<StreamKeyItem> items = multiChainCommand.getStreamCommand()
+				.listStreamItemsIterator("stream1", true, 10000, 0);
+		assertEquals("tx0", items.next().getTxid());
+		items.close();
+		assertFalse(items.hasNext());
+		assertEquals(1234, multiChainCommand.getBlockCommand().getBlockCount());
+	}
+}
@@ -0,0 +1,159 @@
+/*
+ * Copyright (C) 2017 Worldline, Inc.
+ *
+ * MultiChainJavaAPI code distributed under the GPLv3 license, see COPYING file.
+ * https://github.com/SimplyUb/MultiChainJavaAPI/blob/master/LICENSE
+ *
+ */
+package multichain.command;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Minimal in-process JSON-RPC server standing for a MultiChain node in tests.
+ * 
+ * Answers single requests and batch arrays by calling a {@link Responder}.
+ *
+ * @author Ub - H. MARTEAU
+ * @version 4.15
+ */
+public class StubMultiChainServer {
+
+	/**
+	 * Computes the result of one RPC call, or throws a {@link StubError}.
+	 */
+	public interface Responder {
+		Object answer(String method, JsonArray params) throws StubError;
+	}
+
+	/**
+	 * JSON-RPC error returned by the stub.
+	 */
+	public static class StubError extends Exception {
+		private static final long serialVersionUID = 1L;
+		private final int code;
+
+		public StubError(int code, String message) {
+			super(message);
+			this.code = code;
+		}
+
+		public int getCode() {
+			return code;
+		}
+	}
+
+	static {
+		// headers and body are written apart : without it each answer waits
+		// for the delayed ACK of the client
+		System.setProperty("sun.net.httpserver.nodelay", "true");
+	}
+
+	private final HttpServer server;
+	private final ExecutorService executor;
+	private final Gson gson = new Gson();
+	private final AtomicInteger httpRequests = new AtomicInteger();
+	private final Responder responder;
+
+	public StubMultiChainServer(Responder responder) throws IOException {
+		this(responder, 32);
+	}
+
+	public StubMultiChainServer(Responder responder, int threads) throws IOException {
+		this.responder = responder;
+		server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+		executor = Executors.newFixedThreadPool(threads);
+		server.setExecutor(executor);
+		server.createContext("/", new HttpHandler() {
+			@Override
+			public void handle(HttpExchange exchange) throws IOException {
+				httpRequests.incrementAndGet();
+				JsonElement request = new JsonParser()
+						.parse(new InputStreamReader(exchange.getRequestBody(), StandardCharsets.UTF_8));
+				JsonElement answer;
+				int status = 200;
+				if (request.isJsonArray()) {
+					JsonArray answers = new JsonArray();
+					for (JsonElement single : request.getAsJsonArray()) {
+						answers.add(answer(single.getAsJsonObject()));
+					}
+					answer = answers;
+				} else {
+					answer = answer(request.getAsJsonObject());
+					status = status(answer);
+				}
+				byte[] body = gson.toJson(answer).getBytes(StandardCharsets.UTF_8);
+				exchange.getResponseHeaders().add("Content-Type", "application/json");
+				exchange.sendResponseHeaders(status, body.length);
+				OutputStream out = exchange.getResponseBody();
+				out.write(body);
+				out.close();
+			}
+		});
+		server.start();
+	}
+
+	private JsonElement answer(JsonObject request) {
+		Map<String, Object> answer = new LinkedHashMap<String, Object>();
+		try {
+			answer.put("result", responder.answer(request.get("method").getAsString(),
+					request.getAsJsonArray("params")));
+			answer.put("error", null);
+		} catch (StubError e) {
+			Map<String, Object> error = new LinkedHashMap<String, Object>();
+			error.put("code", e.getCode());
+			error.put("message", e.getMessage());
+			answer.put("result", null);
+			answer.put("error", error);
+		}
+		answer.put("id", request.get("id"));
+		return gson.toJsonTree(answer);
+	}
+
+	/**
+	 * The status of a single answer, as sent by the node : 500 for an error,
+	 * 404 for an unknown method.
+	 */
+	private static int status(JsonElement answer) {
+		JsonElement error = answer.getAsJsonObject().get("error");
+		if (error == null || error.isJsonNull()) {
+			return 200;
+		}
+		int code = error.getAsJsonObject().get("code").getAsInt();
+		return code == -32601 ? 404 : (code == -32600 ? 400 : 500);
+	}
+
+	public String getPort() {
+		return String.valueOf(server.getAddress().getPort());
+	}
+
+	/**
+	 * @return number of HTTP requests received (a batch counts for one)
+	 */
+	public int getHttpRequests() {
+		return httpRequests.get();
+	}
+
+	public void stop() {
+		server.stop(0);
+		executor.shutdownNow();
+	}
+}
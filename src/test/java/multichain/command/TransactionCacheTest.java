@@ -0,0 +1,141 @@
+/*
+ * Copyright (C) 2017 Worldline, Inc.
+ *
+ * MultiChainJavaAPI code distributed under the GPLv3 license, see COPYING file.
+ * https://github.com/SimplyUb/MultiChainJavaAPI/blob/master/LICENSE
+ *
+ */
+package multichain.command;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.google.gson.JsonArray;
+
+import multichain.object.Block;
+import multichain.object.TransactionRAW;
+import multichain.object.TransactionWalletDetailed;
+
+/**
+ * {@link TransactionCache} alone and behind {@link WalletTransactionCommand}.
+ *
+ * @author Ub - H. MARTEAU
+ * @version 4.15
+ */
+public class TransactionCacheTest {
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private static TransactionRAW transaction(int i) {
+		TransactionRAW transaction = new TransactionRAW();
+		transaction.setTxid(String.format("%064x", i));
+		transaction.setVersion(1);
+		transaction.setLocktime(0);
+		return transaction;
+	}
+
+	@Test
+	public void testSpillsBeyondTheMemoryBound() throws Exception {
+		Path directory = folder.newFolder("spill").toPath();
+		TransactionCacheParameters parameters = new TransactionCacheParameters(2000, directory);
+		TransactionCache cache = new TransactionCache(parameters);
+		for (int i = 0; i < 20; i++) {
+			cache.put(TransactionCache.Kind.RAW_TRANSACTION, String.format("%064x", i), transaction(i));
+		}
+		assertTrue(cache.getWeight() <= 2000);
+		assertTrue(cache.getEvictions() > 0);
+		assertEquals(cache.getEvictions(), directory.toFile().list().length);
+
+		TransactionRAW first = (TransactionRAW) cache.get(TransactionCache.Kind.RAW_TRANSACTION,
+				String.format("%064x", 0));
+		assertEquals(String.format("%064x", 0), first.getTxid());
+		assertEquals(1, cache.getSpillHits(TransactionCache.Kind.RAW_TRANSACTION));
+		assertSame(first, cache.get(TransactionCache.Kind.RAW_TRANSACTION, String.format("%064x", 0)));
+		assertNull(cache.get(TransactionCache.Kind.RAW_TRANSACTION, String.format("%064x", 99)));
+		assertNull(cache.get(TransactionCache.Kind.TRANSACTION, String.format("%064x", 0)));
+		assertEquals(2.0 / 3, cache.getHitRatio(TransactionCache.Kind.RAW_TRANSACTION), 1e-9);
+		assertEquals(0, cache.getHitRatio(TransactionCache.Kind.TRANSACTION), 0);
+
+		// the spilled transactions outlive the cache
+		TransactionCache reopened = new TransactionCache(parameters);
+		assertEquals(String.format("%064x", 1),
+				((TransactionRAW) reopened.get(TransactionCache.Kind.RAW_TRANSACTION, String.format("%064x", 1)))
+						.getTxid());
+
+		reopened.invalidate(String.format("%064x", 1));
+		assertNull(reopened.get(TransactionCache.Kind.RAW_TRANSACTION, String.format("%064x", 1)));
+		reopened.clear();
+		assertEquals(0, directory.toFile().list().length);
+		assertEquals(0, reopened.getSpillBytes());
+	}
+
+	@Test
+	public void testUnconfirmedTransactionsArePromoted() throws Exception {
+		final AtomicInteger calls = new AtomicInteger();
+		final AtomicLong confirmations = new AtomicLong(0);
+		StubMultiChainServer server = new StubMultiChainServer(new StubMultiChainServer.Responder() {
+			@Override
+			public Object answer(String method, JsonArray params) throws StubMultiChainServer.StubError {
+				calls.incrementAndGet();
+				Map<String, Object> transaction = new LinkedHashMap<String, Object>();
+				transaction.put("txid", params.get(0).getAsString());
+				transaction.put("confirmations", confirmations.get());
+				transaction.put("myaddresses", Arrays.asList("1HrciBAMdcPbSfDoXDyDpDUnb44Dg8sH4WfVyP"));
+				transaction.put("hex", "0100");
+				return transaction;
+			}
+		});
+		MultiChainCommand multiChainCommand = new MultiChainCommand("127.0.0.1", server.getPort(),
+				TestConst.MULTICHAIN_SERVER_LOGIN, TestConst.MULTICHAIN_SERVER_PWD);
+		try {
+			TransactionCacheParameters parameters = new TransactionCacheParameters();
+			parameters.setUnconfirmedTtlMillis(100);
+			TransactionCache cache = new TransactionCache(parameters);
+			WalletTransactionCommand command = multiChainCommand.getWalletTransactionCommand();
+			command.setTransactionCache(cache);
+
+			command.getWalletTransactionWithDetail("ab01");
+			command.getWalletTransactionWithDetail("ab01");
+			assertEquals(1, calls.get());
+
+			// expired, then read again once confirmed
+			Thread.sleep(150);
+			confirmations.set(parameters.getMinConfirmations());
+			TransactionWalletDetailed confirmed = command.getWalletTransactionWithDetail("ab01");
+			assertEquals(2, calls.get());
+			assertEquals(1, cache.getPromotions());
+			Thread.sleep(150);
+			assertSame(confirmed, command.getWalletTransactionWithDetail("ab01"));
+			assertEquals(2, calls.get());
+
+			// other parameters are not cached
+			command.getWalletTransaction("ab01", true, true);
+			assertEquals(3, calls.get());
+			assertEquals(2, cache.getHits(TransactionCache.Kind.WALLET_TRANSACTION));
+			assertEquals(2, cache.getMisses(TransactionCache.Kind.WALLET_TRANSACTION));
+
+			// read again once its block left the chain
+			Block block = new Block();
+			block.setTx(Arrays.asList("ab01"));
+			cache.blockDisconnected(block);
+			command.getWalletTransactionWithDetail("ab01");
+			assertEquals(4, calls.get());
+		} finally {
+			multiChainCommand.close();
+			server.stop();
+		}
+	}
+}
@@ -0,0 +1,160 @@
+/*
+ * Copyright (C) 2017 Worldline, Inc.
+ *
+ * MultiChainJavaAPI code distributed under the GPLv3 license, see COPYING file.
+ * https://github.com/SimplyUb/MultiChainJavaAPI/blob/master/LICENSE
+ *
+ */
+package multichain.command;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.gson.JsonArray;
+
+import multichain.object.Address;
+import multichain.object.BalanceAssetGeneral;
+import multichain.object.Block;
+import multichain.object.StreamKeyItem;
+import multichain.object.TransactionWalletDetailed;
+
+/**
+ * Results decoded straight into their type against {@link StubMultiChainServer}.
+ *
+ * @author Ub - H. MARTEAU
+ * @version 4.15
+ */
+public class TypedResultTest {
+	private StubMultiChainServer server;
+	private MultiChainCommand multiChainCommand;
+
+	@Before
+	public void setUp() throws Exception {
+		server = new StubMultiChainServer(new StubMultiChainServer.Responder() {
+			@Override
+			public Object answer(String method, JsonArray params) throws StubMultiChainServer.StubError {
+				if ("liststreamitems".equals(method)) {
+					if (!"stream1".equals(params.get(0).getAsString())) {
+						throw new StubMultiChainServer.StubError(-703, "Stream with this name not found");
+					}
+					List<Object> items = new ArrayList<Object>();
+					for (int i = 0; i < params.get(2).getAsInt(); i++) {
+						Map<String, Object> item = new LinkedHashMap<String, Object>();
+						item.put("publishers", Arrays.asList("1HrciBAMdcPbSfDoXDyDpDUnb44Dg8sH4WfVyP"));
+						item.put("key", "key-" + i);
+						item.put("data", "0a0b0c");
+						item.put("confirmations", 3);
+						item.put("txid", "tx" + i);
+						items.add(item);
+					}
+					return items;
+				}
+				if ("getwallettransaction".equals(method)) {
+					Map<String, Object> transaction = new LinkedHashMap<String, Object>();
+					transaction.put("txid", params.get(0).getAsString());
+					transaction.put("confirmations", 7);
+					transaction.put("myaddresses", Arrays.asList("1HrciBAMdcPbSfDoXDyDpDUnb44Dg8sH4WfVyP"));
+					transaction.put("hex", "0100");
+					return transaction;
+				}
+				if ("gettotalbalances".equals(method)) {
+					Map<String, Object> balance = new LinkedHashMap<String, Object>();
+					balance.put("name", "gold");
+					balance.put("assetref", "12-267-35236");
+					balance.put("qty", 25.5);
+					return Arrays.asList(balance);
+				}
+				if ("validateaddress".equals(method)) {
+					Map<String, Object> address = new LinkedHashMap<String, Object>();
+					address.put("isvalid", true);
+					address.put("address", params.get(0).getAsString());
+					address.put("ismine", true);
+					return address;
+				}
+				if ("listblocks".equals(method)) {
+					List<Object> blocks = new ArrayList<Object>();
+					for (int i = 12; i <= 13; i++) {
+						Map<String, Object> block = new LinkedHashMap<String, Object>();
+						block.put("hash", "hash" + i);
+						block.put("height", i);
+						blocks.add(block);
+					}
+					return blocks;
+				}
+				return null;
+			}
+		});
+		multiChainCommand = new MultiChainCommand("127.0.0.1", server.getPort(), TestConst.MULTICHAIN_SERVER_LOGIN,
+				TestConst.MULTICHAIN_SERVER_PWD);
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		multiChainCommand.close();
+		server.stop();
+	}
+
+	@Test
+	public void testListStreamItems() throws Exception {
+		List<StreamKeyItem> items = multiChainCommand.getStreamCommand().listStreamItems("stream1", true, 500, 0);
+
+		assertEquals(500, items.size());
+		assertEquals("key-499", items.get(499).getKey());
+		assertEquals(3L, items.get(0).getConfirmations());
+		assertEquals("1HrciBAMdcPbSfDoXDyDpDUnb44Dg8sH4WfVyP", items.get(0).getPublishers().get(0));
+	}
+
+	@Test
+	public void testGetWalletTransaction() throws Exception {
+		TransactionWalletDetailed transaction = multiChainCommand.getWalletTransactionCommand()
+				.getWalletTransaction("tx1", false, true);
+
+		assertNotNull(transaction);
+		assertEquals("0100", transaction.getHex());
+		assertEquals(Arrays.asList("1HrciBAMdcPbSfDoXDyDpDUnb44Dg8sH4WfVyP"), transaction.getMyaddresses());
+	}
+
+	@Test
+	public void testListBlocks() throws Exception {
+		List<Block> blocks = multiChainCommand.getBlockCommand().listBlocksList("12-13", true);
+
+		assertEquals(2, blocks.size());
+		assertEquals("hash13", blocks.get(1).getHash());
+	}
+
+	@Test
+	public void testGetTotalBalancesAndValidateAddress() throws Exception {
+		List<BalanceAssetGeneral> balances = multiChainCommand.getBalanceCommand().getTotalBalances();
+
+		assertEquals(1, balances.size());
+		assertEquals("gold", balances.get(0).getName());
+		assertEquals(25.5, balances.get(0).getQty(), 0);
+
+		Address address = multiChainCommand.getAddressCommand().validateAddress("1HrciBAMdcPbSfDoXDyDpDUnb44Dg8sH4WfVyP");
+		assertEquals("1HrciBAMdcPbSfDoXDyDpDUnb44Dg8sH4WfVyP", address.getAddress());
+	}
+
+	@Test
+	public void testErrorIsRaised() throws Exception {
+		try {
+			multiChainCommand.getStreamCommand().listStreamItems("unknown", true, 10, 0);
+			fail("error expected");
+		} catch (MultichainException e) {
+			assertTrue(e.getMessage().contains("Stream with this name not found"));
+		}
+		// the connection is still usable after an error answer
+		assertEquals(10, multiChainCommand.getStreamCommand().listStreamItems("stream1", true, 10, 0).size());
+	}
+}
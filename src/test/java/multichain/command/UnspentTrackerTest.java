@@ -0,0 +1,313 @@
+/*
+ * Copyright (C) 2017 Worldline, Inc.
+ *
+ * MultiChainJavaAPI code distributed under the GPLv3 license, see COPYING file.
+ * https://github.com/SimplyUb/MultiChainJavaAPI/blob/master/LICENSE
+ *
+ */
+package multichain.command;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.junit.Test;
+
+import com.google.gson.JsonArray;
+
+import multichain.object.AddressBalance;
+import multichain.object.AddressBalanceAsset;
+import multichain.object.AddressBalanceCurrency;
+import multichain.object.BalanceAssetGeneral;
+import multichain.object.Block;
+import multichain.object.UnspentOutput;
+import multichain.object.queryobjects.TxIdVout;
+
+/**
+ * {@link UnspentTracker} against a stub node.
+ *
+ * @author Ub - H. MARTEAU
+ * @version 4.15
+ */
+public class UnspentTrackerTest {
+	private static final String ADDRESS = "1HrciBAMdcPbSfDoXDyDpDUnb44Dg8sH4WfVyP";
+	private static final String DESTINATION = "1ZvvMDrD5bz8UG8EVgDyEBnXD3P4KkJZqJxrTp";
+
+	private static Map<String, Object> output(String txid, double amount, Object... assets) {
+		Map<String, Object> output = new LinkedHashMap<String, Object>();
+		output.put("txid", txid);
+		output.put("vout", 0);
+		output.put("address", ADDRESS);
+		output.put("amount", amount);
+		List<Object> quantities = new ArrayList<Object>();
+		for (int i = 0; i < assets.length; i += 2) {
+			Map<String, Object> quantity = new LinkedHashMap<String, Object>();
+			quantity.put("name", assets[i]);
+			quantity.put("qty", assets[i + 1]);
+			quantities.add(quantity);
+		}
+		output.put("assets", quantities);
+		return output;
+	}
+
+	private static AddressBalance asset(String name, double qty) {
+		AddressBalanceAsset addressBalance = new AddressBalanceAsset();
+		addressBalance.setAddress(DESTINATION);
+		BalanceAssetGeneral asset = new BalanceAssetGeneral();
+		asset.setName(name);
+		asset.setQty(qty);
+		addressBalance.addAsset(asset);
+		return addressBalance;
+	}
+
+	private static AddressBalance currency(double value) {
+		AddressBalanceCurrency addressBalance = new AddressBalanceCurrency();
+		addressBalance.setAddress(DESTINATION);
+		addressBalance.setCurrencyValue(value);
+		return addressBalance;
+	}
+
+	/**
+	 * Answers listunspent with the outputs given, and getrawtransaction with
+	 * the transactions given.
+	 */
+	private static StubMultiChainServer server(final List<Map<String, Object>> outputs,
+			final Map<String, Object> transactions) throws Exception {
+		return new StubMultiChainServer(new StubMultiChainServer.Responder() {
+			@Override
+			public Object answer(String method, JsonArray params) throws StubMultiChainServer.StubError {
+				if ("listunspent".equals(method)) {
+					assertEquals(ADDRESS, params.get(2).getAsJsonArray().get(0).getAsString());
+					return outputs;
+				}
+				if ("getrawtransaction".equals(method)) {
+					return transactions.get(params.get(0).getAsString());
+				}
+				throw new StubMultiChainServer.StubError(-32601, "Method not found");
+			}
+		});
+	}
+
+	@Test
+	public void testSelectsAssetsAndReturnsTheChange() throws Exception {
+		List<Map<String, Object>> outputs = new ArrayList<Map<String, Object>>();
+		outputs.add(output("a1", 0, "gold", 10));
+		outputs.add(output("a2", 0, "gold", 3, "silver", 5));
+		outputs.add(output("a3", 0, "gold", 1));
+		StubMultiChainServer server = server(outputs, null);
+		MultiChainCommand multiChainCommand = new MultiChainCommand("127.0.0.1", server.getPort(),
+				TestConst.MULTICHAIN_SERVER_LOGIN, TestConst.MULTICHAIN_SERVER_PWD);
+		try {
+			UnspentTracker tracker = new UnspentTracker(multiChainCommand, null, null);
+			tracker.track(ADDRESS);
+
+			// the smallest output covering 2 gold, its silver back as change
+			UnspentTracker.Reservation reservation = tracker.reserve(ADDRESS,
+					Collections.singletonList(asset("gold", 2)));
+			assertEquals(1, reservation.getInputs().size());
+			assertEquals("a2", reservation.getInputs().get(0).getTxId());
+			Map<String, Object> amounts = reservation.getAmounts();
+			assertEquals(Collections.singletonMap("gold", 2.0), amounts.get(DESTINATION));
+			Map<String, Double> change = new LinkedHashMap<String, Double>();
+			change.put("gold", 1.0);
+			change.put("silver", 5.0);
+			assertEquals(change, amounts.get(ADDRESS));
+			assertEquals(2, reservation.getAddressBalances().size());
+
+			// a2 is reserved
+			try {
+				tracker.reserve(ADDRESS, Collections.singletonList(asset("gold", 12)));
+				fail("not enough gold");
+			} catch (MultichainException e) {
+				assertEquals(ADDRESS, e.getObject());
+			}
+			assertEquals(11.0, tracker.getAvailable(ADDRESS).get("gold"), 0);
+			UnspentTracker.Reservation both = tracker.reserve(ADDRESS, Collections.singletonList(asset("gold", 11)));
+			assertEquals(2, both.getInputs().size());
+			assertEquals(0, tracker.getAvailable(ADDRESS).size());
+
+			reservation.release();
+			both.release();
+			assertEquals(14.0, tracker.getAvailable(ADDRESS).get("gold"), 0);
+			assertEquals(1, tracker.getLoads());
+		} finally {
+			multiChainCommand.close();
+			server.stop();
+		}
+	}
+
+	@Test
+	public void testReturnsTheNativeCurrencyWithTheAssets() throws Exception {
+		List<Map<String, Object>> outputs = new ArrayList<Map<String, Object>>();
+		outputs.add(output("a1", 0.5, "gold", 10));
+		StubMultiChainServer server = server(outputs, null);
+		MultiChainCommand multiChainCommand = new MultiChainCommand("127.0.0.1", server.getPort(),
+				TestConst.MULTICHAIN_SERVER_LOGIN, TestConst.MULTICHAIN_SERVER_PWD);
+		try {
+			UnspentTracker tracker = new UnspentTracker(multiChainCommand, null, null);
+			tracker.track(ADDRESS);
+
+			// the native currency of the output goes back under "" beside the
+			// gold
+			UnspentTracker.Reservation reservation = tracker.reserve(ADDRESS,
+					Collections.singletonList(asset("gold", 2)));
+			Map<String, Double> change = new LinkedHashMap<String, Double>();
+			change.put("", 0.5);
+			change.put("gold", 8.0);
+			assertEquals(change, reservation.getAmounts().get(ADDRESS));
+			for (AddressBalance addressBalance : reservation.getAddressBalances()) {
+				addressBalance.isFilled();
+				if (ADDRESS.equals(addressBalance.getAddress())) {
+					assertEquals(change, addressBalance.getValue());
+				}
+			}
+			reservation.release();
+		} finally {
+			multiChainCommand.close();
+			server.stop();
+		}
+	}
+
+	@Test
+	public void testReleaseAfterRefresh() throws Exception {
+		List<Map<String, Object>> outputs = new ArrayList<Map<String, Object>>();
+		outputs.add(output("a1", 0, "gold", 10));
+		StubMultiChainServer server = server(outputs, null);
+		MultiChainCommand multiChainCommand = new MultiChainCommand("127.0.0.1", server.getPort(),
+				TestConst.MULTICHAIN_SERVER_LOGIN, TestConst.MULTICHAIN_SERVER_PWD);
+		try {
+			UnspentTracker tracker = new UnspentTracker(multiChainCommand, null, null);
+			tracker.track(ADDRESS);
+			UnspentTracker.Reservation reservation = tracker.reserve(ADDRESS,
+					Collections.singletonList(asset("gold", 2)));
+
+			// the outputs loaded again keep the reservation
+			tracker.refresh();
+			assertEquals(0, tracker.getAvailable(ADDRESS).size());
+
+			reservation.release();
+			UnspentTracker.Reservation again = tracker.reserve(ADDRESS, Collections.singletonList(asset("gold", 2)));
+			assertEquals("a1", again.getInputs().get(0).getTxId());
+			assertEquals(2, tracker.getLoads());
+		} finally {
+			multiChainCommand.close();
+			server.stop();
+		}
+	}
+
+	@Test
+	public void testConcurrentReservationsNeverShareInputs() throws Exception {
+		List<Map<String, Object>> outputs = new ArrayList<Map<String, Object>>();
+		for (int i = 0; i < 200; i++) {
+			outputs.add(output(String.format("%064x", i), 1));
+		}
+		StubMultiChainServer server = server(outputs, null);
+		MultiChainCommand multiChainCommand = new MultiChainCommand("127.0.0.1", server.getPort(),
+				TestConst.MULTICHAIN_SERVER_LOGIN, TestConst.MULTICHAIN_SERVER_PWD);
+		try {
+			final UnspentTracker tracker = new UnspentTracker(multiChainCommand, null, null);
+			tracker.track(ADDRESS);
+			final List<String> inputs = new CopyOnWriteArrayList<String>();
+			final List<Throwable> errors = new CopyOnWriteArrayList<Throwable>();
+			Thread[] threads = new Thread[8];
+			for (int t = 0; t < threads.length; t++) {
+				threads[t] = new Thread() {
+					@Override
+					public void run() {
+						try {
+							for (int i = 0; i < 25; i++) {
+								for (TxIdVout input : tracker
+										.reserve(ADDRESS, Collections.singletonList(currency(1))).getInputs()) {
+									inputs.add(input.getTxId());
+								}
+							}
+						} catch (Throwable e) {
+							errors.add(e);
+						}
+					}
+				};
+				threads[t].start();
+			}
+			for (Thread thread : threads) {
+				thread.join();
+			}
+			assertTrue(errors.toString(), errors.isEmpty());
+			assertEquals(200, new HashSet<String>(inputs).size());
+			assertEquals(200, tracker.getReservations());
+			assertEquals(1, server.getHttpRequests());
+		} finally {
+			multiChainCommand.close();
+			server.stop();
+		}
+	}
+
+	@Test
+	public void testFollowsOwnTransactionsAndBlocks() throws Exception {
+		String spentTxid = String.format("01%062x", 0);
+		List<Map<String, Object>> outputs = new ArrayList<Map<String, Object>>();
+		outputs.add(output(spentTxid, 1));
+		outputs.add(output("a2", 4));
+		Map<String, Object> transaction = new LinkedHashMap<String, Object>();
+		transaction.put("txid", "b1");
+		Map<String, Object> vin = new LinkedHashMap<String, Object>();
+		vin.put("txid", spentTxid);
+		vin.put("vout", 0);
+		transaction.put("vin", Collections.singletonList(vin));
+		Map<String, Object> vout = new LinkedHashMap<String, Object>();
+		vout.put("value", 2.5);
+		vout.put("n", 0);
+		vout.put("scriptPubKey", Collections.singletonMap("addresses", Collections.singletonList(ADDRESS)));
+		vout.put("assets", new ArrayList<Object>());
+		transaction.put("vout", Collections.singletonList(vout));
+		StubMultiChainServer server = server(outputs, Collections.<String, Object> singletonMap("b1", transaction));
+		MultiChainCommand multiChainCommand = new MultiChainCommand("127.0.0.1", server.getPort(),
+				TestConst.MULTICHAIN_SERVER_LOGIN, TestConst.MULTICHAIN_SERVER_PWD);
+		try {
+			UnspentTracker tracker = new UnspentTracker(multiChainCommand, null, null);
+			tracker.track(ADDRESS);
+			UnspentTracker.Reservation reservation = tracker.reserve(ADDRESS,
+					Collections.singletonList(currency(0.5)));
+			assertEquals(spentTxid, reservation.getInputs().get(0).getTxId());
+			assertEquals(0.5, (Double) reservation.getAmounts().get(ADDRESS), 0);
+
+			// spends output 0 of the transaction 01..00 to an empty script
+			reservation.spent("01000000" + "01" + String.format("%064x", 1) + "00000000" + "00" + "ffffffff" + "01"
+					+ "0000000000000000" + "00" + "00000000");
+			assertEquals(Collections.singletonList("a2"), txids(tracker.getUnspent(ADDRESS)));
+
+			Block block = new Block();
+			block.setTx(Collections.singletonList("b1"));
+			tracker.blockConnected(block);
+			assertEquals(Arrays.asList("a2", "b1"), txids(tracker.getUnspent(ADDRESS)));
+			assertEquals(6.5, tracker.getAvailable(ADDRESS).get(""), 0);
+
+			// loaded again before the next selection
+			tracker.blockDisconnected(block);
+			tracker.reserve(ADDRESS, Collections.singletonList(currency(1)));
+			assertEquals(2, tracker.getLoads());
+		} finally {
+			multiChainCommand.close();
+			server.stop();
+		}
+	}
+
+	private static List<String> txids(List<UnspentOutput> outputs) {
+		List<String> txids = new ArrayList<String>();
+		for (UnspentOutput output : outputs) {
+			txids.add(output.getTxid());
+		}
+		Set<String> unique = new HashSet<String>(txids);
+		assertEquals(unique.size(), txids.size());
+		return txids;
+	}
+}
@@ -0,0 +1,93 @@
+/*
+ * Copyright (C) 2017 Worldline, Inc.
+ *
+ * MultiChainJavaAPI code distributed under the GPLv3 license, see COPYING file.
+ * https://github.com/SimplyUb/MultiChainJavaAPI/blob/master/LICENSE
+ *
+ */
+package multichain.object;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import org.junit.Test;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+
+import multichain.object.formatters.GsonRegistry;
+
+/**
+ * The hand-written adapters read and write like the reflective adapter of Gson.
+ *
+ * @author Ub - H. MARTEAU
+ * @version 4.15
+ */
+public class DomainTypeAdapterTest {
+	private final Gson reflective = new GsonBuilder().create();
+	private final Gson registry = GsonRegistry.get();
+
+	private <T> void assertSameAsReflective(String json, Class<T> type) {
+		T expected = reflective.fromJson(json, type);
+		T actual = registry.fromJson(json, type);
+
+		// compared through the reflective writer, then the adapter writer
+		assertEquals(reflective.toJson(expected), reflective.toJson(actual));
+		assertEquals(reflective.toJson(expected), registry.toJson(actual));
+	}
+
+	@Test
+	public void testStreamKeyItem() {
+		assertSameAsReflective("{\"publishers\":[\"1HrciBAMdcPbSfDoXDyDpDUnb44Dg8sH4WfVyP\"],\"key\":\"key1\","
+				+ "\"data\":\"0a0b\",\"confirmations\":12,\"blockhash\":\"00ab\",\"blockindex\":3,"
+				+ "\"blocktime\":1500000000,\"txid\":\"tx1\",\"vout\":0,\"valid\":true,\"time\":1500000000,"
+				+ "\"timereceived\":1500000001,\"unknown\":{\"a\":[1,2]}}", StreamKeyItem.class);
+	}
+
+	@Test
+	public void testBlock() {
+		assertSameAsReflective("{\"hash\":\"00ab\",\"miner\":\"1Hrci\",\"confirmations\":-1,\"size\":250,"
+				+ "\"height\":12,\"version\":3,\"merkleroot\":\"cd\",\"tx\":[\"tx1\",\"tx2\"],\"time\":1500000000,"
+				+ "\"nonce\":42,\"bits\":\"1d00ffff\",\"difficulty\":1.5E-8,\"chainwork\":\"ef\","
+				+ "\"previousblockhash\":\"00aa\",\"nextblockhash\":null}", Block.class);
+	}
+
+	@Test
+	public void testTxOutWithAssets() {
+		assertSameAsReflective("{\"bestblock\":\"00ab\",\"confirmations\":2,\"value\":0.5,"
+				+ "\"scriptPubKey\":{\"asm\":\"OP_DUP\",\"hex\":\"76a9\",\"reqSigs\":1,\"type\":\"pubkeyhash\","
+				+ "\"addresses\":[\"1Hrci\"]},\"version\":1,\"coinbase\":false,\"assets\":[{\"name\":\"asset1\","
+				+ "\"issuetxid\":\"tx0\",\"assetref\":\"12-265-1234\",\"qty\":10.5,\"raw\":1050,"
+				+ "\"details\":{\"origin\":\"fr\"},\"open\":true}]}", TxOut.class);
+	}
+
+	@Test
+	public void testPermission() {
+		assertSameAsReflective("{\"address\":\"1Hrci\",\"type\":\"send\",\"startblock\":0,"
+				+ "\"endblock\":4294967295}", Permission.class);
+	}
+
+	@Test
+	public void testTransactionRAW() {
+		assertSameAsReflective("{\"txid\":\"tx1\",\"version\":1,\"locktime\":0,\"vin\":[{\"txid\":\"tx0\","
+				+ "\"vout\":1,\"sequence\":4294967295}],\"vout\":[{\"value\":0.0,\"n\":0,"
+				+ "\"scriptPubKey\":{\"type\":\"nulldata\"}}],\"data\":[\"0a0b\"]}", TransactionRAW.class);
+	}
+
+	@Test
+	public void testTransactionWalletDetailed() {
+		assertSameAsReflective("{\"balance\":{\"amount\":0.0,\"assets\":[]},\"myaddresses\":[\"1Hrci\"],"
+				+ "\"addresses\":[],\"permissions\":[],\"items\":[],\"data\":[],\"confirmations\":4,"
+				+ "\"blockhash\":\"00ab\",\"blockindex\":1,\"blocktime\":1500000000,\"txid\":\"tx1\","
+				+ "\"valid\":true,\"time\":1500000000,\"timereceived\":1500000000,\"hex\":\"0100\"}",
+				TransactionWalletDetailed.class);
+	}
+
+	@Test
+	public void testNullAndMissingFields() {
+		assertNull(registry.fromJson("null", StreamKeyItem.class));
+		assertSameAsReflective("{}", TransactionWalletDetailed.class);
+		assertSameAsReflective("{\"assets\":null}", TxOut.class);
+		assertSameAsReflective("{\"qty\":\"12.5\",\"raw\":\"1250\",\"subscribed\":\"true\"}", BalanceAsset.class);
+	}
+}
@@ -0,0 +1,125 @@
+/*
+ * Copyright (C) 2017 Worldline, Inc.
+ *
+ * MultiChainJavaAPI code distributed under the GPLv3 license, see COPYING file.
+ * https://github.com/SimplyUb/MultiChainJavaAPI/blob/master/LICENSE
+ *
+ */
+package multichain.object;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.google.gson.Gson;
+
+import multichain.object.formatters.GsonRegistry;
+
+/**
+ * Columnar storage of {@link StreamKeyItem}, compared through their JSON.
+ *
+ * @author Ub - H. MARTEAU
+ * @version 4.15
+ */
+public class StreamKeyItemBatchTest {
+	private final Gson gson = GsonRegistry.get();
+
+	private static List<StreamKeyItem> items(int count) {
+		List<StreamKeyItem> items = new ArrayList<StreamKeyItem>();
+		for (int i = 0; i < count; i++) {
+			StreamKeyItem item = new StreamKeyItem();
+			item.setPublishers(Arrays.asList("1Publisher" + (i % 3)));
+			item.setKey("key" + (i % 100));
+			item.setData(String.format("%064x", i));
+			item.setConfirmations(count - i);
+			item.setBlockhash(String.format("%064x", i / 50));
+			item.setBlockindex(i % 50);
+			item.setBlocktime(1500000000L + i / 50);
+			item.setTxid(String.format("%064x", 1000000 + i));
+			item.setVout(0);
+			item.setValid(true);
+			item.setTime(1500000000L + i / 50);
+			item.setTimereceived(1500000000L + i / 50);
+			items.add(item);
+		}
+		return items;
+	}
+
+	@Test
+	public void testLosslessConversion() {
+		List<StreamKeyItem> items = items(1000);
+		// unconfirmed, without optional fields
+		StreamKeyItem unconfirmed = new StreamKeyItem();
+		unconfirmed.setKey("key1");
+		unconfirmed.setTxid(String.format("%064x", 1));
+		unconfirmed.setData("");
+		items.add(unconfirmed);
+		// not canonical hexadecimal
+		StreamKeyItem other = new StreamKeyItem();
+		other.setPublishers(new ArrayList<String>());
+		other.setTxid("tx1");
+		other.setData("0A0B");
+		other.setValid(false);
+		items.add(other);
+
+		StreamKeyItemBatch batch = StreamKeyItemBatch.of(items);
+		assertEquals(1002, batch.size());
+		assertEquals(gson.toJson(items), gson.toJson(batch.toList()));
+	}
+
+	@Test
+	public void testAccessors() {
+		StreamKeyItemBatch batch = new StreamKeyItemBatch();
+		for (StreamKeyItem item : items(300)) {
+			batch.add(item);
+		}
+		StreamKeyItem other = new StreamKeyItem();
+		other.setTxid("tx1");
+		other.setData("not hex");
+		batch.add(other);
+
+		assertEquals(String.format("%064x", 1000042), batch.getTxid(42));
+		byte[] txid = new byte[32];
+		assertTrue(batch.copyTxid(42, txid, 0));
+		assertEquals((byte) (1000042 >> 16), txid[29]);
+		assertEquals((byte) 1000042, txid[31]);
+		assertFalse(batch.copyTxid(300, txid, 0));
+
+		assertEquals("key42", batch.getKey(42));
+		assertEquals("key42", batch.getKeyDictionary().get(batch.getKeyCode(42)));
+		assertEquals(100, batch.getKeyDictionary().size());
+		assertEquals(-1, batch.getKeyCode(300));
+		assertEquals(Arrays.asList("1Publisher0"), batch.getPublishers(42));
+		assertNull(batch.getPublishers(300));
+
+		assertEquals(32, batch.getDataLength(42));
+		byte[] data = new byte[32];
+		assertEquals(32, batch.copyData(42, data, 0));
+		assertEquals(42, data[31]);
+		assertArrayEquals(data, batch.getDataBytes(42));
+		assertEquals("not hex", batch.getData(300));
+		assertNull(batch.getDataBytes(300));
+
+		assertEquals(Long.valueOf(258), batch.getConfirmations(42));
+		assertEquals(String.format("%064x", 0), batch.getBlockhash(42));
+		assertEquals(Long.valueOf(42), batch.getBlockindex(42));
+		assertEquals(Boolean.TRUE, batch.getValid(42));
+		assertNull(batch.getValid(300));
+		assertNull(batch.getVout(300));
+	}
+
+	@Test
+	public void testSmallerThanTheItems() {
+		StreamKeyItemBatch batch = StreamKeyItemBatch.of(items(10000));
+		// 32 bytes of txid and data, a few numbers and codes per item
+		assertTrue(batch.estimateHeapBytes() / batch.size() < 200);
+	}
+}
@@ -0,0 +1,202 @@
+/*
+ * Copyright (C) 2017 Worldline, Inc.
+ *
+ * MultiChainJavaAPI code distributed under the GPLv3 license, see COPYING file.
+ * https://github.com/SimplyUb/MultiChainJavaAPI/blob/master/LICENSE
+ *
+ */
+package multichain.object;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.Test;
+
+import com.google.gson.Gson;
+
+import multichain.object.formatters.Base58;
+import multichain.object.formatters.GsonRegistry;
+import multichain.object.formatters.HexCodec;
+import multichain.object.formatters.Ripemd160;
+
+/**
+ * Local decoding of raw transactions, against the output of
+ * decoderawtransaction.
+ *
+ * @author Ub - H. MARTEAU
+ * @version 4.15
+ */
+public class TransactionRAWDecoderTest {
+	private static final String GENESIS_HEX = "01000000010000000000000000000000000000000000000000000000000000000000000000"
+			+ "ffffffff4d04ffff001d0104455468652054696d65732030332f4a616e2f32303039204368616e63656c6c6f72206f6e2062"
+			+ "72696e6b206f66207365636f6e64206261696c6f757420666f722062616e6b73ffffffff0100f2052a010000004341046"
+			+ "78afdb0fe5548271967f1a67130b7105cd6a828e03909a67962e0ea1f61deb649f6bc3f4cef38c4f35504e51ec112de5c"
+			+ "384df7ba0b8d578a4c702b6bf11d5fac00000000";
+	private static final String GENESIS_PUBKEY = "04678afdb0fe5548271967f1a67130b7105cd6a828e03909a67962e0ea1f61deb6"
+			+ "49f6bc3f4cef38c4f35504e51ec112de5c384df7ba0b8d578a4c702b6bf11d5f";
+	/** decoderawtransaction of the genesis transaction of bitcoin */
+	private static final String GENESIS_JSON = "{\"txid\":\"4a5e1e4baab89f3a32518a88c31bc87f618f76673e2cc77ab2127b7afdeda33b\","
+			+ "\"version\":1,\"locktime\":0,\"vin\":[{\"coinbase\":\"04ffff001d0104455468652054696d65732030332f4a616e2f"
+			+ "32303039204368616e63656c6c6f72206f6e206272696e6b206f66207365636f6e64206261696c6f757420666f72206261"
+			+ "6e6b73\",\"sequence\":4294967295}],\"vout\":[{\"value\":50.00000000,\"n\":0,\"scriptPubKey\":{\"asm\":\""
+			+ GENESIS_PUBKEY + " OP_CHECKSIG\",\"hex\":\"41" + GENESIS_PUBKEY + "ac\",\"reqSigs\":1,\"type\":\"pubkey\","
+			+ "\"addresses\":[\"1A1zP1eP5QGefi2DMPTfTL5SLmv7DivfNa\"]}}]}";
+
+	/**
+	 * A transaction of a chain with 4 version bytes, spending a pay to public
+	 * key hash output, with outputs for an asset, permissions, a stream item,
+	 * metadata, a script hash and a multisig.
+	 */
+	private static final String MULTICHAIN_HEX = "0100000001000102030405060708090a0b0c0d0e0f101112131415161718191a1b1c1d"
+			+ "1e1f010000006a47302222222222222222222222222222222222222222222222222222222222222222222222222222222222"
+			+ "2222222222222222222222222222222222222222222222222222222201210211111111111111111111111111111111111111"
+			+ "11111111111111111111111111ffffffff0600000000000000003776a914000102030405060708090a0b0c0d0e0f10111213"
+			+ "88ac1c73706b71908f7e6d5c4b3a291807f6e5d4c3b2a1dc050000000000007500000000000000002b76a914141516171819"
+			+ "1a1b1c1d1e1f202122232425262788ac1073706b70060000000a00000014000000750000000000000000271473706b65f0e1"
+			+ "d2c3b4a5968778695a4b3c2d1e0f750873706b6b6b657931756a0568656c6c6f0000000000000000066a046d65746180b2e6"
+			+ "0e0000000017a91428292a2b2c2d2e2f303132333435363738393a3b87010000000000000047512102111111111111111111"
+			+ "1111111111111111111111111111111111111111111111210333333333333333333333333333333333333333333333333333"
+			+ "3333333333333352ae00000000";
+	private static final String ISSUE_TXID = "a1b2c3d4e5f60718293a4b5c6d7e8f9000000000000000000000000000000000";
+	private static final String CREATE_TXID = "0f1e2d3c4b5a69788796a5b4c3d2e1f0ffffffffffffffffffffffffffffffff";
+
+	private final Gson gson = GsonRegistry.get();
+
+	private static TransactionRAWDecoder multichainDecoder() {
+		return new TransactionRAWDecoder("00d7fa1a", "05f44c4e", "8ac7c2a9", 100000000);
+	}
+
+	@Test
+	public void testSameAsTheNode() {
+		TransactionRAW expected = gson.fromJson(GENESIS_JSON, TransactionRAW.class);
+		TransactionRAW decoded = new TransactionRAWDecoder().decode(GENESIS_HEX);
+		assertEquals(gson.toJson(expected), gson.toJson(decoded));
+		assertEquals(gson.toJson(decoded), gson.toJson(new TransactionRAWDecoder().decode(HexCodec.decode(GENESIS_HEX))));
+	}
+
+	@Test
+	public void testMultiChainExtensions() {
+		TransactionRAWDecoder decoder = multichainDecoder();
+		TransactionRAW transaction = decoder.decode(MULTICHAIN_HEX);
+		assertEquals("3c903e2cc472eb284b92f72529a26ef75d90fba818827afe66fc5a2e657a21c6", transaction.getTxid());
+		assertEquals(6, transaction.vout.size());
+
+		TransactionRAWVin input = transaction.vin.get(0);
+		assertEquals("1f1e1d1c1b1a191817161514131211100f0e0d0c0b0a09080706050403020100", input.getTxid());
+		assertEquals(1, input.getVout());
+		assertNull(input.getCoinbase());
+		assertTrue(input.getScriptSig().getAsm().endsWith("01 021111111111111111111111111111111111111111111111111111111111111111"));
+
+		ScriptPubKey asset = transaction.vout.get(0).scriptPubKey;
+		assertEquals("pubkeyhash", asset.getType());
+		assertEquals(Arrays.asList("112npUarsjCNxrQkBYBSUvFZ8qRy41hfC1R9k"), asset.getAddresses());
+		assertEquals("OP_DUP OP_HASH160 000102030405060708090a0b0c0d0e0f10111213 OP_EQUALVERIFY OP_CHECKSIG "
+				+ "73706b71908f7e6d5c4b3a291807f6e5d4c3b2a1dc05000000000000 OP_DROP", asset.getAsm());
+		BalanceAsset quantity = transaction.vout.get(0).assets.get(0);
+		assertEquals(Long.valueOf(1500), quantity.raw);
+		assertEquals(ISSUE_TXID.substring(0, 32), quantity.issuetxid);
+		assertNull(quantity.name);
+
+		Permission permission = transaction.vout.get(1).permissions.get(0);
+		assertEquals(2, transaction.vout.get(1).permissions.size());
+		assertEquals("13iRfNTWeD5UJr3WoUqwYAZauQqzaUZ5RwSakY", permission.address);
+		assertEquals("send", permission.type);
+		assertEquals(Long.valueOf(10), permission.startblock);
+		assertEquals(Long.valueOf(20), permission.endblock);
+		assertEquals("receive", transaction.vout.get(1).permissions.get(1).type);
+
+		TransactionRAWVout streamOutput = transaction.vout.get(2);
+		assertEquals("nulldata", streamOutput.scriptPubKey.getType());
+		Item item = streamOutput.items.get(0);
+		assertEquals("stream", item.type);
+		assertNull(item.name);
+		assertEquals("key1", item.key);
+		assertEquals(HexCodec.encode("hello".getBytes(StandardCharsets.UTF_8)), item.data);
+		assertEquals(Arrays.asList("1QWtRyCBzuB8rinoTuNsp7x4trDHFebmgZWe3x"), item.publishers);
+
+		// pushes of 4 bytes or less are numbers in the asm
+		assertEquals("OP_RETURN 1635018093", transaction.vout.get(3).scriptPubKey.getAsm());
+		assertEquals(Collections.singletonList("6d657461"), transaction.data);
+
+		ScriptPubKey scriptHash = transaction.vout.get(4).scriptPubKey;
+		assertEquals(2.5, transaction.vout.get(4).getValue(), 0);
+		assertEquals("scripthash", scriptHash.getType());
+		assertEquals(Arrays.asList("45Ri6aGA6ypUuBCn6cNiT1C8uz7ChTPtmBqfgL"), scriptHash.getAddresses());
+
+		ScriptPubKey multisig = transaction.vout.get(5).scriptPubKey;
+		assertEquals("multisig", multisig.getType());
+		assertEquals(1, multisig.getReqSigs());
+		assertEquals(Arrays.asList("1QWtRyCBzuB8rinoTuNsp7x4trDHFebmgZWe3x", "1J8fgvH4RV6VUAgYYbYyCZToEsKJfaSN9fREit"),
+				multisig.getAddresses());
+	}
+
+	@Test
+	public void testRegisteredEntities() {
+		TransactionRAWDecoder decoder = multichainDecoder();
+		BalanceAsset asset = new BalanceAsset();
+		asset.name = "asset1";
+		asset.issuetxid = ISSUE_TXID;
+		asset.assetref = "60-266-45729";
+		asset.multiple = 100L;
+		decoder.registerAsset(asset);
+		Stream stream = new Stream();
+		stream.name = "stream1";
+		stream.createtxid = CREATE_TXID;
+		stream.streamref = "53-267-7695";
+		decoder.registerStream(stream);
+
+		ByteBuffer buffer = ByteBuffer.allocateDirect(MULTICHAIN_HEX.length() / 2 + 3);
+		buffer.put(new byte[3]);
+		HexCodec.decode(MULTICHAIN_HEX, buffer);
+		buffer.flip().position(3);
+		TransactionRAW transaction = decoder.decode(buffer);
+		assertTrue(!buffer.hasRemaining());
+
+		BalanceAsset quantity = transaction.vout.get(0).assets.get(0);
+		assertEquals("asset1", quantity.name);
+		assertEquals(ISSUE_TXID, quantity.issuetxid);
+		assertEquals("60-266-45729", quantity.assetref);
+		assertEquals(Double.valueOf(15), quantity.qty);
+		Item item = transaction.vout.get(2).items.get(0);
+		assertEquals("stream1", item.name);
+		assertEquals("53-267-7695", item.streamref);
+	}
+
+	@Test
+	public void testInvalidTransactions() {
+		TransactionRAWDecoder decoder = new TransactionRAWDecoder();
+		try {
+			decoder.decode(GENESIS_HEX.substring(0, GENESIS_HEX.length() - 10));
+			fail("truncated transaction expected");
+		} catch (IllegalArgumentException e) {
+			assertTrue(e.getMessage().contains("truncated"));
+		}
+		try {
+			decoder.decode(GENESIS_HEX + "00");
+			fail("trailing bytes expected");
+		} catch (IllegalArgumentException e) {
+			assertTrue(e.getMessage().contains("1 bytes after"));
+		}
+	}
+
+	@Test
+	public void testHashesAndBase58() {
+		assertEquals("9c1185a5c5e9fc54612808977ee8f548b2258d31", HexCodec.encode(Ripemd160.digest(new byte[0])));
+		assertEquals("8eb208f7e05d987a9b044a8e98c6b087f15a0bfc",
+				HexCodec.encode(Ripemd160.digest("abc".getBytes(StandardCharsets.US_ASCII))));
+		byte[] bytes = HexCodec.decode("00000a0b0c0d0e0f");
+		assertEquals("116152VHZY", Base58.encode(bytes));
+		assertArrayEquals(bytes, Base58.decode(Base58.encode(bytes)));
+		byte[] address = Base58.decode("1A1zP1eP5QGefi2DMPTfTL5SLmv7DivfNa");
+		assertEquals(25, address.length);
+		assertArrayEquals(Ripemd160.hash160(HexCodec.decode(GENESIS_PUBKEY)), Arrays.copyOfRange(address, 1, 21));
+	}
+}
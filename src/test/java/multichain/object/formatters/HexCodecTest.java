@@ -0,0 +1,130 @@
+/*
+ * Copyright (C) 2017 Worldline, Inc.
+ *
+ * MultiChainJavaAPI code distributed under the GPLv3 license, see COPYING file.
+ * https://github.com/SimplyUb/MultiChainJavaAPI/blob/master/LICENSE
+ *
+ */
+package multichain.object.formatters;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.apache.commons.codec.binary.Hex;
+import org.junit.Test;
+
+import multichain.object.StreamKeyItem;
+
+/**
+ * {@link HexCodec} against the Hex of commons-codec.
+ *
+ * @author Ub - H. MARTEAU
+ * @version 4.15
+ */
+public class HexCodecTest {
+	private final byte[] bytes = new byte[1000];
+
+	public HexCodecTest() {
+		new Random(42).nextBytes(bytes);
+	}
+
+	@Test
+	public void testRoundTrip() throws Exception {
+		String hex = HexCodec.encode(bytes);
+		assertEquals(Hex.encodeHexString(bytes), hex);
+		assertArrayEquals(bytes, HexCodec.decode(hex));
+		assertArrayEquals(bytes, HexCodec.decode(hex.toUpperCase()));
+		assertTrue(HexCodec.isLowerCaseHex(hex));
+		assertFalse(HexCodec.isLowerCaseHex(hex.toUpperCase()));
+
+		assertEquals(hex.substring(20, 40), HexCodec.encode(bytes, 10, 10));
+		char[] chars = new char[24];
+		HexCodec.encode(bytes, 10, 10, chars, 2);
+		assertEquals(hex.substring(20, 40), new String(chars, 2, 20));
+		byte[] decoded = new byte[12];
+		assertEquals(10, HexCodec.decode(hex, 20, 40, decoded, 1));
+		assertArrayEquals(Arrays.copyOfRange(bytes, 10, 20), Arrays.copyOfRange(decoded, 1, 11));
+	}
+
+	@Test
+	public void testByteBuffers() {
+		ByteBuffer buffer = ByteBuffer.allocateDirect(bytes.length);
+		assertEquals(bytes.length, HexCodec.decode(HexCodec.encode(bytes), buffer));
+		buffer.flip();
+		assertEquals(HexCodec.encode(bytes), HexCodec.encode(buffer));
+		assertFalse(buffer.hasRemaining());
+	}
+
+	@Test
+	public void testInvalidInput() {
+		try {
+			HexCodec.decode("0a0g");
+			fail("invalid digit expected");
+		} catch (IllegalArgumentException e) {
+			assertTrue(e.getMessage().contains("at 3"));
+		}
+		try {
+			HexCodec.decode("0a0");
+			fail("odd length expected");
+		} catch (IllegalArgumentException e) {
+			assertTrue(e.getMessage().contains("odd"));
+		}
+		try {
+			HexCodec.decode("0a\u00e90");
+			fail("invalid digit expected");
+		} catch (IllegalArgumentException e) {
+			assertTrue(e.getMessage().contains("at 2"));
+		}
+		assertNull(HexFormatter.fromHex("zz"));
+		assertEquals("h\u00e9llo", HexFormatter.fromHex(HexFormatter.toHex("h\u00e9llo")));
+	}
+
+	@Test
+	public void testDecoderWithChunksOfAnyLength() {
+		String hex = HexCodec.encode(bytes);
+		HexCodec.Decoder decoder = new HexCodec.Decoder();
+		byte[] decoded = new byte[bytes.length];
+		int length = 0;
+		int start = 0;
+		for (int chunk = 1; start < hex.length(); chunk = chunk % 7 + 1) {
+			int end = Math.min(hex.length(), start + chunk);
+			length += decoder.decode(hex.subSequence(start, end), decoded, length);
+			start = end;
+		}
+		decoder.finish();
+		assertArrayEquals(bytes, decoded);
+
+		decoder.decode("0a0", decoded, 0);
+		try {
+			decoder.finish();
+			fail("odd length expected");
+		} catch (IllegalArgumentException e) {
+			assertTrue(e.getMessage().contains("odd"));
+		}
+		try {
+			decoder.decode("0a", decoded, 0);
+			decoder.decode("x", decoded, 0);
+			fail("invalid digit expected");
+		} catch (IllegalArgumentException e) {
+			assertTrue(e.getMessage().contains("after 2"));
+		}
+	}
+
+	@Test
+	public void testStreamKeyItemBytes() {
+		StreamKeyItem item = new StreamKeyItem();
+		item.setDataBytes(bytes);
+		assertEquals(Hex.encodeHexString(bytes), item.getData());
+		assertArrayEquals(bytes, item.getDataBytes());
+		item.setDataBytes(null);
+		assertNull(item.getDataBytes());
+	}
+}
@@ -0,0 +1,152 @@
+/*
+ * Copyright (C) 2017 Worldline, Inc.
+ *
+ * MultiChainJavaAPI code distributed under the GPLv3 license, see COPYING file.
+ * https://github.com/SimplyUb/MultiChainJavaAPI/blob/master/LICENSE
+ *
+ */
+package multichain.object.formatters;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+
+import multichain.object.MultiChainRPCAnswer;
+import multichain.object.StreamKeyItem;
+
+/**
+ * Decoding of a large liststreamitems answer :
+ * <ul>
+ * <li>stringRoundTrip : answer parsed to LinkedTreeMap, then each item written
+ * back to a String and parsed again (former formatters)</li>
+ * <li>formatterTree : answer parsed to LinkedTreeMap, then each item converted
+ * through a JSON tree (formatters still used by the untyped calls)</li>
+ * <li>typedDecodeReflective : result read once, straight into the target type,
+ * with the reflective adapters of Gson</li>
+ * <li>typedDecode : same with the adapters of {@link GsonRegistry} (typed
+ * execute)</li>
+ * </ul>
+ *
+ * Run with the main method, test classpath.
+ *
+ * @author Ub - H. MARTEAU
+ * @version 4.15
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ResultDecodingBenchmark {
+	private static final Type ITEMS_TYPE = new TypeToken<List<StreamKeyItem>>() {
+	}.getType();
+
+	@Param({ "1000", "20000" })
+	public int items;
+
+	private final Gson gson = new GsonBuilder().create();
+	private String answer;
+
+	@Setup
+	public void setUp() {
+		List<Object> result = new ArrayList<Object>();
+		for (int i = 0; i < items; i++) {
+			Map<String, Object> item = new LinkedHashMap<String, Object>();
+			item.put("publishers", Arrays.asList("1HrciBAMdcPbSfDoXDyDpDUnb44Dg8sH4WfVyP"));
+			item.put("key", "key-" + i);
+			item.put("data", "48656c6c6f20576f726c6421");
+			item.put("confirmations", 12);
+			item.put("blockhash", "00d2be6c4a6b9b6d7e9f0b1c3e5a7d9c2b4f6e8a0c1d3e5f7a9b2c4d6e8f0a1b");
+			item.put("blockindex", i % 50);
+			item.put("blocktime", 1500000000L + i);
+			item.put("txid", "5b1f0c3e7a9d2b4f6e8a0c1d3e5f7a9b2c4d6e8f0a1b3c5d7e9f1a3b5c7d9e" + i);
+			item.put("vout", 0);
+			item.put("valid", true);
+			item.put("time", 1500000000L + i);
+			item.put("timereceived", 1500000000L + i);
+			result.add(item);
+		}
+		Map<String, Object> rpcAnswer = new LinkedHashMap<String, Object>();
+		rpcAnswer.put("result", result);
+		rpcAnswer.put("error", null);
+		rpcAnswer.put("id", "1");
+		answer = gson.toJson(rpcAnswer);
+	}
+
+	@Benchmark
+	public List<StreamKeyItem> stringRoundTrip() {
+		MultiChainRPCAnswer rpcAnswer = gson.fromJson(answer, MultiChainRPCAnswer.class);
+		List<StreamKeyItem> streamKeyItems = new ArrayList<StreamKeyItem>();
+		for (Object objectStreamKeyItem : (List<?>) rpcAnswer.getResult()) {
+			Gson itemGson = new GsonBuilder().create();
+			String jsonValue = itemGson.toJson(objectStreamKeyItem);
+			streamKeyItems.add(itemGson.fromJson(jsonValue, StreamKeyItem.class));
+		}
+		return streamKeyItems;
+	}
+
+	@SuppressWarnings("unchecked")
+	@Benchmark
+	public List<StreamKeyItem> formatterTree() {
+		MultiChainRPCAnswer rpcAnswer = gson.fromJson(answer, MultiChainRPCAnswer.class);
+		return StreamFormatter.formatStreamKeyItems((List<Object>) rpcAnswer.getResult());
+	}
+
+	@Benchmark
+	public List<StreamKeyItem> typedDecodeReflective() throws IOException {
+		return readResult(gson);
+	}
+
+	@Benchmark
+	public List<StreamKeyItem> typedDecode() throws IOException {
+		return readResult(GsonRegistry.get());
+	}
+
+	private List<StreamKeyItem> readResult(Gson resultGson) throws IOException {
+		JsonReader reader = new JsonReader(new StringReader(answer));
+		List<StreamKeyItem> streamKeyItems = null;
+		reader.beginObject();
+		while (reader.hasNext()) {
+			if ("result".equals(reader.nextName())) {
+				streamKeyItems = resultGson.fromJson(reader, ITEMS_TYPE);
+			} else {
+				reader.skipValue();
+			}
+		}
+		reader.endObject();
+		return streamKeyItems;
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		Options options = new OptionsBuilder().include(ResultDecodingBenchmark.class.getSimpleName()).build();
+		new Runner(options).run();
+	}
+}